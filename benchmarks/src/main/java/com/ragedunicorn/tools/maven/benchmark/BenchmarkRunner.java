@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.openjdk.jmh.Main;
+
+/**
+ * Entry point of the benchmarks jar. Runs the benchmarks like {@link Main} but profiles
+ * allocations with the gc profiler and writes the results as json to
+ * {@code target/jmh-result.json} unless other options are passed.
+ */
+public final class BenchmarkRunner {
+  private static final String DEFAULT_RESULT_FILE = "target/jmh-result.json";
+
+  private BenchmarkRunner() {
+    // entry point only
+  }
+
+  /**
+   * Run the benchmarks.
+   *
+   * @param args JMH command line options
+   * @throws Exception If the benchmarks cannot be run
+   */
+  public static void main(String[] args) throws Exception {
+    final List<String> options = new ArrayList<>(Arrays.asList(args));
+
+    if (!options.contains("-prof")) {
+      options.addAll(Arrays.asList("-prof", "gc"));
+    }
+    if (!options.contains("-rf")) {
+      options.addAll(Arrays.asList("-rf", "json"));
+    }
+    if (!options.contains("-rff")) {
+      options.addAll(Arrays.asList("-rff", DEFAULT_RESULT_FILE));
+    }
+
+    Main.main(options.toArray(new String[0]));
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.benchmark;
+
+import com.google.common.io.ByteStreams;
+import com.ragedunicorn.tools.maven.http.MetadataPart;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares loading a changelog file into a string before sending the metadata against letting
+ * the metadata part read the file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ChangelogBenchmark {
+  // 1 KB, 1 MB and 16 MB
+  @Param({"1024", "1048576", "16777216"})
+  private int changelogSize;
+
+  private Path changelogFile;
+
+  /**
+   * Create the changelog file.
+   *
+   * @throws IOException If the file cannot be written
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    changelogFile = Fixtures.createChangelogFile(Fixtures.createChangelog(changelogSize));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Fixtures.delete(changelogFile);
+  }
+
+  /**
+   * Baseline that reads the whole file into the metadata.
+   *
+   * @return The length of the sent metadata
+   * @throws IOException If the file cannot be read
+   */
+  @Benchmark
+  public long readIntoString() throws IOException {
+    final Metadata metadata = createMetadata();
+    metadata.setChangelog(new String(Files.readAllBytes(changelogFile), StandardCharsets.UTF_8));
+
+    return send(metadata);
+  }
+
+  /**
+   * Lets the metadata part read the file once with a lenient UTF-8 decoder.
+   *
+   * @return The length of the sent metadata
+   * @throws IOException If the file cannot be read
+   */
+  @Benchmark
+  public long readByMetadataPart() throws IOException {
+    final Metadata metadata = createMetadata();
+    metadata.setChangelogFile(changelogFile);
+
+    return send(metadata);
+  }
+
+  private static Metadata createMetadata() {
+    final Metadata metadata = new Metadata();
+    metadata.setLabel("addon");
+    metadata.setStability("stable");
+    metadata.setSupportedRetailPatch("10.2.7");
+
+    return metadata;
+  }
+
+  private static long send(Metadata metadata) throws IOException {
+    final MetadataPart part = new MetadataPart("metadata", metadata);
+    part.writeTo(ByteStreams.nullOutputStream());
+
+    return part.getContentLength();
+  }
+}
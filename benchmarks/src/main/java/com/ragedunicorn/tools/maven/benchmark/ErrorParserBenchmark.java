@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.ragedunicorn.tools.maven.model.WagoApiClientError;
+import com.ragedunicorn.tools.maven.service.WagoApiErrorParser;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.util.EntityUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the bounded {@link WagoApiErrorParser} against reading the whole error response into a
+ * string and parsing it with {@link Gson}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ErrorParserBenchmark {
+  private static final Gson GSON = new Gson();
+  private static final String VALIDATION_ERROR = "{\"message\":\"The given data was invalid.\","
+          + "\"errors\":{\"file\":[\"The file must be a zip.\"],"
+          + "\"supported_retail_patch\":[\"The selected patch is invalid.\"]}}";
+
+  // a validation error, an html error page of a proxy and an oversized json response
+  @Param({"validation", "html", "oversized"})
+  private String response;
+
+  private final WagoApiErrorParser errorParser = new WagoApiErrorParser();
+  private byte[] body;
+
+  /**
+   * Create the body of the error response.
+   */
+  @Setup
+  public void setUp() {
+    final StringBuilder content = new StringBuilder();
+
+    if ("html".equals(response)) {
+      content.append("<html><head><title>502 Bad Gateway</title></head><body>");
+      while (content.length() < 8 * 1024) {
+        content.append("<p>The upstream server did not respond in time.</p>");
+      }
+      content.append("</body></html>");
+    } else if ("oversized".equals(response)) {
+      content.append("{\"message\":\"The given data was invalid.\",\"errors\":{\"file\":[");
+      for (int i = 0; content.length() < 1024 * 1024; i++) {
+        content.append(i == 0 ? "" : ",").append("\"Entry ").append(i).append(" is invalid.\"");
+      }
+      content.append("]}}");
+    } else {
+      content.append(VALIDATION_ERROR);
+    }
+
+    body = content.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public Object errorParser() throws IOException {
+    return errorParser.parseContent(new ByteArrayInputStream(body));
+  }
+
+  /**
+   * Baseline that buffers the complete response.
+   *
+   * @return The parsed error or the raw body if it is not json
+   * @throws IOException If the body cannot be read
+   */
+  @Benchmark
+  public Object entityUtilsAndGson() throws IOException {
+    final String content =
+            EntityUtils.toString(new ByteArrayEntity(body, ContentType.APPLICATION_JSON));
+
+    try {
+      return GSON.fromJson(content, WagoApiClientError.class);
+    } catch (JsonSyntaxException e) {
+      return content;
+    }
+  }
+}
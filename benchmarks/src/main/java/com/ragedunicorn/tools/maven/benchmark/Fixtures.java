@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Test data shared by the benchmarks.
+ */
+final class Fixtures {
+  private static final int CHUNK_SIZE = 1024 * 1024;
+
+  private Fixtures() {
+    // utility class
+  }
+
+  /**
+   * Create a file with random and therefore incompressible content like an already zipped addon.
+   *
+   * @param size The size of the file in bytes
+   * @return The created file inside a new temporary directory
+   * @throws IOException If the file cannot be written
+   */
+  static Path createArchive(long size) throws IOException {
+    final Path file = Files.createTempDirectory("wago-benchmark").resolve("addon.zip");
+    final Random random = new Random(size);
+    final byte[] chunk = new byte[CHUNK_SIZE];
+
+    try (OutputStream out = Files.newOutputStream(file)) {
+      for (long written = 0; written < size; written += chunk.length) {
+        random.nextBytes(chunk);
+        out.write(chunk, 0, (int) Math.min(chunk.length, size - written));
+      }
+    }
+
+    return file;
+  }
+
+  /**
+   * Create a markdown changelog of roughly the given size.
+   *
+   * @param size The size of the changelog in characters
+   * @return The changelog
+   */
+  static String createChangelog(int size) {
+    final StringBuilder changelog = new StringBuilder(size + 64);
+    final Random random = new Random(size);
+
+    for (int version = 1; changelog.length() < size; version++) {
+      changelog.append("## v").append(version).append(".0.0\n\n")
+              .append("* Fixed \"quoted\" <tooltip> & frame #").append(random.nextInt(1000))
+              .append(" \u2013 \u00fcn\u00efcode\n");
+    }
+    changelog.setLength(size);
+
+    return changelog.toString();
+  }
+
+  /**
+   * Write a changelog to a file inside a new temporary directory.
+   *
+   * @param changelog The changelog
+   * @return The created file
+   * @throws IOException If the file cannot be written
+   */
+  static Path createChangelogFile(String changelog) throws IOException {
+    final Path file = Files.createTempDirectory("wago-benchmark").resolve("CHANGELOG.md");
+    Files.write(file, changelog.getBytes(StandardCharsets.UTF_8));
+
+    return file;
+  }
+
+  /**
+   * Remove a file created by the fixtures together with its temporary directory.
+   *
+   * @param file The file to remove
+   * @throws IOException If the directory cannot be listed
+   */
+  static void delete(Path file) throws IOException {
+    if (file == null) {
+      return;
+    }
+
+    try (Stream<Path> paths = Files.walk(file.getParent())) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+}
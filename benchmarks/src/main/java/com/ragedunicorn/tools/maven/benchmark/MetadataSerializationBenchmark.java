@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.benchmark;
+
+import com.google.common.io.ByteStreams;
+import com.google.gson.Gson;
+import com.ragedunicorn.tools.maven.http.MetadataPart;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares serializing the release metadata into a json string with {@link Gson} against the
+ * {@link MetadataPart} that is sent with every upload and encodes the json once for all attempts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MetadataSerializationBenchmark {
+  private static final Gson GSON = new Gson();
+
+  @Param({"1024", "65536", "1048576"})
+  private int changelogSize;
+
+  private Metadata metadata;
+
+  /**
+   * Create the metadata of a release with a changelog of the configured size.
+   */
+  @Setup
+  public void setUp() {
+    metadata = new Metadata();
+    metadata.setLabel("addon");
+    metadata.setStability("stable");
+    metadata.setChangelog(Fixtures.createChangelog(changelogSize));
+    metadata.setSupportedRetailPatch("10.2.7");
+    metadata.setSupportedWotlkcPatch("3.4.3");
+    metadata.setSupportedClassicPatch("1.15.2");
+  }
+
+  /**
+   * Baseline that builds the whole json document in memory before encoding it.
+   *
+   * @return The encoded json document
+   */
+  @Benchmark
+  public byte[] gson() {
+    return GSON.toJson(metadata).getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Encodes the json document once for its length and the written body.
+   *
+   * @return The length of the json document
+   * @throws IOException If the document cannot be written
+   */
+  @Benchmark
+  public long metadataPart() throws IOException {
+    final MetadataPart part = new MetadataPart("metadata", metadata);
+    part.writeTo(ByteStreams.nullOutputStream());
+
+    return part.getContentLength();
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.benchmark;
+
+import com.google.common.io.ByteStreams;
+import com.ragedunicorn.tools.maven.http.FilePart;
+import com.ragedunicorn.tools.maven.http.MetadataPart;
+import com.ragedunicorn.tools.maven.http.RequestBody;
+import com.ragedunicorn.tools.maven.http.StreamingMultipartBody;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures building the multipart body of a release and writing it to a stream that discards
+ * all data. Building must not depend on the archive size while writing should only copy the
+ * archive without allocating per byte.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MultipartEntityBenchmark {
+  // 100 KB, 10 MB, 100 MB and 1 GB
+  @Param({"102400", "10485760", "104857600", "1073741824"})
+  private long archiveSize;
+
+  private Path archive;
+  private Metadata metadata;
+
+  /**
+   * Create the archive and the metadata of the release.
+   *
+   * @throws IOException If the archive cannot be created
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    archive = Fixtures.createArchive(archiveSize);
+    metadata = new Metadata();
+    metadata.setLabel("addon");
+    metadata.setStability("stable");
+    metadata.setChangelog(Fixtures.createChangelog(4096));
+    metadata.setSupportedRetailPatch("10.2.7");
+    metadata.setSupportedClassicPatch("1.15.2");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Fixtures.delete(archive);
+  }
+
+  @Benchmark
+  public long build() {
+    return createEntity().getContentLength();
+  }
+
+  @Benchmark
+  public void writeTo() throws IOException {
+    createEntity().writeTo(ByteStreams.nullOutputStream());
+  }
+
+  private RequestBody createEntity() {
+    return StreamingMultipartBody
+            .create()
+            .addPart(new MetadataPart("metadata", metadata))
+            .addPart(new FilePart("file", archive, "application/octet-stream",
+                    metadata.getLabel()))
+            .build();
+  }
+}
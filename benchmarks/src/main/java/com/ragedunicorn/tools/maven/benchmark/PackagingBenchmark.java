@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.benchmark;
+
+import com.ragedunicorn.tools.maven.archive.DirectoryArchive;
+import com.ragedunicorn.tools.maven.archive.ParallelZipPackager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares packaging an addon directory with a single threaded {@link ZipOutputStream} against
+ * the {@link ParallelZipPackager}. Archives are written to a stream that discards all data to
+ * measure compression only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PackagingBenchmark {
+  @Param({"50", "500"})
+  private int fileCount;
+
+  @Param({"4096", "262144"})
+  private int fileSize;
+
+  @Param({"1", "0"})
+  private int parallelism;
+
+  private Path directory;
+  private List<DirectoryArchive.ArchiveEntry> entries;
+
+  /**
+   * Create an addon directory with lua like, compressible content.
+   *
+   * @throws IOException If the directory cannot be created
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("wago-benchmark").resolve("MyAddon");
+    Files.createDirectories(directory);
+    final Random random = new Random(fileCount);
+
+    for (int i = 0; i < fileCount; i++) {
+      final StringBuilder content = new StringBuilder(fileSize);
+
+      while (content.length() < fileSize) {
+        content.append("local value").append(random.nextInt(1000)).append(" = ")
+                .append(random.nextInt()).append('\n');
+      }
+      content.setLength(fileSize);
+      Files.write(directory.resolve("file" + i + ".lua"), content.toString().getBytes("UTF-8"));
+    }
+
+    entries = new DirectoryArchive(directory, null, null).getEntries();
+  }
+
+  /**
+   * Remove the generated addon directory.
+   *
+   * @throws IOException If the directory cannot be removed
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    try (Stream<Path> paths = Files.walk(directory.getParent())) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  /**
+   * Baseline using the jdk zip implementation on the calling thread. Independent of the
+   * parallelism parameter.
+   *
+   * @throws IOException If the archive cannot be written
+   */
+  @Benchmark
+  public void zipOutputStream() throws IOException {
+    try (ZipOutputStream zip = new ZipOutputStream(new NullOutputStream())) {
+      final byte[] buffer = new byte[64 * 1024];
+
+      for (DirectoryArchive.ArchiveEntry entry : entries) {
+        zip.putNextEntry(new ZipEntry(entry.getName()));
+
+        try (InputStream in = Files.newInputStream(entry.getPath())) {
+          int read;
+
+          while ((read = in.read(buffer)) != -1) {
+            zip.write(buffer, 0, read);
+          }
+        }
+        zip.closeEntry();
+      }
+    }
+  }
+
+  @Benchmark
+  public void parallelZipPackager() throws IOException {
+    new ParallelZipPackager(parallelism).writeTo(entries, new NullOutputStream());
+  }
+
+  private static class NullOutputStream extends OutputStream {
+    @Override
+    public void write(int b) {
+      // discard
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      // discard
+    }
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.benchmark;
+
+import com.ragedunicorn.tools.maven.WagoClient;
+import com.ragedunicorn.tools.maven.http.HttpConnectionPool;
+import com.ragedunicorn.tools.maven.log.DefaultLog;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import com.ragedunicorn.tools.maven.service.ReleaseService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a complete release through the {@link ReleaseService} against an in-process http
+ * server standing in for the Wago.io Api. The server discards the uploaded body and answers like
+ * the Api does for a successful upload. Rate limiting is disabled to measure the client only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UploadBenchmark {
+  private static final byte[] SUCCESS_RESPONSE = "OK".getBytes(StandardCharsets.UTF_8);
+
+  // 100 KB, 10 MB, 100 MB and 1 GB
+  @Param({"102400", "10485760", "104857600", "1073741824"})
+  private long archiveSize;
+
+  private Path archive;
+  private HttpServer server;
+  private HttpConnectionPool connectionPool;
+  private ReleaseService releaseService;
+  private Metadata metadata;
+
+  /**
+   * Start the stand-in server and create the archive and the release service.
+   *
+   * @throws IOException If the archive cannot be created or the server cannot be started
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    archive = Fixtures.createArchive(archiveSize);
+
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/api/projects/", UploadBenchmark::handle);
+    server.start();
+    connectionPool = new HttpConnectionPool(4, 30, 30);
+
+    final WagoClient wagoClient = new WagoClient();
+    wagoClient.setBaseUri("http://localhost:" + server.getAddress().getPort()
+            + "/api/projects/:projectId/version");
+    wagoClient.setProjectId("benchmark");
+    wagoClient.setToken("benchmark-token");
+    wagoClient.setConnectionPool(connectionPool);
+    wagoClient.setRateLimiter(null);
+
+    releaseService = new ReleaseService(wagoClient, new DefaultLog(0));
+    releaseService.setProgressInterval(0);
+
+    metadata = new Metadata();
+    metadata.setLabel("addon");
+    metadata.setStability("stable");
+    metadata.setChangelog(Fixtures.createChangelog(4096));
+    metadata.setSupportedRetailPatch("10.2.7");
+  }
+
+  /**
+   * Stop the stand-in server and remove the archive.
+   *
+   * @throws IOException If the archive cannot be removed
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    connectionPool.close();
+    server.stop(0);
+    Fixtures.delete(archive);
+  }
+
+  @Benchmark
+  public boolean release() throws MojoExecutionException {
+    return releaseService.createReleaseOperation(metadata, archive.toString());
+  }
+
+  private static void handle(HttpExchange exchange) throws IOException {
+    final byte[] buffer = new byte[64 * 1024];
+
+    try (InputStream in = exchange.getRequestBody()) {
+      while (in.read(buffer) != -1) {
+        // discard the upload
+      }
+    }
+
+    exchange.sendResponseHeaders(201, SUCCESS_RESPONSE.length);
+
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(SUCCESS_RESPONSE);
+    }
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven;
+
+import java.util.function.Consumer;
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.ExecutionListener;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Execution listener that reports the end of every module and of the build while forwarding all
+ * events to the listener it replaces. Used to start the release of a module as soon as the module
+ * was built.
+ */
+public class ReactorReleaseListener implements ExecutionListener {
+  private final ExecutionListener delegate;
+  private final Consumer<MavenProject> projectBuilt;
+  private final Consumer<MavenProject> projectNotBuilt;
+  private final Runnable buildEnded;
+
+  /**
+   * Create a new reactor release listener.
+   *
+   * @param delegate        The listener receiving all events - may be null
+   * @param projectBuilt    Called after a project was built successfully
+   * @param projectNotBuilt Called after a project failed or was skipped
+   * @param buildEnded      Called when the build ends before the delegate prints the build result
+   */
+  public ReactorReleaseListener(ExecutionListener delegate, Consumer<MavenProject> projectBuilt,
+                                Consumer<MavenProject> projectNotBuilt, Runnable buildEnded) {
+    this.delegate = delegate;
+    this.projectBuilt = projectBuilt;
+    this.projectNotBuilt = projectNotBuilt;
+    this.buildEnded = buildEnded;
+  }
+
+  public ExecutionListener getDelegate() {
+    return delegate;
+  }
+
+  @Override
+  public void projectDiscoveryStarted(ExecutionEvent event) {
+    if (delegate != null) {
+      delegate.projectDiscoveryStarted(event);
+    }
+  }
+
+  @Override
+  public void sessionStarted(ExecutionEvent event) {
+    if (delegate != null) {
+      delegate.sessionStarted(event);
+    }
+  }
+
+  @Override
+  public void sessionEnded(ExecutionEvent event) {
+    // failures of the releases are added to the build result before it is printed
+    buildEnded.run();
+
+    if (delegate != null) {
+      delegate.sessionEnded(event);
+    }
+  }
+
+  @Override
+  public void projectSkipped(ExecutionEvent event) {
+    if (delegate != null) {
+      delegate.projectSkipped(event);
+    }
+
+    projectNotBuilt.accept(event.getProject());
+  }
+
+  @Override
+  public void projectStarted(ExecutionEvent event) {
+    if (delegate != null) {
+      delegate.projectStarted(event);
+    }
+  }
+
+  @Override
+  public void projectSucceeded(ExecutionEvent event) {
+    if (delegate != null) {
+      delegate.projectSucceeded(event);
+    }
+
+    projectBuilt.accept(event.getProject());
+  }
+
+  @Override
+  public void projectFailed(ExecutionEvent event) {
+    if (delegate != null) {
+      delegate.projectFailed(event);
+    }
+
+    projectNotBuilt.accept(event.getProject());
+  }
+
+  @Override
+  public void mojoSkipped(ExecutionEvent event) {
+    if (delegate != null) {
+      delegate.mojoSkipped(event);
+    }
+  }
+
+  @Override
+  public void mojoStarted(ExecutionEvent event) {
+    if (delegate != null) {
+      delegate.mojoStarted(event);
+    }
+  }
+
+  @Override
+  public void mojoSucceeded(ExecutionEvent event) {
+    if (delegate != null) {
+      delegate.mojoSucceeded(event);
+    }
+  }
+
+  @Override
+  public void mojoFailed(ExecutionEvent event) {
+    if (delegate != null) {
+      delegate.mojoFailed(event);
+    }
+  }
+
+  @Override
+  public void forkStarted(ExecutionEvent event) {
+    if (delegate != null) {
+      delegate.forkStarted(event);
+    }
+  }
+
+  @Override
+  public void forkSucceeded(ExecutionEvent event) {
+    if (delegate != null) {
+      delegate.forkSucceeded(event);
+    }
+  }
+
+  @Override
+  public void forkFailed(ExecutionEvent event) {
+    if (delegate != null) {
+      delegate.forkFailed(event);
+    }
+  }
+
+  @Override
+  public void forkedProjectStarted(ExecutionEvent event) {
+    if (delegate != null) {
+      delegate.forkedProjectStarted(event);
+    }
+  }
+
+  @Override
+  public void forkedProjectSucceeded(ExecutionEvent event) {
+    if (delegate != null) {
+      delegate.forkedProjectSucceeded(event);
+    }
+  }
+
+  @Override
+  public void forkedProjectFailed(ExecutionEvent event) {
+    if (delegate != null) {
+      delegate.forkedProjectFailed(event);
+    }
+  }
+}
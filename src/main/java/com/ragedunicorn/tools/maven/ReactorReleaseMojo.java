@@ -0,0 +1,543 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven;
+
+import com.ragedunicorn.tools.maven.archive.ArchiveValidator;
+import com.ragedunicorn.tools.maven.http.HttpConnectionPool;
+import com.ragedunicorn.tools.maven.http.TransportType;
+import com.ragedunicorn.tools.maven.log.MavenLog;
+import com.ragedunicorn.tools.maven.log.WagoReleaseLogger;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import com.ragedunicorn.tools.maven.model.ReleaseMetrics;
+import com.ragedunicorn.tools.maven.model.ReleaseReport;
+import com.ragedunicorn.tools.maven.model.ReleaseRequest;
+import com.ragedunicorn.tools.maven.model.ReleaseResult;
+import com.ragedunicorn.tools.maven.service.ReleasePipeline;
+import com.ragedunicorn.tools.maven.service.ReleaseReportWriter;
+import com.ragedunicorn.tools.maven.service.ReleaseService;
+import com.ragedunicorn.tools.maven.service.RetryPolicy;
+import com.ragedunicorn.tools.maven.service.WagoApiErrorParser;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.execution.BuildFailure;
+import org.apache.maven.execution.BuildSuccess;
+import org.apache.maven.execution.BuildSummary;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.settings.Server;
+import org.apache.maven.settings.Settings;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+/**
+ * Releases every module of the reactor that configures a release in one pass. The release of a
+ * module is read from the configuration of this plugin in the module and starts as soon as the
+ * module was built. Releases run in a bounded pipeline and one summary of all releases is printed
+ * at the end of the build.
+ */
+@Mojo(name = "wago-release-reactor", aggregator = true, threadSafe = true)
+public class ReactorReleaseMojo extends AbstractMojo {
+  // key of this plugin in the build section of a module
+  static final String PLUGIN_KEY = "com.ragedunicorn.tools.maven:wago-release-maven-plugin";
+  // goal whose execution configuration describes the release of a module
+  static final String RELEASE_GOAL = "wago-release";
+
+  // The base uri of the Wago.io Api
+  @Parameter(property = "baseUri",
+          defaultValue = "https://addons.wago.io/api/projects/:projectId/version")
+  private String baseUri;
+
+  // The Wago.io Api token. Prefer the server parameter to keep the token out of the pom
+  @Parameter(property = "authToken")
+  private String authToken;
+
+  // The id of a server entry in the settings.xml holding the Wago.io Api token as passphrase
+  @Parameter(property = "server")
+  private String server;
+
+  // maximum amount of modules that are released at the same time
+  @Parameter(property = "releaseParallelism", defaultValue = "4")
+  private int releaseParallelism;
+
+  // maximum amount of uploads running at the same time
+  @Parameter(property = "maxConcurrentUploads", defaultValue = "4")
+  private int maxConcurrentUploads;
+
+  // maximum amount of upload attempts per release. 1 disables retries
+  @Parameter(property = "retryMaxAttempts", defaultValue = "3")
+  private int retryMaxAttempts;
+
+  // base delay in milliseconds before retrying a failed upload
+  @Parameter(property = "retryBaseDelay", defaultValue = "1000")
+  private long retryBaseDelay;
+
+  // maximum delay in milliseconds between two upload attempts
+  @Parameter(property = "retryMaxDelay", defaultValue = "30000")
+  private long retryMaxDelay;
+
+  // maximum amount of requests per second sent to the Wago.io Api
+  @Parameter(property = "requestsPerSecond", defaultValue = "10")
+  private double requestsPerSecond;
+
+  // amount of requests that can be sent at once before the rate limit applies
+  @Parameter(property = "requestBurst", defaultValue = "10")
+  private int requestBurst;
+
+  // maximum rate in bytes per second shared by all uploads. 0 disables the limit
+  @Parameter(property = "maxUploadRate", defaultValue = "0")
+  private long maxUploadRate;
+
+  // http transport of the uploads - APACHE, JDK, AUTO or IN_MEMORY
+  @Parameter(property = "transport", defaultValue = "APACHE")
+  private TransportType transport;
+
+  // timeout in milliseconds for opening a connection
+  @Parameter(property = "connectTimeout", defaultValue = "10000")
+  private int connectTimeout;
+
+  // maximum inactivity in milliseconds while sending or receiving data
+  @Parameter(property = "socketTimeout", defaultValue = "60000")
+  private int socketTimeout;
+
+  // maximum time in seconds a single release may take including retries
+  @Parameter(property = "releaseTimeout", defaultValue = "1800")
+  private long releaseTimeout;
+
+  // whether archives are validated before they are uploaded
+  @Parameter(property = "validateArchive", defaultValue = "true")
+  private boolean validateArchive;
+
+  // whether archives have to contain top-level addon folders with matching toc files
+  @Parameter(property = "validateArchiveLayout", defaultValue = "false")
+  private boolean validateArchiveLayout;
+
+  // the json report of all releases of the reactor - empty disables the report
+  @Parameter(property = "reactorReportFile",
+          defaultValue = "${project.build.directory}/wago-release-reactor-report.json")
+  private String reactorReportFile;
+
+  @Parameter(defaultValue = "${settings}", readonly = true)
+  private Settings settings;
+
+  @Parameter(defaultValue = "${session}", readonly = true)
+  private MavenSession session;
+
+  // releases of modules that were not built yet
+  private final Map<MavenProject, ReleaseRequest> pendingReleases = new LinkedHashMap<>();
+
+  private WagoReleaseLogger logger;
+
+  private ReleaseSession releaseSession;
+
+  private ReleasePipeline pipeline;
+
+  private ReleaseReport report;
+
+  /**
+   * Plugin execution callback.
+   *
+   * @throws MojoExecutionException If the configuration of a module is invalid or a release failed
+   */
+  public void execute() throws MojoExecutionException {
+    for (MavenProject project : session.getProjects()) {
+      final ReleaseRequest request = readDescriptor(project);
+
+      if (request != null) {
+        pendingReleases.put(project, request);
+      }
+    }
+
+    if (pendingReleases.isEmpty()) {
+      getLog().info("No module of the reactor configures a release");
+      return;
+    }
+
+    logger = new MavenLog(getLog());
+    report = new ReleaseReport(getModuleName(session.getCurrentProject()));
+
+    final WagoClient wagoClient = createWagoClient();
+    WagoClient.getSharedRateLimiter().configure(requestsPerSecond, requestBurst);
+    WagoClient.getSharedBandwidthLimiter().configure(maxUploadRate);
+    // keep alive and idle timeout match the defaults of the wago-release goal
+    releaseSession = new ReleaseSession(new HttpConnectionPool(maxConcurrentUploads, 30, 30),
+            maxConcurrentUploads);
+    wagoClient.setConnectionPool(releaseSession.getConnectionPool());
+    if (transport == TransportType.IN_MEMORY) {
+      getLog().warn("Using the in-memory transport - releases are not sent to Wago.io");
+    }
+
+    pipeline = new ReleasePipeline(wagoClient, logger, this::createReleaseService,
+            releaseParallelism);
+    if (validateArchive) {
+      final ArchiveValidator archiveValidator = new ArchiveValidator(0);
+      archiveValidator.setCheckLayout(validateArchiveLayout);
+      pipeline.setArchiveValidator(archiveValidator);
+    }
+
+    // modules built by an earlier invocation of the reactor are released right away
+    for (MavenProject project : session.getProjects()) {
+      final BuildSummary buildSummary = session.getResult().getBuildSummary(project);
+
+      if (buildSummary instanceof BuildSuccess) {
+        onProjectBuilt(project);
+      } else if (buildSummary instanceof BuildFailure) {
+        onProjectNotBuilt(project);
+      }
+    }
+
+    if (getPendingReleases() == 0) {
+      complete();
+      return;
+    }
+
+    getLog().info("Releasing " + getPendingReleases() + " modules as soon as they are built");
+    session.getRequest().setExecutionListener(new ReactorReleaseListener(
+            session.getRequest().getExecutionListener(), this::onProjectBuilt,
+            this::onProjectNotBuilt, this::onBuildEnded));
+  }
+
+  /**
+   * Read the release of a module from the configuration of this plugin in the module. The plugin
+   * configuration is overridden by the configuration of executions of the wago-release goal.
+   * Relative paths are resolved against the directory of the module.
+   *
+   * @param project The module
+   * @return The release of the module or null if the module does not configure a projectId
+   * @throws MojoExecutionException If the release of the module is invalid
+   */
+  static ReleaseRequest readDescriptor(MavenProject project) throws MojoExecutionException {
+    final Xpp3Dom configuration = getConfiguration(project);
+    final String projectId = getValue(configuration, "projectId", null);
+
+    if (projectId == null) {
+      return null;
+    }
+
+    final Metadata metadata = new Metadata();
+    metadata.setLabel(getValue(configuration, "label", "addon"));
+    metadata.setStability(getValue(configuration, "stability", "stable"));
+    metadata.setSupportedRetailPatch(getValue(configuration, "supportedRetailPatch", null));
+    metadata.setSupportedWotlkcPatch(getValue(configuration, "supportedWotlkcPatch", null));
+    metadata.setSupportedBccPatch(getValue(configuration, "supportedBccPatch", null));
+    metadata.setSupportedClassicPatch(getValue(configuration, "supportedClassicPatch", null));
+
+    if (metadata.getSupportedRetailPatch() == null && metadata.getSupportedWotlkcPatch() == null
+            && metadata.getSupportedBccPatch() == null
+            && metadata.getSupportedClassicPatch() == null) {
+      throw new MojoExecutionException("Missing supported patch in the release of module "
+              + getModuleName(project));
+    }
+
+    final String changelogFile = getValue(configuration, "changelogFile", null);
+
+    if (changelogFile != null) {
+      final Path changelogPath = resolve(project, changelogFile);
+
+      if (!Files.isReadable(changelogPath)) {
+        throw new MojoExecutionException("Failed to read release notes of module "
+                + getModuleName(project), new NoSuchFileException(changelogPath.toString()));
+      }
+      metadata.setChangelogFile(changelogPath);
+    } else {
+      metadata.setChangelog(getValue(configuration, "changelog", ""));
+    }
+
+    final String file = getValue(configuration, "file", null);
+    final ReleaseRequest request = new ReleaseRequest();
+    request.setProjectId(projectId);
+    request.setMetadata(metadata);
+    // without a file the artifact of the module is released once it was packaged
+    request.setFile(file == null ? null : resolve(project, file).toString());
+
+    return request;
+  }
+
+  private static Xpp3Dom getConfiguration(MavenProject project) {
+    final Plugin plugin = project.getPlugin(PLUGIN_KEY);
+
+    if (plugin == null) {
+      return null;
+    }
+
+    Xpp3Dom configuration = (Xpp3Dom) plugin.getConfiguration();
+
+    for (PluginExecution execution : plugin.getExecutions()) {
+      if (execution.getGoals().contains(RELEASE_GOAL) && execution.getConfiguration() != null) {
+        configuration = Xpp3Dom.mergeXpp3Dom(
+                new Xpp3Dom((Xpp3Dom) execution.getConfiguration()), configuration);
+      }
+    }
+
+    return configuration;
+  }
+
+  private static String getValue(Xpp3Dom configuration, String name, String defaultValue) {
+    final Xpp3Dom child = configuration == null ? null : configuration.getChild(name);
+
+    if (child == null || child.getValue() == null || child.getValue().trim().isEmpty()) {
+      return defaultValue;
+    }
+
+    return child.getValue().trim();
+  }
+
+  private static Path resolve(MavenProject project, String path) {
+    final Path resolvedPath = Paths.get(path);
+
+    if (resolvedPath.isAbsolute() || project.getBasedir() == null) {
+      return resolvedPath;
+    }
+
+    return project.getBasedir().toPath().resolve(resolvedPath).normalize();
+  }
+
+  private static String getModuleName(MavenProject project) {
+    if (project == null) {
+      return null;
+    }
+
+    return project.getGroupId() + ":" + project.getArtifactId();
+  }
+
+  private int getPendingReleases() {
+    synchronized (pendingReleases) {
+      return pendingReleases.size();
+    }
+  }
+
+  /**
+   * Start the release of a module that was built. Called concurrently by parallel builds.
+   *
+   * @param project The built module
+   */
+  private void onProjectBuilt(MavenProject project) {
+    final ReleaseRequest request;
+
+    synchronized (pendingReleases) {
+      request = pendingReleases.remove(project);
+    }
+
+    if (request == null) {
+      return;
+    }
+
+    if (request.getFile() == null) {
+      final File artifactFile = project.getArtifact() == null ? null
+              : project.getArtifact().getFile();
+
+      if (artifactFile != null && artifactFile.getName().endsWith(".zip")) {
+        request.setFile(artifactFile.getAbsolutePath());
+      }
+    }
+
+    pipeline.submit(getModuleName(project), request);
+  }
+
+  private void onProjectNotBuilt(MavenProject project) {
+    final ReleaseRequest request;
+
+    synchronized (pendingReleases) {
+      request = pendingReleases.remove(project);
+    }
+
+    if (request != null) {
+      pipeline.cancel(getModuleName(project), request, "Module was not built");
+    }
+  }
+
+  /**
+   * Wait for the releases at the end of the build. Failed releases fail the build.
+   */
+  private void onBuildEnded() {
+    synchronized (pendingReleases) {
+      for (Map.Entry<MavenProject, ReleaseRequest> pendingRelease : pendingReleases.entrySet()) {
+        pipeline.cancel(getModuleName(pendingRelease.getKey()), pendingRelease.getValue(),
+                "Module was not built");
+      }
+      pendingReleases.clear();
+    }
+
+    try {
+      complete();
+    } catch (MojoExecutionException | RuntimeException e) {
+      session.getResult().addException(e);
+    }
+  }
+
+  /**
+   * Wait for all releases, print the summary and write the report.
+   *
+   * @throws MojoExecutionException If a release was not uploaded
+   */
+  private void complete() throws MojoExecutionException {
+    Throwable failure = null;
+
+    try {
+      final List<ReleasePipeline.ModuleRelease> releases = pipeline.await();
+      final Map<ReleaseResult.Status, Integer> counts = new EnumMap<>(ReleaseResult.Status.class);
+
+      getLog().info("Reactor release summary:");
+
+      for (ReleasePipeline.ModuleRelease release : releases) {
+        final ReleaseResult result = release.getResult();
+        final String message = String.format("%-9s %s -> %s (waited %d ms, released in %d ms)",
+                result.getStatus(), release.getModule(), result.getProjectId(),
+                release.getWaitMillis(), result.getDurationMillis());
+        counts.merge(result.getStatus(), 1, Integer::sum);
+
+        if (result.getStatus() == ReleaseResult.Status.CANCELLED) {
+          // cancelled releases never reach a release service
+          final ReleaseMetrics metrics = new ReleaseMetrics();
+          metrics.setProjectId(result.getProjectId());
+          metrics.setSource(release.getModule());
+          metrics.setStatus(result.getStatus());
+          metrics.setError(result.getError());
+          report.addRelease(metrics);
+        }
+
+        if (result.getStatus() == ReleaseResult.Status.FAILED
+                || result.getStatus() == ReleaseResult.Status.CANCELLED) {
+          getLog().error(message + " - " + result.getError());
+        } else {
+          getLog().info(message);
+        }
+      }
+
+      final int failures = counts.getOrDefault(ReleaseResult.Status.FAILED, 0)
+              + counts.getOrDefault(ReleaseResult.Status.CANCELLED, 0);
+      getLog().info(String.format("%d uploaded, %d skipped, %d failed, %d cancelled in %d ms",
+              counts.getOrDefault(ReleaseResult.Status.UPLOADED, 0),
+              counts.getOrDefault(ReleaseResult.Status.SKIPPED, 0),
+              counts.getOrDefault(ReleaseResult.Status.FAILED, 0),
+              counts.getOrDefault(ReleaseResult.Status.CANCELLED, 0),
+              pipeline.getElapsedMillis()));
+
+      if (failures > 0) {
+        throw new MojoExecutionException(failures + " of " + releases.size()
+                + " module releases were not uploaded");
+      }
+    } catch (MojoExecutionException | RuntimeException e) {
+      failure = e;
+      throw e;
+    } finally {
+      pipeline.close();
+      releaseSession.close();
+      report.finish(failure);
+      writeReport();
+    }
+  }
+
+  private void writeReport() {
+    if (reactorReportFile == null || reactorReportFile.isEmpty()) {
+      return;
+    }
+
+    try {
+      new ReleaseReportWriter().write(Paths.get(reactorReportFile), report);
+      getLog().debug("Wrote reactor release report " + reactorReportFile);
+    } catch (IOException e) {
+      getLog().warn("Failed to write reactor release report " + reactorReportFile, e);
+    }
+  }
+
+  /**
+   * Create a release service for a single module. Called concurrently by the pipeline.
+   *
+   * @param wagoClient The Wago client of the targeted project
+   * @return The configured release service
+   */
+  private ReleaseService createReleaseService(WagoClient wagoClient) {
+    final ReleaseService releaseService = new ReleaseService(wagoClient, logger);
+    // shared between all release services of the maven session
+    releaseService.setTransport(releaseSession.getTransport(wagoClient,
+            transport != null ? transport : TransportType.APACHE));
+    releaseService.setUploadPermits(releaseSession.getUploadPermits());
+
+    final RetryPolicy retryPolicy = new RetryPolicy();
+    retryPolicy.setMaxAttempts(retryMaxAttempts);
+    retryPolicy.setBaseDelay(retryBaseDelay);
+    retryPolicy.setMaxDelay(retryMaxDelay);
+    releaseService.setRetryPolicy(retryPolicy);
+    releaseService.setReleaseTimeout(TimeUnit.SECONDS.toMillis(releaseTimeout));
+    releaseService.setErrorParser(new WagoApiErrorParser());
+    releaseService.setMetricsListener(report::addRelease);
+
+    return releaseService;
+  }
+
+  /**
+   * Retrieve the token for the Wago.io Api.
+   *
+   * @return The Wago.io Api token
+   * @throws MojoExecutionException If no token is configured
+   */
+  private String getCredentials() throws MojoExecutionException {
+    // prefer settings parameter over direct configuration in pom
+    if (settings != null && server != null) {
+      final Server serverEntry = settings.getServer(server);
+      if (serverEntry != null) {
+        authToken = serverEntry.getPassphrase();
+
+        if (authToken == null || authToken.isEmpty()) {
+          throw new MojoExecutionException("Found server entry in settings.xml "
+                  + "but authToken parameter was missing or is empty");
+        }
+      } else {
+        getLog().warn("Unable to retrieve settings or server. Falling back to project settings");
+      }
+    }
+
+    if (authToken == null) {
+      throw new MojoExecutionException("Unable to read authentication configuration make "
+              + "sure to set the authToken property");
+    }
+
+    return authToken;
+  }
+
+  private WagoClient createWagoClient() throws MojoExecutionException {
+    final WagoClient wagoClient = new WagoClient();
+    if (baseUri != null && !baseUri.isEmpty()) {
+      wagoClient.setBaseUri(baseUri);
+    }
+    wagoClient.setToken(getCredentials());
+    wagoClient.setConnectTimeout(connectTimeout);
+    wagoClient.setSocketTimeout(socketTimeout);
+
+    return wagoClient;
+  }
+}
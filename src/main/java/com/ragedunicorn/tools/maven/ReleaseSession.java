@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven;
+
+import com.ragedunicorn.tools.maven.archive.PackagingCache;
+import com.ragedunicorn.tools.maven.http.HttpConnectionPool;
+import com.ragedunicorn.tools.maven.http.HttpTransport;
+import com.ragedunicorn.tools.maven.http.TransportType;
+import com.ragedunicorn.tools.maven.service.UploadCache;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import org.apache.http.impl.client.CloseableHttpClient;
+
+/**
+ * Everything the executions of a maven session share. In a parallel build all modules upload
+ * through the same connection pool and the same http client and at most
+ * {@link #getMaxConcurrentUploads()} uploads run at the same time. Executions writing to the same
+ * cache share a single cache instance. Executions register with {@link #acquire()} and the session
+ * is closed once the last of them finished.
+ */
+public class ReleaseSession implements Closeable {
+  private final HttpConnectionPool connectionPool;
+  private final int maxConcurrentUploads;
+  private final Semaphore uploadPermits;
+  // http clients per token because the token is sent as default header
+  private final Map<String, CloseableHttpClient> httpClients = new ConcurrentHashMap<>();
+  // transports per type and token
+  private final Map<String, HttpTransport> transports = new ConcurrentHashMap<>();
+  private final Map<Path, UploadCache> uploadCaches = new ConcurrentHashMap<>();
+  private final Map<Path, PackagingCache> packagingCaches = new ConcurrentHashMap<>();
+  // executions that are running
+  private int executions;
+  // whether the execution of the last project of the session finished
+  private boolean lastProjectFinished;
+  private boolean closed;
+
+  /**
+   * Create a session.
+   *
+   * @param connectionPool       The pool all uploads of the session use
+   * @param maxConcurrentUploads The maximum amount of uploads running at the same time
+   */
+  public ReleaseSession(HttpConnectionPool connectionPool, int maxConcurrentUploads) {
+    this.connectionPool = connectionPool;
+    this.maxConcurrentUploads = Math.max(1, maxConcurrentUploads);
+    this.uploadPermits = new Semaphore(this.maxConcurrentUploads, true);
+    connectionPool.ensureCapacity(this.maxConcurrentUploads);
+  }
+
+  public HttpConnectionPool getConnectionPool() {
+    return connectionPool;
+  }
+
+  public int getMaxConcurrentUploads() {
+    return maxConcurrentUploads;
+  }
+
+  public Semaphore getUploadPermits() {
+    return uploadPermits;
+  }
+
+  /**
+   * Get the http client of the session for the token of a Wago client. The client uses the
+   * connection pool of the session and must not be closed by the caller.
+   *
+   * @param wagoClient The Wago client holding the token
+   * @return The shared http client
+   */
+  public CloseableHttpClient getHttpClient(WagoClient wagoClient) {
+    final String token = wagoClient.getToken();
+
+    return httpClients.computeIfAbsent(token, key -> wagoClient.getHttpClient(maxConcurrentUploads));
+  }
+
+  /**
+   * Get the transport of the session for a type and the token of a Wago client. Apache transports
+   * use the shared http client of the token. The transport must not be closed by the caller.
+   *
+   * @param wagoClient The Wago client holding the token
+   * @param type       The type of the transport
+   * @return The shared transport
+   */
+  public HttpTransport getTransport(WagoClient wagoClient, TransportType type) {
+    final TransportType resolvedType = type.resolve();
+
+    return transports.computeIfAbsent(resolvedType + ":" + wagoClient.getToken(), key ->
+            resolvedType == TransportType.APACHE
+                    ? wagoClient.createTransport(getHttpClient(wagoClient), false)
+                    : resolvedType.create(wagoClient));
+  }
+
+  /**
+   * Get the upload cache of an index file. Executions using the same file share the cache so
+   * updates of parallel modules are not lost.
+   *
+   * @param indexFile  The index file of the cache
+   * @param maxEntries The maximum amount of entries if the cache is created
+   * @return The shared upload cache
+   */
+  public UploadCache getUploadCache(Path indexFile, int maxEntries) {
+    final Path file = indexFile.toAbsolutePath().normalize();
+
+    return uploadCaches.computeIfAbsent(file, key -> new UploadCache(key, maxEntries));
+  }
+
+  /**
+   * Get the packaging cache of a directory. Executions using the same directory share the cache
+   * so one module does not delete entries another module is still using.
+   *
+   * @param directory The directory of the cache
+   * @param maxSize   The maximum size of the cache in bytes if the cache is created
+   * @return The shared packaging cache
+   */
+  public PackagingCache getPackagingCache(Path directory, long maxSize) {
+    final Path cacheDirectory = directory.toAbsolutePath().normalize();
+
+    return packagingCaches.computeIfAbsent(cacheDirectory, key -> new PackagingCache(key, maxSize));
+  }
+
+  /**
+   * Register an execution that uses the session.
+   *
+   * @return False if the session was already closed and cannot be used anymore
+   */
+  public synchronized boolean acquire() {
+    if (closed) {
+      return false;
+    }
+    executions++;
+
+    return true;
+  }
+
+  /**
+   * Unregister an execution. The session is closed once no execution is running anymore and the
+   * last project of the session was built.
+   *
+   * @param lastProject Whether the execution belongs to the last project of the session
+   * @return Whether the session was closed
+   */
+  public synchronized boolean release(boolean lastProject) {
+    executions--;
+    lastProjectFinished |= lastProject;
+
+    if (executions > 0 || !lastProjectFinished) {
+      return false;
+    }
+
+    close();
+
+    return true;
+  }
+
+  public synchronized boolean isClosed() {
+    return closed;
+  }
+
+  @Override
+  public synchronized void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+
+    final List<HttpTransport> openTransports = new ArrayList<>(transports.values());
+    transports.clear();
+    for (HttpTransport transport : openTransports) {
+      try {
+        transport.close();
+      } catch (IOException e) {
+        // nothing left to release
+      }
+    }
+
+    final List<CloseableHttpClient> clients = new ArrayList<>(httpClients.values());
+    httpClients.clear();
+    for (CloseableHttpClient httpClient : clients) {
+      try {
+        httpClient.close();
+      } catch (IOException e) {
+        // the pool is closed below
+      }
+    }
+    connectionPool.close();
+  }
+
+  @Override
+  public String toString() {
+    return "ReleaseSession{"
+            + "maxConcurrentUploads=" + maxConcurrentUploads
+            + ", availableUploads=" + uploadPermits.availablePermits()
+            + ", httpClients=" + httpClients.size()
+            + ", transports=" + transports.size()
+            + ", connectionPool=" + connectionPool
+            + '}';
+  }
+}
@@ -23,25 +23,81 @@
 package com.ragedunicorn.tools.maven;
 
 import com.google.common.collect.Lists;
+import com.ragedunicorn.tools.maven.http.ApacheHttpTransport;
+import com.ragedunicorn.tools.maven.http.BandwidthLimiter;
+import com.ragedunicorn.tools.maven.http.HttpConnectionPool;
+import com.ragedunicorn.tools.maven.http.HttpTransport;
+import com.ragedunicorn.tools.maven.http.RateLimiter;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import org.apache.http.Header;
 import org.apache.http.HttpHeaders;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.LaxRedirectStrategy;
 import org.apache.http.message.BasicHeader;
 import org.apache.maven.plugin.MojoExecutionException;
 
+/**
+ * Client of the Wago.io Api. A client may be used by several threads at the same time. Changes of
+ * its settings are visible to all threads but only apply to http clients created afterwards.
+ */
 public class WagoClient {
+  public static final String DEFAULT_BASE_URI =
+          "https://addons.wago.io/api/projects/:projectId/version";
+
   private static final String USER_AGENT = "wago-release-plugin";
+  private static final int STATUS_TOO_MANY_REQUESTS = 429;
+  // limiter shared by all requests to Wago.io in the jvm including parallel builds
+  private static final RateLimiter SHARED_RATE_LIMITER = new RateLimiter(10, 10);
+  // upload bandwidth shared by all uploads in the jvm - unlimited until configured
+  private static final BandwidthLimiter SHARED_BANDWIDTH_LIMITER = new BandwidthLimiter(0);
 
-  private String baseUri = "https://addons.wago.io/api/projects/:projectId/version";
+  private volatile String baseUri = DEFAULT_BASE_URI;
   // targeted project
-  private String projectId;
+  private volatile String projectId;
   // token
-  private String token;
+  private volatile String token;
+  // pool shared by all clients of a build - null creates a separate connection per client
+  private volatile HttpConnectionPool connectionPool;
+  // limiter every request goes through
+  private volatile RateLimiter rateLimiter = SHARED_RATE_LIMITER;
+  // limiter every request body is sent through
+  private volatile BandwidthLimiter bandwidthLimiter = SHARED_BANDWIDTH_LIMITER;
+  // timeout in milliseconds for opening a connection - 0 waits forever
+  private volatile int connectTimeout = 10000;
+  // maximum inactivity in milliseconds while sending or receiving data - 0 waits forever
+  private volatile int socketTimeout = 60000;
+  // timeout in milliseconds for leasing a connection from the pool - 0 waits forever
+  private volatile int connectionRequestTimeout = 10000;
+
+  /**
+   * The rate limiter that is used by all clients unless replaced with {@link #setRateLimiter}.
+   *
+   * @return The shared rate limiter
+   */
+  public static RateLimiter getSharedRateLimiter() {
+    return SHARED_RATE_LIMITER;
+  }
+
+  /**
+   * The bandwidth limiter that is used by all clients unless replaced with
+   * {@link #setBandwidthLimiter}.
+   *
+   * @return The shared bandwidth limiter
+   */
+  public static BandwidthLimiter getSharedBandwidthLimiter() {
+    return SHARED_BANDWIDTH_LIMITER;
+  }
 
   public String getBaseUri() {
     return baseUri;
@@ -67,29 +123,200 @@ public class WagoClient {
     this.token = token;
   }
 
+  public HttpConnectionPool getConnectionPool() {
+    return connectionPool;
+  }
+
+  public void setConnectionPool(HttpConnectionPool connectionPool) {
+    this.connectionPool = connectionPool;
+  }
+
+  public int getConnectTimeout() {
+    return connectTimeout;
+  }
+
+  public void setConnectTimeout(int connectTimeout) {
+    this.connectTimeout = connectTimeout;
+  }
+
+  public int getSocketTimeout() {
+    return socketTimeout;
+  }
+
+  public void setSocketTimeout(int socketTimeout) {
+    this.socketTimeout = socketTimeout;
+  }
+
+  public int getConnectionRequestTimeout() {
+    return connectionRequestTimeout;
+  }
+
+  public void setConnectionRequestTimeout(int connectionRequestTimeout) {
+    this.connectionRequestTimeout = connectionRequestTimeout;
+  }
+
+  public RateLimiter getRateLimiter() {
+    return rateLimiter;
+  }
+
+  public void setRateLimiter(RateLimiter rateLimiter) {
+    this.rateLimiter = rateLimiter;
+  }
+
+  public BandwidthLimiter getBandwidthLimiter() {
+    return bandwidthLimiter;
+  }
+
+  public void setBandwidthLimiter(BandwidthLimiter bandwidthLimiter) {
+    this.bandwidthLimiter = bandwidthLimiter;
+  }
+
   /**
-   * Create an http client.
+   * Create an http client. If a connection pool is set the client uses the pooled connections and
+   * closing the client leaves the pool open. Every request of the client waits for the rate
+   * limiter.
    *
    * @return The created http client
    */
   public CloseableHttpClient getHttpClient() {
     hasValidPreconditions();
 
-    return HttpClientBuilder
+    return createHttpClientBuilder().build();
+  }
+
+  /**
+   * Create an http client that can be shared between concurrent requests.
+   *
+   * @param maxConnections The maximum amount of concurrent connections
+   * @return The created http client
+   */
+  public CloseableHttpClient getHttpClient(int maxConnections) {
+    hasValidPreconditions();
+
+    if (connectionPool != null) {
+      connectionPool.ensureCapacity(maxConnections);
+
+      return createHttpClientBuilder().build();
+    }
+
+    return createHttpClientBuilder()
+            .setMaxConnPerRoute(maxConnections)
+            .setMaxConnTotal(maxConnections)
+            .build();
+  }
+
+  /**
+   * Create a transport that sends requests through a new http client of this client and its
+   * bandwidth limiter. Closing the transport closes the http client.
+   *
+   * @return The created transport
+   */
+  public HttpTransport createTransport() {
+    return createTransport(getHttpClient(), true);
+  }
+
+  /**
+   * Create a transport that sends requests through an http client and the bandwidth limiter of
+   * this client.
+   *
+   * @param httpClient  The http client sending the requests
+   * @param closeClient Whether closing the transport closes the http client
+   * @return The created transport
+   */
+  public HttpTransport createTransport(CloseableHttpClient httpClient, boolean closeClient) {
+    final ApacheHttpTransport transport =
+            new ApacheHttpTransport(httpClient, getRequestConfig(), closeClient);
+    transport.setBandwidthLimiter(bandwidthLimiter);
+
+    return transport;
+  }
+
+  /**
+   * Create a client for another project that uses the same token and base uri.
+   *
+   * @param otherProjectId The targeted project
+   * @return The created Wago.io client
+   */
+  public WagoClient forProject(String otherProjectId) {
+    final WagoClient wagoClient = new WagoClient();
+    wagoClient.setBaseUri(baseUri);
+    wagoClient.setToken(token);
+    wagoClient.setProjectId(otherProjectId);
+    wagoClient.setConnectionPool(connectionPool);
+    wagoClient.setRateLimiter(rateLimiter);
+    wagoClient.setBandwidthLimiter(bandwidthLimiter);
+    wagoClient.setConnectTimeout(connectTimeout);
+    wagoClient.setSocketTimeout(socketTimeout);
+    wagoClient.setConnectionRequestTimeout(connectionRequestTimeout);
+
+    return wagoClient;
+  }
+
+  private HttpClientBuilder createHttpClientBuilder() {
+    final HttpClientBuilder builder = HttpClientBuilder
             .create()
             .useSystemProperties()
             .setDefaultHeaders(getDefaultHeaders())
-            .setRedirectStrategy(new LaxRedirectStrategy())
+            .setDefaultRequestConfig(getRequestConfig())
+            .setRedirectStrategy(new LaxRedirectStrategy());
+
+    if (rateLimiter != null) {
+      final RateLimiter limiter = rateLimiter;
+      builder.addInterceptorFirst((HttpRequestInterceptor) (request, context) -> {
+        try {
+          limiter.acquire();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted while waiting for the rate limiter");
+        }
+      });
+      builder.addInterceptorFirst((HttpResponseInterceptor) (response, context) -> {
+        if (response.getStatusLine().getStatusCode() == STATUS_TOO_MANY_REQUESTS) {
+          limiter.onThrottled();
+        } else {
+          limiter.onSuccess();
+        }
+      });
+    }
+
+    return connectionPool == null ? builder : connectionPool.configure(builder);
+  }
+
+  /**
+   * The timeouts used by all requests of the clients.
+   *
+   * @return The request config
+   */
+  public RequestConfig getRequestConfig() {
+    return RequestConfig.custom()
+            .setConnectTimeout(connectTimeout)
+            .setSocketTimeout(socketTimeout)
+            .setConnectionRequestTimeout(connectionRequestTimeout)
             .build();
   }
 
   private List<Header> getDefaultHeaders() {
-    return Lists.newArrayList(
-            new BasicHeader(HttpHeaders.USER_AGENT, USER_AGENT),
-            new BasicHeader("Authorization", "Bearer " + token),
-            new BasicHeader(HttpHeaders.ACCEPT, "application/json")
+    final List<Header> headers = Lists.newArrayList();
+
+    for (Map.Entry<String, String> header : getRequestHeaders().entrySet()) {
+      headers.add(new BasicHeader(header.getKey(), header.getValue()));
+    }
+
+    return headers;
+  }
+
+  /**
+   * The headers sent with every request to the Wago.io Api.
+   *
+   * @return The headers by name
+   */
+  public Map<String, String> getRequestHeaders() {
+    final Map<String, String> headers = new LinkedHashMap<>();
+    headers.put(HttpHeaders.USER_AGENT, USER_AGENT);
+    headers.put("Authorization", "Bearer " + token);
+    headers.put(HttpHeaders.ACCEPT, "application/json");
 
-    );
+    return headers;
   }
 
   /**
@@ -110,6 +337,34 @@ public class WagoClient {
     }
   }
 
+  /**
+   * Validate the client and resolve the host of the Wago.io Api ahead of an upload. If a
+   * connection pool is set a connection is opened and kept in the pool for the upload. Network
+   * failures are ignored because the upload itself reports them.
+   *
+   * @throws MojoExecutionException If the client is in an invalid state
+   */
+  public void prepareConnection() throws MojoExecutionException {
+    final URI uri;
+
+    try {
+      uri = prepareEndpointUri(null);
+    } catch (IllegalStateException e) {
+      throw new MojoExecutionException(e.getMessage(), e);
+    }
+
+    if (connectionPool != null) {
+      connectionPool.warmUp(uri, connectTimeout);
+      return;
+    }
+
+    try {
+      InetAddress.getAllByName(uri.getHost());
+    } catch (UnknownHostException e) {
+      // reported by the upload
+    }
+  }
+
   /**
    * Checks if all preconditions are fulfilled.
    *
@@ -22,27 +22,65 @@
 
 package com.ragedunicorn.tools.maven;
 
+import com.ragedunicorn.tools.maven.archive.ArchiveValidator;
+import com.ragedunicorn.tools.maven.archive.DirectoryArchive;
+import com.ragedunicorn.tools.maven.archive.TocReader;
+import com.ragedunicorn.tools.maven.http.HttpConnectionPool;
+import com.ragedunicorn.tools.maven.http.TransportType;
+import com.ragedunicorn.tools.maven.log.AsyncLog;
+import com.ragedunicorn.tools.maven.log.MavenLog;
+import com.ragedunicorn.tools.maven.log.WagoReleaseLogger;
+import com.ragedunicorn.tools.maven.model.AggregateReleaseReport;
 import com.ragedunicorn.tools.maven.model.Metadata;
+import com.ragedunicorn.tools.maven.model.ReleaseMetrics;
+import com.ragedunicorn.tools.maven.model.ReleaseReport;
+import com.ragedunicorn.tools.maven.model.ReleaseRequest;
+import com.ragedunicorn.tools.maven.model.ReleaseResult;
+import com.ragedunicorn.tools.maven.service.BatchReleaseService;
+import com.ragedunicorn.tools.maven.service.ReleaseReportWriter;
 import com.ragedunicorn.tools.maven.service.ReleaseService;
+import com.ragedunicorn.tools.maven.service.RetryPolicy;
+import com.ragedunicorn.tools.maven.service.WagoApiErrorParser;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
 import org.apache.maven.settings.Server;
 import org.apache.maven.settings.Settings;
+import org.eclipse.aether.SessionData;
 
-@Mojo(name = "wago-release")
+@Mojo(name = "wago-release", threadSafe = true)
 public class WagoReleaseMojo extends AbstractMojo {
+  // key of the release session that is shared by all executions of a maven session
+  private static final String RELEASE_SESSION_KEY =
+          "com.ragedunicorn.tools.maven.wago-release.release-session";
+  // key of the reports of all executions of a maven session
+  private static final String REPORTS_KEY =
+          "com.ragedunicorn.tools.maven.wago-release.reports";
 
-  // The project id of the wago project (can be found on the projects page)
-  @Parameter(property = "projectId", required = true)
+  // The project id of the wago project (can be found on the projects page). Required unless a
+  // manifest is used
+  @Parameter(property = "projectId")
   private String projectId;
 
+  // The endpoint of the Wago.io Api. Only needs to be changed for testing against a local stand-in
+  @Parameter(property = "baseUri",
+          defaultValue = "https://addons.wago.io/api/projects/:projectId/version")
+  private String baseUri;
+
   // A label for the uploaded file
   @Parameter(property = "label", defaultValue = "addon")
   private String label;
@@ -77,10 +115,54 @@ public class WagoReleaseMojo extends AbstractMojo {
   @Parameter(property = "supportClassicPatch")
   private String supportedClassicPatch;
 
+  // Fill supported patches that are not set from the ## Interface lines of the .toc files in the
+  // archive. Client specific files like Addon_Wrath.toc are supported
+  @Parameter(property = "deriveSupportedPatches", defaultValue = "false")
+  private boolean deriveSupportedPatches;
+
   // The path to the addon to upload
-  @Parameter(property = "file", required = true)
+  @Parameter(property = "file")
   private String file;
 
+  // Alternative to file. The addon directory is packaged into a zip while it is uploaded
+  @Parameter(property = "directory")
+  private String directory;
+
+  // Ant style patterns of files in directory to include - includes all files if not set
+  @Parameter
+  private List<String> includes;
+
+  // Ant style patterns of files in directory to exclude in addition to the default SCM excludes
+  @Parameter
+  private List<String> excludes;
+
+  // Json manifest listing several releases that are uploaded concurrently. Values that are not
+  // set per release are taken from the plugin configuration
+  @Parameter(property = "manifest")
+  private String manifest;
+
+  // The maximum amount of concurrent uploads of a manifest
+  @Parameter(property = "releaseParallelism", defaultValue = "4")
+  private int releaseParallelism;
+
+  // Do not start further releases of a manifest after the first release failed
+  @Parameter(property = "failFast", defaultValue = "false")
+  private boolean failFast;
+
+  // Amount of threads used for compressing a directory - 0 uses one thread per processor
+  @Parameter(property = "packagingParallelism", defaultValue = "0")
+  private int packagingParallelism;
+
+  // Directory of the packaging cache. Compressed entries of files that did not change since a
+  // previous release are reused. An empty value disables the cache
+  @Parameter(property = "packagingCacheDirectory",
+          defaultValue = "${project.build.directory}/wago-release-packaging-cache")
+  private String packagingCacheDirectory;
+
+  // The maximum size of all compressed entries in the packaging cache in megabytes
+  @Parameter(property = "packagingCacheSize", defaultValue = "64")
+  private int packagingCacheSize;
+
   // Alternative of using a server configuration. The authToken can directly be placed in the
   // plugin configuration
   @Parameter(property = "authToken")
@@ -91,19 +173,525 @@ public class WagoReleaseMojo extends AbstractMojo {
   @Parameter(property = "server")
   private String server;
 
+  // Interval in seconds between two upload progress reports - 0 disables progress reports
+  @Parameter(property = "progressInterval", defaultValue = "5")
+  private int progressInterval;
+
+  // Experimental - upload the file in resumable parts. Acknowledged parts are tracked in a
+  // checkpoint file and a failed upload resumes with the first missing part on the next run.
+  // Wago.io does not support chunked uploads yet so this only works against a stand-in of the Api
+  // configured with baseUri
+  @Parameter(property = "chunkedUpload", defaultValue = "false")
+  private boolean chunkedUpload;
+
+  // The size of a single part in bytes when chunkedUpload is enabled
+  @Parameter(property = "chunkSize", defaultValue = "8388608")
+  private int chunkSize;
+
+  // The directory for checkpoint files of chunked uploads
+  @Parameter(property = "checkpointDirectory", defaultValue = "${project.build.directory}")
+  private String checkpointDirectory;
+
+  // Index of already released files. Uploads of a file with identical metadata and changelog to
+  // the same project are skipped. Kept in the build directory so a clean build uploads again. An
+  // empty value disables the cache
+  @Parameter(property = "uploadCacheFile",
+          defaultValue = "${project.build.directory}/wago-release-upload-cache.json")
+  private String uploadCacheFile;
+
+  // The maximum amount of releases remembered in the upload cache
+  @Parameter(property = "uploadCacheSize", defaultValue = "100")
+  private int uploadCacheSize;
+
+  // Upload even if an identical release was already uploaded
+  @Parameter(property = "forceUpload", defaultValue = "false")
+  private boolean forceUpload;
+
+  // The maximum amount of attempts of a request that failed with a transient error. 1 disables
+  // retries
+  @Parameter(property = "retryMaxAttempts", defaultValue = "3")
+  private int retryMaxAttempts;
+
+  // The delay in milliseconds before the first retry. Doubled for every following retry
+  @Parameter(property = "retryBaseDelay", defaultValue = "1000")
+  private long retryBaseDelay;
+
+  // The maximum delay in milliseconds between two attempts unless the server requests a longer
+  // delay with a Retry-After header
+  @Parameter(property = "retryMaxDelay", defaultValue = "30000")
+  private long retryMaxDelay;
+
+  // The maximum amount of concurrent connections to the Wago.io Api
+  @Parameter(property = "maxConnectionsPerRoute", defaultValue = "4")
+  private int maxConnectionsPerRoute;
+
+  // The maximum amount of uploads running at the same time in the whole maven session including
+  // parallel builds. The value of the first execution of the session is used
+  @Parameter(property = "maxConcurrentUploads", defaultValue = "4")
+  private int maxConcurrentUploads;
+
+  // The maximum time in seconds an idle connection is kept open for following uploads
+  @Parameter(property = "connectionKeepAlive", defaultValue = "30")
+  private int connectionKeepAlive;
+
+  // The time in seconds after which idle connections are closed
+  @Parameter(property = "connectionIdleTimeout", defaultValue = "30")
+  private int connectionIdleTimeout;
+
+  // The maximum amount of requests per second to the Wago.io Api shared by all builds in the jvm.
+  // Lowered automatically while the Api answers with 429 Too Many Requests. 0 disables the limit
+  @Parameter(property = "requestsPerSecond", defaultValue = "10")
+  private double requestsPerSecond;
+
+  // The maximum amount of requests that are sent at once after a quiet period
+  @Parameter(property = "requestBurst", defaultValue = "10")
+  private int requestBurst;
+
+  // The maximum rate in bytes per second at which uploads are sent. Shared by all uploads running
+  // at the same time. 0 disables the limit
+  @Parameter(property = "maxUploadRate", defaultValue = "0")
+  private long maxUploadRate;
+
+  // The http transport all uploads are sent with. APACHE, JDK (HTTP/2 on Java 11 and later), AUTO
+  // or IN_MEMORY which does not send anything
+  @Parameter(property = "transport", defaultValue = "APACHE")
+  private TransportType transport;
+
+  // The timeout in milliseconds for opening a connection to the Wago.io Api. 0 waits forever
+  @Parameter(property = "connectTimeout", defaultValue = "10000")
+  private int connectTimeout;
+
+  // The maximum time in milliseconds without any data being sent or received. 0 waits forever
+  @Parameter(property = "socketTimeout", defaultValue = "60000")
+  private int socketTimeout;
+
+  // The timeout in milliseconds for waiting on a free connection of the pool. 0 waits forever
+  @Parameter(property = "connectionRequestTimeout", defaultValue = "10000")
+  private int connectionRequestTimeout;
+
+  // The time in seconds a release may take at most including all retries. 0 disables the limit
+  @Parameter(property = "releaseTimeout", defaultValue = "1800")
+  private long releaseTimeout;
+
+  // Validate the archive before it is uploaded. Checks the checksums, sizes and names of all
+  // entries
+  @Parameter(property = "validateArchive", defaultValue = "true")
+  private boolean validateArchive;
+
+  // Additionally require every entry of the archive to be located in a top-level addon folder that
+  // contains a matching .toc file
+  @Parameter(property = "validateArchiveLayout", defaultValue = "false")
+  private boolean validateArchiveLayout;
+
+  // The maximum uncompressed size of a single file in the archive in megabytes
+  @Parameter(property = "maxEntrySize", defaultValue = "100")
+  private long maxEntrySize;
+
+  // The maximum amount of bytes read from a response of the Wago.io Api. Larger error bodies are
+  // reported truncated
+  @Parameter(property = "maxErrorResponseSize", defaultValue = "65536")
+  private int maxErrorResponseSize;
+
+  // Json report with the timings, bytes sent and retries of the execution. An empty value disables
+  // the report
+  @Parameter(property = "reportFile",
+          defaultValue = "${project.build.directory}/wago-release-report.json")
+  private String reportFile;
+
+  // Json report aggregating the reports of all modules of a multi-module build. An empty value
+  // disables the aggregation
+  @Parameter(property = "aggregateReportFile",
+          defaultValue = "${session.executionRootDirectory}/target/wago-release-reports.json")
+  private String aggregateReportFile;
+
+  // Maximum amount of log messages of the releases waiting to be written by the background log
+  // writer. 0 writes log messages directly
+  @Parameter(property = "logQueueSize", defaultValue = "1024")
+  private int logQueueSize;
+
+  // What happens to debug and info messages while the log queue is full. DISCARD or BLOCK
+  @Parameter(property = "logDropPolicy", defaultValue = "DISCARD")
+  private AsyncLog.DropPolicy logDropPolicy;
+
   @Parameter(defaultValue = "${settings}", readonly = true)
   private Settings settings;
 
+  @Parameter(defaultValue = "${session}", readonly = true)
+  private MavenSession session;
+
+  private ReleaseSession releaseSession;
+
+  private ReleaseReport report;
+
+  private WagoReleaseLogger logger;
+
   /**
    * Plugin execution callback.
    *
    * @throws MojoExecutionException If any exception happens during the execution of the plugin
    */
   public void execute() throws MojoExecutionException {
-    validateRequiredInputParameters();
+    report = new ReleaseReport(getModuleName());
+    logger = createLogger();
+    Throwable failure = null;
+
+    try {
+      release();
+    } catch (MojoExecutionException | RuntimeException e) {
+      failure = e;
+      throw e;
+    } finally {
+      if (logger instanceof AsyncLog) {
+        ((AsyncLog) logger).close();
+      }
+      report.finish(failure);
+      writeReports(report);
+    }
+  }
+
+  /**
+   * Create the logger of the release services. Releases log through a background writer so
+   * concurrent releases do not wait for each other while logging.
+   *
+   * @return The logger forwarding to the log of the mojo
+   */
+  private WagoReleaseLogger createLogger() {
+    final MavenLog mavenLog = new MavenLog(getLog());
+
+    if (logQueueSize <= 0) {
+      return mavenLog;
+    }
+
+    return new AsyncLog(mavenLog, logQueueSize,
+            logDropPolicy == null ? AsyncLog.DropPolicy.DISCARD : logDropPolicy);
+  }
+
+  /**
+   * Create the release or the releases of the manifest.
+   *
+   * @throws MojoExecutionException If the configuration is invalid or a release failed
+   */
+  private void release() throws MojoExecutionException {
+    final boolean hasManifest = manifest != null && !manifest.isEmpty();
+
+    if (!hasManifest) {
+      validateRequiredInputParameters();
+    }
+
+    if (chunkedUpload && WagoClient.DEFAULT_BASE_URI.equals(baseUri)) {
+      throw new MojoExecutionException("chunkedUpload is experimental and not supported by "
+              + "Wago.io yet. It only works against a stand-in of the Wago.io Api configured "
+              + "with baseUri");
+    }
 
+    WagoClient.getSharedRateLimiter().configure(requestsPerSecond, requestBurst);
+    WagoClient.getSharedBandwidthLimiter().configure(maxUploadRate);
     WagoClient wagoClient = createWagoClient();
-    createRelease(wagoClient);
+    releaseSession = acquireReleaseSession();
+    wagoClient.setConnectionPool(releaseSession.getConnectionPool());
+
+    if (transport == TransportType.IN_MEMORY) {
+      getLog().warn("Using the in-memory transport - releases are not sent to Wago.io");
+    }
+
+    try {
+      if (hasManifest) {
+        createBatchRelease(wagoClient);
+      } else {
+        createRelease(wagoClient);
+      }
+    } finally {
+      releaseReleaseSession(releaseSession);
+    }
+  }
+
+  /**
+   * Get the release session of the current maven session. The release session is created by the
+   * first execution and used by all executions of the maven session including the executions of
+   * parallel builds that run at the same time.
+   *
+   * @return The release session the execution is registered with
+   */
+  private ReleaseSession acquireReleaseSession() {
+    if (session == null || session.getRepositorySession() == null) {
+      final ReleaseSession executionSession = createReleaseSession();
+      executionSession.acquire();
+
+      return executionSession;
+    }
+
+    final SessionData sessionData = session.getRepositorySession().getData();
+
+    while (true) {
+      final Object existingSession = sessionData.get(RELEASE_SESSION_KEY);
+
+      if (existingSession instanceof ReleaseSession
+              && ((ReleaseSession) existingSession).acquire()) {
+        return (ReleaseSession) existingSession;
+      }
+
+      final ReleaseSession createdSession = createReleaseSession();
+      createdSession.acquire();
+
+      if (sessionData.set(RELEASE_SESSION_KEY, existingSession, createdSession)) {
+        return createdSession;
+      }
+
+      // another execution replaced the session at the same time
+      createdSession.close();
+    }
+  }
+
+  private ReleaseSession createReleaseSession() {
+    return new ReleaseSession(new HttpConnectionPool(maxConnectionsPerRoute, connectionKeepAlive,
+            connectionIdleTimeout), maxConcurrentUploads);
+  }
+
+  /**
+   * Unregister the execution from its release session. The release session of the maven session
+   * is kept open until the last project of the session was built and no other execution uses it
+   * anymore.
+   *
+   * @param executionSession The release session used by this execution
+   */
+  private void releaseReleaseSession(ReleaseSession executionSession) {
+    if (getLog().isDebugEnabled()) {
+      getLog().debug("Release session: " + executionSession);
+      getLog().debug("Rate limiter: " + WagoClient.getSharedRateLimiter());
+      getLog().debug("Bandwidth limiter: " + WagoClient.getSharedBandwidthLimiter());
+    }
+
+    if (session == null || session.getRepositorySession() == null) {
+      executionSession.close();
+      return;
+    }
+
+    final List<MavenProject> projects = session.getProjects();
+    final boolean isLastProject = projects == null || projects.isEmpty()
+            || projects.get(projects.size() - 1) == session.getCurrentProject();
+
+    if (executionSession.release(isLastProject)) {
+      session.getRepositorySession().getData().set(RELEASE_SESSION_KEY, executionSession, null);
+    }
+  }
+
+  private String getModuleName() {
+    if (session == null || session.getCurrentProject() == null) {
+      return null;
+    }
+
+    return session.getCurrentProject().getGroupId() + ":"
+            + session.getCurrentProject().getArtifactId();
+  }
+
+  /**
+   * Write the report of this execution. In a multi-module build the reports of all executions so
+   * far are aggregated as well. Failing to write a report does not fail the build.
+   *
+   * @param executionReport The finished report of this execution
+   */
+  private void writeReports(ReleaseReport executionReport) {
+    final ReleaseReportWriter writer = new ReleaseReportWriter();
+
+    if (!isEmpty(reportFile)) {
+      try {
+        writer.write(Paths.get(reportFile), executionReport);
+        getLog().debug("Wrote release report " + reportFile);
+      } catch (IOException e) {
+        getLog().warn("Failed to write release report " + reportFile, e);
+      }
+    }
+
+    final List<ReleaseReport> reports = getSessionReports();
+
+    if (reports == null || isEmpty(aggregateReportFile)) {
+      return;
+    }
+
+    final List<ReleaseReport> finishedReports;
+
+    synchronized (reports) {
+      reports.add(executionReport);
+      finishedReports = new ArrayList<>(reports);
+    }
+
+    try {
+      // rewritten by every execution because the last module may not release anything
+      writer.write(Paths.get(aggregateReportFile), new AggregateReleaseReport(finishedReports));
+    } catch (IOException e) {
+      getLog().warn("Failed to write aggregated release report " + aggregateReportFile, e);
+    }
+  }
+
+  /**
+   * Get the reports of all executions of a multi-module build.
+   *
+   * @return The reports shared by the executions of the maven session or null if the build only
+   *         consists of a single module
+   */
+  @SuppressWarnings("unchecked")
+  private List<ReleaseReport> getSessionReports() {
+    if (session == null || session.getRepositorySession() == null
+            || session.getProjects() == null || session.getProjects().size() <= 1) {
+      return null;
+    }
+
+    final SessionData sessionData = session.getRepositorySession().getData();
+    final Object existingReports = sessionData.get(REPORTS_KEY);
+
+    if (existingReports instanceof List) {
+      return (List<ReleaseReport>) existingReports;
+    }
+
+    // another execution may register its list at the same time
+    sessionData.set(REPORTS_KEY, null, new ArrayList<ReleaseReport>());
+
+    return (List<ReleaseReport>) sessionData.get(REPORTS_KEY);
+  }
+
+  /**
+   * Create all releases of the manifest on Wago.io.
+   *
+   * @param wagoClient The Wago client holding the token
+   * @throws MojoExecutionException If the manifest is invalid or any of the releases failed
+   */
+  private void createBatchRelease(WagoClient wagoClient) throws MojoExecutionException {
+    final List<ReleaseRequest> requests = BatchReleaseService.readManifest(Paths.get(manifest));
+
+    final Set<Path> validatedFiles = new HashSet<>();
+
+    for (ReleaseRequest request : requests) {
+      applyDefaults(request);
+      if (deriveSupportedPatches && request.getFile() != null
+              && Files.isRegularFile(Paths.get(request.getFile()))) {
+        final long validationStart = System.nanoTime();
+        applyTocPatches(request.getMetadata(), Paths.get(request.getFile()));
+        report.addValidationTime(System.nanoTime() - validationStart);
+      }
+      validateReleaseRequest(request);
+    }
+    final long validationStart = System.nanoTime();
+    for (ReleaseRequest request : requests) {
+      final Path releaseFile = Paths.get(request.getFile()).toAbsolutePath().normalize();
+
+      if (validatedFiles.add(releaseFile)) {
+        checkArchive(releaseFile);
+      }
+    }
+    report.addValidationTime(System.nanoTime() - validationStart);
+
+    final BatchReleaseService batchReleaseService =
+            new BatchReleaseService(wagoClient, logger, this::createReleaseService);
+    batchReleaseService.setParallelism(releaseParallelism);
+    batchReleaseService.setFailFast(failFast);
+
+    final List<ReleaseResult> results = batchReleaseService.release(requests);
+    if (logger instanceof AsyncLog) {
+      // the summary follows the messages of the releases
+      ((AsyncLog) logger).flush();
+    }
+    int failures = 0;
+
+    for (ReleaseResult result : results) {
+      final String message = String.format("%-9s %s -> %s (%d ms)", result.getStatus(),
+              result.getFile(), result.getProjectId(), result.getDurationMillis());
+
+      if (result.getStatus() == ReleaseResult.Status.CANCELLED) {
+        // cancelled releases never reach a release service
+        final ReleaseMetrics metrics = new ReleaseMetrics();
+        metrics.setProjectId(result.getProjectId());
+        metrics.setSource(result.getFile());
+        metrics.setStatus(result.getStatus());
+        metrics.setError(result.getError());
+        report.addRelease(metrics);
+      }
+
+      if (result.getStatus() == ReleaseResult.Status.FAILED
+              || result.getStatus() == ReleaseResult.Status.CANCELLED) {
+        failures++;
+        getLog().error(message + " - " + result.getError());
+      } else {
+        getLog().info(message);
+      }
+    }
+
+    if (failures > 0) {
+      throw new MojoExecutionException(failures + " of " + results.size()
+              + " releases were not uploaded");
+    }
+  }
+
+  /**
+   * Fill values that are not set in a release of the manifest with the plugin configuration.
+   *
+   * @param request The release to complete
+   * @throws MojoExecutionException If a changelog file cannot be read
+   */
+  private void applyDefaults(ReleaseRequest request) throws MojoExecutionException {
+    final Metadata metadata = request.getMetadata() == null
+            ? new Metadata() : request.getMetadata();
+
+    if (metadata.getLabel() == null) {
+      metadata.setLabel(label);
+    }
+    if (metadata.getStability() == null) {
+      metadata.setStability(stability);
+    }
+    final long changelogStart = System.nanoTime();
+    if (request.getChangelogFile() != null) {
+      metadata.setChangelogFile(getChangelogFile(request.getChangelogFile()));
+    } else if (metadata.getChangelog() == null) {
+      applyChangelog(metadata);
+    }
+    report.addChangelogTime(System.nanoTime() - changelogStart);
+    if (metadata.getSupportedRetailPatch() == null) {
+      metadata.setSupportedRetailPatch(supportedRetailPatch);
+    }
+    if (metadata.getSupportedWotlkcPatch() == null) {
+      metadata.setSupportedWotlkcPatch(supportedWotlkcPatch);
+    }
+    if (metadata.getSupportedBccPatch() == null) {
+      metadata.setSupportedBccPatch(supportedBccPatch);
+    }
+    if (metadata.getSupportedClassicPatch() == null) {
+      metadata.setSupportedClassicPatch(supportedClassicPatch);
+    }
+    request.setMetadata(metadata);
+  }
+
+  /**
+   * Validate a single release of the manifest.
+   *
+   * @param request The release to validate
+   * @throws MojoExecutionException If a required value is missing
+   */
+  private void validateReleaseRequest(ReleaseRequest request) throws MojoExecutionException {
+    final Metadata metadata = request.getMetadata();
+
+    if (request.getProjectId() == null || request.getProjectId().isEmpty()) {
+      throw new MojoExecutionException("Missing project_id in manifest release " + request);
+    }
+
+    if (request.getFile() == null || !Files.isRegularFile(Paths.get(request.getFile()))) {
+      throw new MojoExecutionException("File of manifest release to project "
+              + request.getProjectId() + " does not exist: " + request.getFile());
+    }
+
+    if (isEmpty(metadata.getSupportedRetailPatch()) && isEmpty(metadata.getSupportedWotlkcPatch())
+            && isEmpty(metadata.getSupportedBccPatch())
+            && isEmpty(metadata.getSupportedClassicPatch())) {
+      throw new MojoExecutionException("Missing supported patch in manifest release to project "
+              + request.getProjectId());
+    }
+
+    if (isEmpty(metadata.getLabel()) || isEmpty(metadata.getStability())) {
+      throw new MojoExecutionException("Missing label or stability in manifest release to project "
+              + request.getProjectId());
+    }
+  }
+
+  private static boolean isEmpty(String value) {
+    return value == null || value.isEmpty();
   }
 
   /**
@@ -114,18 +702,193 @@ public class WagoReleaseMojo extends AbstractMojo {
    *                                service
    */
   private void createRelease(WagoClient wagoClient) throws MojoExecutionException {
-    final ReleaseService releaseService = new ReleaseService(wagoClient);
+    final ReleaseService releaseService = createReleaseService(wagoClient);
     Metadata metadata = new Metadata();
 
     metadata.setLabel(label);
     metadata.setStability(stability);
-    metadata.setChangelog(getChangelog());
+    final long changelogStart = System.nanoTime();
+    applyChangelog(metadata);
+    report.addChangelogTime(System.nanoTime() - changelogStart);
     metadata.setSupportedRetailPatch(supportedRetailPatch);
     metadata.setSupportedBccPatch(supportedBccPatch);
     metadata.setSupportedClassicPatch(supportedClassicPatch);
     metadata.setSupportedWotlkcPatch(supportedWotlkcPatch);
 
-    releaseService.createReleaseOperation(metadata, file);
+    final long validationStart = System.nanoTime();
+
+    if (directory != null && !directory.isEmpty()) {
+      final DirectoryArchive archive =
+              new DirectoryArchive(Paths.get(directory), includes, excludes);
+      archive.setParallelism(packagingParallelism);
+      if (packagingCacheDirectory != null && !packagingCacheDirectory.isEmpty()) {
+        archive.setCache(releaseSession.getPackagingCache(Paths.get(packagingCacheDirectory),
+                packagingCacheSize * 1024L * 1024L));
+      }
+      checkArchive(archive);
+      if (deriveSupportedPatches) {
+        applyTocPatches(metadata, archive);
+      }
+      report.addValidationTime(System.nanoTime() - validationStart);
+      releaseService.createReleaseOperation(metadata, archive);
+    } else {
+      checkArchive(Paths.get(file));
+      if (deriveSupportedPatches) {
+        applyTocPatches(metadata, Paths.get(file));
+      }
+      report.addValidationTime(System.nanoTime() - validationStart);
+      releaseService.createReleaseOperation(metadata, file);
+    }
+  }
+
+  /**
+   * Fill the supported patches that are not configured from the toc files of an archive.
+   *
+   * @param metadata The metadata of the release
+   * @param archive  The archive to upload
+   * @throws MojoExecutionException If the archive cannot be read or no patch is supported at all
+   */
+  private void applyTocPatches(Metadata metadata, Path archive) throws MojoExecutionException {
+    try {
+      applyTocPatches(metadata, archive.toString(), new TocReader().read(archive));
+    } catch (IOException e) {
+      throw new MojoExecutionException("Failed to read .toc files of " + archive, e);
+    }
+  }
+
+  /**
+   * Fill the supported patches that are not configured from the toc files of an addon directory.
+   *
+   * @param metadata The metadata of the release
+   * @param archive  The addon directory to upload
+   * @throws MojoExecutionException If a toc file cannot be read or no patch is supported at all
+   */
+  private void applyTocPatches(Metadata metadata, DirectoryArchive archive)
+          throws MojoExecutionException {
+    try {
+      applyTocPatches(metadata, archive.getDirectory().toString(), new TocReader().read(archive));
+    } catch (IOException e) {
+      throw new MojoExecutionException("Failed to read .toc files of " + archive.getDirectory(), e);
+    }
+  }
+
+  private void applyTocPatches(Metadata metadata, String source,
+                               Map<TocReader.Flavor, String> patches)
+          throws MojoExecutionException {
+    getLog().debug("Supported patches of " + source + ": " + patches);
+    TocReader.fillSupportedPatches(metadata, patches);
+
+    if (isEmpty(metadata.getSupportedRetailPatch()) && isEmpty(metadata.getSupportedWotlkcPatch())
+            && isEmpty(metadata.getSupportedBccPatch())
+            && isEmpty(metadata.getSupportedClassicPatch())) {
+      throw new MojoExecutionException("No supported patch configured and none of the .toc files "
+              + "of " + source + " declares a supported ## Interface version");
+    }
+  }
+
+  /**
+   * Validate an archive before anything is uploaded.
+   *
+   * @param archive The archive to upload
+   * @throws MojoExecutionException If the archive is invalid or cannot be read
+   */
+  private void checkArchive(Path archive) throws MojoExecutionException {
+    if (!validateArchive) {
+      return;
+    }
+
+    final long start = System.nanoTime();
+
+    try {
+      reportProblems(archive.toString(), createArchiveValidator().validate(archive), start);
+    } catch (IOException e) {
+      throw new MojoExecutionException("Failed to validate addon archive " + archive, e);
+    }
+  }
+
+  /**
+   * Validate the structure of an addon directory before it is packaged and uploaded.
+   *
+   * @param archive The addon directory to upload
+   * @throws MojoExecutionException If the directory is invalid or cannot be read
+   */
+  private void checkArchive(DirectoryArchive archive) throws MojoExecutionException {
+    if (!validateArchive) {
+      return;
+    }
+
+    final long start = System.nanoTime();
+
+    try {
+      reportProblems(archive.getDirectory().toString(),
+              createArchiveValidator().validate(archive), start);
+    } catch (IOException e) {
+      throw new MojoExecutionException("Failed to validate addon directory "
+              + archive.getDirectory(), e);
+    }
+  }
+
+  private ArchiveValidator createArchiveValidator() {
+    final ArchiveValidator archiveValidator = new ArchiveValidator(packagingParallelism);
+    archiveValidator.setMaxEntrySize(maxEntrySize * 1024L * 1024L);
+    archiveValidator.setCheckLayout(validateArchiveLayout);
+
+    return archiveValidator;
+  }
+
+  private void reportProblems(String source, List<String> problems, long start)
+          throws MojoExecutionException {
+    if (getLog().isDebugEnabled()) {
+      getLog().debug("Validated " + source + " in "
+              + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+    }
+
+    if (!problems.isEmpty()) {
+      throw new MojoExecutionException("Invalid addon archive " + source + ":"
+              + System.lineSeparator() + "  - "
+              + String.join(System.lineSeparator() + "  - ", problems));
+    }
+  }
+
+  /**
+   * Create a release service configured with the upload related parameters. Called concurrently
+   * for the releases of a manifest.
+   *
+   * @param wagoClient The Wago client of the targeted project
+   * @return The configured release service
+   */
+  private synchronized ReleaseService createReleaseService(WagoClient wagoClient) {
+    final ReleaseService releaseService = new ReleaseService(wagoClient,
+            logger == null ? new MavenLog(getLog()) : logger);
+    releaseService.setProgressInterval(progressInterval);
+    releaseService.setChunkedUpload(chunkedUpload);
+    releaseService.setChunkSize(chunkSize);
+    if (checkpointDirectory != null && !checkpointDirectory.isEmpty()) {
+      releaseService.setCheckpointDirectory(Paths.get(checkpointDirectory));
+    }
+    if (uploadCacheFile != null && !uploadCacheFile.isEmpty()) {
+      // shared between all release services of the maven session
+      releaseService.setUploadCache(
+              releaseSession.getUploadCache(Paths.get(uploadCacheFile), uploadCacheSize));
+    }
+    releaseService.setForceUpload(forceUpload);
+    // shared between all release services of the maven session
+    releaseService.setTransport(releaseSession.getTransport(wagoClient,
+            transport != null ? transport : TransportType.APACHE));
+    releaseService.setUploadPermits(releaseSession.getUploadPermits());
+
+    final RetryPolicy retryPolicy = new RetryPolicy();
+    retryPolicy.setMaxAttempts(retryMaxAttempts);
+    retryPolicy.setBaseDelay(retryBaseDelay);
+    retryPolicy.setMaxDelay(retryMaxDelay);
+    releaseService.setRetryPolicy(retryPolicy);
+    releaseService.setReleaseTimeout(TimeUnit.SECONDS.toMillis(releaseTimeout));
+    releaseService.setErrorParser(new WagoApiErrorParser(maxErrorResponseSize));
+    if (report != null) {
+      releaseService.setMetricsListener(report::addRelease);
+    }
+
+    return releaseService;
   }
 
   /**
@@ -158,26 +921,35 @@ public class WagoReleaseMojo extends AbstractMojo {
     return authToken;
   }
 
-  private String getChangelog() throws MojoExecutionException {
-    if (!changelogFile.isEmpty()) {
-      byte[] changelogContent;
+  /**
+   * Set the changelog of a release. A changelog file is not read here but streamed into the
+   * request.
+   *
+   * @param metadata The metadata of the release
+   * @throws MojoExecutionException If the changelog file does not exist
+   */
+  private void applyChangelog(Metadata metadata) throws MojoExecutionException {
+    if (changelogFile != null && !changelogFile.isEmpty()) {
+      metadata.setChangelogFile(getChangelogFile(changelogFile));
+    } else if (changelog != null && !changelog.isEmpty()) {
+      metadata.setChangelog(changelog);
+    } else {
+      metadata.setChangelog("");
+    }
+  }
 
-      try {
-        Path changelogPath = Paths.get(changelogFile);
-        if (getLog().isDebugEnabled()) {
-          getLog().debug("Changelog path: " + changelogFile);
-        }
-        changelogContent = Files.readAllBytes(changelogPath);
+  private Path getChangelogFile(String path) throws MojoExecutionException {
+    Path changelogPath = Paths.get(path);
+    if (getLog().isDebugEnabled()) {
+      getLog().debug("Changelog path: " + path);
+    }
 
-        return new String(changelogContent, StandardCharsets.UTF_8);
-      } catch (IOException e) {
-        throw new MojoExecutionException("Failed to read release notes", e);
-      }
-    } else if (!changelog.isEmpty()) {
-      return changelog;
+    if (!Files.isReadable(changelogPath)) {
+      throw new MojoExecutionException("Failed to read release notes",
+              new NoSuchFileException(path));
     }
 
-    return "";
+    return changelogPath;
   }
 
   /**
@@ -190,9 +962,10 @@ public class WagoReleaseMojo extends AbstractMojo {
       throw new MojoExecutionException("Missing required parameter projectId");
     }
 
-    if (!hasValidSupportedVersion()) {
+    if (!deriveSupportedPatches && !hasValidSupportedVersion()) {
       throw new MojoExecutionException("Missing required parameter supported patch. One of "
-              + "supportedRetailPatch, supportedBccPatch or supportedClassicPatch has to be set");
+              + "supportedRetailPatch, supportedBccPatch or supportedClassicPatch has to be set or "
+              + "deriveSupportedPatches enabled");
     }
 
     if (label == null || label.isEmpty()) {
@@ -203,8 +976,20 @@ public class WagoReleaseMojo extends AbstractMojo {
       throw new MojoExecutionException("Missing required parameter stability");
     }
 
-    if (file == null || file.isEmpty()) {
-      throw new MojoExecutionException("Missing required parameter file");
+    final boolean hasFile = file != null && !file.isEmpty();
+    final boolean hasDirectory = directory != null && !directory.isEmpty();
+
+    if (!hasFile && !hasDirectory) {
+      throw new MojoExecutionException("Missing required parameter. One of file or directory has "
+              + "to be set");
+    }
+
+    if (hasFile && hasDirectory) {
+      throw new MojoExecutionException("Parameters file and directory cannot be used together");
+    }
+
+    if (hasDirectory && !Files.isDirectory(Paths.get(directory))) {
+      throw new MojoExecutionException("Directory " + directory + " does not exist");
     }
   }
 
@@ -244,8 +1029,14 @@ public class WagoReleaseMojo extends AbstractMojo {
    */
   private WagoClient createWagoClient() throws MojoExecutionException {
     WagoClient wagoClient = new WagoClient();
+    if (baseUri != null && !baseUri.isEmpty()) {
+      wagoClient.setBaseUri(baseUri);
+    }
     wagoClient.setToken(getCredentials());
     wagoClient.setProjectId(projectId);
+    wagoClient.setConnectTimeout(connectTimeout);
+    wagoClient.setSocketTimeout(socketTimeout);
+    wagoClient.setConnectionRequestTimeout(connectionRequestTimeout);
 
     return wagoClient;
   }
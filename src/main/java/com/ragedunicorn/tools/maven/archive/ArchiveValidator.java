@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.archive;
+
+import com.ragedunicorn.tools.maven.archive.ZipCentralDirectory.Entry;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Checks an addon archive before it is uploaded. The central directory is read from a memory
+ * mapped file and the checksums of all entries are verified in parallel. An archive is valid if
+ * it is not empty, every checksum matches and no entry is oversized or contained twice. With
+ * {@link #setCheckLayout(boolean)} it additionally has to contain every entry in a top-level addon
+ * folder with a matching {@code .toc} file.
+ */
+public class ArchiveValidator {
+  public static final long DEFAULT_MAX_ENTRY_SIZE = 100L * 1024 * 1024;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final int parallelism;
+  // maximum uncompressed size of a single entry in bytes
+  private long maxEntrySize = DEFAULT_MAX_ENTRY_SIZE;
+  // whether entries have to be located in addon folders with a matching toc file
+  private boolean checkLayout;
+
+  /**
+   * Create a new validator.
+   *
+   * @param parallelism The amount of threads used for verifying checksums. Values below 1 use
+   *                    one thread per available processor
+   */
+  public ArchiveValidator(int parallelism) {
+    this.parallelism = parallelism < 1 ? Runtime.getRuntime().availableProcessors() : parallelism;
+  }
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  public long getMaxEntrySize() {
+    return maxEntrySize;
+  }
+
+  public void setMaxEntrySize(long maxEntrySize) {
+    this.maxEntrySize = maxEntrySize;
+  }
+
+  public boolean isCheckLayout() {
+    return checkLayout;
+  }
+
+  public void setCheckLayout(boolean checkLayout) {
+    this.checkLayout = checkLayout;
+  }
+
+  /**
+   * Validate a zip archive.
+   *
+   * @param file The archive to validate
+   * @return The problems found in the archive. Empty if the archive is valid
+   * @throws IOException If the archive cannot be read
+   */
+  public List<String> validate(Path file) throws IOException {
+    final ZipCentralDirectory directory;
+
+    try {
+      directory = ZipCentralDirectory.open(file);
+    } catch (ZipException e) {
+      return Collections.singletonList(e.getMessage());
+    }
+
+    final List<String> problems = new ArrayList<>();
+    checkStructure(directory.getEntries(), problems);
+
+    // an invalid structure fails before decompressing anything
+    if (problems.isEmpty()) {
+      checkChecksums(directory, problems);
+    }
+
+    return problems;
+  }
+
+  /**
+   * Validate the structure of an archive that is going to be packaged from a directory.
+   *
+   * @param archive The addon directory
+   * @return The problems found in the directory. Empty if the directory is valid
+   * @throws IOException If the size of a file cannot be read
+   */
+  public List<String> validate(DirectoryArchive archive) throws IOException {
+    final List<Entry> entries = new ArrayList<>();
+
+    for (DirectoryArchive.ArchiveEntry archiveEntry : archive.getEntries()) {
+      entries.add(new Entry(archiveEntry.getName(), Files.size(archiveEntry.getPath())));
+    }
+
+    final List<String> problems = new ArrayList<>();
+    checkStructure(entries, problems);
+
+    return problems;
+  }
+
+  /**
+   * Whether a file is the {@code .toc} file of an addon folder. Besides {@code <folder>.toc}
+   * client specific files like {@code <folder>_Vanilla.toc} or {@code <folder>-Classic.toc} are
+   * accepted.
+   *
+   * @param folder   The name of the addon folder
+   * @param fileName The name of the file inside the folder
+   * @return True if the file is a matching toc file
+   */
+  public static boolean isTocFile(String folder, String fileName) {
+    final String lowerCaseName = fileName.toLowerCase(Locale.ROOT);
+    final String lowerCaseFolder = folder.toLowerCase(Locale.ROOT);
+
+    if (!lowerCaseName.endsWith(".toc") || !lowerCaseName.startsWith(lowerCaseFolder)) {
+      return false;
+    }
+
+    final String suffix = lowerCaseName.substring(lowerCaseFolder.length(),
+            lowerCaseName.length() - ".toc".length());
+
+    return suffix.isEmpty() || suffix.charAt(0) == '_' || suffix.charAt(0) == '-';
+  }
+
+  private void checkStructure(List<Entry> entries, List<String> problems) {
+    final Set<String> names = new HashSet<>();
+    // addon folders and whether a matching toc file was found
+    final Map<String, Boolean> folders = new TreeMap<>();
+
+    if (entries.isEmpty()) {
+      problems.add("Archive is empty");
+    }
+
+    for (Entry entry : entries) {
+      // addons are installed on case insensitive file systems as well
+      if (!names.add(entry.name.toLowerCase(Locale.ROOT))) {
+        problems.add("Duplicate entry " + entry.name);
+      }
+
+      if (entry.size > maxEntrySize) {
+        problems.add("Entry " + entry.name + " is larger than " + maxEntrySize + " bytes ("
+                + entry.size + " bytes)");
+      }
+
+      if (!checkLayout) {
+        continue;
+      }
+
+      final int separator = entry.name.indexOf('/');
+
+      if (separator <= 0) {
+        problems.add("Entry " + entry.name + " is not located in an addon folder");
+        continue;
+      }
+
+      final String folder = entry.name.substring(0, separator);
+      final String path = entry.name.substring(separator + 1);
+      final boolean isToc = path.indexOf('/') < 0 && isTocFile(folder, path);
+      folders.merge(folder, isToc, Boolean::logicalOr);
+    }
+
+    for (Map.Entry<String, Boolean> folder : folders.entrySet()) {
+      if (!folder.getValue()) {
+        problems.add("Addon folder " + folder.getKey() + " does not contain a "
+                + folder.getKey() + ".toc file");
+      }
+    }
+  }
+
+  private void checkChecksums(ZipCentralDirectory directory, List<String> problems)
+          throws IOException {
+    final List<Entry> entries = directory.getEntries();
+    final ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+    try {
+      final List<Future<String>> results = new ArrayList<>(entries.size());
+
+      for (Entry entry : entries) {
+        results.add(pool.submit(() -> checkChecksum(directory, entry)));
+      }
+
+      for (Future<String> result : results) {
+        final String problem = result.get();
+
+        if (problem != null) {
+          problems.add(problem);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while validating archive", e);
+    } catch (ExecutionException e) {
+      throw new IOException("Failed to validate archive", e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Decompress an entry and compare its checksum and size with the central directory.
+   *
+   * @param directory The central directory of the archive
+   * @param entry     The entry to check
+   * @return The problem of the entry or null if the entry is intact
+   */
+  private static String checkChecksum(ZipCentralDirectory directory, Entry entry) {
+    if (entry.name.endsWith("/")) {
+      return null;
+    }
+
+    final ByteBuffer buffer;
+
+    try {
+      buffer = directory.getData(entry);
+    } catch (ZipException e) {
+      return e.getMessage();
+    }
+
+    final CRC32 crc = new CRC32();
+    final long size;
+
+    if (entry.method == ZipEntry.STORED) {
+      size = updateStored(buffer, crc);
+    } else if (entry.method == ZipEntry.DEFLATED) {
+      try {
+        size = updateDeflated(buffer, crc);
+      } catch (DataFormatException e) {
+        return "Corrupt data in entry " + entry.name + ": " + e.getMessage();
+      }
+    } else {
+      return "Unsupported compression method " + entry.method + " of entry " + entry.name;
+    }
+
+    if (size != entry.size || crc.getValue() != entry.crc) {
+      return "Checksum mismatch in entry " + entry.name;
+    }
+
+    return null;
+  }
+
+  static long updateStored(ByteBuffer data, CRC32 crc) {
+    final byte[] chunk = new byte[BUFFER_SIZE];
+    long size = 0;
+
+    while (data.hasRemaining()) {
+      final int length = Math.min(chunk.length, data.remaining());
+      data.get(chunk, 0, length);
+      crc.update(chunk, 0, length);
+      size += length;
+    }
+
+    return size;
+  }
+
+  static long updateDeflated(ByteBuffer data, CRC32 crc) throws DataFormatException {
+    final Inflater inflater = new Inflater(true);
+    final byte[] input = new byte[BUFFER_SIZE];
+    final byte[] output = new byte[BUFFER_SIZE];
+
+    try {
+      while (!inflater.finished()) {
+        if (inflater.needsInput()) {
+          if (!data.hasRemaining()) {
+            throw new DataFormatException("unexpected end of data");
+          }
+          final int length = Math.min(input.length, data.remaining());
+          data.get(input, 0, length);
+          inflater.setInput(input, 0, length);
+        }
+
+        final int inflated = inflater.inflate(output);
+
+        if (inflated == 0 && inflater.needsDictionary()) {
+          throw new DataFormatException("preset dictionary not supported");
+        }
+        crc.update(output, 0, inflated);
+      }
+
+      return inflater.getBytesWritten();
+    } finally {
+      inflater.end();
+    }
+  }
+}
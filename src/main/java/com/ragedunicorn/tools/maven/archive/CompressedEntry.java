@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.archive;
+
+/**
+ * A zip entry whose data is already compressed and can be copied into an archive as is.
+ */
+public class CompressedEntry {
+  private final String name;
+  private final long time;
+  private final int method;
+  private final long crc;
+  private final long size;
+  private final byte[] data;
+
+  /**
+   * Create a new compressed entry.
+   *
+   * @param name   The name of the entry inside the archive
+   * @param time   The modification time of the entry in milliseconds
+   * @param method Either {@link java.util.zip.ZipEntry#DEFLATED} or
+   *               {@link java.util.zip.ZipEntry#STORED}
+   * @param crc    The CRC-32 of the uncompressed data
+   * @param size   The size of the uncompressed data
+   * @param data   The raw entry data as written to the archive
+   */
+  public CompressedEntry(String name, long time, int method, long crc, long size, byte[] data) {
+    this.name = name;
+    this.time = time;
+    this.method = method;
+    this.crc = crc;
+    this.size = size;
+    this.data = data;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public long getTime() {
+    return time;
+  }
+
+  public int getMethod() {
+    return method;
+  }
+
+  public long getCrc() {
+    return crc;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  public long getCompressedSize() {
+    return data.length;
+  }
+
+  public byte[] getData() {
+    return data;
+  }
+}
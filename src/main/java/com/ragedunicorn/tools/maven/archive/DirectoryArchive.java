@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.archive;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.codehaus.plexus.util.DirectoryScanner;
+
+/**
+ * An addon directory that is packaged into a zip archive while it is written. All entries are
+ * placed below a top-level folder named like the directory itself and are written in a stable
+ * order. Entries are compressed in parallel by a {@link ParallelZipPackager} and are taken from
+ * an optional {@link PackagingCache} if the file did not change.
+ */
+public class DirectoryArchive {
+  private final Path directory;
+  private final List<String> includes;
+  private final List<String> excludes;
+
+  // amount of threads used for compressing entries - values below 1 use all processors
+  private int parallelism;
+  private PackagingCache cache;
+  private List<ArchiveEntry> entries;
+
+  /**
+   * Create a new directory archive.
+   *
+   * @param directory The addon directory to package
+   * @param includes  Ant style patterns of files to include. All files are included if empty
+   * @param excludes  Ant style patterns of files to exclude in addition to the default SCM excludes
+   */
+  public DirectoryArchive(Path directory, List<String> includes, List<String> excludes) {
+    this.directory = directory;
+    this.includes = includes == null ? Collections.emptyList() : includes;
+    this.excludes = excludes == null ? Collections.emptyList() : excludes;
+  }
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  public void setParallelism(int parallelism) {
+    this.parallelism = parallelism;
+  }
+
+  public PackagingCache getCache() {
+    return cache;
+  }
+
+  public void setCache(PackagingCache cache) {
+    this.cache = cache;
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Name of the top-level folder inside the archive.
+   *
+   * @return The name of the top-level folder
+   */
+  public String getRootName() {
+    return directory.getFileName().toString();
+  }
+
+  /**
+   * Scan the directory for all included files. The result is cached.
+   *
+   * @return All included files sorted by their entry name
+   */
+  public synchronized List<ArchiveEntry> getEntries() {
+    if (entries == null) {
+      final DirectoryScanner scanner = new DirectoryScanner();
+      scanner.setBasedir(directory.toFile());
+
+      if (!includes.isEmpty()) {
+        scanner.setIncludes(includes.toArray(new String[0]));
+      }
+      if (!excludes.isEmpty()) {
+        scanner.setExcludes(excludes.toArray(new String[0]));
+      }
+      scanner.addDefaultExcludes();
+      scanner.scan();
+
+      final String[] includedFiles = scanner.getIncludedFiles();
+      Arrays.sort(includedFiles);
+      final List<ArchiveEntry> scannedEntries = new ArrayList<>(includedFiles.length);
+
+      for (String includedFile : includedFiles) {
+        final String name = getRootName() + "/" + includedFile.replace('\\', '/');
+        scannedEntries.add(new ArchiveEntry(name, directory.resolve(includedFile)));
+      }
+      entries = Collections.unmodifiableList(scannedEntries);
+    }
+
+    return entries;
+  }
+
+  /**
+   * Write the directory as zip archive. The passed stream is not closed.
+   *
+   * @param out The stream to write to
+   * @throws IOException If any file cannot be read or the archive cannot be written
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    final ParallelZipPackager packager = new ParallelZipPackager(parallelism);
+    packager.setCache(cache);
+    packager.writeTo(getEntries(), out);
+  }
+
+  public static class ArchiveEntry {
+    private final String name;
+    private final Path path;
+
+    public ArchiveEntry(String name, Path path) {
+      this.name = name;
+      this.path = path;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public Path getPath() {
+      return path;
+    }
+  }
+}
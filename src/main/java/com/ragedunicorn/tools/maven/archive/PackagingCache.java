@@ -0,0 +1,461 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.archive;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.ZipEntry;
+
+/**
+ * Persistent cache of compressed archive entries. Files are recognized by their path, size and
+ * modification time or, if those changed, by the hash of their content. The compressed data is
+ * stored once per content and compression level. The cache is bounded by the total size of the
+ * compressed data and evicts the least recently used entries once it is full.
+ *
+ * <p>The cache is best effort. A cache that cannot be read or written only means that files are
+ * compressed again.
+ */
+public class PackagingCache {
+  private static final String INDEX_FILE = "index.json";
+  private static final Type INDEX_TYPE = new TypeToken<List<Record>>() {}.getType();
+
+  private final Gson gson = new Gson();
+
+  private final Path directory;
+  private final long maxSize;
+  private final Map<String, Record> records = new LinkedHashMap<>(16, 0.75f, true);
+  // data files of evicted or replaced records that may be deleted on save
+  private final Set<String> released = new HashSet<>();
+  private final AtomicInteger hits = new AtomicInteger();
+  private final AtomicInteger misses = new AtomicInteger();
+
+  private boolean loaded;
+
+  /**
+   * Create a new packaging cache.
+   *
+   * @param directory The directory the index and the compressed data are stored in
+   * @param maxSize   The maximum size of all compressed data in bytes
+   */
+  public PackagingCache(Path directory, long maxSize) {
+    this.directory = directory;
+    this.maxSize = maxSize;
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  public int getHits() {
+    return hits.get();
+  }
+
+  public int getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * Look up an unchanged file by its path, size and modification time without reading it.
+   *
+   * @param entry        The file to look up
+   * @param size         The current size of the file
+   * @param lastModified The current modification time of the file in milliseconds
+   * @param level        The compression level the entry has to be compressed with
+   * @return The cached entry or null if the file is unknown or has changed
+   */
+  public CompressedEntry get(DirectoryArchive.ArchiveEntry entry, long size, long lastModified,
+                             int level) {
+    final Record record;
+
+    synchronized (this) {
+      load();
+      record = records.get(key(entry));
+    }
+
+    if (record == null || record.size != size || record.lastModified != lastModified
+            || record.level != level) {
+      return null;
+    }
+
+    return read(entry, lastModified, record);
+  }
+
+  /**
+   * Look up a file by the hash of its content. Used for files that were touched or renamed but
+   * whose content is already known. A hit updates the record of the file.
+   *
+   * @param entry        The file to look up
+   * @param contentHash  The hash of the current content as created by {@link #hash(byte[])}
+   * @param lastModified The current modification time of the file in milliseconds
+   * @param level        The compression level the entry has to be compressed with
+   * @return The cached entry or null if the content is unknown
+   */
+  public CompressedEntry get(DirectoryArchive.ArchiveEntry entry, String contentHash,
+                             long lastModified, int level) {
+    Record known = null;
+
+    synchronized (this) {
+      load();
+
+      for (Record record : records.values()) {
+        if (record.contentHash.equals(contentHash) && record.level == level) {
+          known = record;
+          break;
+        }
+      }
+    }
+
+    if (known == null) {
+      misses.incrementAndGet();
+      return null;
+    }
+
+    final CompressedEntry compressed = read(entry, lastModified, known);
+
+    if (compressed != null) {
+      final Record record = known.copy();
+      record.path = key(entry);
+      record.lastModified = lastModified;
+      replace(record);
+    }
+
+    return compressed;
+  }
+
+  /**
+   * Store a freshly compressed file.
+   *
+   * @param entry       The compressed file
+   * @param contentHash The hash of the compressed content as created by {@link #hash(byte[])}
+   * @param level       The compression level the entry was compressed with
+   * @param compressed  The compressed entry
+   */
+  public void put(DirectoryArchive.ArchiveEntry entry, String contentHash, int level,
+                  CompressedEntry compressed) {
+    final Record record = new Record();
+    record.path = key(entry);
+    record.size = compressed.getSize();
+    record.lastModified = compressed.getTime();
+    record.contentHash = contentHash;
+    record.level = level;
+    record.method = compressed.getMethod();
+    record.crc = compressed.getCrc();
+    record.compressedSize = compressed.getCompressedSize();
+
+    final Path dataFile = directory.resolve(record.dataFile());
+
+    try {
+      if (!Files.isRegularFile(dataFile) || Files.size(dataFile) != record.compressedSize) {
+        Files.createDirectories(directory);
+        write(dataFile, record.contentHash, compressed.getData());
+      }
+    } catch (IOException e) {
+      return;
+    }
+    replace(record);
+  }
+
+  /**
+   * Evict the least recently used entries until the cache fits its maximum size and persist the
+   * index.
+   */
+  public synchronized void save() {
+    load();
+
+    final Map<String, Long> dataSizes = new LinkedHashMap<>();
+    long totalSize = 0;
+
+    for (Record record : records.values()) {
+      if (dataSizes.put(record.dataFile(), record.compressedSize) == null) {
+        totalSize += record.compressedSize;
+      }
+    }
+
+    final Iterator<Record> iterator = records.values().iterator();
+
+    while (totalSize > maxSize && iterator.hasNext()) {
+      final Record eldest = iterator.next();
+      iterator.remove();
+      released.add(eldest.dataFile());
+
+      if (!isReferenced(eldest.dataFile())) {
+        totalSize -= eldest.compressedSize;
+      }
+    }
+
+    try {
+      Files.createDirectories(directory);
+      final Path indexFile = directory.resolve(INDEX_FILE);
+      final Path temporaryFile = directory.resolve(INDEX_FILE + ".tmp");
+
+      try {
+        try (Writer writer = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8)) {
+          gson.toJson(new ArrayList<>(records.values()), INDEX_TYPE, writer);
+        }
+        Files.move(temporaryFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+      } finally {
+        Files.deleteIfExists(temporaryFile);
+      }
+
+      for (String dataFile : released) {
+        if (!isReferenced(dataFile)) {
+          Files.deleteIfExists(directory.resolve(dataFile));
+        }
+      }
+      released.clear();
+    } catch (IOException e) {
+      // a cache that cannot be written only means that files are compressed again
+    }
+  }
+
+  /**
+   * Create the hash of a file content.
+   *
+   * @param content The content of a file
+   * @return A hex encoded SHA-256 hash
+   */
+  public static String hash(byte[] content) {
+    final MessageDigest digest;
+
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not supported by this jvm", e);
+    }
+
+    final byte[] bytes = digest.digest(content);
+    final StringBuilder hex = new StringBuilder(bytes.length * 2);
+
+    for (byte b : bytes) {
+      hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+
+    return hex.toString();
+  }
+
+  /**
+   * Write a data file through a temporary file so a failed write never leaves a truncated data
+   * file behind.
+   *
+   * @param dataFile The data file to write
+   * @param prefix   The prefix of the temporary file
+   * @param data     The compressed data
+   * @throws IOException If the data cannot be written
+   */
+  private void write(Path dataFile, String prefix, byte[] data) throws IOException {
+    final Path temporaryFile = Files.createTempFile(directory, prefix, ".tmp");
+
+    try {
+      Files.write(temporaryFile, data);
+      Files.move(temporaryFile, dataFile, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  /**
+   * Read the compressed data of a record. Data whose size or checksum does not match the record is
+   * evicted so the file is compressed and stored again.
+   *
+   * @param entry        The file to read the compressed data for
+   * @param lastModified The current modification time of the file in milliseconds
+   * @param record       The record of the file
+   * @return The cached entry or null if the data cannot be read or is corrupt
+   */
+  private CompressedEntry read(DirectoryArchive.ArchiveEntry entry, long lastModified,
+                               Record record) {
+    final byte[] data;
+
+    try {
+      data = Files.readAllBytes(directory.resolve(record.dataFile()));
+    } catch (IOException e) {
+      // compress the file again
+      return null;
+    }
+
+    if (data.length != record.compressedSize || !isIntact(data, record)) {
+      evict(record.dataFile());
+      return null;
+    }
+
+    hits.incrementAndGet();
+    return new CompressedEntry(entry.getName(), lastModified, record.method, record.crc,
+            record.size, data);
+  }
+
+  private static boolean isIntact(byte[] data, Record record) {
+    final CRC32 crc = new CRC32();
+    final long size;
+
+    try {
+      if (record.method == ZipEntry.STORED) {
+        size = ArchiveValidator.updateStored(ByteBuffer.wrap(data), crc);
+      } else if (record.method == ZipEntry.DEFLATED) {
+        size = ArchiveValidator.updateDeflated(ByteBuffer.wrap(data), crc);
+      } else {
+        return false;
+      }
+    } catch (DataFormatException e) {
+      return false;
+    }
+
+    return size == record.size && crc.getValue() == record.crc;
+  }
+
+  /**
+   * Remove all records of a corrupt data file and delete it.
+   *
+   * @param dataFile The name of the data file
+   */
+  private void evict(String dataFile) {
+    synchronized (this) {
+      records.values().removeIf(record -> record.dataFile().equals(dataFile));
+    }
+
+    try {
+      Files.deleteIfExists(directory.resolve(dataFile));
+    } catch (IOException e) {
+      // the data file is deleted once the index is saved
+      synchronized (this) {
+        released.add(dataFile);
+      }
+    }
+  }
+
+  private synchronized void replace(Record record) {
+    final Record previous = records.put(record.path, record);
+
+    if (previous != null && !previous.dataFile().equals(record.dataFile())) {
+      released.add(previous.dataFile());
+    }
+  }
+
+  private boolean isReferenced(String dataFile) {
+    for (Record record : records.values()) {
+      if (record.dataFile().equals(dataFile)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  private void load() {
+    if (loaded) {
+      return;
+    }
+    loaded = true;
+
+    final Path indexFile = directory.resolve(INDEX_FILE);
+
+    if (!Files.isRegularFile(indexFile)) {
+      return;
+    }
+
+    try (Reader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+      final List<Record> storedRecords = gson.fromJson(reader, INDEX_TYPE);
+
+      if (storedRecords != null) {
+        // the index is stored from least to most recently used
+        for (Record record : storedRecords) {
+          if (record.path != null && record.contentHash != null) {
+            records.put(record.path, record);
+          }
+        }
+      }
+    } catch (IOException | JsonParseException e) {
+      records.clear();
+    }
+  }
+
+  private static String key(DirectoryArchive.ArchiveEntry entry) {
+    return entry.getPath().toAbsolutePath().normalize().toString();
+  }
+
+  private static class Record {
+    @SerializedName("path")
+    private String path;
+
+    @SerializedName("size")
+    private long size;
+
+    @SerializedName("last_modified")
+    private long lastModified;
+
+    @SerializedName("content_hash")
+    private String contentHash;
+
+    @SerializedName("level")
+    private int level;
+
+    @SerializedName("method")
+    private int method;
+
+    @SerializedName("crc")
+    private long crc;
+
+    @SerializedName("compressed_size")
+    private long compressedSize;
+
+    String dataFile() {
+      return contentHash + "-" + level + ".bin";
+    }
+
+    Record copy() {
+      final Record record = new Record();
+      record.path = path;
+      record.size = size;
+      record.lastModified = lastModified;
+      record.contentHash = contentHash;
+      record.level = level;
+      record.method = method;
+      record.crc = crc;
+      record.compressedSize = compressedSize;
+
+      return record;
+    }
+  }
+}
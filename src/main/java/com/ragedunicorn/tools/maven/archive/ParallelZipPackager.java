@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+/**
+ * Packages files into a zip archive while compressing the entries in parallel on a bounded fork
+ * join pool. Entries are merged in their original order which makes the archive byte for byte
+ * identical independent of the parallelism. With a {@link PackagingCache} only files that changed
+ * since a previous packaging are compressed again.
+ */
+public class ParallelZipPackager {
+  // files above this size are deflated while they are written instead of being held in memory
+  private static final long LARGE_ENTRY_THRESHOLD = 8 * 1024 * 1024;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final int parallelism;
+  private final int compressionLevel;
+
+  private PackagingCache cache;
+
+  public ParallelZipPackager(int parallelism) {
+    this(parallelism, Deflater.DEFAULT_COMPRESSION);
+  }
+
+  /**
+   * Create a new packager.
+   *
+   * @param parallelism      The amount of threads used for compression. Values below 1 use one
+   *                         thread per available processor
+   * @param compressionLevel The deflate compression level
+   */
+  public ParallelZipPackager(int parallelism, int compressionLevel) {
+    this.parallelism = parallelism < 1 ? Runtime.getRuntime().availableProcessors() : parallelism;
+    this.compressionLevel = compressionLevel;
+  }
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  public PackagingCache getCache() {
+    return cache;
+  }
+
+  public void setCache(PackagingCache cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Package all entries into a zip archive. The passed stream is not closed.
+   *
+   * @param entries The entries to package in the order they appear in the archive
+   * @param out     The stream to write the archive to
+   * @throws IOException If any file cannot be read or the archive cannot be written
+   */
+  public void writeTo(List<DirectoryArchive.ArchiveEntry> entries, OutputStream out)
+          throws IOException {
+    final ZipArchiveWriter writer = new ZipArchiveWriter(out);
+    final ForkJoinPool pool = new ForkJoinPool(parallelism);
+    // bounds the amount of compressed entries held in memory
+    final int maxPending = parallelism * 2;
+    final Deque<Pending> pending = new ArrayDeque<>(maxPending);
+
+    try {
+      for (DirectoryArchive.ArchiveEntry entry : entries) {
+        if (Files.size(entry.getPath()) > LARGE_ENTRY_THRESHOLD) {
+          drain(pending, writer, 0);
+          writeLargeEntry(entry, writer);
+        } else {
+          pending.add(new Pending(entry, pool.submit(() -> compress(entry))));
+          drain(pending, writer, maxPending - 1);
+        }
+      }
+      drain(pending, writer, 0);
+      writer.finish();
+
+      if (cache != null) {
+        cache.save();
+      }
+    } finally {
+      for (Pending remaining : pending) {
+        remaining.task.cancel(true);
+      }
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Write completed entries in order until at most the given amount of entries is pending.
+   */
+  private static void drain(Deque<Pending> pending, ZipArchiveWriter writer, int maxRemaining)
+          throws IOException {
+    while (pending.size() > maxRemaining) {
+      final Pending next = pending.poll();
+
+      try {
+        writer.writeEntry(next.task.get());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while packaging " + next.entry.getName(), e);
+      } catch (ExecutionException e) {
+        throw new IOException("Failed to package " + next.entry.getName(), e.getCause());
+      }
+    }
+  }
+
+  private void writeLargeEntry(DirectoryArchive.ArchiveEntry entry, ZipArchiveWriter writer)
+          throws IOException {
+    final Deflater deflater = new Deflater(compressionLevel, true);
+
+    try (InputStream in = Files.newInputStream(entry.getPath())) {
+      writer.writeDeflatedEntry(entry.getName(), lastModified(entry), in, deflater);
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Compress a single file in memory. Files that do not get smaller are stored uncompressed.
+   * Unchanged files are taken from the cache if one is configured.
+   *
+   * @param entry The file to compress
+   * @return The compressed entry
+   */
+  CompressedEntry compress(DirectoryArchive.ArchiveEntry entry) {
+    try {
+      final long lastModified = lastModified(entry);
+
+      if (cache != null) {
+        final CompressedEntry cached =
+                cache.get(entry, Files.size(entry.getPath()), lastModified, compressionLevel);
+
+        if (cached != null) {
+          return cached;
+        }
+      }
+
+      final byte[] content = Files.readAllBytes(entry.getPath());
+      String contentHash = null;
+
+      if (cache != null) {
+        contentHash = PackagingCache.hash(content);
+        final CompressedEntry cached =
+                cache.get(entry, contentHash, lastModified, compressionLevel);
+
+        if (cached != null) {
+          return cached;
+        }
+      }
+
+      final CompressedEntry compressed = deflate(entry.getName(), lastModified, content);
+
+      if (cache != null) {
+        cache.put(entry, contentHash, compressionLevel, compressed);
+      }
+
+      return compressed;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read " + entry.getPath(), e);
+    }
+  }
+
+  private CompressedEntry deflate(String name, long lastModified, byte[] content) {
+    final CRC32 crc = new CRC32();
+    crc.update(content, 0, content.length);
+
+    final Deflater deflater = new Deflater(compressionLevel, true);
+    final ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 2 + 64);
+
+    try {
+      final byte[] buffer = new byte[BUFFER_SIZE];
+      deflater.setInput(content);
+      deflater.finish();
+
+      while (!deflater.finished()) {
+        final int deflated = deflater.deflate(buffer);
+        compressed.write(buffer, 0, deflated);
+      }
+    } finally {
+      deflater.end();
+    }
+
+    if (compressed.size() >= content.length) {
+      return new CompressedEntry(name, lastModified, ZipEntry.STORED, crc.getValue(),
+              content.length, content);
+    }
+
+    return new CompressedEntry(name, lastModified, ZipEntry.DEFLATED, crc.getValue(),
+            content.length, compressed.toByteArray());
+  }
+
+  private static long lastModified(DirectoryArchive.ArchiveEntry entry) throws IOException {
+    return Files.getLastModifiedTime(entry.getPath()).toMillis();
+  }
+
+  private static class Pending {
+    private final DirectoryArchive.ArchiveEntry entry;
+    private final ForkJoinTask<CompressedEntry> task;
+
+    Pending(DirectoryArchive.ArchiveEntry entry, ForkJoinTask<CompressedEntry> task) {
+      this.entry = entry;
+      this.task = task;
+    }
+  }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.archive;
+
+import com.google.common.io.ByteStreams;
+import com.ragedunicorn.tools.maven.archive.ZipCentralDirectory.Entry;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Derives the supported patches of an addon from the {@code ## Interface:} lines of its
+ * {@code .toc} files. Only the toc entries of an archive are decompressed and reading stops at
+ * the end of the toc header. Client specific files like {@code <folder>_Wrath.toc} count for the
+ * client of their suffix, a plain {@code <folder>.toc} counts for the client of its interface
+ * version. If several toc files target the same client the highest version wins.
+ */
+public class TocReader {
+  // the header of a toc file is expected within the first bytes
+  private static final int MAX_HEADER_SIZE = 16 * 1024;
+  private static final Pattern INTERFACE_DIRECTIVE =
+          Pattern.compile("^##\\s*Interface(?:-(\\w+))?\\s*:\\s*(.*)$", Pattern.CASE_INSENSITIVE);
+  private static final Pattern INTERFACE_VERSION = Pattern.compile("\\d{5,6}");
+  private static final Map<String, Flavor> SUFFIXES = createSuffixes();
+
+  /**
+   * The game clients that have a supported patch field in the release metadata.
+   */
+  public enum Flavor {
+    RETAIL, WOTLKC, BCC, CLASSIC
+  }
+
+  /**
+   * Read the supported patches from the toc files of a zip archive.
+   *
+   * @param file The archive
+   * @return The highest patch per client. Empty if no toc file declares an interface version
+   * @throws IOException If the archive cannot be read or is not a zip archive
+   */
+  public Map<Flavor, String> read(Path file) throws IOException {
+    final ZipCentralDirectory directory = ZipCentralDirectory.open(file);
+    final Map<Flavor, Integer> versions = new EnumMap<>(Flavor.class);
+
+    for (Entry entry : directory.getEntries()) {
+      if (isTocEntry(entry.name)) {
+        try (InputStream in = directory.openStream(entry)) {
+          readToc(entry.name, in, versions);
+        }
+      }
+    }
+
+    return toPatches(versions);
+  }
+
+  /**
+   * Read the supported patches from the toc files of an addon directory.
+   *
+   * @param archive The addon directory
+   * @return The highest patch per client. Empty if no toc file declares an interface version
+   * @throws IOException If a toc file cannot be read
+   */
+  public Map<Flavor, String> read(DirectoryArchive archive) throws IOException {
+    final Map<Flavor, Integer> versions = new EnumMap<>(Flavor.class);
+
+    for (DirectoryArchive.ArchiveEntry entry : archive.getEntries()) {
+      if (isTocEntry(entry.getName())) {
+        try (InputStream in = Files.newInputStream(entry.getPath())) {
+          readToc(entry.getName(), in, versions);
+        }
+      }
+    }
+
+    return toPatches(versions);
+  }
+
+  /**
+   * Fill the supported patches of a release that are not set yet.
+   *
+   * @param metadata The metadata of the release
+   * @param patches  The patches read from the toc files
+   */
+  public static void fillSupportedPatches(Metadata metadata, Map<Flavor, String> patches) {
+    if (isEmpty(metadata.getSupportedRetailPatch())) {
+      metadata.setSupportedRetailPatch(patches.get(Flavor.RETAIL));
+    }
+    if (isEmpty(metadata.getSupportedWotlkcPatch())) {
+      metadata.setSupportedWotlkcPatch(patches.get(Flavor.WOTLKC));
+    }
+    if (isEmpty(metadata.getSupportedBccPatch())) {
+      metadata.setSupportedBccPatch(patches.get(Flavor.BCC));
+    }
+    if (isEmpty(metadata.getSupportedClassicPatch())) {
+      metadata.setSupportedClassicPatch(patches.get(Flavor.CLASSIC));
+    }
+  }
+
+  /**
+   * Convert an interface version to a patch. For example {@code 30402} becomes {@code 3.4.2} and
+   * {@code 100207} becomes {@code 10.2.7}.
+   *
+   * @param interfaceVersion The interface version of a toc file
+   * @return The patch
+   */
+  public static String toPatch(int interfaceVersion) {
+    return (interfaceVersion / 10000) + "." + (interfaceVersion / 100 % 100) + "."
+            + (interfaceVersion % 100);
+  }
+
+  /**
+   * The client of an interface version without a client specific file name or directive.
+   *
+   * @param interfaceVersion The interface version of a toc file
+   * @return The client or null if the release metadata has no field for it
+   */
+  static Flavor toFlavor(int interfaceVersion) {
+    switch (interfaceVersion / 10000) {
+      case 1:
+        return Flavor.CLASSIC;
+      case 2:
+        return Flavor.BCC;
+      case 3:
+        return Flavor.WOTLKC;
+      case 4:
+      case 5:
+        // later classic clients
+        return null;
+      default:
+        return Flavor.RETAIL;
+    }
+  }
+
+  private static boolean isTocEntry(String name) {
+    final int separator = name.indexOf('/');
+
+    if (separator <= 0 || name.indexOf('/', separator + 1) >= 0) {
+      return false;
+    }
+
+    return ArchiveValidator.isTocFile(name.substring(0, separator), name.substring(separator + 1));
+  }
+
+  private static void readToc(String name, InputStream in, Map<Flavor, Integer> versions)
+          throws IOException {
+    final String fileFlavor = getSuffix(name);
+    final BufferedReader reader = new BufferedReader(new InputStreamReader(
+            ByteStreams.limit(in, MAX_HEADER_SIZE), StandardCharsets.UTF_8));
+    String line;
+
+    while ((line = reader.readLine()) != null) {
+      line = line.trim();
+      if (!line.isEmpty() && line.charAt(0) == '\uFEFF') {
+        line = line.substring(1).trim();
+      }
+      if (line.isEmpty()) {
+        continue;
+      }
+      if (line.charAt(0) != '#') {
+        // the file list follows the header
+        return;
+      }
+
+      final Matcher directive = INTERFACE_DIRECTIVE.matcher(line);
+
+      if (directive.matches()) {
+        addVersions(directive.group(1) == null ? fileFlavor : directive.group(1),
+                directive.group(2), versions);
+      }
+    }
+  }
+
+  private static void addVersions(String suffix, String value, Map<Flavor, Integer> versions) {
+    final Matcher matcher = INTERFACE_VERSION.matcher(value);
+
+    while (matcher.find()) {
+      final int version = Integer.parseInt(matcher.group());
+      final Flavor flavor = suffix == null
+              ? toFlavor(version) : SUFFIXES.get(suffix.toLowerCase(Locale.ROOT));
+
+      if (flavor != null) {
+        versions.merge(flavor, version, Math::max);
+      }
+    }
+  }
+
+  /**
+   * The client suffix of a toc file name like {@code Wrath} of {@code Addon/Addon_Wrath.toc}.
+   *
+   * @param name The name of the toc entry
+   * @return The suffix or null for a plain toc file
+   */
+  private static String getSuffix(String name) {
+    final int separator = name.indexOf('/');
+    // the file name starts with the folder name followed by _ or -
+    final int suffixStart = 2 * separator + 2;
+    final int suffixEnd = name.length() - ".toc".length();
+
+    return suffixStart < suffixEnd ? name.substring(suffixStart, suffixEnd) : null;
+  }
+
+  private static Map<Flavor, String> toPatches(Map<Flavor, Integer> versions) {
+    final Map<Flavor, String> patches = new EnumMap<>(Flavor.class);
+
+    for (Map.Entry<Flavor, Integer> version : versions.entrySet()) {
+      patches.put(version.getKey(), toPatch(version.getValue()));
+    }
+
+    return Collections.unmodifiableMap(patches);
+  }
+
+  private static boolean isEmpty(String value) {
+    return value == null || value.isEmpty();
+  }
+
+  private static Map<String, Flavor> createSuffixes() {
+    final Map<String, Flavor> suffixes = new HashMap<>();
+    suffixes.put("mainline", Flavor.RETAIL);
+    suffixes.put("wrath", Flavor.WOTLKC);
+    suffixes.put("wotlkc", Flavor.WOTLKC);
+    suffixes.put("tbc", Flavor.BCC);
+    suffixes.put("bcc", Flavor.BCC);
+    suffixes.put("classic", Flavor.CLASSIC);
+    suffixes.put("vanilla", Flavor.CLASSIC);
+
+    return Collections.unmodifiableMap(suffixes);
+  }
+}
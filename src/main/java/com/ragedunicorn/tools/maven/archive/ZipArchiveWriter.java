@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.archive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+/**
+ * Minimal zip writer that accepts entries which are already compressed. Only the features needed
+ * for addon archives are supported: no zip64, no extra fields and no comments.
+ */
+public class ZipArchiveWriter {
+  private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+  private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+  private static final int CENTRAL_DIRECTORY_SIGNATURE = 0x02014b50;
+  private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+  private static final int VERSION = 20;
+  private static final int FLAG_DATA_DESCRIPTOR = 0x0008;
+  private static final int FLAG_UTF8 = 0x0800;
+  private static final long MAX_SIZE = 0xFFFFFFFFL;
+  private static final int MAX_ENTRIES = 0xFFFF;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final OutputStream out;
+  private final List<CentralDirectoryRecord> records = new ArrayList<>();
+  private final byte[] header = new byte[46];
+
+  private long offset;
+
+  /**
+   * Create a new writer. The passed stream is not closed by the writer.
+   *
+   * @param out The stream to write the archive to
+   */
+  public ZipArchiveWriter(OutputStream out) {
+    this.out = out;
+  }
+
+  /**
+   * Copy an already compressed entry into the archive.
+   *
+   * @param entry The entry to write
+   * @throws IOException If the entry cannot be written
+   */
+  public void writeEntry(CompressedEntry entry) throws IOException {
+    final CentralDirectoryRecord record = new CentralDirectoryRecord(entry.getName(),
+            entry.getTime(), entry.getMethod(), FLAG_UTF8, offset);
+    record.crc = entry.getCrc();
+    record.size = entry.getSize();
+    record.compressedSize = entry.getCompressedSize();
+    checkLimits(record);
+
+    writeLocalFileHeader(record);
+    write(entry.getData(), 0, entry.getData().length);
+    records.add(record);
+  }
+
+  /**
+   * Deflate an entry while it is written. The sizes and the checksum are unknown upfront and are
+   * written in a data descriptor. Used for large entries to avoid holding them in memory.
+   *
+   * @param name     The name of the entry inside the archive
+   * @param time     The modification time of the entry in milliseconds
+   * @param in       The uncompressed data
+   * @param deflater The deflater to compress with. It is reset before and after use
+   * @throws IOException If the data cannot be read or the entry cannot be written
+   */
+  public void writeDeflatedEntry(String name, long time, InputStream in, Deflater deflater)
+          throws IOException {
+    final CentralDirectoryRecord record = new CentralDirectoryRecord(name, time,
+            ZipEntry.DEFLATED, FLAG_UTF8 | FLAG_DATA_DESCRIPTOR, offset);
+    checkLimits(record);
+    writeLocalFileHeader(record);
+
+    final CRC32 crc = new CRC32();
+    final byte[] input = new byte[BUFFER_SIZE];
+    final byte[] output = new byte[BUFFER_SIZE];
+    final long dataStart = offset;
+    int read;
+
+    deflater.reset();
+    try {
+      while ((read = in.read(input)) != -1) {
+        crc.update(input, 0, read);
+        deflater.setInput(input, 0, read);
+
+        while (!deflater.needsInput()) {
+          final int deflated = deflater.deflate(output);
+          write(output, 0, deflated);
+        }
+      }
+      deflater.finish();
+
+      while (!deflater.finished()) {
+        final int deflated = deflater.deflate(output);
+        write(output, 0, deflated);
+      }
+
+      record.crc = crc.getValue();
+      record.size = deflater.getBytesRead();
+      record.compressedSize = offset - dataStart;
+    } finally {
+      deflater.reset();
+    }
+    checkLimits(record);
+
+    putInt(header, 0, DATA_DESCRIPTOR_SIGNATURE);
+    putInt(header, 4, record.crc);
+    putInt(header, 8, record.compressedSize);
+    putInt(header, 12, record.size);
+    write(header, 0, 16);
+    records.add(record);
+  }
+
+  /**
+   * Write the central directory. The writer cannot be used anymore afterwards.
+   *
+   * @throws IOException If the central directory cannot be written
+   */
+  public void finish() throws IOException {
+    if (records.size() > MAX_ENTRIES) {
+      throw new IOException("Archive contains " + records.size() + " entries. At most "
+              + MAX_ENTRIES + " entries are supported");
+    }
+
+    final long centralDirectoryOffset = offset;
+
+    for (CentralDirectoryRecord record : records) {
+      putInt(header, 0, CENTRAL_DIRECTORY_SIGNATURE);
+      putShort(header, 4, VERSION);
+      putShort(header, 6, VERSION);
+      putShort(header, 8, record.flags);
+      putShort(header, 10, record.method);
+      putInt(header, 12, record.dosTime);
+      putInt(header, 16, record.crc);
+      putInt(header, 20, record.compressedSize);
+      putInt(header, 24, record.size);
+      putShort(header, 28, record.name.length);
+      // extra field length, comment length, disk number, internal and external attributes
+      for (int i = 30; i < 42; i++) {
+        header[i] = 0;
+      }
+      putInt(header, 42, record.localHeaderOffset);
+      write(header, 0, 46);
+      write(record.name, 0, record.name.length);
+    }
+
+    final long centralDirectorySize = offset - centralDirectoryOffset;
+
+    if (centralDirectoryOffset > MAX_SIZE) {
+      throw new IOException("Archive exceeds the maximum size of " + MAX_SIZE + " bytes");
+    }
+
+    putInt(header, 0, END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+    putShort(header, 4, 0);
+    putShort(header, 6, 0);
+    putShort(header, 8, records.size());
+    putShort(header, 10, records.size());
+    putInt(header, 12, centralDirectorySize);
+    putInt(header, 16, centralDirectoryOffset);
+    putShort(header, 20, 0);
+    write(header, 0, 22);
+    out.flush();
+  }
+
+  /**
+   * Amount of bytes written so far.
+   *
+   * @return The amount of bytes written
+   */
+  public long getBytesWritten() {
+    return offset;
+  }
+
+  private void writeLocalFileHeader(CentralDirectoryRecord record) throws IOException {
+    putInt(header, 0, LOCAL_FILE_HEADER_SIGNATURE);
+    putShort(header, 4, VERSION);
+    putShort(header, 6, record.flags);
+    putShort(header, 8, record.method);
+    putInt(header, 10, record.dosTime);
+    putInt(header, 14, record.crc);
+    putInt(header, 18, record.compressedSize);
+    putInt(header, 22, record.size);
+    putShort(header, 26, record.name.length);
+    putShort(header, 28, 0);
+    write(header, 0, 30);
+    write(record.name, 0, record.name.length);
+  }
+
+  private void write(byte[] bytes, int off, int len) throws IOException {
+    out.write(bytes, off, len);
+    offset += len;
+  }
+
+  private static void checkLimits(CentralDirectoryRecord record) throws IOException {
+    if (record.size > MAX_SIZE || record.compressedSize > MAX_SIZE
+            || record.localHeaderOffset > MAX_SIZE) {
+      throw new IOException("Entry " + new String(record.name, StandardCharsets.UTF_8)
+              + " exceeds the maximum archive size of " + MAX_SIZE + " bytes");
+    }
+  }
+
+  private static void putShort(byte[] buffer, int index, int value) {
+    buffer[index] = (byte) value;
+    buffer[index + 1] = (byte) (value >>> 8);
+  }
+
+  private static void putInt(byte[] buffer, int index, long value) {
+    buffer[index] = (byte) value;
+    buffer[index + 1] = (byte) (value >>> 8);
+    buffer[index + 2] = (byte) (value >>> 16);
+    buffer[index + 3] = (byte) (value >>> 24);
+  }
+
+  /**
+   * Convert a java timestamp into the MS-DOS date and time format used by zip archives. Uses the
+   * default time zone in the same way as {@link java.util.zip.ZipOutputStream}.
+   *
+   * @param time The time in milliseconds
+   * @return The MS-DOS date in the upper and time in the lower 16 bits
+   */
+  static long toDosTime(long time) {
+    final LocalDateTime dateTime =
+            LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+
+    if (dateTime.getYear() < 1980) {
+      return (1 << 21) | (1 << 16);
+    }
+
+    return ((long) (dateTime.getYear() - 1980) << 25)
+            | ((long) dateTime.getMonthValue() << 21)
+            | ((long) dateTime.getDayOfMonth() << 16)
+            | ((long) dateTime.getHour() << 11)
+            | ((long) dateTime.getMinute() << 5)
+            | ((long) dateTime.getSecond() >> 1);
+  }
+
+  private static class CentralDirectoryRecord {
+    private final byte[] name;
+    private final long dosTime;
+    private final int method;
+    private final int flags;
+    private final long localHeaderOffset;
+    private long crc;
+    private long size;
+    private long compressedSize;
+
+    CentralDirectoryRecord(String name, long time, int method, int flags,
+                           long localHeaderOffset) {
+      this.name = name.getBytes(StandardCharsets.UTF_8);
+      this.dosTime = toDosTime(time);
+      this.method = method;
+      this.flags = flags;
+      this.localHeaderOffset = localHeaderOffset;
+    }
+  }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.archive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Read-only view of a zip archive through a memory mapped file. Only the central directory is
+ * parsed upfront, the data of single entries is read on demand without touching other entries.
+ */
+class ZipCentralDirectory {
+  private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+  private static final int CENTRAL_DIRECTORY_SIGNATURE = 0x02014b50;
+  private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+  private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+  private static final int MAX_COMMENT_SIZE = 0xFFFF;
+  private static final int FLAG_UTF8 = 0x0800;
+  // charset of entry names without the utf-8 flag
+  private static final Charset LEGACY_CHARSET = legacyCharset();
+
+  private final ByteBuffer buffer;
+  private final List<Entry> entries;
+
+  private ZipCentralDirectory(ByteBuffer buffer, List<Entry> entries) {
+    this.buffer = buffer;
+    this.entries = entries;
+  }
+
+  /**
+   * Map an archive and read its central directory.
+   *
+   * @param file The archive
+   * @return The central directory of the archive
+   * @throws ZipException If the file is not a zip archive or the central directory is corrupt
+   * @throws IOException  If the file cannot be read
+   */
+  static ZipCentralDirectory open(Path file) throws IOException {
+    final MappedByteBuffer buffer;
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new ZipException("Archive is larger than 2 GB which is not supported");
+      }
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+    return new ZipCentralDirectory(buffer, readEntries(buffer));
+  }
+
+  List<Entry> getEntries() {
+    return entries;
+  }
+
+  /**
+   * The compressed data of an entry. The returned buffer is independent of other callers.
+   *
+   * @param entry The entry
+   * @return A buffer positioned at the start and limited to the end of the data
+   * @throws ZipException If the local header is missing or the data is truncated
+   */
+  ByteBuffer getData(Entry entry) throws ZipException {
+    // duplicates do not inherit the byte order
+    final ByteBuffer view = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+
+    if (entry.offset + 30 > view.limit()
+            || view.getInt((int) entry.offset) != LOCAL_FILE_HEADER_SIGNATURE) {
+      throw new ZipException("Missing local header of entry " + entry.name);
+    }
+
+    final int nameLength = view.getShort((int) entry.offset + 26) & 0xFFFF;
+    final int extraLength = view.getShort((int) entry.offset + 28) & 0xFFFF;
+    final long dataStart = entry.offset + 30 + nameLength + extraLength;
+
+    if (dataStart + entry.compressedSize > view.limit()) {
+      throw new ZipException("Entry " + entry.name + " is truncated");
+    }
+
+    view.limit((int) (dataStart + entry.compressedSize));
+    view.position((int) dataStart);
+
+    return view;
+  }
+
+  /**
+   * Open the uncompressed content of a single entry. Only as much data is decompressed as is
+   * read from the stream.
+   *
+   * @param entry The entry
+   * @return The uncompressed content
+   * @throws ZipException If the data is missing or compressed with an unsupported method
+   */
+  InputStream openStream(Entry entry) throws ZipException {
+    final InputStream data = new ByteBufferInputStream(getData(entry));
+
+    if (entry.method == ZipEntry.STORED) {
+      return data;
+    }
+    if (entry.method == ZipEntry.DEFLATED) {
+      final Inflater inflater = new Inflater(true);
+
+      return new InflaterInputStream(data, inflater) {
+        @Override
+        public void close() throws IOException {
+          super.close();
+          inflater.end();
+        }
+      };
+    }
+
+    throw new ZipException("Unsupported compression method " + entry.method + " of entry "
+            + entry.name);
+  }
+
+  private static List<Entry> readEntries(ByteBuffer buffer) throws ZipException {
+    final int end = findEndOfCentralDirectory(buffer);
+
+    if (end < 0) {
+      throw new ZipException("Not a zip archive - end of central directory not found");
+    }
+
+    final int count = buffer.getShort(end + 10) & 0xFFFF;
+    final long directoryOffset = buffer.getInt(end + 16) & 0xFFFFFFFFL;
+    final List<Entry> entries = new ArrayList<>(count);
+    int position = (int) Math.min(directoryOffset, Integer.MAX_VALUE);
+
+    for (int i = 0; i < count; i++) {
+      if (position + 46 > end || buffer.getInt(position) != CENTRAL_DIRECTORY_SIGNATURE) {
+        throw new ZipException("Corrupt central directory at entry " + (i + 1) + " of " + count);
+      }
+
+      final int flags = buffer.getShort(position + 8) & 0xFFFF;
+      final int nameLength = buffer.getShort(position + 28) & 0xFFFF;
+      final int extraLength = buffer.getShort(position + 30) & 0xFFFF;
+      final int commentLength = buffer.getShort(position + 32) & 0xFFFF;
+      final byte[] name = new byte[nameLength];
+      final ByteBuffer view = buffer.duplicate();
+      view.position(position + 46);
+      view.get(name);
+
+      final Entry entry = new Entry(new String(name,
+              (flags & FLAG_UTF8) != 0 ? StandardCharsets.UTF_8 : LEGACY_CHARSET));
+      entry.method = buffer.getShort(position + 10) & 0xFFFF;
+      entry.crc = buffer.getInt(position + 16) & 0xFFFFFFFFL;
+      entry.compressedSize = buffer.getInt(position + 20) & 0xFFFFFFFFL;
+      entry.size = buffer.getInt(position + 24) & 0xFFFFFFFFL;
+      entry.offset = buffer.getInt(position + 42) & 0xFFFFFFFFL;
+      entries.add(entry);
+
+      position += 46 + nameLength + extraLength + commentLength;
+    }
+
+    return Collections.unmodifiableList(entries);
+  }
+
+  private static int findEndOfCentralDirectory(ByteBuffer buffer) {
+    final int last = buffer.limit() - END_OF_CENTRAL_DIRECTORY_SIZE;
+    final int first = Math.max(0, last - MAX_COMMENT_SIZE);
+
+    for (int position = last; position >= first; position--) {
+      if (buffer.getInt(position) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+        return position;
+      }
+    }
+
+    return -1;
+  }
+
+  private static Charset legacyCharset() {
+    try {
+      return Charset.forName("IBM437");
+    } catch (UnsupportedCharsetException e) {
+      return StandardCharsets.ISO_8859_1;
+    }
+  }
+
+  /**
+   * An entry of the central directory.
+   */
+  static final class Entry {
+    final String name;
+    int method;
+    long crc;
+    long compressedSize;
+    long size;
+    long offset;
+
+    private Entry(String name) {
+      this.name = name;
+    }
+
+    Entry(String name, long size) {
+      this.name = name;
+      this.size = size;
+    }
+  }
+
+  /**
+   * Reads the remaining bytes of a buffer.
+   */
+  private static final class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    private ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+
+      final int read = Math.min(length, buffer.remaining());
+      buffer.get(bytes, offset, read);
+
+      return read;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+}
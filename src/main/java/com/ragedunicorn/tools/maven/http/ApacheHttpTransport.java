@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+
+/**
+ * Transport sending requests with Apache HttpClient. Requests use the connection pool, rate
+ * limiter and default headers of the http client. Request bodies are sent through the bandwidth
+ * limiter of the transport if one is set.
+ */
+public class ApacheHttpTransport implements HttpTransport {
+  private final CloseableHttpClient httpClient;
+  private final RequestConfig requestConfig;
+  private final boolean closeClient;
+  // limits the rate request bodies are sent at - null sends at full speed
+  private BandwidthLimiter bandwidthLimiter;
+
+  /**
+   * Create a new transport.
+   *
+   * @param httpClient    The http client sending the requests
+   * @param requestConfig The timeouts of the requests
+   * @param closeClient   Whether closing the transport closes the http client
+   */
+  public ApacheHttpTransport(CloseableHttpClient httpClient, RequestConfig requestConfig,
+                             boolean closeClient) {
+    this.httpClient = httpClient;
+    this.requestConfig = requestConfig;
+    this.closeClient = closeClient;
+  }
+
+  public CloseableHttpClient getHttpClient() {
+    return httpClient;
+  }
+
+  public BandwidthLimiter getBandwidthLimiter() {
+    return bandwidthLimiter;
+  }
+
+  public void setBandwidthLimiter(BandwidthLimiter bandwidthLimiter) {
+    this.bandwidthLimiter = bandwidthLimiter;
+  }
+
+  @Override
+  public String getName() {
+    return "apache";
+  }
+
+  @Override
+  public TransportResponse execute(TransportRequest request) throws IOException {
+    final HttpEntityEnclosingRequestBase httpRequest = new HttpEntityEnclosingRequestBase() {
+      @Override
+      public String getMethod() {
+        return request.getMethod();
+      }
+    };
+    httpRequest.setURI(request.getUri());
+    httpRequest.setConfig(limit(requestConfig, request.getTimeoutMillis()));
+    for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+      httpRequest.setHeader(header.getKey(), header.getValue());
+    }
+    if (request.getBody() != null) {
+      httpRequest.setEntity(new RequestBodyEntity(ThrottledBody.of(request, bandwidthLimiter)));
+    }
+    request.setAbortHandler(httpRequest::abort);
+
+    final CloseableHttpResponse response = httpClient.execute(httpRequest);
+    final Map<String, List<String>> headers = new HashMap<>();
+
+    for (Header header : response.getAllHeaders()) {
+      headers.computeIfAbsent(header.getName(), name -> new ArrayList<>(1)).add(header.getValue());
+    }
+
+    final HttpEntity entity = response.getEntity();
+    final InputStream content = entity == null ? null : entity.getContent();
+
+    if (content == null) {
+      response.close();
+
+      return new TransportResponse(response.getStatusLine().getStatusCode(), headers, null);
+    }
+
+    return new TransportResponse(response.getStatusLine().getStatusCode(), headers,
+            new ResponseStream(content, response));
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closeClient) {
+      httpClient.close();
+    }
+  }
+
+  /**
+   * Shorten the timeouts of a request so none of them reaches beyond its time limit.
+   *
+   * @param config        The configured timeouts
+   * @param timeoutMillis The time limit of the request or 0 if not limited
+   * @return The shortened timeouts
+   */
+  private static RequestConfig limit(RequestConfig config, long timeoutMillis) {
+    if (timeoutMillis <= 0) {
+      return config;
+    }
+
+    final int remaining = (int) Math.max(1, Math.min(Integer.MAX_VALUE, timeoutMillis));
+
+    return RequestConfig.copy(config)
+            .setConnectTimeout(shorten(config.getConnectTimeout(), remaining))
+            .setConnectionRequestTimeout(shorten(config.getConnectionRequestTimeout(), remaining))
+            .setSocketTimeout(shorten(config.getSocketTimeout(), remaining))
+            .build();
+  }
+
+  private static int shorten(int timeout, int remaining) {
+    return timeout <= 0 ? remaining : Math.min(timeout, remaining);
+  }
+
+  /**
+   * Entity writing a request body.
+   */
+  private static final class RequestBodyEntity extends AbstractHttpEntity {
+    private final RequestBody body;
+
+    private RequestBodyEntity(RequestBody body) {
+      this.body = body;
+      setContentType(body.getContentType());
+      setChunked(body.getContentLength() < 0);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+      return true;
+    }
+
+    @Override
+    public long getContentLength() {
+      return body.getContentLength();
+    }
+
+    @Override
+    public InputStream getContent() {
+      throw new UnsupportedOperationException("Request bodies can only be written");
+    }
+
+    @Override
+    public void writeTo(OutputStream outStream) throws IOException {
+      body.writeTo(outStream);
+    }
+
+    @Override
+    public boolean isStreaming() {
+      return false;
+    }
+  }
+
+  /**
+   * Body of a response that releases the connection back to the pool once it is closed.
+   */
+  private static final class ResponseStream extends FilterInputStream {
+    private final CloseableHttpResponse response;
+
+    private ResponseStream(InputStream content, CloseableHttpResponse response) {
+      super(content);
+      this.response = response;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        response.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket that limits the rate at which request bodies are sent. The bucket only holds a
+ * twentieth of a second worth of bytes and writes are split into small chunks so the limit is
+ * kept without bursts. Uploads sharing a limiter share its rate: every chunk reserves its bytes in
+ * turn, so concurrent uploads progress at about the same speed. Safe for concurrent use.
+ */
+public class BandwidthLimiter {
+  // largest amount of bytes written at once while the bandwidth is limited
+  private static final int MAX_CHUNK_SIZE = 16 * 1024;
+  // share of a second worth of bytes that may be sent at once after a quiet period
+  private static final int BURST_DIVISOR = 20;
+
+  private long bytesPerSecond;
+  private long burst;
+  private double tokens;
+  private long lastRefill = System.nanoTime();
+
+  private long acquiredBytes;
+  private long delayed;
+  private long totalWaitNanos;
+
+  /**
+   * Create a new bandwidth limiter.
+   *
+   * @param bytesPerSecond The maximum rate. Values of 0 or below disable the limit
+   */
+  public BandwidthLimiter(long bytesPerSecond) {
+    configure(bytesPerSecond);
+  }
+
+  /**
+   * Change the limit. Unchanged limits keep the current state of the bucket.
+   *
+   * @param bytesPerSecond The maximum rate. Values of 0 or below disable the limit
+   */
+  public synchronized void configure(long bytesPerSecond) {
+    if (bytesPerSecond == this.bytesPerSecond) {
+      return;
+    }
+    this.bytesPerSecond = bytesPerSecond;
+    this.burst = Math.max(1, bytesPerSecond / BURST_DIVISOR);
+    this.tokens = burst;
+    this.lastRefill = System.nanoTime();
+  }
+
+  public synchronized long getBytesPerSecond() {
+    return bytesPerSecond;
+  }
+
+  public synchronized boolean isLimited() {
+    return bytesPerSecond > 0;
+  }
+
+  /**
+   * The amount of bytes that should be written at once.
+   *
+   * @return The chunk size in bytes
+   */
+  public synchronized int getChunkSize() {
+    return isLimited() ? (int) Math.min(MAX_CHUNK_SIZE, burst) : MAX_CHUNK_SIZE;
+  }
+
+  /**
+   * Wait until bytes may be sent.
+   *
+   * @param bytes The amount of bytes to send
+   * @return The time waited in nanoseconds
+   * @throws InterruptedException If the thread is interrupted while waiting
+   */
+  public long acquire(int bytes) throws InterruptedException {
+    final long waitNanos = reserve(bytes);
+
+    if (waitNanos > 0) {
+      TimeUnit.NANOSECONDS.sleep(waitNanos);
+    }
+
+    return waitNanos;
+  }
+
+  public synchronized long getAcquiredBytes() {
+    return acquiredBytes;
+  }
+
+  /**
+   * Amount of chunks that had to wait.
+   *
+   * @return The amount of delayed chunks
+   */
+  public synchronized long getDelayed() {
+    return delayed;
+  }
+
+  public synchronized long getTotalWaitMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos);
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "BandwidthLimiter{"
+            + "bytesPerSecond=" + bytesPerSecond
+            + ", acquiredBytes=" + acquiredBytes
+            + ", delayed=" + delayed
+            + ", totalWaitMillis=" + getTotalWaitMillis()
+            + '}';
+  }
+
+  /**
+   * Take tokens for the bytes. Missing tokens are borrowed from the future and the caller has to
+   * wait until they would have been added.
+   *
+   * @param bytes The amount of bytes to send
+   * @return The time to wait in nanoseconds
+   */
+  private synchronized long reserve(int bytes) {
+    acquiredBytes += bytes;
+
+    if (!isLimited()) {
+      return 0;
+    }
+
+    final long now = System.nanoTime();
+    tokens = Math.min(burst, tokens + (now - lastRefill) * bytesPerSecond
+            / (double) TimeUnit.SECONDS.toNanos(1));
+    lastRefill = now;
+    tokens -= bytes;
+
+    if (tokens >= 0) {
+      return 0;
+    }
+
+    final long waitNanos = (long) (-tokens / bytesPerSecond * TimeUnit.SECONDS.toNanos(1));
+    delayed++;
+    totalWaitNanos += waitNanos;
+
+    return waitNanos;
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A part whose content was already read or mapped into memory. The buffer is shared and never
+ * modified which allows the same content to be sent by several uploads at the same time.
+ */
+public class ByteBufferPart extends MultipartPart {
+  private final ByteBuffer content;
+
+  public ByteBufferPart(String name, ByteBuffer content, String contentType,
+                        String filename) {
+    super(name, filename, contentType);
+    this.content = content;
+  }
+
+  @Override
+  public long getContentLength() {
+    return content.remaining();
+  }
+
+  @Override
+  public void writeTo(OutputStream out) throws IOException {
+    // the target channel is intentionally not closed because it would close the passed stream
+    final WritableByteChannel target = Channels.newChannel(out);
+    final ByteBuffer view = content.duplicate();
+
+    while (view.hasRemaining()) {
+      target.write(view);
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A body that sends a region of a file with {@link FileChannel#transferTo(long, long,
+ * WritableByteChannel)}. Used for sending single parts of a chunked upload.
+ */
+public class FileRegionBody implements RequestBody {
+  private static final String CONTENT_TYPE = "application/octet-stream";
+
+  private final Path path;
+  private final long offset;
+  private final long length;
+
+  /**
+   * Create a body for a region of a file.
+   *
+   * @param path   The file to send
+   * @param offset The position of the first byte of the region
+   * @param length The length of the region in bytes
+   */
+  public FileRegionBody(Path path, long offset, long length) {
+    this.path = path;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  @Override
+  public String getContentType() {
+    return CONTENT_TYPE;
+  }
+
+  @Override
+  public long getContentLength() {
+    return length;
+  }
+
+  @Override
+  public void writeTo(OutputStream out) throws IOException {
+    // the target channel is intentionally not closed because it would close the passed stream
+    final WritableByteChannel target = Channels.newChannel(out);
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long written = 0;
+
+      while (written < length) {
+        final long transferred = channel.transferTo(offset + written, length - written, target);
+
+        if (transferred <= 0) {
+          throw new IOException("Unexpected end of file " + path + " at " + (offset + written));
+        }
+        written += transferred;
+      }
+    }
+    out.flush();
+  }
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.HttpConnectionFactory;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.routing.HttpRoutePlanner;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.conn.SystemDefaultRoutePlanner;
+import org.apache.http.message.BasicHttpRequest;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Pool of keep-alive connections that is shared by all http clients of a build. Connections and
+ * TLS sessions are reused between uploads instead of opening a new connection for every request.
+ * Idle connections are closed by a background thread.
+ */
+public class HttpConnectionPool implements Closeable {
+  private static final int WARM_UP_TIMEOUT = 10000;
+
+  private final CountingConnectionManager connectionManager;
+  private final ScheduledExecutorService evictor;
+  // same route planner as used by clients that use the system properties
+  private final HttpRoutePlanner routePlanner =
+          new SystemDefaultRoutePlanner(ProxySelector.getDefault());
+  private final long keepAliveMillis;
+  // amount of requests that leased a connection from the pool
+  private final AtomicLong leased = new AtomicLong();
+  // amount of requests that leased an already open connection
+  private final AtomicLong reused = new AtomicLong();
+  // amount of connections that were opened including warmed up connections
+  private final AtomicLong created = new AtomicLong();
+  // amount of connections opened ahead of a request
+  private final AtomicLong warmedUp = new AtomicLong();
+
+  /**
+   * Create a new connection pool.
+   *
+   * @param maxConnectionsPerRoute The maximum amount of connections to the same host
+   * @param keepAlive              The maximum time in seconds an idle connection is kept open if
+   *                               the server does not send a shorter keep-alive timeout
+   * @param idleTimeout            The time in seconds after which idle connections are closed
+   */
+  public HttpConnectionPool(int maxConnectionsPerRoute, int keepAlive, int idleTimeout) {
+    final Registry<ConnectionSocketFactory> socketFactories =
+            RegistryBuilder.<ConnectionSocketFactory>create()
+                    .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                    .register("https", SSLConnectionSocketFactory.getSystemSocketFactory())
+                    .build();
+
+    this.connectionManager = new CountingConnectionManager(socketFactories);
+    this.connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+    this.connectionManager.setMaxTotal(maxConnectionsPerRoute * 2);
+    this.keepAliveMillis = TimeUnit.SECONDS.toMillis(keepAlive);
+
+    this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "wago-release-connection-evictor");
+      thread.setDaemon(true);
+
+      return thread;
+    });
+    final long interval = Math.max(1, idleTimeout / 2);
+    this.evictor.scheduleWithFixedDelay(() -> {
+      connectionManager.closeExpiredConnections();
+      connectionManager.closeIdleConnections(idleTimeout, TimeUnit.SECONDS);
+    }, interval, interval, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Configure a client builder to use the pooled connections. Closing the built client does not
+   * close the pool.
+   *
+   * @param builder The builder to configure
+   * @return The passed builder
+   */
+  public HttpClientBuilder configure(HttpClientBuilder builder) {
+    return builder
+            .setConnectionManager(connectionManager)
+            .setConnectionManagerShared(true)
+            .setKeepAliveStrategy(this::getKeepAliveDuration);
+  }
+
+  /**
+   * Open a connection to the host of an uri and return it to the pool. A following request to
+   * the same host reuses the connection instead of resolving the host and connecting while the
+   * request is waiting. Nothing is done if an idle connection is already available. Failures are
+   * ignored because the following request reports them.
+   *
+   * @param uri The uri that is going to be requested
+   */
+  public void warmUp(URI uri) {
+    warmUp(uri, WARM_UP_TIMEOUT);
+  }
+
+  /**
+   * Open a connection to the host of an uri and return it to the pool.
+   *
+   * @param uri     The uri that is going to be requested
+   * @param timeout The timeout in milliseconds for leasing and opening the connection. 0 uses the
+   *                default timeout
+   */
+  public void warmUp(URI uri, int timeout) {
+    final int warmUpTimeout = timeout > 0 ? timeout : WARM_UP_TIMEOUT;
+    final HttpHost target = URIUtils.extractHost(uri);
+
+    if (target == null) {
+      return;
+    }
+
+    final HttpClientContext context = HttpClientContext.create();
+    HttpClientConnection connection = null;
+
+    try {
+      final HttpRoute route = routePlanner.determineRoute(target,
+              new BasicHttpRequest("HEAD", uri.toString()), context);
+
+      if (connectionManager.getStats(route).getAvailable() > 0) {
+        return;
+      }
+
+      // not counted as lease because no request is sent over the connection
+      connection = connectionManager.requestUncountedConnection(route)
+              .get(warmUpTimeout, TimeUnit.MILLISECONDS);
+
+      if (!connection.isOpen()) {
+        connectionManager.connect(connection, route, warmUpTimeout, context);
+        connectionManager.routeComplete(connection, route, context);
+        warmedUp.incrementAndGet();
+      }
+    } catch (IOException | HttpException | ExecutionException e) {
+      // reported by the following request
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      if (connection != null) {
+        connectionManager.releaseConnection(connection, null, keepAliveMillis,
+                TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
+  /**
+   * Allow at least the given amount of concurrent connections to the same host.
+   *
+   * @param maxConnections The amount of required connections
+   */
+  public synchronized void ensureCapacity(int maxConnections) {
+    if (connectionManager.getDefaultMaxPerRoute() < maxConnections) {
+      connectionManager.setDefaultMaxPerRoute(maxConnections);
+      connectionManager.setMaxTotal(Math.max(connectionManager.getMaxTotal(), maxConnections));
+    }
+  }
+
+  /**
+   * Amount of requests that leased a connection from the pool.
+   *
+   * @return The amount of leased connections
+   */
+  public long getLeased() {
+    return leased.get();
+  }
+
+  /**
+   * Amount of connections that were opened including connections opened by {@link #warmUp}.
+   *
+   * @return The amount of created connections
+   */
+  public long getCreated() {
+    return created.get();
+  }
+
+  /**
+   * Amount of connections that were opened by {@link #warmUp} ahead of a request.
+   *
+   * @return The amount of warmed up connections
+   */
+  public long getWarmedUp() {
+    return warmedUp.get();
+  }
+
+  /**
+   * Amount of requests that were sent over an already open connection. A request using a warmed
+   * up connection counts as reuse.
+   *
+   * @return The amount of reused connections
+   */
+  public long getReused() {
+    return reused.get();
+  }
+
+  /**
+   * Current state of the pool.
+   *
+   * @return The amount of currently leased, available and pending connections
+   */
+  public PoolStats getPoolStats() {
+    return connectionManager.getTotalStats();
+  }
+
+  @Override
+  public String toString() {
+    return "HttpConnectionPool{"
+            + "leased=" + getLeased()
+            + ", reused=" + getReused()
+            + ", created=" + getCreated()
+            + ", warmedUp=" + getWarmedUp()
+            + ", pool=" + getPoolStats()
+            + '}';
+  }
+
+  @Override
+  public void close() {
+    evictor.shutdownNow();
+    connectionManager.close();
+  }
+
+  private long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+    final long duration =
+            DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+
+    return duration < 0 ? keepAliveMillis : Math.min(duration, keepAliveMillis);
+  }
+
+  /**
+   * Connection manager counting the leased connections and whether a lease got a connection that
+   * was already open.
+   */
+  private final class CountingConnectionManager extends PoolingHttpClientConnectionManager {
+    private CountingConnectionManager(Registry<ConnectionSocketFactory> socketFactories) {
+      super(socketFactories, new CountingConnectionFactory());
+    }
+
+    @Override
+    public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+      final ConnectionRequest request = super.requestConnection(route, state);
+
+      return new ConnectionRequest() {
+        @Override
+        public HttpClientConnection get(long timeout, TimeUnit timeUnit)
+                throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+          final HttpClientConnection connection = request.get(timeout, timeUnit);
+          leased.incrementAndGet();
+          if (connection.isOpen()) {
+            reused.incrementAndGet();
+          }
+
+          return connection;
+        }
+
+        @Override
+        public boolean cancel() {
+          return request.cancel();
+        }
+      };
+    }
+
+    private ConnectionRequest requestUncountedConnection(HttpRoute route) {
+      return super.requestConnection(route, null);
+    }
+  }
+
+  private class CountingConnectionFactory
+          implements HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> {
+    @Override
+    public ManagedHttpClientConnection create(HttpRoute route, ConnectionConfig config) {
+      created.incrementAndGet();
+
+      return ManagedHttpClientConnectionFactory.INSTANCE.create(route, config);
+    }
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Sends requests to the Wago.io Api. A transport may be used by several threads at the same time.
+ * Closing a transport releases the connections it holds.
+ */
+public interface HttpTransport extends Closeable {
+  /**
+   * The name of the transport used in log messages.
+   *
+   * @return The name of the transport
+   */
+  String getName();
+
+  /**
+   * Send a request. The body of the request is streamed and the body of the response has to be
+   * read or closed by the caller.
+   *
+   * @param request The request to send
+   * @return The response of the server
+   * @throws IOException If the request failed or was aborted
+   */
+  TransportResponse execute(TransportRequest request) throws IOException;
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transport answering requests in memory without any network. Every request body is written
+ * completely and recorded. Requests are answered with the enqueued responses in order and with
+ * 201 Created once no response is left. Used by tests and benchmarks.
+ */
+public class InMemoryHttpTransport implements HttpTransport {
+  private final Queue<Response> responses = new ConcurrentLinkedQueue<>();
+  private final List<RecordedRequest> requests = new CopyOnWriteArrayList<>();
+  private final AtomicLong bytesReceived = new AtomicLong();
+  // whether request bodies are kept - benchmarks only count the bytes
+  private volatile boolean recordBodies = true;
+
+  public boolean isRecordBodies() {
+    return recordBodies;
+  }
+
+  public void setRecordBodies(boolean recordBodies) {
+    this.recordBodies = recordBodies;
+  }
+
+  /**
+   * Answer the next request with a fixed response.
+   *
+   * @param status     The status of the response
+   * @param body       The body of the response
+   * @param retryAfter The value of the Retry-After header or null
+   */
+  public void enqueue(int status, String body, String retryAfter) {
+    responses.add(new Response(status, body, retryAfter));
+  }
+
+  public List<RecordedRequest> getRequests() {
+    return Collections.unmodifiableList(requests);
+  }
+
+  public long getBytesReceived() {
+    return bytesReceived.get();
+  }
+
+  @Override
+  public String getName() {
+    return "in-memory";
+  }
+
+  @Override
+  public TransportResponse execute(TransportRequest request) throws IOException {
+    if (request.isAborted()) {
+      throw new IOException("Request aborted");
+    }
+
+    byte[] body = null;
+
+    if (request.getBody() != null) {
+      final ByteArrayOutputStream recordedBody = recordBodies ? new ByteArrayOutputStream() : null;
+      final CountingOutputStream out = new CountingOutputStream(
+              recordedBody == null ? ByteStreams.nullOutputStream() : recordedBody);
+      request.getBody().writeTo(out);
+      bytesReceived.addAndGet(out.getCount());
+      body = recordedBody == null ? null : recordedBody.toByteArray();
+    }
+    requests.add(new RecordedRequest(request.getMethod(), request.getUri(), request.getHeaders(),
+            body));
+
+    final Response response = responses.poll();
+    final int status = response == null ? 201 : response.status;
+    final Map<String, List<String>> headers = new HashMap<>();
+
+    if (response != null && response.retryAfter != null) {
+      headers.put("Retry-After", Collections.singletonList(response.retryAfter));
+    }
+
+    return new TransportResponse(status, headers, new ByteArrayInputStream(
+            (response == null ? "OK" : response.body).getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Override
+  public void close() {
+    // nothing to release
+  }
+
+  private static final class Response {
+    private final int status;
+    private final String body;
+    private final String retryAfter;
+
+    private Response(int status, String body, String retryAfter) {
+      this.status = status;
+      this.body = body == null ? "" : body;
+      this.retryAfter = retryAfter;
+    }
+  }
+
+  /**
+   * A request received by the transport.
+   */
+  public static final class RecordedRequest {
+    private final String method;
+    private final URI uri;
+    private final Map<String, String> headers;
+    private final byte[] body;
+
+    private RecordedRequest(String method, URI uri, Map<String, String> headers, byte[] body) {
+      this.method = method;
+      this.uri = uri;
+      this.headers = headers;
+      this.body = body;
+    }
+
+    public String getMethod() {
+      return method;
+    }
+
+    public URI getUri() {
+      return uri;
+    }
+
+    public Map<String, String> getHeaders() {
+      return headers;
+    }
+
+    /**
+     * The body of the request.
+     *
+     * @return The body or null if the request had no body or bodies are not recorded
+     */
+    public byte[] getBody() {
+      return body;
+    }
+
+    /**
+     * Write the recorded body.
+     *
+     * @param out The stream to write to
+     * @throws IOException If writing failed
+     */
+    public void writeBody(OutputStream out) throws IOException {
+      if (body != null) {
+        out.write(body);
+      }
+    }
+  }
+}
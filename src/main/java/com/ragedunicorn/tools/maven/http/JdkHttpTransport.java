@@ -0,0 +1,596 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import com.ragedunicorn.tools.maven.WagoClient;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Transport sending requests with the http client of the jdk ({@code java.net.http}). The client
+ * negotiates HTTP/2 and multiplexes concurrent uploads over a single connection. The client is
+ * only available on Java 11 and later and is accessed reflectively because the plugin targets
+ * Java 8.
+ */
+public class JdkHttpTransport implements HttpTransport {
+  private static final int STATUS_TOO_MANY_REQUESTS = 429;
+  private static final int PIPE_SIZE = 64 * 1024;
+  // bodies of further concurrent requests wait for a free writer
+  private static final int MAX_BODY_WRITERS = 16;
+  private static final AtomicInteger TRANSPORT_COUNT = new AtomicInteger();
+  // headers set by the jdk client itself - setting them fails
+  private static final Set<String> RESTRICTED_HEADERS = new HashSet<>(Arrays.asList(
+          "connection", "content-length", "expect", "host", "upgrade"));
+  private static final Api API = Api.load();
+
+  private final WagoClient wagoClient;
+  private final ExecutorService executor;
+  private final ExecutorService bodyWriters;
+  private final Object httpClient;
+
+  /**
+   * Create a new transport using the settings of a Wago.io client.
+   *
+   * @param wagoClient The client providing timeouts, headers and the rate limiter
+   * @throws IllegalStateException If the jdk http client is not available
+   */
+  public JdkHttpTransport(WagoClient wagoClient) {
+    if (API == null) {
+      throw new IllegalStateException("The jdk http client requires Java 11 or later");
+    }
+
+    final int transport = TRANSPORT_COUNT.incrementAndGet();
+    this.wagoClient = wagoClient;
+    this.executor = Executors.newCachedThreadPool(createThreadFactory("wago-jdk-http-" + transport));
+    this.bodyWriters = createBodyWriters("wago-jdk-http-" + transport + "-body");
+
+    try {
+      Object builder = API.newClientBuilder.invoke(null);
+      builder = API.clientVersion.invoke(builder, API.http2);
+      builder = API.clientFollowRedirects.invoke(builder, API.redirectNormal);
+      builder = API.clientExecutor.invoke(builder, executor);
+
+      if (wagoClient.getConnectTimeout() > 0) {
+        builder = API.clientConnectTimeout.invoke(builder,
+                Duration.ofMillis(wagoClient.getConnectTimeout()));
+      }
+      this.httpClient = API.clientBuild.invoke(builder);
+    } catch (ReflectiveOperationException e) {
+      executor.shutdownNow();
+      bodyWriters.shutdownNow();
+      throw new IllegalStateException("Failed to create jdk http client", e);
+    }
+  }
+
+  /**
+   * Whether the jdk http client is available in the running jvm.
+   *
+   * @return True on Java 11 and later
+   */
+  public static boolean isAvailable() {
+    return API != null;
+  }
+
+  @Override
+  public String getName() {
+    return "jdk";
+  }
+
+  @Override
+  public TransportResponse execute(TransportRequest request) throws IOException {
+    final Exchange exchange = new Exchange();
+    // registered before waiting so an abort during the wait is not missed
+    request.setAbortHandler(exchange::abort);
+
+    final Object httpRequest = createRequest(request, exchange);
+    acquire(wagoClient.getRateLimiter(), exchange);
+
+    exchange.touch();
+    final Future<?> future = (Future<?>) invoke(API.sendAsync, httpClient, httpRequest,
+            invoke(API.ofInputStreamHandler, null));
+    exchange.setResponse(future);
+
+    final Object response;
+
+    try {
+      response = awaitResponse(future, exchange);
+    } catch (InterruptedException e) {
+      exchange.abort();
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the response");
+    } catch (CancellationException e) {
+      throw exchange.hasWriteFailure() ? exchange.failure(e) : new IOException("Request aborted", e);
+    } catch (ExecutionException e) {
+      exchange.closePipe();
+      throw exchange.failure(e.getCause());
+    }
+
+    final int status = (Integer) invoke(API.statusCode, response);
+    final RateLimiter rateLimiter = wagoClient.getRateLimiter();
+
+    if (rateLimiter != null) {
+      if (status == STATUS_TOO_MANY_REQUESTS) {
+        rateLimiter.onThrottled();
+      } else {
+        rateLimiter.onSuccess();
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    final Map<String, List<String>> headers = (Map<String, List<String>>) invoke(API.headersMap,
+            invoke(API.headers, response));
+
+    return new TransportResponse(status, headers, (InputStream) invoke(API.body, response));
+  }
+
+  /**
+   * Wait for the response headers. The jdk client has no socket timeout, so the configured socket
+   * timeout limits the time without any progress of the request body or the response.
+   *
+   * @param future   The pending response
+   * @param exchange The exchange of the request
+   * @return The response
+   * @throws InterruptedException If the thread was interrupted while waiting
+   * @throws ExecutionException   If the request failed
+   * @throws IOException          If no response arrived within the socket timeout
+   */
+  private Object awaitResponse(Future<?> future, Exchange exchange)
+          throws InterruptedException, ExecutionException, IOException {
+    final int socketTimeout = wagoClient.getSocketTimeout();
+
+    if (socketTimeout <= 0) {
+      return future.get();
+    }
+
+    final long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(socketTimeout);
+
+    while (true) {
+      try {
+        return future.get(Math.max(1, timeoutNanos - exchange.idleNanos()), TimeUnit.NANOSECONDS);
+      } catch (TimeoutException e) {
+        if (exchange.idleNanos() >= timeoutNanos) {
+          exchange.abort();
+          throw new SocketTimeoutException("No response within the socket timeout of "
+                  + socketTimeout + " ms");
+        }
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    // the jdk client has no close method before Java 21 - idle connections end with its threads
+    executor.shutdownNow();
+    bodyWriters.shutdownNow();
+  }
+
+  /**
+   * Wait for the rate limiter. Aborting the request interrupts the wait.
+   *
+   * @param rateLimiter The rate limiter or null
+   * @param exchange    The exchange of the request
+   * @throws IOException If the request was aborted or the thread was interrupted
+   */
+  private static void acquire(RateLimiter rateLimiter, Exchange exchange) throws IOException {
+    if (rateLimiter != null) {
+      try {
+        exchange.startWaiting();
+        rateLimiter.acquire();
+      } catch (InterruptedException e) {
+        if (!exchange.isAborted()) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted while waiting for the rate limiter");
+        }
+      } finally {
+        exchange.stopWaiting();
+      }
+    }
+
+    if (exchange.isAborted()) {
+      throw new IOException("Request aborted");
+    }
+  }
+
+  private Object createRequest(TransportRequest request, Exchange exchange) throws IOException {
+    Object builder = invoke(API.newRequestBuilder, null, request.getUri());
+
+    for (Map.Entry<String, String> header : wagoClient.getRequestHeaders().entrySet()) {
+      builder = invoke(API.requestHeader, builder, header.getKey(), header.getValue());
+    }
+
+    for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+      if (!RESTRICTED_HEADERS.contains(header.getKey().toLowerCase(Locale.ROOT))) {
+        builder = invoke(API.requestHeader, builder, header.getKey(), header.getValue());
+      }
+    }
+
+    // the jdk client only supports a timeout for the whole exchange
+    if (request.getTimeoutMillis() > 0) {
+      builder = invoke(API.requestTimeout, builder, Duration.ofMillis(request.getTimeoutMillis()));
+    }
+
+    final RequestBody body = ThrottledBody.of(request, wagoClient.getBandwidthLimiter());
+    final Object publisher;
+
+    if (body == null || body.getContentLength() == 0) {
+      publisher = invoke(API.noBody, null);
+    } else {
+      if (body.getContentType() != null) {
+        builder = invoke(API.requestHeader, builder, "Content-Type", body.getContentType());
+      }
+      final Supplier<InputStream> supplier = () -> openBody(body, exchange);
+      final Object streamPublisher = invoke(API.ofInputStream, null, supplier);
+      publisher = body.getContentLength() < 0 ? streamPublisher
+              : invoke(API.fromPublisher, null, streamPublisher, body.getContentLength());
+    }
+
+    return invoke(API.requestBuild, invoke(API.requestMethod, builder, request.getMethod(),
+            publisher));
+  }
+
+  /**
+   * Stream a request body through a pipe. The body is written by a writer thread while the client
+   * reads the pipe. Called again whenever the client sends the body again.
+   *
+   * @param body     The body to stream
+   * @param exchange Receives the pipe so an aborted request can close it and the failure of the
+   *                 writer
+   * @return The stream the client reads the body from
+   */
+  private InputStream openBody(RequestBody body, Exchange exchange) {
+    final PipedInputStream in = new PipedInputStream(PIPE_SIZE);
+    final PipedOutputStream out;
+
+    try {
+      out = new PipedOutputStream(in);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to connect request body pipe", e);
+    }
+    exchange.setPipe(in);
+
+    try {
+      bodyWriters.execute(() -> {
+        try {
+          body.writeTo(new ActivityOutputStream(out, exchange));
+          out.close();
+          exchange.touch();
+        } catch (IOException e) {
+          // fails the request instead of sending a truncated body. Closing the writer side
+          // afterwards releases a client blocked in reading the pipe
+          exchange.setWriteFailure(e);
+          exchange.abort();
+          closeQuietly(out);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      closeQuietly(in);
+      throw new IllegalStateException("Transport is closed", e);
+    }
+
+    return in;
+  }
+
+  private static void closeQuietly(Closeable closeable) {
+    if (closeable == null) {
+      return;
+    }
+
+    try {
+      closeable.close();
+    } catch (IOException e) {
+      // nothing left to release
+    }
+  }
+
+  private static IOException unwrap(Throwable cause) {
+    if (cause instanceof UncheckedIOException) {
+      // the client reports failures reading the request body unchecked
+      return ((UncheckedIOException) cause).getCause();
+    }
+    if (cause instanceof IOException) {
+      return (IOException) cause;
+    }
+    if (cause instanceof RuntimeException) {
+      throw (RuntimeException) cause;
+    }
+    if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+
+    return new IOException(cause);
+  }
+
+  private static Object invoke(Method method, Object target, Object... args) throws IOException {
+    try {
+      return method.invoke(target, args);
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException("Failed to access jdk http client", e);
+    } catch (InvocationTargetException e) {
+      throw unwrap(e.getCause());
+    }
+  }
+
+  private static ThreadFactory createThreadFactory(String prefix) {
+    final AtomicInteger threads = new AtomicInteger();
+
+    return runnable -> {
+      final Thread thread = new Thread(runnable, prefix + "-" + threads.incrementAndGet());
+      // does not keep the jvm alive if a build ends without closing the transport
+      thread.setDaemon(true);
+
+      return thread;
+    };
+  }
+
+  private static ExecutorService createBodyWriters(String prefix) {
+    final ThreadPoolExecutor writers = new ThreadPoolExecutor(MAX_BODY_WRITERS, MAX_BODY_WRITERS,
+            60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), createThreadFactory(prefix));
+    writers.allowCoreThreadTimeOut(true);
+
+    return writers;
+  }
+
+  /**
+   * Records every write of the request body as progress of the exchange.
+   */
+  private static final class ActivityOutputStream extends FilterOutputStream {
+    private final Exchange exchange;
+
+    private ActivityOutputStream(OutputStream out, Exchange exchange) {
+      super(out);
+      this.exchange = exchange;
+    }
+
+    @Override
+    public void write(int value) throws IOException {
+      out.write(value);
+      exchange.touch();
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+      out.write(buffer, offset, length);
+      exchange.touch();
+    }
+  }
+
+  /**
+   * State of a single request shared between the calling thread, the body writer and the abort
+   * handler.
+   */
+  private static final class Exchange {
+    private final AtomicReference<IOException> writeFailure = new AtomicReference<>();
+    private volatile PipedInputStream pipe;
+    // last progress of the request used for the socket timeout
+    private volatile long lastActivity = System.nanoTime();
+    private boolean aborted;
+    private Thread waitingThread;
+    private Future<?> response;
+
+    private void setPipe(PipedInputStream pipe) {
+      this.pipe = pipe;
+    }
+
+    private void touch() {
+      lastActivity = System.nanoTime();
+    }
+
+    private long idleNanos() {
+      return System.nanoTime() - lastActivity;
+    }
+
+    private void setWriteFailure(IOException failure) {
+      writeFailure.compareAndSet(null, failure);
+    }
+
+    private boolean hasWriteFailure() {
+      return writeFailure.get() != null;
+    }
+
+    private synchronized boolean isAborted() {
+      return aborted;
+    }
+
+    private synchronized void startWaiting() {
+      waitingThread = Thread.currentThread();
+    }
+
+    private synchronized void stopWaiting() {
+      waitingThread = null;
+
+      if (aborted) {
+        // clears an interrupt of the abort that raced with the end of the wait
+        Thread.interrupted();
+      }
+    }
+
+    private void setResponse(Future<?> response) {
+      final boolean cancel;
+
+      synchronized (this) {
+        this.response = response;
+        cancel = aborted;
+      }
+
+      if (cancel) {
+        abort();
+      }
+    }
+
+    private void abort() {
+      final Future<?> future;
+
+      synchronized (this) {
+        aborted = true;
+        future = response;
+
+        if (waitingThread != null) {
+          waitingThread.interrupt();
+        }
+      }
+
+      if (future != null) {
+        future.cancel(true);
+      }
+      closePipe();
+    }
+
+    private void closePipe() {
+      closeQuietly(pipe);
+    }
+
+    /**
+     * The failure of the request. A failure of the body writer is the cause of the failure of
+     * the client.
+     *
+     * @param clientFailure The failure reported by the client
+     * @return The failure to throw
+     */
+    private IOException failure(Throwable clientFailure) {
+      final IOException writerFailure = writeFailure.get();
+
+      if (writerFailure == null) {
+        return unwrap(clientFailure);
+      }
+
+      final IOException failure =
+              new IOException("Failed to write the request body", writerFailure);
+      failure.addSuppressed(clientFailure);
+
+      return failure;
+    }
+  }
+
+  /**
+   * The reflectively accessed methods of {@code java.net.http}. Methods are looked up on the
+   * public api types because the implementing classes are not accessible.
+   */
+  private static final class Api {
+    private Object http2;
+    private Object redirectNormal;
+    private Method newClientBuilder;
+    private Method clientVersion;
+    private Method clientFollowRedirects;
+    private Method clientExecutor;
+    private Method clientConnectTimeout;
+    private Method clientBuild;
+    private Method sendAsync;
+    private Method newRequestBuilder;
+    private Method requestHeader;
+    private Method requestTimeout;
+    private Method requestMethod;
+    private Method requestBuild;
+    private Method noBody;
+    private Method ofInputStream;
+    private Method fromPublisher;
+    private Method ofInputStreamHandler;
+    private Method statusCode;
+    private Method headers;
+    private Method headersMap;
+    private Method body;
+
+    /**
+     * Look up the api.
+     *
+     * @return The api or null if running on Java 10 or earlier
+     */
+    private static Api load() {
+      try {
+        final Class<?> client = Class.forName("java.net.http.HttpClient");
+        final Class<?> clientBuilder = Class.forName("java.net.http.HttpClient$Builder");
+        final Class<?> version = Class.forName("java.net.http.HttpClient$Version");
+        final Class<?> redirect = Class.forName("java.net.http.HttpClient$Redirect");
+        final Class<?> request = Class.forName("java.net.http.HttpRequest");
+        final Class<?> requestBuilder = Class.forName("java.net.http.HttpRequest$Builder");
+        final Class<?> publisher = Class.forName("java.net.http.HttpRequest$BodyPublisher");
+        final Class<?> publishers = Class.forName("java.net.http.HttpRequest$BodyPublishers");
+        final Class<?> response = Class.forName("java.net.http.HttpResponse");
+        final Class<?> handler = Class.forName("java.net.http.HttpResponse$BodyHandler");
+        final Class<?> handlers = Class.forName("java.net.http.HttpResponse$BodyHandlers");
+        final Class<?> httpHeaders = Class.forName("java.net.http.HttpHeaders");
+        final Class<?> flowPublisher = Class.forName("java.util.concurrent.Flow$Publisher");
+
+        final Api api = new Api();
+        api.http2 = version.getField("HTTP_2").get(null);
+        api.redirectNormal = redirect.getField("NORMAL").get(null);
+        api.newClientBuilder = client.getMethod("newBuilder");
+        api.clientVersion = clientBuilder.getMethod("version", version);
+        api.clientFollowRedirects = clientBuilder.getMethod("followRedirects", redirect);
+        api.clientExecutor = clientBuilder.getMethod("executor", Executor.class);
+        api.clientConnectTimeout = clientBuilder.getMethod("connectTimeout", Duration.class);
+        api.clientBuild = clientBuilder.getMethod("build");
+        api.sendAsync = client.getMethod("sendAsync", request, handler);
+        api.newRequestBuilder = request.getMethod("newBuilder", URI.class);
+        api.requestHeader = requestBuilder.getMethod("header", String.class, String.class);
+        api.requestTimeout = requestBuilder.getMethod("timeout", Duration.class);
+        api.requestMethod = requestBuilder.getMethod("method", String.class, publisher);
+        api.requestBuild = requestBuilder.getMethod("build");
+        api.noBody = publishers.getMethod("noBody");
+        api.ofInputStream = publishers.getMethod("ofInputStream", Supplier.class);
+        api.fromPublisher = publishers.getMethod("fromPublisher", flowPublisher, long.class);
+        api.ofInputStreamHandler = handlers.getMethod("ofInputStream");
+        api.statusCode = response.getMethod("statusCode");
+        api.headers = response.getMethod("headers");
+        api.headersMap = httpHeaders.getMethod("map");
+        api.body = response.getMethod("body");
+
+        return api;
+      } catch (ReflectiveOperationException e) {
+        return null;
+      }
+    }
+  }
+}
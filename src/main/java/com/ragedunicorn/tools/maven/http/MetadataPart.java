@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A part containing the metadata of a release as json. The json is created once with the type
+ * adapter of {@link Metadata} so all attempts of an upload send the same bytes. A changelog file
+ * is read once. Invalid UTF-8 in the file is replaced instead of failing the release.
+ */
+public class MetadataPart extends MultipartPart {
+  private static final Gson GSON = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+  private static final TypeAdapter<Metadata> ADAPTER = GSON.getAdapter(Metadata.class);
+
+  private final Metadata metadata;
+  // the json of the metadata - created on first use
+  private byte[] content;
+
+  public MetadataPart(String name, Metadata metadata) {
+    super(name, null, TextPart.TEXT_PLAIN);
+    this.metadata = metadata;
+  }
+
+  public Metadata getMetadata() {
+    return metadata;
+  }
+
+  /**
+   * Create the json of the metadata and read the changelog file. Called before the part is sent
+   * to report an unreadable changelog file before any request is made.
+   *
+   * @throws IOException If the changelog file cannot be read
+   */
+  public synchronized void prepare() throws IOException {
+    if (content != null) {
+      return;
+    }
+
+    Metadata json = metadata;
+
+    if (metadata.getChangelogFile() != null) {
+      // copy through the type adapter to replace the changelog without touching the metadata
+      json = ADAPTER.fromJsonTree(ADAPTER.toJsonTree(metadata));
+      json.setChangelog(readChangelog(metadata.getChangelogFile()));
+    }
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+      final JsonWriter jsonWriter = GSON.newJsonWriter(writer);
+      ADAPTER.write(jsonWriter, json);
+      jsonWriter.flush();
+    }
+    content = out.toByteArray();
+  }
+
+  /**
+   * Length of the json in bytes.
+   *
+   * @return The length of the json
+   * @throws UncheckedIOException If the changelog file cannot be read. Call {@link #prepare()}
+   *                              first to handle the failure
+   */
+  @Override
+  public long getContentLength() {
+    try {
+      prepare();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read changelog " + metadata.getChangelogFile(), e);
+    }
+
+    return content.length;
+  }
+
+  @Override
+  public void writeTo(OutputStream out) throws IOException {
+    prepare();
+    out.write(content);
+  }
+
+  /**
+   * Read a changelog file as UTF-8. Malformed input is replaced like {@link String} does.
+   *
+   * @param file The changelog file
+   * @return The content of the file
+   * @throws IOException If the file cannot be read
+   */
+  private static String readChangelog(Path file) throws IOException {
+    final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    return decoder.decode(ByteBuffer.wrap(Files.readAllBytes(file))).toString();
+  }
+}
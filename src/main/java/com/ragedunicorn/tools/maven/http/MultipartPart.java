@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A single part of a multipart/form-data body. Parts only know how to write their own payload.
+ * The surrounding boundary and part headers are pre-encoded by {@link StreamingMultipartBody}.
+ */
+public abstract class MultipartPart {
+  private final String name;
+  private final String filename;
+  private final String contentType;
+
+  protected MultipartPart(String name, String filename, String contentType) {
+    this.name = name;
+    this.filename = filename;
+    this.contentType = contentType;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getFilename() {
+    return filename;
+  }
+
+  /**
+   * The content type of the payload including its parameters.
+   *
+   * @return The content type
+   */
+  public String getContentType() {
+    return contentType;
+  }
+
+  /**
+   * Length of the payload in bytes.
+   *
+   * @return The length of the payload or a negative number if unknown
+   */
+  public abstract long getContentLength();
+
+  /**
+   * Write the payload of the part. Implementations must not close the passed stream.
+   *
+   * @param out The stream to write to
+   * @throws IOException If the payload cannot be written
+   */
+  public abstract void writeTo(OutputStream out) throws IOException;
+}
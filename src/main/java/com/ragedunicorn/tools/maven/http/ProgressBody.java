@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Wraps a request body and counts the bytes written to the connection.
+ */
+public class ProgressBody implements RequestBody {
+  private final RequestBody body;
+  private final UploadProgress progress;
+
+  public ProgressBody(RequestBody body, UploadProgress progress) {
+    this.body = body;
+    this.progress = progress;
+  }
+
+  public UploadProgress getProgress() {
+    return progress;
+  }
+
+  @Override
+  public String getContentType() {
+    return body.getContentType();
+  }
+
+  @Override
+  public long getContentLength() {
+    return body.getContentLength();
+  }
+
+  @Override
+  public void writeTo(OutputStream out) throws IOException {
+    progress.start();
+    body.writeTo(new CountingOutputStream(out, progress));
+    progress.finish();
+  }
+
+  private static class CountingOutputStream extends FilterOutputStream {
+    private final UploadProgress progress;
+
+    CountingOutputStream(OutputStream out, UploadProgress progress) {
+      super(out);
+      this.progress = progress;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      progress.update(1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      progress.update(len);
+    }
+
+    @Override
+    public void close() {
+      // closing is left to the owner of the wrapped stream
+    }
+  }
+}
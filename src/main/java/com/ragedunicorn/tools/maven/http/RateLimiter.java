@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket that limits the rate of requests. Requests are spread evenly at the configured rate
+ * while up to burst requests may be sent at once after a quiet period. The limiter adapts to
+ * throttling by the server: the rate is halved on every throttled response and recovers slowly
+ * with every successful response. Safe for concurrent use.
+ */
+public class RateLimiter {
+  // factor applied to the current rate on a throttled response
+  private static final double DECREASE_FACTOR = 0.5;
+  // share of the configured rate that is restored by a successful response
+  private static final double RECOVERY_FACTOR = 0.05;
+  // lowest rate the limiter adapts to in requests per second
+  private static final double MIN_RATE = 0.1;
+
+  private double configuredRate;
+  private int burst;
+  private double rate;
+  private double tokens;
+  private long lastRefill = System.nanoTime();
+
+  private long acquired;
+  private long delayed;
+  private long throttled;
+  private long totalWaitNanos;
+  private long maxWaitNanos;
+
+  /**
+   * Create a new rate limiter.
+   *
+   * @param requestsPerSecond The maximum sustained rate. Values of 0 or below disable the limit
+   * @param burst             The maximum amount of requests sent at once
+   */
+  public RateLimiter(double requestsPerSecond, int burst) {
+    configure(requestsPerSecond, burst);
+  }
+
+  /**
+   * Change the limits. Resets an adapted rate to the configured rate unless the limits are
+   * unchanged.
+   *
+   * @param requestsPerSecond The maximum sustained rate. Values of 0 or below disable the limit
+   * @param burst             The maximum amount of requests sent at once
+   */
+  public synchronized void configure(double requestsPerSecond, int burst) {
+    if (requestsPerSecond == configuredRate && Math.max(1, burst) == this.burst) {
+      return;
+    }
+    this.configuredRate = requestsPerSecond;
+    this.burst = Math.max(1, burst);
+    this.rate = requestsPerSecond;
+    this.tokens = this.burst;
+    this.lastRefill = System.nanoTime();
+  }
+
+  /**
+   * Wait until a request may be sent.
+   *
+   * @throws InterruptedException If the thread is interrupted while waiting
+   */
+  public void acquire() throws InterruptedException {
+    final long waitNanos = reserve();
+
+    if (waitNanos > 0) {
+      TimeUnit.NANOSECONDS.sleep(waitNanos);
+    }
+  }
+
+  /**
+   * Adapt to a response that was throttled by the server.
+   */
+  public synchronized void onThrottled() {
+    throttled++;
+
+    if (!isLimited()) {
+      return;
+    }
+    refill(System.nanoTime());
+    rate = Math.max(Math.min(MIN_RATE, configuredRate), rate * DECREASE_FACTOR);
+    // no burst until the rate recovered
+    tokens = Math.min(tokens, 0);
+  }
+
+  /**
+   * Slowly recover the rate after a successful response.
+   */
+  public synchronized void onSuccess() {
+    if (!isLimited() || rate >= configuredRate) {
+      return;
+    }
+    refill(System.nanoTime());
+    rate = Math.min(configuredRate, rate + configuredRate * RECOVERY_FACTOR);
+  }
+
+  public synchronized double getConfiguredRate() {
+    return configuredRate;
+  }
+
+  public synchronized int getBurst() {
+    return burst;
+  }
+
+  /**
+   * The current, possibly adapted, rate.
+   *
+   * @return The current rate in requests per second
+   */
+  public synchronized double getRate() {
+    return rate;
+  }
+
+  public synchronized long getAcquired() {
+    return acquired;
+  }
+
+  /**
+   * Amount of requests that had to wait.
+   *
+   * @return The amount of delayed requests
+   */
+  public synchronized long getDelayed() {
+    return delayed;
+  }
+
+  public synchronized long getThrottled() {
+    return throttled;
+  }
+
+  public synchronized long getTotalWaitMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos);
+  }
+
+  public synchronized long getMaxWaitMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos);
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "RateLimiter{"
+            + "rate=" + String.format("%.2f", rate) + "/" + String.format("%.2f", configuredRate)
+            + ", acquired=" + acquired
+            + ", delayed=" + delayed
+            + ", throttled=" + throttled
+            + ", totalWaitMillis=" + getTotalWaitMillis()
+            + ", maxWaitMillis=" + getMaxWaitMillis()
+            + '}';
+  }
+
+  /**
+   * Take a token. If none is left the token is borrowed from the future and the caller has to
+   * wait until it would have been added.
+   *
+   * @return The time to wait in nanoseconds
+   */
+  private synchronized long reserve() {
+    acquired++;
+
+    if (!isLimited()) {
+      return 0;
+    }
+
+    refill(System.nanoTime());
+    tokens -= 1;
+
+    if (tokens >= 0) {
+      return 0;
+    }
+
+    final long waitNanos = (long) (-tokens / rate * TimeUnit.SECONDS.toNanos(1));
+    delayed++;
+    totalWaitNanos += waitNanos;
+    maxWaitNanos = Math.max(maxWaitNanos, waitNanos);
+
+    return waitNanos;
+  }
+
+  private void refill(long now) {
+    tokens = Math.min(burst, tokens + (now - lastRefill) * rate / TimeUnit.SECONDS.toNanos(1));
+    lastRefill = now;
+  }
+
+  private boolean isLimited() {
+    return configuredRate > 0;
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The body of a request sent through a {@link HttpTransport}. A body may be written more than once
+ * so failed requests can be sent again.
+ */
+public interface RequestBody {
+  /**
+   * The content type of the body including its parameters.
+   *
+   * @return The content type or null if unknown
+   */
+  String getContentType();
+
+  /**
+   * The length of the body.
+   *
+   * @return The length in bytes or -1 if unknown
+   */
+  long getContentLength();
+
+  /**
+   * Write the body.
+   *
+   * @param out The stream to write to
+   * @throws IOException If the body cannot be read or written
+   */
+  void writeTo(OutputStream out) throws IOException;
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A multipart/form-data body that streams its parts directly to the connection. In contrast to
+ * the entities created by {@link org.apache.http.entity.mime.MultipartEntityBuilder} boundaries
+ * and part headers are encoded once and file parts are transferred through a {@link
+ * java.nio.channels.FileChannel} which keeps the heap usage flat independent of the file size.
+ * The body can be sent through any {@link HttpTransport}.
+ */
+public class StreamingMultipartBody implements RequestBody {
+  private static final byte[] CRLF = "\r\n".getBytes(StandardCharsets.US_ASCII);
+  private static final char[] BOUNDARY_CHARS =
+          "-_1234567890abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+  private final List<MultipartPart> parts;
+  // pre-encoded delimiter and headers for each part
+  private final List<byte[]> partHeaders;
+  // pre-encoded close delimiter
+  private final byte[] closeDelimiter;
+  private final String contentType;
+  private final long contentLength;
+
+  private StreamingMultipartBody(String boundary, List<MultipartPart> parts) {
+    this.parts = Collections.unmodifiableList(new ArrayList<>(parts));
+    this.partHeaders = new ArrayList<>(parts.size());
+
+    for (MultipartPart part : parts) {
+      partHeaders.add(encodePartHeader(boundary, part));
+    }
+
+    this.closeDelimiter = ("--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+    this.contentLength = computeContentLength();
+    this.contentType = "multipart/form-data; boundary=" + boundary;
+  }
+
+  public static Builder create() {
+    return new Builder();
+  }
+
+  public List<MultipartPart> getParts() {
+    return parts;
+  }
+
+  @Override
+  public String getContentType() {
+    return contentType;
+  }
+
+  @Override
+  public long getContentLength() {
+    return contentLength;
+  }
+
+  @Override
+  public void writeTo(OutputStream out) throws IOException {
+    for (int i = 0; i < parts.size(); i++) {
+      out.write(partHeaders.get(i));
+      parts.get(i).writeTo(out);
+      out.write(CRLF);
+    }
+
+    out.write(closeDelimiter);
+    out.flush();
+  }
+
+  private long computeContentLength() {
+    long length = closeDelimiter.length;
+
+    for (int i = 0; i < parts.size(); i++) {
+      final long partLength = parts.get(i).getContentLength();
+
+      if (partLength < 0) {
+        return -1;
+      }
+
+      length += partHeaders.get(i).length + partLength + CRLF.length;
+    }
+
+    return length;
+  }
+
+  private static byte[] encodePartHeader(String boundary, MultipartPart part) {
+    final StringBuilder header = new StringBuilder(128)
+            .append("--").append(boundary).append("\r\n")
+            .append("Content-Disposition: form-data; name=\"").append(part.getName()).append('"');
+
+    if (part.getFilename() != null) {
+      header.append("; filename=\"").append(part.getFilename()).append('"');
+    }
+
+    header.append("\r\n")
+            .append("Content-Type: ").append(part.getContentType()).append("\r\n")
+            .append("\r\n");
+
+    return header.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static String generateBoundary() {
+    final ThreadLocalRandom random = ThreadLocalRandom.current();
+    final int count = random.nextInt(30, 41);
+    final StringBuilder boundary = new StringBuilder(count);
+
+    for (int i = 0; i < count; i++) {
+      boundary.append(BOUNDARY_CHARS[random.nextInt(BOUNDARY_CHARS.length)]);
+    }
+
+    return boundary.toString();
+  }
+
+  public static class Builder {
+    private final List<MultipartPart> parts = new ArrayList<>();
+    private String boundary;
+
+    public Builder setBoundary(String boundary) {
+      this.boundary = boundary;
+      return this;
+    }
+
+    public Builder addPart(MultipartPart part) {
+      parts.add(part);
+      return this;
+    }
+
+    public Builder addTextPart(String name, String text) {
+      return addPart(new TextPart(name, text));
+    }
+
+    public Builder addFilePart(String name, Path path, String contentType, String filename) {
+      return addPart(new FilePart(name, path, contentType, filename));
+    }
+
+    /**
+     * Build the body.
+     *
+     * @return The created multipart body
+     */
+    public StreamingMultipartBody build() {
+      return new StreamingMultipartBody(boundary != null ? boundary : generateBoundary(), parts);
+    }
+  }
+}
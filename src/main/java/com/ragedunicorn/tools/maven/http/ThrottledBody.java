@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Wraps a request body and writes it no faster than a {@link BandwidthLimiter} allows. The time
+ * waited for the limiter is added to the request.
+ */
+final class ThrottledBody implements RequestBody {
+  private final RequestBody body;
+  private final BandwidthLimiter limiter;
+  private final TransportRequest request;
+
+  private ThrottledBody(RequestBody body, BandwidthLimiter limiter, TransportRequest request) {
+    this.body = body;
+    this.limiter = limiter;
+    this.request = request;
+  }
+
+  /**
+   * The body a transport writes for a request.
+   *
+   * @param request The request to send
+   * @param limiter The bandwidth limiter of the transport or null
+   * @return The throttled body or the body of the request if it is not limited
+   */
+  static RequestBody of(TransportRequest request, BandwidthLimiter limiter) {
+    final RequestBody body = request.getBody();
+
+    if (body == null || limiter == null || !limiter.isLimited()) {
+      return body;
+    }
+
+    return new ThrottledBody(body, limiter, request);
+  }
+
+  @Override
+  public String getContentType() {
+    return body.getContentType();
+  }
+
+  @Override
+  public long getContentLength() {
+    return body.getContentLength();
+  }
+
+  @Override
+  public void writeTo(OutputStream out) throws IOException {
+    final ThrottledOutputStream throttledStream = new ThrottledOutputStream(out, limiter);
+
+    try {
+      body.writeTo(throttledStream);
+    } finally {
+      request.addThrottleNanos(throttledStream.getThrottleNanos());
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream that writes no faster than a {@link BandwidthLimiter} allows. Large writes are
+ * split into the chunk size of the limiter.
+ */
+public class ThrottledOutputStream extends FilterOutputStream {
+  private final BandwidthLimiter limiter;
+  private long throttleNanos;
+
+  public ThrottledOutputStream(OutputStream out, BandwidthLimiter limiter) {
+    super(out);
+    this.limiter = limiter;
+  }
+
+  /**
+   * The time the stream waited for the limiter.
+   *
+   * @return The waiting time in nanoseconds
+   */
+  public long getThrottleNanos() {
+    return throttleNanos;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    throttle(1);
+    out.write(b);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    final int chunkSize = limiter.getChunkSize();
+    int offset = off;
+    int remaining = len;
+
+    while (remaining > 0) {
+      final int length = Math.min(chunkSize, remaining);
+      throttle(length);
+      out.write(b, offset, length);
+      offset += length;
+      remaining -= length;
+    }
+  }
+
+  private void throttle(int bytes) throws IOException {
+    try {
+      throttleNanos += limiter.acquire(bytes);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the bandwidth limiter");
+    }
+  }
+}
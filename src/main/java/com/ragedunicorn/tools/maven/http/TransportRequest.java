@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A request sent through a {@link HttpTransport}. A request can be aborted from another thread
+ * while it is running.
+ */
+public class TransportRequest {
+  private final String method;
+  private final URI uri;
+  private final Map<String, String> headers = new LinkedHashMap<>();
+  // time the transport waited for its bandwidth limiter while sending the body
+  private final AtomicLong throttleNanos = new AtomicLong();
+  private RequestBody body;
+  // overall time limit of the request in milliseconds - 0 uses the timeouts of the transport
+  private long timeoutMillis;
+  // aborts the running request - registered by the transport
+  private Runnable abortHandler;
+  private boolean aborted;
+
+  /**
+   * Create a new request.
+   *
+   * @param method The http method
+   * @param uri    The targeted uri
+   * @param body   The body of the request or null
+   */
+  public TransportRequest(String method, URI uri, RequestBody body) {
+    this.method = method;
+    this.uri = uri;
+    this.body = body;
+  }
+
+  public String getMethod() {
+    return method;
+  }
+
+  public URI getUri() {
+    return uri;
+  }
+
+  public Map<String, String> getHeaders() {
+    return Collections.unmodifiableMap(headers);
+  }
+
+  public void setHeader(String name, String value) {
+    headers.put(name, value);
+  }
+
+  public RequestBody getBody() {
+    return body;
+  }
+
+  public void setBody(RequestBody body) {
+    this.body = body;
+  }
+
+  public long getTimeoutMillis() {
+    return timeoutMillis;
+  }
+
+  public void setTimeoutMillis(long timeoutMillis) {
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  public long getThrottleNanos() {
+    return throttleNanos.get();
+  }
+
+  public void addThrottleNanos(long nanos) {
+    throttleNanos.addAndGet(nanos);
+  }
+
+  /**
+   * Create a new request with the same method, uri, headers, body and time limit. Used to send a
+   * request again because an aborted request stays aborted.
+   *
+   * @return The copied request
+   */
+  public TransportRequest copy() {
+    final TransportRequest request = new TransportRequest(method, uri, body);
+    request.headers.putAll(headers);
+    request.timeoutMillis = timeoutMillis;
+
+    return request;
+  }
+
+  /**
+   * Register how the transport aborts the request. Runs the handler right away if the request was
+   * already aborted.
+   *
+   * @param abortHandler Aborts the running request
+   */
+  public void setAbortHandler(Runnable abortHandler) {
+    final boolean abortNow;
+
+    synchronized (this) {
+      this.abortHandler = abortHandler;
+      abortNow = aborted;
+    }
+
+    if (abortNow && abortHandler != null) {
+      abortHandler.run();
+    }
+  }
+
+  /**
+   * Abort the request. A request that was not sent yet fails as soon as it is sent.
+   */
+  public void abort() {
+    final Runnable handler;
+
+    synchronized (this) {
+      aborted = true;
+      handler = abortHandler;
+    }
+
+    if (handler != null) {
+      handler.run();
+    }
+  }
+
+  public synchronized boolean isAborted() {
+    return aborted;
+  }
+
+  @Override
+  public String toString() {
+    return "TransportRequest{"
+            + "method='" + method + '\''
+            + ", uri=" + uri
+            + ", timeoutMillis=" + timeoutMillis
+            + ", aborted=" + isAborted()
+            + '}';
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The response to a {@link TransportRequest}. The body is streamed from the connection and closing
+ * the response releases the connection.
+ */
+public class TransportResponse implements Closeable {
+  private final int statusCode;
+  private final Map<String, List<String>> headers =
+          new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+  private final InputStream body;
+
+  /**
+   * Create a new response.
+   *
+   * @param statusCode The http status
+   * @param headers    The headers by name
+   * @param body       The body of the response or null if there is none
+   */
+  public TransportResponse(int statusCode, Map<String, List<String>> headers, InputStream body) {
+    this.statusCode = statusCode;
+    if (headers != null) {
+      for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+        // http/2 pseudo headers and the status line of http/1 have no name
+        if (header.getKey() != null) {
+          this.headers.put(header.getKey(), header.getValue());
+        }
+      }
+    }
+    this.body = body == null ? new ByteArrayInputStream(new byte[0]) : body;
+  }
+
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  public Map<String, List<String>> getHeaders() {
+    return Collections.unmodifiableMap(headers);
+  }
+
+  /**
+   * The first value of a header.
+   *
+   * @param name The name of the header - case insensitive
+   * @return The value or null if the header is not present
+   */
+  public String getHeader(String name) {
+    final List<String> values = headers.get(name);
+
+    return values == null || values.isEmpty() ? null : values.get(0);
+  }
+
+  public InputStream getBody() {
+    return body;
+  }
+
+  @Override
+  public void close() throws IOException {
+    body.close();
+  }
+
+  @Override
+  public String toString() {
+    return "TransportResponse{"
+            + "statusCode=" + statusCode
+            + ", headers=" + headers
+            + '}';
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import com.ragedunicorn.tools.maven.WagoClient;
+
+/**
+ * The http transports releases can be uploaded with.
+ */
+public enum TransportType {
+  // Apache HttpClient with the connection pool of the build
+  APACHE,
+  // http client of the jdk negotiating HTTP/2 - requires Java 11 or later
+  JDK,
+  // jdk http client if available and Apache HttpClient otherwise
+  AUTO,
+  // answers every upload in memory without sending it - for tests and benchmarks
+  IN_MEMORY;
+
+  /**
+   * Resolve the transport that is actually used in the running jvm.
+   *
+   * @return The resolved type. Never {@link #AUTO}
+   */
+  public TransportType resolve() {
+    if (this == AUTO) {
+      return JdkHttpTransport.isAvailable() ? JDK : APACHE;
+    }
+
+    return this;
+  }
+
+  /**
+   * Create a transport of this type.
+   *
+   * @param wagoClient The client providing the settings of the transport
+   * @return The created transport. Closing it closes all clients it created
+   */
+  public HttpTransport create(WagoClient wagoClient) {
+    switch (resolve()) {
+      case JDK:
+        return new JdkHttpTransport(wagoClient);
+      case IN_MEMORY:
+        return new InMemoryHttpTransport();
+      default:
+        return wagoClient.createTransport();
+    }
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.http;
+
+import com.ragedunicorn.tools.maven.log.WagoReleaseLogger;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the bytes written for an upload and periodically reports the transferred bytes,
+ * throughput and the estimated time until the upload is done.
+ */
+public class UploadProgress {
+  private static final double BYTES_PER_MEGABYTE = 1024 * 1024;
+
+  private final WagoReleaseLogger logger;
+  private final long totalBytes;
+  private final long reportIntervalNanos;
+
+  private long startNanos;
+  private long lastReportNanos;
+  // bytes that were already uploaded by a previous run of a resumed upload
+  private long resumedBytes;
+  private long bytesSent;
+
+  /**
+   * Create a new progress tracker.
+   *
+   * @param logger         The logger to report to
+   * @param totalBytes     The expected amount of bytes or a negative number if unknown
+   * @param reportInterval The interval in seconds between two reports. 0 disables intermediate
+   *                       reports
+   */
+  public UploadProgress(WagoReleaseLogger logger, long totalBytes, int reportInterval) {
+    this.logger = logger;
+    this.totalBytes = totalBytes;
+    this.reportIntervalNanos = TimeUnit.SECONDS.toNanos(reportInterval);
+  }
+
+  /**
+   * Start or restart tracking of an upload.
+   */
+  public void start() {
+    start(0);
+  }
+
+  /**
+   * Start tracking of a resumed upload. The bytes uploaded before count towards the progress but
+   * not towards the throughput and the estimated time.
+   *
+   * @param resumedBytes The amount of bytes that were already uploaded
+   */
+  public void start(long resumedBytes) {
+    startNanos = System.nanoTime();
+    lastReportNanos = startNanos;
+    this.resumedBytes = resumedBytes;
+    bytesSent = resumedBytes;
+  }
+
+  /**
+   * Register written bytes and report the progress if the report interval elapsed.
+   *
+   * @param count The amount of bytes written
+   */
+  public void update(long count) {
+    bytesSent += count;
+
+    if (reportIntervalNanos <= 0) {
+      return;
+    }
+
+    final long now = System.nanoTime();
+
+    if (now - lastReportNanos >= reportIntervalNanos) {
+      lastReportNanos = now;
+      logger.info(() -> formatProgress(now));
+    }
+  }
+
+  /**
+   * Report a summary of the finished upload.
+   */
+  public void finish() {
+    if (logger.isInfoEnabled()) {
+      final long elapsedNanos = System.nanoTime() - startNanos;
+
+      logger.info(String.format(Locale.ROOT, "Uploaded %.1f MB in %.1fs (%.2f MB/s)",
+              toMegabytes(getBytesTransferred()), elapsedNanos / 1e9, throughput(elapsedNanos)));
+    }
+  }
+
+  public long getBytesSent() {
+    return bytesSent;
+  }
+
+  /**
+   * The bytes sent since the upload was started or resumed.
+   *
+   * @return The amount of bytes
+   */
+  public long getBytesTransferred() {
+    return bytesSent - resumedBytes;
+  }
+
+  public long getTotalBytes() {
+    return totalBytes;
+  }
+
+  /**
+   * Average throughput since the start of the upload.
+   *
+   * @return The throughput in MB/s
+   */
+  public double getThroughput() {
+    return throughput(System.nanoTime() - startNanos);
+  }
+
+  private String formatProgress(long now) {
+    final long elapsedNanos = now - startNanos;
+    final double throughput = throughput(elapsedNanos);
+
+    if (totalBytes <= 0) {
+      return String.format(Locale.ROOT, "Uploaded %.1f MB (%.2f MB/s)",
+              toMegabytes(bytesSent), throughput);
+    }
+
+    final long remainingBytes = Math.max(totalBytes - bytesSent, 0);
+    final long bytesTransferred = getBytesTransferred();
+    final String eta = bytesTransferred == 0
+            ? "unknown"
+            : String.format(Locale.ROOT, "%ds",
+                    (long) (remainingBytes * (elapsedNanos / 1e9) / bytesTransferred));
+
+    return String.format(Locale.ROOT, "Uploaded %.1f MB of %.1f MB (%d%%) at %.2f MB/s, ETA %s",
+            toMegabytes(bytesSent), toMegabytes(totalBytes), bytesSent * 100 / totalBytes,
+            throughput, eta);
+  }
+
+  private double throughput(long elapsedNanos) {
+    if (elapsedNanos <= 0) {
+      return 0;
+    }
+
+    return toMegabytes(getBytesTransferred()) / (elapsedNanos / 1e9);
+  }
+
+  private static double toMegabytes(long bytes) {
+    return bytes / BYTES_PER_MEGABYTE;
+  }
+}
@@ -0,0 +1,353 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes log messages on a background thread. Logging only puts a message into a bounded queue so
+ * concurrent releases never wait for the console or the maven log. Messages are written in order
+ * to the wrapped logger which can be a {@link DefaultLog} or a {@link MavenLog} forwarding to the
+ * log of the mojo. If the queue is full the drop policy decides whether debug and info messages
+ * are discarded. Warnings and errors are never discarded and wait for free space instead.
+ */
+public class AsyncLog implements WagoReleaseLogger, AutoCloseable {
+  public enum DropPolicy {
+    // discard debug and info messages while the queue is full
+    DISCARD,
+    // wait for free space in the queue
+    BLOCK
+  }
+
+  private enum Level {
+    DEBUG, INFO, WARN, ERROR, FLUSH, CLOSE
+  }
+
+  // time to wait for the queue to be written when flushing or closing
+  private static final long FLUSH_TIMEOUT_SECONDS = 10;
+
+  private final WagoReleaseLogger delegate;
+  private final DropPolicy dropPolicy;
+  private final BlockingQueue<Entry> queue;
+  private final Thread writer;
+  private final AtomicLong dropped = new AtomicLong();
+  private volatile boolean closed;
+
+  public AsyncLog(WagoReleaseLogger delegate) {
+    this(delegate, 1024, DropPolicy.DISCARD);
+  }
+
+  /**
+   * Create a log and start its writer thread.
+   *
+   * @param delegate   The logger the messages are written to
+   * @param capacity   The maximum amount of queued messages
+   * @param dropPolicy Decides what happens to debug and info messages while the queue is full
+   */
+  public AsyncLog(WagoReleaseLogger delegate, int capacity, DropPolicy dropPolicy) {
+    this.delegate = delegate;
+    this.dropPolicy = dropPolicy;
+    this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+    this.writer = new Thread(this::writeQueue, "wago-release-log");
+    this.writer.setDaemon(true);
+    this.writer.start();
+  }
+
+  public DropPolicy getDropPolicy() {
+    return dropPolicy;
+  }
+
+  /**
+   * The amount of messages that were discarded since the last flush.
+   *
+   * @return The amount of discarded messages
+   */
+  public long getDropped() {
+    return dropped.get();
+  }
+
+  @Override
+  public void debug(String content) {
+    log(Level.DEBUG, content, null);
+  }
+
+  @Override
+  public void debug(String content, Throwable error) {
+    log(Level.DEBUG, content, error);
+  }
+
+  @Override
+  public void debug(Throwable error) {
+    log(Level.DEBUG, null, error);
+  }
+
+  @Override
+  public boolean isDebugEnabled() {
+    return delegate.isDebugEnabled();
+  }
+
+  @Override
+  public void info(String content) {
+    log(Level.INFO, content, null);
+  }
+
+  @Override
+  public void info(String content, Throwable error) {
+    log(Level.INFO, content, error);
+  }
+
+  @Override
+  public void info(Throwable error) {
+    log(Level.INFO, null, error);
+  }
+
+  @Override
+  public boolean isInfoEnabled() {
+    return delegate.isInfoEnabled();
+  }
+
+  @Override
+  public void warn(String content) {
+    log(Level.WARN, content, null);
+  }
+
+  @Override
+  public void warn(String content, Throwable error) {
+    log(Level.WARN, content, error);
+  }
+
+  @Override
+  public void warn(Throwable error) {
+    log(Level.WARN, null, error);
+  }
+
+  @Override
+  public boolean isWarnEnabled() {
+    return delegate.isWarnEnabled();
+  }
+
+  @Override
+  public void error(String content) {
+    log(Level.ERROR, content, null);
+  }
+
+  @Override
+  public void error(String content, Throwable error) {
+    log(Level.ERROR, content, error);
+  }
+
+  @Override
+  public void error(Throwable error) {
+    log(Level.ERROR, null, error);
+  }
+
+  @Override
+  public boolean isErrorEnabled() {
+    return delegate.isErrorEnabled();
+  }
+
+  /**
+   * Wait until all messages logged so far were written. Reports the amount of discarded messages
+   * if any message was discarded.
+   */
+  public void flush() {
+    if (!closed) {
+      final Entry marker = new Entry(new CountDownLatch(1));
+
+      try {
+        queue.put(marker);
+        marker.written.await(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    final long discarded = dropped.getAndSet(0);
+
+    if (discarded > 0) {
+      delegate.warn(discarded + " log messages were discarded because the log queue was full");
+    }
+  }
+
+  /**
+   * Write all queued messages and stop the writer thread. Messages logged afterwards are written
+   * directly.
+   */
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+
+    flush();
+    closed = true;
+
+    try {
+      queue.put(new Entry(Level.CLOSE, null, null, null));
+      writer.join(TimeUnit.SECONDS.toMillis(FLUSH_TIMEOUT_SECONDS));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    // messages that were queued while closing
+    final List<Entry> remaining = new ArrayList<>();
+    queue.drainTo(remaining);
+    for (Entry entry : remaining) {
+      write(entry);
+    }
+  }
+
+  private void log(Level level, String content, Throwable error) {
+    if (!isEnabled(level)) {
+      return;
+    }
+
+    final Entry entry = new Entry(level, content, error, null);
+
+    if (closed) {
+      write(entry);
+      return;
+    }
+    if (queue.offer(entry)) {
+      return;
+    }
+    if (dropPolicy == DropPolicy.DISCARD && level.compareTo(Level.WARN) < 0) {
+      dropped.incrementAndGet();
+      return;
+    }
+
+    try {
+      queue.put(entry);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      write(entry);
+    }
+  }
+
+  private boolean isEnabled(Level level) {
+    switch (level) {
+      case DEBUG:
+        return delegate.isDebugEnabled();
+      case INFO:
+        return delegate.isInfoEnabled();
+      case WARN:
+        return delegate.isWarnEnabled();
+      default:
+        return delegate.isErrorEnabled();
+    }
+  }
+
+  private void writeQueue() {
+    while (true) {
+      final Entry entry;
+
+      try {
+        entry = queue.take();
+      } catch (InterruptedException e) {
+        return;
+      }
+
+      if (entry.level == Level.CLOSE) {
+        return;
+      }
+      if (entry.level == Level.FLUSH) {
+        entry.written.countDown();
+        continue;
+      }
+
+      try {
+        write(entry);
+      } catch (RuntimeException e) {
+        // a failing logger must not stop the writer thread
+      }
+    }
+  }
+
+  private void write(Entry entry) {
+    switch (entry.level) {
+      case DEBUG:
+        if (entry.content == null) {
+          delegate.debug(entry.error);
+        } else if (entry.error == null) {
+          delegate.debug(entry.content);
+        } else {
+          delegate.debug(entry.content, entry.error);
+        }
+        break;
+      case INFO:
+        if (entry.content == null) {
+          delegate.info(entry.error);
+        } else if (entry.error == null) {
+          delegate.info(entry.content);
+        } else {
+          delegate.info(entry.content, entry.error);
+        }
+        break;
+      case WARN:
+        if (entry.content == null) {
+          delegate.warn(entry.error);
+        } else if (entry.error == null) {
+          delegate.warn(entry.content);
+        } else {
+          delegate.warn(entry.content, entry.error);
+        }
+        break;
+      case ERROR:
+        if (entry.content == null) {
+          delegate.error(entry.error);
+        } else if (entry.error == null) {
+          delegate.error(entry.content);
+        } else {
+          delegate.error(entry.content, entry.error);
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  private static final class Entry {
+    private final Level level;
+    private final String content;
+    private final Throwable error;
+    // counted down once a flush marker was reached by the writer thread
+    private final CountDownLatch written;
+
+    private Entry(CountDownLatch written) {
+      this(Level.FLUSH, null, null, written);
+    }
+
+    private Entry(Level level, String content, Throwable error, CountDownLatch written) {
+      this.level = level;
+      this.content = content;
+      this.error = error;
+      this.written = written;
+    }
+  }
+}
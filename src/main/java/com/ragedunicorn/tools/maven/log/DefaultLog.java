@@ -22,6 +22,14 @@
 
 package com.ragedunicorn.tools.maven.log;
 
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * Writes log messages to the console. A message and the stack trace of its error are formatted
+ * first and written as a single block so messages of concurrent threads do not interleave.
+ */
 @SuppressWarnings("PMD")
 public class DefaultLog implements WagoReleaseLogger {
   /**
@@ -39,12 +47,25 @@ public class DefaultLog implements WagoReleaseLogger {
   public static final int LOG_LEVEL_INFO = 3;
   public static final int LOG_LEVEL_DEBUG = 4;
 
+  private final PrintStream out;
+
   public DefaultLog() {
-    // no op
+    this.out = System.out;
   }
 
   public DefaultLog(int logLevel) {
+    this(logLevel, System.out);
+  }
+
+  /**
+   * Create a log writing to a stream.
+   *
+   * @param logLevel The most detailed level that is logged
+   * @param out      The stream to write to
+   */
+  public DefaultLog(int logLevel, PrintStream out) {
     this.logLevel = logLevel;
+    this.out = out;
   }
 
   /**
@@ -54,7 +75,7 @@ public class DefaultLog implements WagoReleaseLogger {
    */
   public void debug(String content) {
     if (this.logLevel >= LOG_LEVEL_DEBUG) {
-      System.out.println("[DEBUG] " + content);
+      print("[DEBUG] ", content, null);
     }
   }
 
@@ -66,8 +87,7 @@ public class DefaultLog implements WagoReleaseLogger {
    */
   public void debug(String content, Throwable error) {
     if (this.logLevel >= LOG_LEVEL_DEBUG) {
-      System.out.println("[DEBUG] " + content);
-      error.printStackTrace();
+      print("[DEBUG] ", content, error);
     }
   }
 
@@ -78,7 +98,7 @@ public class DefaultLog implements WagoReleaseLogger {
    */
   public void debug(Throwable error) {
     if (this.logLevel >= LOG_LEVEL_DEBUG) {
-      error.printStackTrace();
+      print(null, null, error);
     }
   }
 
@@ -98,7 +118,7 @@ public class DefaultLog implements WagoReleaseLogger {
    */
   public void info(String content) {
     if (this.logLevel >= LOG_LEVEL_INFO) {
-      System.out.println("[INFO] " + content);
+      print("[INFO] ", content, null);
     }
   }
 
@@ -110,8 +130,7 @@ public class DefaultLog implements WagoReleaseLogger {
    */
   public void info(String content, Throwable error) {
     if (this.logLevel >= LOG_LEVEL_INFO) {
-      System.out.println("[INFO] " + content);
-      error.printStackTrace();
+      print("[INFO] ", content, error);
     }
   }
 
@@ -122,7 +141,7 @@ public class DefaultLog implements WagoReleaseLogger {
    */
   public void info(Throwable error) {
     if (this.logLevel >= LOG_LEVEL_INFO) {
-      error.printStackTrace();
+      print(null, null, error);
     }
   }
 
@@ -142,7 +161,7 @@ public class DefaultLog implements WagoReleaseLogger {
    */
   public void warn(String content) {
     if (this.logLevel >= LOG_LEVEL_WARNING) {
-      System.out.println("[WARNING] " + content);
+      print("[WARNING] ", content, null);
     }
   }
 
@@ -154,8 +173,7 @@ public class DefaultLog implements WagoReleaseLogger {
    */
   public void warn(String content, Throwable error) {
     if (this.logLevel >= LOG_LEVEL_WARNING) {
-      System.out.println("[WARNING] " + content);
-      error.printStackTrace();
+      print("[WARNING] ", content, error);
     }
   }
 
@@ -166,7 +184,7 @@ public class DefaultLog implements WagoReleaseLogger {
    */
   public void warn(Throwable error) {
     if (this.logLevel >= LOG_LEVEL_WARNING) {
-      error.printStackTrace();
+      print(null, null, error);
     }
   }
 
@@ -186,7 +204,7 @@ public class DefaultLog implements WagoReleaseLogger {
    */
   public void error(String content) {
     if (this.logLevel >= LOG_LEVEL_ERROR) {
-      System.out.println("[ERROR] " + content);
+      print("[ERROR] ", content, null);
     }
   }
 
@@ -198,8 +216,7 @@ public class DefaultLog implements WagoReleaseLogger {
    */
   public void error(String content, Throwable error) {
     if (this.logLevel >= LOG_LEVEL_ERROR) {
-      System.out.println("[ERROR] " + content);
-      error.printStackTrace();
+      print("[ERROR] ", content, error);
     }
   }
 
@@ -210,7 +227,7 @@ public class DefaultLog implements WagoReleaseLogger {
    */
   public void error(Throwable error) {
     if (this.logLevel >= LOG_LEVEL_ERROR) {
-      error.printStackTrace();
+      print(null, null, error);
     }
   }
 
@@ -222,4 +239,22 @@ public class DefaultLog implements WagoReleaseLogger {
   public boolean isErrorEnabled() {
     return this.logLevel >= LOG_LEVEL_ERROR;
   }
+
+  private void print(String prefix, String content, Throwable error) {
+    final StringWriter message = new StringWriter();
+    final PrintWriter writer = new PrintWriter(message);
+
+    if (content != null) {
+      writer.println(prefix + content);
+    }
+    if (error != null) {
+      error.printStackTrace(writer);
+    }
+    writer.flush();
+
+    synchronized (out) {
+      out.print(message);
+      out.flush();
+    }
+  }
 }
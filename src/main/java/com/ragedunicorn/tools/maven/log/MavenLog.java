@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.log;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Forwards all log messages to the log of the executing mojo.
+ */
+public class MavenLog implements WagoReleaseLogger {
+  private final Log log;
+
+  public MavenLog(Log log) {
+    this.log = log;
+  }
+
+  @Override
+  public void debug(String content) {
+    log.debug(content);
+  }
+
+  @Override
+  public void debug(String content, Throwable error) {
+    log.debug(content, error);
+  }
+
+  @Override
+  public void debug(Throwable error) {
+    log.debug(error);
+  }
+
+  @Override
+  public boolean isDebugEnabled() {
+    return log.isDebugEnabled();
+  }
+
+  @Override
+  public void info(String content) {
+    log.info(content);
+  }
+
+  @Override
+  public void info(String content, Throwable error) {
+    log.info(content, error);
+  }
+
+  @Override
+  public void info(Throwable error) {
+    log.info(error);
+  }
+
+  @Override
+  public boolean isInfoEnabled() {
+    return log.isInfoEnabled();
+  }
+
+  @Override
+  public void warn(String content) {
+    log.warn(content);
+  }
+
+  @Override
+  public void warn(String content, Throwable error) {
+    log.warn(content, error);
+  }
+
+  @Override
+  public void warn(Throwable error) {
+    log.warn(error);
+  }
+
+  @Override
+  public boolean isWarnEnabled() {
+    return log.isWarnEnabled();
+  }
+
+  @Override
+  public void error(String content) {
+    log.error(content);
+  }
+
+  @Override
+  public void error(String content, Throwable error) {
+    log.error(content, error);
+  }
+
+  @Override
+  public void error(Throwable error) {
+    log.error(error);
+  }
+
+  @Override
+  public boolean isErrorEnabled() {
+    return log.isErrorEnabled();
+  }
+}
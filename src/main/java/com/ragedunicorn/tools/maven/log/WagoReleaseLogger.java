@@ -22,6 +22,12 @@
 
 package com.ragedunicorn.tools.maven.log;
 
+import java.util.function.Supplier;
+
+/**
+ * Logger used by the services of the plugin. Messages that are expensive to build can be passed
+ * as {@link Supplier} which is only called if the level is enabled.
+ */
 public interface WagoReleaseLogger {
   void debug(String content);
 
@@ -29,21 +35,121 @@ public interface WagoReleaseLogger {
 
   void debug(Throwable error);
 
+  /**
+   * Log a debug message that is only built if the debug level is enabled.
+   *
+   * @param content Supplies the content to log
+   */
+  default void debug(Supplier<String> content) {
+    if (isDebugEnabled()) {
+      debug(content.get());
+    }
+  }
+
+  /**
+   * Log a debug message that is only built if the debug level is enabled.
+   *
+   * @param content Supplies the content to log
+   * @param error   An error object
+   */
+  default void debug(Supplier<String> content, Throwable error) {
+    if (isDebugEnabled()) {
+      debug(content.get(), error);
+    }
+  }
+
+  boolean isDebugEnabled();
+
   void info(String content);
 
   void info(String content, Throwable error);
 
   void info(Throwable error);
 
+  /**
+   * Log an info message that is only built if the info level is enabled.
+   *
+   * @param content Supplies the content to log
+   */
+  default void info(Supplier<String> content) {
+    if (isInfoEnabled()) {
+      info(content.get());
+    }
+  }
+
+  /**
+   * Log an info message that is only built if the info level is enabled.
+   *
+   * @param content Supplies the content to log
+   * @param error   An error object
+   */
+  default void info(Supplier<String> content, Throwable error) {
+    if (isInfoEnabled()) {
+      info(content.get(), error);
+    }
+  }
+
+  boolean isInfoEnabled();
+
   void warn(String content);
 
   void warn(String content, Throwable error);
 
   void warn(Throwable error);
 
+  /**
+   * Log a warn message that is only built if the warn level is enabled.
+   *
+   * @param content Supplies the content to log
+   */
+  default void warn(Supplier<String> content) {
+    if (isWarnEnabled()) {
+      warn(content.get());
+    }
+  }
+
+  /**
+   * Log a warn message that is only built if the warn level is enabled.
+   *
+   * @param content Supplies the content to log
+   * @param error   An error object
+   */
+  default void warn(Supplier<String> content, Throwable error) {
+    if (isWarnEnabled()) {
+      warn(content.get(), error);
+    }
+  }
+
+  boolean isWarnEnabled();
+
   void error(String content);
 
   void error(String content, Throwable error);
 
   void error(Throwable error);
+
+  /**
+   * Log an error message that is only built if the error level is enabled.
+   *
+   * @param content Supplies the content to log
+   */
+  default void error(Supplier<String> content) {
+    if (isErrorEnabled()) {
+      error(content.get());
+    }
+  }
+
+  /**
+   * Log an error message that is only built if the error level is enabled.
+   *
+   * @param content Supplies the content to log
+   * @param error   An error object
+   */
+  default void error(Supplier<String> content, Throwable error) {
+    if (isErrorEnabled()) {
+      error(content.get(), error);
+    }
+  }
+
+  boolean isErrorEnabled();
 }
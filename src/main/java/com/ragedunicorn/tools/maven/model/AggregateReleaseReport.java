@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The reports of all executions of a multi-module build together with their totals.
+ */
+public class AggregateReleaseReport {
+  private ReleaseReport.Status status = ReleaseReport.Status.SUCCESS;
+
+  private long durationMillis;
+
+  private long bytesSent;
+
+  private int releases;
+
+  private int failedReleases;
+
+  private int retries;
+
+  private List<ReleaseReport> modules = new ArrayList<>();
+
+  public AggregateReleaseReport() {
+  }
+
+  /**
+   * Aggregate the reports of finished executions.
+   *
+   * @param reports The reports of all executions so far
+   */
+  public AggregateReleaseReport(List<ReleaseReport> reports) {
+    for (ReleaseReport report : reports) {
+      if (report.getStatus() == ReleaseReport.Status.FAILURE) {
+        status = ReleaseReport.Status.FAILURE;
+      }
+      durationMillis += report.getDurationMillis();
+      bytesSent += report.getBytesSent();
+      retries += report.getRetries();
+
+      for (ReleaseMetrics release : report.getReleases()) {
+        releases++;
+        if (release.getStatus() == ReleaseResult.Status.FAILED
+                || release.getStatus() == ReleaseResult.Status.CANCELLED) {
+          failedReleases++;
+        }
+      }
+      modules.add(report);
+    }
+  }
+
+  public ReleaseReport.Status getStatus() {
+    return status;
+  }
+
+  public long getDurationMillis() {
+    return durationMillis;
+  }
+
+  public long getBytesSent() {
+    return bytesSent;
+  }
+
+  public int getReleases() {
+    return releases;
+  }
+
+  public int getFailedReleases() {
+    return failedReleases;
+  }
+
+  public int getRetries() {
+    return retries;
+  }
+
+  public List<ReleaseReport> getModules() {
+    return modules;
+  }
+}
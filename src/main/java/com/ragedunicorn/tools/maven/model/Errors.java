@@ -23,25 +23,29 @@
 package com.ragedunicorn.tools.maven.model;
 
 import com.google.gson.annotations.SerializedName;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
+/**
+ * Validation errors per field. Lists are only allocated for fields that have errors, getters
+ * return an empty list otherwise.
+ */
 public class Errors {
-  public List<String> metadata = new ArrayList<>();
-  public List<String> file = new ArrayList<>();
-  public List<String> stability = new ArrayList<>();
+  public List<String> metadata;
+  public List<String> file;
+  public List<String> stability;
   @SerializedName(value = "supported_retail_patch")
-  public List<String> supportedRetailPatch = new ArrayList<>();
+  public List<String> supportedRetailPatch;
   @SerializedName(value = "supported_wotlk_patch")
-  public List<String> supportedWotlkcPatch = new ArrayList<>();
+  public List<String> supportedWotlkcPatch;
   @SerializedName(value = "supported_bc_patch")
-  public List<String> supportedBccPatch = new ArrayList<>();
+  public List<String> supportedBccPatch;
   @SerializedName(value = "supported_classic_patch")
-  public List<String> supportedClassicPatch = new ArrayList<>();
+  public List<String> supportedClassicPatch;
 
   public List<String> getMetadata() {
-    return metadata;
+    return orEmpty(metadata);
   }
 
   public void setMetadata(List<String> metadata) {
@@ -49,7 +53,7 @@ public class Errors {
   }
 
   public List<String> getFile() {
-    return file;
+    return orEmpty(file);
   }
 
   public void setFile(List<String> file) {
@@ -57,7 +61,7 @@ public class Errors {
   }
 
   public List<String> getStability() {
-    return stability;
+    return orEmpty(stability);
   }
 
   public void setStability(List<String> stability) {
@@ -65,7 +69,7 @@ public class Errors {
   }
 
   public List<String> getSupportedRetailPatch() {
-    return supportedRetailPatch;
+    return orEmpty(supportedRetailPatch);
   }
 
   public void setSupportedRetailPatch(List<String> supportedRetailPatch) {
@@ -73,7 +77,7 @@ public class Errors {
   }
 
   public List<String> getSupportedWotlkcPatch() {
-    return supportedWotlkcPatch;
+    return orEmpty(supportedWotlkcPatch);
   }
 
   public void setSupportedWotlkcPatch(List<String> supportedWotlkcPatch) {
@@ -81,7 +85,7 @@ public class Errors {
   }
 
   public List<String> getSupportedBccPatch() {
-    return supportedBccPatch;
+    return orEmpty(supportedBccPatch);
   }
 
   public void setSupportedBccPatch(List<String> supportedBccPatch) {
@@ -89,7 +93,7 @@ public class Errors {
   }
 
   public List<String> getSupportedClassicPatch() {
-    return supportedClassicPatch;
+    return orEmpty(supportedClassicPatch);
   }
 
   public void setSupportedClassicPatch(List<String> supportedClassicPatch) {
@@ -106,30 +110,35 @@ public class Errors {
       return false;
     }
     Errors errors = (Errors) o;
-    return Objects.equals(metadata, errors.metadata)
-            && Objects.equals(file, errors.file)
-            && Objects.equals(stability, errors.stability)
-            && Objects.equals(supportedRetailPatch, errors.supportedRetailPatch)
-            && Objects.equals(supportedWotlkcPatch, errors.supportedWotlkcPatch)
-            && Objects.equals(supportedBccPatch, errors.supportedBccPatch)
-            && Objects.equals(supportedClassicPatch, errors.supportedClassicPatch);
+    return Objects.equals(getMetadata(), errors.getMetadata())
+            && Objects.equals(getFile(), errors.getFile())
+            && Objects.equals(getStability(), errors.getStability())
+            && Objects.equals(getSupportedRetailPatch(), errors.getSupportedRetailPatch())
+            && Objects.equals(getSupportedWotlkcPatch(), errors.getSupportedWotlkcPatch())
+            && Objects.equals(getSupportedBccPatch(), errors.getSupportedBccPatch())
+            && Objects.equals(getSupportedClassicPatch(), errors.getSupportedClassicPatch());
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(metadata, file, stability, supportedRetailPatch, supportedWotlkcPatch, supportedBccPatch, supportedClassicPatch);
+    return Objects.hash(getMetadata(), getFile(), getStability(), getSupportedRetailPatch(),
+            getSupportedWotlkcPatch(), getSupportedBccPatch(), getSupportedClassicPatch());
   }
 
   @Override
   public String toString() {
     return "Errors{"
-            + "metadata=" + metadata
-            + ", file=" + file
-            + ", stability=" + stability
-            + ", supportedRetailPatch=" + supportedRetailPatch
-            + ", supportedWotlkcPatch=" + supportedWotlkcPatch
-            + ", supportedBccPatch=" + supportedBccPatch
-            + ", supportedClassicPatch=" + supportedClassicPatch
+            + "metadata=" + getMetadata()
+            + ", file=" + getFile()
+            + ", stability=" + getStability()
+            + ", supportedRetailPatch=" + getSupportedRetailPatch()
+            + ", supportedWotlkcPatch=" + getSupportedWotlkcPatch()
+            + ", supportedBccPatch=" + getSupportedBccPatch()
+            + ", supportedClassicPatch=" + getSupportedClassicPatch()
             + '}';
   }
+
+  private static List<String> orEmpty(List<String> messages) {
+    return messages == null ? Collections.<String>emptyList() : messages;
+  }
 }
@@ -24,6 +24,7 @@ package com.ragedunicorn.tools.maven.model;
 
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
+import java.nio.file.Path;
 import java.util.Objects;
 
 public class Metadata {
@@ -37,6 +38,9 @@ public class Metadata {
   @Expose
   private String changelog;
 
+  // file whose content is streamed as changelog - overrides changelog
+  private transient Path changelogFile;
+
   @Expose
   @SerializedName(value = "supported_retail_patch")
   private String supportedRetailPatch;
@@ -76,6 +80,14 @@ public class Metadata {
     this.changelog = changelog;
   }
 
+  public Path getChangelogFile() {
+    return changelogFile;
+  }
+
+  public void setChangelogFile(Path changelogFile) {
+    this.changelogFile = changelogFile;
+  }
+
   public String getSupportedRetailPatch() {
     return supportedRetailPatch;
   }
@@ -114,6 +126,7 @@ public class Metadata {
             + "label='" + label + '\''
             + ", stability='" + stability + '\''
             + ", changelog='" + changelog + '\''
+            + ", changelogFile='" + changelogFile + '\''
             + ", supportedRetailPatch='" + supportedRetailPatch + '\''
             + ", supportedWotlkcPatch='" + supportedWotlkcPatch + '\''
             + ", supportedBccPatch='" + supportedBccPatch + '\''
@@ -134,6 +147,7 @@ public class Metadata {
     return Objects.equals(label, metadata.label)
             && Objects.equals(stability, metadata.stability)
             && Objects.equals(changelog, metadata.changelog)
+            && Objects.equals(changelogFile, metadata.changelogFile)
             && Objects.equals(supportedRetailPatch, metadata.supportedRetailPatch)
             && Objects.equals(supportedWotlkcPatch, metadata.supportedWotlkcPatch)
             && Objects.equals(supportedBccPatch, metadata.supportedBccPatch)
@@ -142,6 +156,7 @@ public class Metadata {
 
   @Override
   public int hashCode() {
-    return Objects.hash(label, stability, changelog, supportedRetailPatch, supportedWotlkcPatch, supportedBccPatch, supportedClassicPatch);
+    return Objects.hash(label, stability, changelog, changelogFile, supportedRetailPatch,
+            supportedWotlkcPatch, supportedBccPatch, supportedClassicPatch);
   }
 }
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.model;
+
+/**
+ * Timings and transfer statistics of a single release. All durations are summed up over every
+ * attempt of every request of the release.
+ */
+public class ReleaseMetrics {
+  private String projectId;
+
+  private String source;
+
+  private ReleaseResult.Status status;
+
+  private String error;
+
+  // waiting for a free upload slot of the maven session
+  private long queueMillis;
+
+  // building the request entities including measuring the metadata and changelog
+  private long serializationMillis;
+
+  // resolving the host, leasing or opening connections and waiting for the rate limiter
+  private long connectionSetupMillis;
+
+  // sending request bodies
+  private long uploadMillis;
+
+  // part of the upload time the bandwidth limit held the request bodies back
+  private long throttleMillis;
+
+  // waiting for and reading the responses after the request bodies were sent
+  private long serverResponseMillis;
+
+  // waiting between failed attempts
+  private long retryDelayMillis;
+
+  private long durationMillis;
+
+  private long bytesSent;
+
+  // bytes sent per second of upload time
+  private long throughput;
+
+  private int attempts;
+
+  private int retries;
+
+  public String getProjectId() {
+    return projectId;
+  }
+
+  public void setProjectId(String projectId) {
+    this.projectId = projectId;
+  }
+
+  public String getSource() {
+    return source;
+  }
+
+  public void setSource(String source) {
+    this.source = source;
+  }
+
+  public ReleaseResult.Status getStatus() {
+    return status;
+  }
+
+  public void setStatus(ReleaseResult.Status status) {
+    this.status = status;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public void setError(String error) {
+    this.error = error;
+  }
+
+  public long getQueueMillis() {
+    return queueMillis;
+  }
+
+  public void setQueueMillis(long queueMillis) {
+    this.queueMillis = queueMillis;
+  }
+
+  public long getSerializationMillis() {
+    return serializationMillis;
+  }
+
+  public void setSerializationMillis(long serializationMillis) {
+    this.serializationMillis = serializationMillis;
+  }
+
+  public long getConnectionSetupMillis() {
+    return connectionSetupMillis;
+  }
+
+  public void setConnectionSetupMillis(long connectionSetupMillis) {
+    this.connectionSetupMillis = connectionSetupMillis;
+  }
+
+  public long getUploadMillis() {
+    return uploadMillis;
+  }
+
+  public void setUploadMillis(long uploadMillis) {
+    this.uploadMillis = uploadMillis;
+  }
+
+  public long getThrottleMillis() {
+    return throttleMillis;
+  }
+
+  public void setThrottleMillis(long throttleMillis) {
+    this.throttleMillis = throttleMillis;
+  }
+
+  public long getServerResponseMillis() {
+    return serverResponseMillis;
+  }
+
+  public void setServerResponseMillis(long serverResponseMillis) {
+    this.serverResponseMillis = serverResponseMillis;
+  }
+
+  public long getRetryDelayMillis() {
+    return retryDelayMillis;
+  }
+
+  public void setRetryDelayMillis(long retryDelayMillis) {
+    this.retryDelayMillis = retryDelayMillis;
+  }
+
+  public long getDurationMillis() {
+    return durationMillis;
+  }
+
+  public void setDurationMillis(long durationMillis) {
+    this.durationMillis = durationMillis;
+  }
+
+  public long getBytesSent() {
+    return bytesSent;
+  }
+
+  public void setBytesSent(long bytesSent) {
+    this.bytesSent = bytesSent;
+  }
+
+  public long getThroughput() {
+    return throughput;
+  }
+
+  public void setThroughput(long throughput) {
+    this.throughput = throughput;
+  }
+
+  public int getAttempts() {
+    return attempts;
+  }
+
+  public void setAttempts(int attempts) {
+    this.attempts = attempts;
+  }
+
+  public int getRetries() {
+    return retries;
+  }
+
+  public void setRetries(int retries) {
+    this.retries = retries;
+  }
+
+  @Override
+  public String toString() {
+    return "ReleaseMetrics{"
+            + "projectId='" + projectId + '\''
+            + ", source='" + source + '\''
+            + ", status=" + status
+            + ", error='" + error + '\''
+            + ", queueMillis=" + queueMillis
+            + ", serializationMillis=" + serializationMillis
+            + ", connectionSetupMillis=" + connectionSetupMillis
+            + ", uploadMillis=" + uploadMillis
+            + ", throttleMillis=" + throttleMillis
+            + ", serverResponseMillis=" + serverResponseMillis
+            + ", retryDelayMillis=" + retryDelayMillis
+            + ", durationMillis=" + durationMillis
+            + ", bytesSent=" + bytesSent
+            + ", throughput=" + throughput
+            + ", attempts=" + attempts
+            + ", retries=" + retries
+            + '}';
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.model;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Performance report of a single plugin execution. Collects the time spent before the upload
+ * and the metrics of every release of the execution.
+ */
+public class ReleaseReport {
+  public enum Status {
+    // every release was uploaded or skipped
+    SUCCESS,
+    // the execution failed
+    FAILURE
+  }
+
+  private String module;
+
+  private String startedAt;
+
+  private Status status;
+
+  private String error;
+
+  private long durationMillis;
+
+  // locating and checking the changelog - the changelog itself is streamed during the upload
+  private long changelogMillis;
+
+  // validating the archive and reading the supported patches of its toc files
+  private long validationMillis;
+
+  private long bytesSent;
+
+  // bytes sent per second of upload time of all releases
+  private long throughput;
+
+  private int retries;
+
+  // time the bandwidth limit held the uploads of all releases back
+  private long throttleMillis;
+
+  private List<ReleaseMetrics> releases = new ArrayList<>();
+
+  private transient long start;
+  private transient long changelogNanos;
+  private transient long validationNanos;
+
+  public ReleaseReport() {
+  }
+
+  /**
+   * Create a report of an execution that starts now.
+   *
+   * @param module The maven module of the execution or null if unknown
+   */
+  public ReleaseReport(String module) {
+    this.module = module;
+    this.startedAt = Instant.now().toString();
+    this.start = System.nanoTime();
+  }
+
+  public String getModule() {
+    return module;
+  }
+
+  public String getStartedAt() {
+    return startedAt;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public long getDurationMillis() {
+    return durationMillis;
+  }
+
+  public long getChangelogMillis() {
+    return changelogMillis;
+  }
+
+  public long getValidationMillis() {
+    return validationMillis;
+  }
+
+  public long getBytesSent() {
+    return bytesSent;
+  }
+
+  public long getThroughput() {
+    return throughput;
+  }
+
+  public int getRetries() {
+    return retries;
+  }
+
+  public long getThrottleMillis() {
+    return throttleMillis;
+  }
+
+  public synchronized List<ReleaseMetrics> getReleases() {
+    return new ArrayList<>(releases);
+  }
+
+  public synchronized void addChangelogTime(long nanos) {
+    changelogNanos += nanos;
+  }
+
+  public synchronized void addValidationTime(long nanos) {
+    validationNanos += nanos;
+  }
+
+  /**
+   * Add the metrics of a completed release. Called concurrently by the releases of a manifest.
+   *
+   * @param release The metrics of the release
+   */
+  public synchronized void addRelease(ReleaseMetrics release) {
+    releases.add(release);
+  }
+
+  /**
+   * Complete the report once the execution finished and sum up the metrics of all releases.
+   *
+   * @param failure The failure of the execution or null if it succeeded
+   */
+  public synchronized void finish(Throwable failure) {
+    status = failure == null ? Status.SUCCESS : Status.FAILURE;
+    error = failure == null ? null : failure.getMessage();
+    durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    changelogMillis = TimeUnit.NANOSECONDS.toMillis(changelogNanos);
+    validationMillis = TimeUnit.NANOSECONDS.toMillis(validationNanos);
+    bytesSent = 0;
+    retries = 0;
+    throttleMillis = 0;
+    long uploadMillis = 0;
+
+    for (ReleaseMetrics release : releases) {
+      bytesSent += release.getBytesSent();
+      retries += release.getRetries();
+      throttleMillis += release.getThrottleMillis();
+      uploadMillis += release.getUploadMillis();
+    }
+    throughput = uploadMillis > 0 ? bytesSent * 1000 / uploadMillis : 0;
+  }
+
+  @Override
+  public String toString() {
+    return "ReleaseReport{"
+            + "module='" + module + '\''
+            + ", startedAt='" + startedAt + '\''
+            + ", status=" + status
+            + ", error='" + error + '\''
+            + ", durationMillis=" + durationMillis
+            + ", changelogMillis=" + changelogMillis
+            + ", validationMillis=" + validationMillis
+            + ", bytesSent=" + bytesSent
+            + ", throughput=" + throughput
+            + ", retries=" + retries
+            + ", throttleMillis=" + throttleMillis
+            + ", releases=" + releases
+            + '}';
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.model;
+
+import java.util.Objects;
+
+public class ReleaseResult {
+  public enum Status {
+    // the release was uploaded
+    UPLOADED,
+    // an identical release was already uploaded
+    SKIPPED,
+    // the upload failed
+    FAILED,
+    // the upload was not started because another release failed
+    CANCELLED
+  }
+
+  private String projectId;
+
+  private String file;
+
+  private Status status;
+
+  private String error;
+
+  private long durationMillis;
+
+  public ReleaseResult() {
+  }
+
+  /**
+   * Create a new release result.
+   *
+   * @param projectId      The targeted project
+   * @param file           The released file
+   * @param status         The outcome of the release
+   * @param error          The reason of a failure or null
+   * @param durationMillis The time the release took in milliseconds
+   */
+  public ReleaseResult(String projectId, String file, Status status, String error,
+                       long durationMillis) {
+    this.projectId = projectId;
+    this.file = file;
+    this.status = status;
+    this.error = error;
+    this.durationMillis = durationMillis;
+  }
+
+  public String getProjectId() {
+    return projectId;
+  }
+
+  public void setProjectId(String projectId) {
+    this.projectId = projectId;
+  }
+
+  public String getFile() {
+    return file;
+  }
+
+  public void setFile(String file) {
+    this.file = file;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public void setStatus(Status status) {
+    this.status = status;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public void setError(String error) {
+    this.error = error;
+  }
+
+  public long getDurationMillis() {
+    return durationMillis;
+  }
+
+  public void setDurationMillis(long durationMillis) {
+    this.durationMillis = durationMillis;
+  }
+
+  @Override
+  public String toString() {
+    return "ReleaseResult{"
+            + "projectId='" + projectId + '\''
+            + ", file='" + file + '\''
+            + ", status=" + status
+            + ", error='" + error + '\''
+            + ", durationMillis=" + durationMillis
+            + '}';
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    ReleaseResult that = (ReleaseResult) o;
+    return durationMillis == that.durationMillis
+            && Objects.equals(projectId, that.projectId)
+            && Objects.equals(file, that.file)
+            && status == that.status
+            && Objects.equals(error, that.error);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(projectId, file, status, error, durationMillis);
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.model;
+
+import com.google.gson.annotations.SerializedName;
+import java.util.Objects;
+import java.util.TreeSet;
+
+public class UploadCheckpoint {
+  @SerializedName(value = "upload_id")
+  private String uploadId;
+
+  @SerializedName(value = "project_id")
+  private String projectId;
+
+  private String file;
+
+  @SerializedName(value = "file_size")
+  private long fileSize;
+
+  @SerializedName(value = "last_modified")
+  private long lastModified;
+
+  @SerializedName(value = "chunk_size")
+  private int chunkSize;
+
+  @SerializedName(value = "acknowledged_parts")
+  private TreeSet<Integer> acknowledgedParts = new TreeSet<>();
+
+  public String getUploadId() {
+    return uploadId;
+  }
+
+  public void setUploadId(String uploadId) {
+    this.uploadId = uploadId;
+  }
+
+  public String getProjectId() {
+    return projectId;
+  }
+
+  public void setProjectId(String projectId) {
+    this.projectId = projectId;
+  }
+
+  public String getFile() {
+    return file;
+  }
+
+  public void setFile(String file) {
+    this.file = file;
+  }
+
+  public long getFileSize() {
+    return fileSize;
+  }
+
+  public void setFileSize(long fileSize) {
+    this.fileSize = fileSize;
+  }
+
+  public long getLastModified() {
+    return lastModified;
+  }
+
+  public void setLastModified(long lastModified) {
+    this.lastModified = lastModified;
+  }
+
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  public void setChunkSize(int chunkSize) {
+    this.chunkSize = chunkSize;
+  }
+
+  public TreeSet<Integer> getAcknowledgedParts() {
+    return acknowledgedParts;
+  }
+
+  public void setAcknowledgedParts(TreeSet<Integer> acknowledgedParts) {
+    this.acknowledgedParts = acknowledgedParts;
+  }
+
+  @Override
+  public String toString() {
+    return "UploadCheckpoint{"
+            + "uploadId='" + uploadId + '\''
+            + ", projectId='" + projectId + '\''
+            + ", file='" + file + '\''
+            + ", fileSize=" + fileSize
+            + ", lastModified=" + lastModified
+            + ", chunkSize=" + chunkSize
+            + ", acknowledgedParts=" + acknowledgedParts
+            + '}';
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    UploadCheckpoint that = (UploadCheckpoint) o;
+    return fileSize == that.fileSize
+            && lastModified == that.lastModified
+            && chunkSize == that.chunkSize
+            && Objects.equals(uploadId, that.uploadId)
+            && Objects.equals(projectId, that.projectId)
+            && Objects.equals(file, that.file)
+            && Objects.equals(acknowledgedParts, that.acknowledgedParts);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(uploadId, projectId, file, fileSize, lastModified, chunkSize,
+            acknowledgedParts);
+  }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.ragedunicorn.tools.maven.WagoClient;
+import com.ragedunicorn.tools.maven.log.WagoReleaseLogger;
+import com.ragedunicorn.tools.maven.model.ReleaseManifest;
+import com.ragedunicorn.tools.maven.model.ReleaseRequest;
+import com.ragedunicorn.tools.maven.model.ReleaseResult;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Uploads the releases of a manifest concurrently. The release services of the factory provide
+ * the transport and the upload permits, so a batch shares the connections and the upload limit
+ * of the session. Files that are released to several projects are mapped into memory once.
+ */
+public class BatchReleaseService {
+  private static final Gson GSON = new Gson();
+
+  private final WagoClient wagoClient;
+  private final WagoReleaseLogger logger;
+  private final Function<WagoClient, ReleaseService> releaseServiceFactory;
+
+  // maximum amount of concurrent uploads
+  private int parallelism = 4;
+  // whether releases that did not start yet are cancelled after the first failure
+  private boolean failFast;
+
+  /**
+   * Create a new batch release service.
+   *
+   * @param wagoClient            Client holding the token and base uri used for all projects
+   * @param logger                The logger to report results to
+   * @param releaseServiceFactory Creates a configured release service for a single project
+   */
+  public BatchReleaseService(WagoClient wagoClient, WagoReleaseLogger logger,
+                             Function<WagoClient, ReleaseService> releaseServiceFactory) {
+    this.wagoClient = wagoClient;
+    this.logger = logger;
+    this.releaseServiceFactory = releaseServiceFactory;
+  }
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  public void setParallelism(int parallelism) {
+    this.parallelism = parallelism;
+  }
+
+  public boolean isFailFast() {
+    return failFast;
+  }
+
+  public void setFailFast(boolean failFast) {
+    this.failFast = failFast;
+  }
+
+  /**
+   * Read a release manifest. Relative file paths are resolved against the directory of the
+   * manifest.
+   *
+   * @param manifestFile The manifest in json format
+   * @return All releases of the manifest
+   * @throws MojoExecutionException If the manifest cannot be read
+   */
+  public static List<ReleaseRequest> readManifest(Path manifestFile)
+          throws MojoExecutionException {
+    final ReleaseManifest manifest;
+
+    try (Reader reader = Files.newBufferedReader(manifestFile, StandardCharsets.UTF_8)) {
+      manifest = GSON.fromJson(reader, ReleaseManifest.class);
+    } catch (IOException | JsonParseException e) {
+      throw new MojoExecutionException("Failed to read release manifest " + manifestFile, e);
+    }
+
+    if (manifest == null || manifest.getReleases() == null || manifest.getReleases().isEmpty()) {
+      throw new MojoExecutionException("Release manifest " + manifestFile
+              + " does not contain any releases");
+    }
+
+    final Path baseDirectory = manifestFile.toAbsolutePath().getParent();
+
+    for (ReleaseRequest request : manifest.getReleases()) {
+      if (request.getFile() != null) {
+        request.setFile(baseDirectory.resolve(request.getFile()).normalize().toString());
+      }
+      if (request.getChangelogFile() != null) {
+        request.setChangelogFile(
+                baseDirectory.resolve(request.getChangelogFile()).normalize().toString());
+      }
+    }
+
+    return manifest.getReleases();
+  }
+
+  /**
+   * Upload all releases. A failed release does not affect the other releases unless failFast is
+   * set.
+   *
+   * @param requests The releases to upload
+   * @return One result per release in the order of the requests
+   * @throws MojoExecutionException If a shared file cannot be read
+   */
+  public List<ReleaseResult> release(List<ReleaseRequest> requests)
+          throws MojoExecutionException {
+    if (requests.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    final Map<Path, ByteBuffer> sharedContents = mapSharedFiles(requests);
+    final int threads = Math.max(1, Math.min(parallelism, requests.size()));
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    final AtomicBoolean failed = new AtomicBoolean();
+    final List<Future<ReleaseResult>> futures = new ArrayList<>(requests.size());
+    final List<ReleaseResult> results = new ArrayList<>(requests.size());
+
+    try {
+      for (ReleaseRequest request : requests) {
+        futures.add(executor.submit(() -> release(request, sharedContents, failed)));
+      }
+
+      for (Future<ReleaseResult> future : futures) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MojoExecutionException("Interrupted while waiting for releases", e);
+    } catch (ExecutionException e) {
+      throw new MojoExecutionException("Unexpected failure of a release", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+
+    return results;
+  }
+
+  private ReleaseResult release(ReleaseRequest request, Map<Path, ByteBuffer> sharedContents,
+                                AtomicBoolean failed) {
+    final long start = System.nanoTime();
+
+    if (failFast && failed.get()) {
+      return new ReleaseResult(request.getProjectId(), request.getFile(),
+              ReleaseResult.Status.CANCELLED, "Cancelled after a previous release failed", 0);
+    }
+
+    // the factory provides the shared transport and upload permits of the session
+    final ReleaseService releaseService =
+            releaseServiceFactory.apply(wagoClient.forProject(request.getProjectId()));
+
+    try {
+      final ByteBuffer content = sharedContents.get(Paths.get(request.getFile()));
+      final boolean uploaded = content == null
+              ? releaseService.createReleaseOperation(request.getMetadata(), request.getFile())
+              : releaseService.createReleaseOperation(request.getMetadata(), request.getFile(),
+                      content);
+
+      return new ReleaseResult(request.getProjectId(), request.getFile(),
+              uploaded ? ReleaseResult.Status.UPLOADED : ReleaseResult.Status.SKIPPED, null,
+              elapsedMillis(start));
+    } catch (MojoExecutionException | RuntimeException e) {
+      failed.set(true);
+      logger.error("Release of " + request.getFile() + " to project " + request.getProjectId()
+              + " failed", e);
+
+      return new ReleaseResult(request.getProjectId(), request.getFile(),
+              ReleaseResult.Status.FAILED, e.getMessage(), elapsedMillis(start));
+    }
+  }
+
+  /**
+   * Map every file that is released to more than one project into memory.
+   *
+   * @param requests All releases
+   * @return The mapped content per file
+   * @throws MojoExecutionException If a file cannot be mapped
+   */
+  private Map<Path, ByteBuffer> mapSharedFiles(List<ReleaseRequest> requests)
+          throws MojoExecutionException {
+    final Map<Path, Integer> usages = new HashMap<>();
+
+    for (ReleaseRequest request : requests) {
+      usages.merge(Paths.get(request.getFile()), 1, Integer::sum);
+    }
+
+    final Map<Path, ByteBuffer> contents = new HashMap<>();
+
+    for (Map.Entry<Path, Integer> usage : usages.entrySet()) {
+      if (usage.getValue() < 2) {
+        continue;
+      }
+
+      try (FileChannel channel = FileChannel.open(usage.getKey(), StandardOpenOption.READ)) {
+        if (channel.size() <= Integer.MAX_VALUE) {
+          // the mapping stays valid after the channel is closed
+          contents.put(usage.getKey(),
+                  channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+      } catch (IOException e) {
+        throw new MojoExecutionException("Failed to read " + usage.getKey(), e);
+      }
+    }
+
+    return contents;
+  }
+
+  private static long elapsedMillis(long start) {
+    return (System.nanoTime() - start) / 1_000_000;
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.service;
+
+import com.ragedunicorn.tools.maven.model.Metadata;
+import java.nio.file.Path;
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * The wire protocol of a chunked upload. {@link ChunkedUploadService} takes care of splitting the
+ * archive and checkpointing, implementations only have to transfer the single steps.
+ */
+public interface ChunkedUploadProtocol {
+  /**
+   * Start a new upload session.
+   *
+   * @param metadata  All metadata related to the upload
+   * @param totalSize The size of the archive in bytes
+   * @param chunkSize The size of a single part in bytes
+   * @return An id identifying the upload session
+   * @throws MojoExecutionException If the session could not be started
+   */
+  String startUpload(Metadata metadata, long totalSize, int chunkSize)
+          throws MojoExecutionException;
+
+  /**
+   * Upload a single part. The part is acknowledged once this method returns.
+   *
+   * @param uploadId  The id of the upload session
+   * @param partIndex The zero based index of the part
+   * @param file      The archive the part belongs to
+   * @param offset    The position of the first byte of the part
+   * @param length    The length of the part in bytes
+   * @param totalSize The size of the archive in bytes
+   * @throws MojoExecutionException If the part was not acknowledged
+   */
+  void uploadPart(String uploadId, int partIndex, Path file, long offset, long length,
+                  long totalSize) throws MojoExecutionException;
+
+  /**
+   * Complete an upload after all parts were acknowledged.
+   *
+   * @param uploadId The id of the upload session
+   * @param metadata All metadata related to the upload
+   * @throws MojoExecutionException If the upload could not be completed
+   */
+  void completeUpload(String uploadId, Metadata metadata) throws MojoExecutionException;
+}
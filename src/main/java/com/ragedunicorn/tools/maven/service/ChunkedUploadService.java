@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.service;
+
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.ragedunicorn.tools.maven.http.UploadProgress;
+import com.ragedunicorn.tools.maven.log.WagoReleaseLogger;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import com.ragedunicorn.tools.maven.model.UploadCheckpoint;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Uploads an archive in fixed size parts. Every acknowledged part is recorded in a checkpoint
+ * file so a failed upload can be resumed with the first part that was not acknowledged yet.
+ */
+public class ChunkedUploadService {
+  private static final int STATUS_NOT_FOUND = 404;
+  private static final int STATUS_GONE = 410;
+  // hex characters of the checkpoint key hash used in the name of a checkpoint file
+  private static final int KEY_HASH_LENGTH = 16;
+
+  private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+  private final ChunkedUploadProtocol protocol;
+  private final WagoReleaseLogger logger;
+  private final Path checkpointDirectory;
+  private final int chunkSize;
+
+  /**
+   * Create a new chunked upload service.
+   *
+   * @param protocol            The protocol used for transferring the parts
+   * @param logger              The logger to report to
+   * @param checkpointDirectory The directory to store checkpoint files in
+   * @param chunkSize           The size of a single part in bytes
+   */
+  public ChunkedUploadService(ChunkedUploadProtocol protocol, WagoReleaseLogger logger,
+                              Path checkpointDirectory, int chunkSize) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("Chunk size must be positive but was " + chunkSize);
+    }
+
+    this.protocol = protocol;
+    this.logger = logger;
+    this.checkpointDirectory = checkpointDirectory;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Upload a file in parts, resuming a previously failed upload if a matching checkpoint exists.
+   * A resumed upload that is no longer known to the Wago.io Api is started again.
+   *
+   * @param projectId The targeted project
+   * @param metadata  All metadata related to the upload
+   * @param file      The file to upload
+   * @param progress  Progress tracker for the upload
+   * @throws MojoExecutionException If any part or the completion of the upload failed
+   */
+  public void upload(String projectId, Metadata metadata, Path file, UploadProgress progress)
+          throws MojoExecutionException {
+    final Path checkpointFile = getCheckpointFile(projectId, metadata, file);
+    final long totalSize;
+    final long lastModified;
+
+    try {
+      totalSize = Files.size(file);
+      lastModified = Files.getLastModifiedTime(file).toMillis();
+    } catch (IOException e) {
+      throw new MojoExecutionException("Failed to read file " + file, e);
+    }
+
+    final UploadCheckpoint previous = readCheckpoint(checkpointFile);
+
+    if (previous != null && isResumable(previous, projectId, file, totalSize, lastModified)) {
+      if (logger.isInfoEnabled()) {
+        logger.info("Resuming upload " + previous.getUploadId() + " with "
+                + previous.getAcknowledgedParts().size() + " acknowledged parts");
+      }
+
+      try {
+        transfer(checkpointFile, previous, metadata, file, totalSize, progress);
+        return;
+      } catch (WagoApiException e) {
+        if (e.getStatusCode() != STATUS_NOT_FOUND && e.getStatusCode() != STATUS_GONE) {
+          throw e;
+        }
+        logger.warn("Upload " + previous.getUploadId() + " is no longer known to Wago.io (status "
+                + e.getStatusCode() + ") - discarding checkpoint and starting a new upload");
+        deleteCheckpoint(checkpointFile);
+      }
+    }
+
+    final UploadCheckpoint checkpoint = new UploadCheckpoint();
+    checkpoint.setProjectId(projectId);
+    checkpoint.setFile(file.toAbsolutePath().toString());
+    checkpoint.setFileSize(totalSize);
+    checkpoint.setLastModified(lastModified);
+    checkpoint.setChunkSize(chunkSize);
+    checkpoint.setUploadId(protocol.startUpload(metadata, totalSize, chunkSize));
+    writeCheckpoint(checkpointFile, checkpoint);
+
+    transfer(checkpointFile, checkpoint, metadata, file, totalSize, progress);
+  }
+
+  /**
+   * Upload all parts that were not acknowledged yet and complete the upload.
+   *
+   * @param checkpointFile The checkpoint file of the upload
+   * @param checkpoint     The checkpoint of the upload
+   * @param metadata       All metadata related to the upload
+   * @param file           The file to upload
+   * @param totalSize      The size of the file
+   * @param progress       Progress tracker for the upload
+   * @throws MojoExecutionException If any part or the completion of the upload failed
+   */
+  private void transfer(Path checkpointFile, UploadCheckpoint checkpoint, Metadata metadata,
+                        Path file, long totalSize, UploadProgress progress)
+          throws MojoExecutionException {
+    final int partCount = (int) ((totalSize + chunkSize - 1) / chunkSize);
+    long resumedBytes = 0;
+
+    for (int partIndex : checkpoint.getAcknowledgedParts()) {
+      resumedBytes += partLength(partIndex, totalSize);
+    }
+    progress.start(resumedBytes);
+
+    for (int partIndex = 0; partIndex < partCount; partIndex++) {
+      if (checkpoint.getAcknowledgedParts().contains(partIndex)) {
+        continue;
+      }
+
+      final long length = partLength(partIndex, totalSize);
+      final int partNumber = partIndex + 1;
+      logger.debug(() -> "Uploading part " + partNumber + "/" + partCount);
+      protocol.uploadPart(checkpoint.getUploadId(), partIndex, file, (long) partIndex * chunkSize,
+              length, totalSize);
+      checkpoint.getAcknowledgedParts().add(partIndex);
+      writeCheckpoint(checkpointFile, checkpoint);
+      progress.update(length);
+    }
+
+    protocol.completeUpload(checkpoint.getUploadId(), metadata);
+    progress.finish();
+    deleteCheckpoint(checkpointFile);
+  }
+
+  private long partLength(int partIndex, long totalSize) {
+    return Math.max(0, Math.min(chunkSize, totalSize - (long) partIndex * chunkSize));
+  }
+
+  /**
+   * Location of the checkpoint file of an upload. The name contains a hash of the file and the
+   * version so parallel uploads of several files to the same project do not share a checkpoint.
+   *
+   * @param projectId The targeted project
+   * @param metadata  All metadata related to the upload
+   * @param file      The file to upload
+   * @return The path to the checkpoint file
+   */
+  public Path getCheckpointFile(String projectId, Metadata metadata, Path file) {
+    // NUL cannot be part of a path so the key is unambiguous
+    final String key = file.toAbsolutePath().normalize() + "\0" + metadata.getLabel();
+    final String hash = Hashing.sha256().hashString(key, StandardCharsets.UTF_8).toString();
+
+    return checkpointDirectory.resolve("wago-release-" + projectId + "-"
+            + hash.substring(0, KEY_HASH_LENGTH) + ".checkpoint.json");
+  }
+
+  private boolean isResumable(UploadCheckpoint checkpoint, String projectId, Path file,
+                              long totalSize, long lastModified) {
+    return checkpoint.getUploadId() != null
+            && projectId.equals(checkpoint.getProjectId())
+            && file.toAbsolutePath().toString().equals(checkpoint.getFile())
+            && checkpoint.getFileSize() == totalSize
+            && checkpoint.getLastModified() == lastModified
+            && checkpoint.getChunkSize() == chunkSize;
+  }
+
+  private UploadCheckpoint readCheckpoint(Path checkpointFile) {
+    if (!Files.isRegularFile(checkpointFile)) {
+      return null;
+    }
+
+    try (Reader reader = Files.newBufferedReader(checkpointFile, StandardCharsets.UTF_8)) {
+      return gson.fromJson(reader, UploadCheckpoint.class);
+    } catch (IOException | JsonParseException e) {
+      logger.warn("Ignoring unreadable checkpoint " + checkpointFile, e);
+      return null;
+    }
+  }
+
+  private void writeCheckpoint(Path checkpointFile, UploadCheckpoint checkpoint)
+          throws MojoExecutionException {
+    try {
+      Files.createDirectories(checkpointDirectory);
+      // write to a temporary file first to never leave a partially written checkpoint behind
+      final Path temporaryFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+
+      try (Writer writer = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8)) {
+        gson.toJson(checkpoint, writer);
+      }
+      Files.move(temporaryFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new MojoExecutionException("Failed to write checkpoint " + checkpointFile, e);
+    }
+  }
+
+  private void deleteCheckpoint(Path checkpointFile) {
+    try {
+      Files.deleteIfExists(checkpointFile);
+    } catch (IOException e) {
+      logger.warn("Failed to delete checkpoint " + checkpointFile, e);
+    }
+  }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.service;
+
+import com.google.common.io.CountingOutputStream;
+import com.ragedunicorn.tools.maven.http.RequestBody;
+import com.ragedunicorn.tools.maven.http.TransportRequest;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Overall time limit of a release. A deadline is shared by all attempts of all requests of a
+ * release and remembers the phase that was running so an expired deadline can be reported
+ * precisely. Requests are aborted once the deadline expired. The timings of every request are
+ * recorded for the report of the release.
+ */
+public class Deadline {
+  public static final String CONNECTION_SETUP = "connection setup";
+  public static final String UPLOAD = "upload";
+  public static final String RESPONSE_READ = "response read";
+  public static final String RETRY_DELAY = "retry delay";
+  public static final String UPLOAD_QUEUE = "waiting for an upload slot";
+
+  private static final String NON_IDEMPOTENT_METHOD = "POST";
+  // a timeout shortened to the remaining time fires at most this early before the deadline
+  private static final long TIMEOUT_TOLERANCE_MILLIS = 50;
+
+  private static final ScheduledExecutorService SCHEDULER =
+          Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "wago-release-deadline");
+            thread.setDaemon(true);
+
+            return thread;
+          });
+
+  private final long timeoutMillis;
+  private final long expiresAt;
+  private final ReleaseRecorder recorder = new ReleaseRecorder();
+  private volatile String phase = CONNECTION_SETUP;
+
+  /**
+   * Create a deadline that starts now.
+   *
+   * @param timeoutMillis The time limit in milliseconds. Values of 0 or below disable the limit
+   */
+  public Deadline(long timeoutMillis) {
+    this.timeoutMillis = timeoutMillis;
+    this.expiresAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeoutMillis));
+  }
+
+  /**
+   * A deadline that never expires.
+   *
+   * @return The created deadline
+   */
+  public static Deadline none() {
+    return new Deadline(0);
+  }
+
+  public long getTimeoutMillis() {
+    return timeoutMillis;
+  }
+
+  public ReleaseRecorder getRecorder() {
+    return recorder;
+  }
+
+  public String getPhase() {
+    return phase;
+  }
+
+  /**
+   * Record the phase that is running now.
+   *
+   * @param phase The phase of the release
+   */
+  public void enter(String phase) {
+    this.phase = phase;
+  }
+
+  public boolean isLimited() {
+    return timeoutMillis > 0;
+  }
+
+  public boolean isExpired() {
+    return isLimited() && System.nanoTime() - expiresAt >= 0;
+  }
+
+  /**
+   * The time left until the deadline expires.
+   *
+   * @return The remaining time in milliseconds or {@link Long#MAX_VALUE} if not limited
+   */
+  public long remainingMillis() {
+    if (!isLimited()) {
+      return Long.MAX_VALUE;
+    }
+
+    return Math.max(0, TimeUnit.NANOSECONDS.toMillis(expiresAt - System.nanoTime()));
+  }
+
+  /**
+   * Fail if the deadline already expired.
+   *
+   * @throws DeadlineExceededException If the deadline expired
+   */
+  public void check() throws DeadlineExceededException {
+    if (isExpired()) {
+      throw exceeded(null);
+    }
+  }
+
+  /**
+   * Create the failure reported for an expired deadline.
+   *
+   * @param cause The failure caused by the expired deadline or null
+   * @return The created exception naming the current phase
+   */
+  public DeadlineExceededException exceeded(Throwable cause) {
+    return new DeadlineExceededException(timeoutMillis, phase, cause);
+  }
+
+  /**
+   * Execute a transport request within the deadline. The time limit of the request is set to the
+   * time left and the request is aborted when the deadline expires.
+   *
+   * @param request The request to execute
+   * @param call    Sends the request through a transport and handles the response
+   * @param <T>     The result of the request
+   * @return The result of the request
+   * @throws IOException            If the request failed before the deadline expired. A
+   *                                {@link ResponseLostException} if a post failed after its
+   *                                body was sent completely
+   * @throws MojoExecutionException If the deadline expired or the response was a failure
+   */
+  public <T> T execute(TransportRequest request, RetryPolicy.Request<T> call)
+          throws IOException, MojoExecutionException {
+    check();
+    final long start = System.nanoTime();
+    enter(CONNECTION_SETUP);
+
+    if (isLimited()) {
+      request.setTimeoutMillis(Math.max(1, remainingMillis()));
+    }
+    if (request.getBody() != null && !(request.getBody() instanceof PhaseBody)) {
+      request.setBody(new PhaseBody(request.getBody()));
+    }
+    final PhaseBody body = request.getBody() instanceof PhaseBody
+            ? (PhaseBody) request.getBody() : null;
+    if (body != null) {
+      body.reset();
+    }
+
+    final long remainingNanos = expiresAt - System.nanoTime();
+    final ScheduledFuture<?> abort = isLimited()
+            ? SCHEDULER.schedule(request::abort, remainingNanos, TimeUnit.NANOSECONDS)
+            : null;
+
+    try {
+      return call.execute();
+    } catch (IOException e) {
+      // a timeout shortened to the remaining time may fire just before the deadline expires.
+      // Any other timeout is an ordinary network failure that may be retried
+      if (isExpired() || request.isAborted()
+              || e instanceof InterruptedIOException && isLimited()
+              && remainingMillis() <= TIMEOUT_TOLERANCE_MILLIS) {
+        throw exceeded(e);
+      }
+      // a post that reached the server may have created a release - sending it again could
+      // create a duplicate
+      if (body != null && body.uploadEnd != 0
+              && NON_IDEMPOTENT_METHOD.equals(request.getMethod())) {
+        throw new ResponseLostException(request.getMethod(), e);
+      }
+
+      throw e;
+    } finally {
+      if (abort != null) {
+        abort.cancel(false);
+      }
+      recorder.recordThrottle(request.getThrottleNanos());
+      if (body == null) {
+        recorder.recordAttempt(start, 0, 0, System.nanoTime(), 0);
+      } else {
+        recorder.recordAttempt(start, body.uploadStart, body.uploadEnd, System.nanoTime(),
+                body.bytesSent);
+      }
+    }
+  }
+
+  /**
+   * Tracks whether the request body is being sent or was sent completely and how long sending it
+   * took.
+   */
+  private final class PhaseBody implements RequestBody {
+    private final RequestBody body;
+    private volatile long uploadStart;
+    private volatile long uploadEnd;
+    private volatile long bytesSent;
+
+    private PhaseBody(RequestBody body) {
+      this.body = body;
+    }
+
+    private void reset() {
+      uploadStart = 0;
+      uploadEnd = 0;
+      bytesSent = 0;
+    }
+
+    @Override
+    public String getContentType() {
+      return body.getContentType();
+    }
+
+    @Override
+    public long getContentLength() {
+      return body.getContentLength();
+    }
+
+    @Override
+    public void writeTo(OutputStream outStream) throws IOException {
+      final CountingOutputStream countingStream = new CountingOutputStream(outStream);
+      enter(UPLOAD);
+      uploadStart = System.nanoTime();
+
+      try {
+        body.writeTo(countingStream);
+        uploadEnd = System.nanoTime();
+      } finally {
+        bytesSent += countingStream.getCount();
+      }
+      enter(RESPONSE_READ);
+    }
+  }
+}
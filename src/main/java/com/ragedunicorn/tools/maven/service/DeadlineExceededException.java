@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.service;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * A release that did not finish within its deadline.
+ */
+public class DeadlineExceededException extends MojoExecutionException {
+  // the phase of the release that ran out of time
+  private final String phase;
+
+  /**
+   * Create a new exception.
+   *
+   * @param timeoutMillis The deadline of the release in milliseconds
+   * @param phase         The phase that ran out of time
+   * @param cause         The failure caused by the expired deadline or null
+   */
+  public DeadlineExceededException(long timeoutMillis, String phase, Throwable cause) {
+    super("Release did not finish within " + timeoutMillis + " ms - ran out of time during "
+            + phase, cause);
+    this.phase = phase;
+  }
+
+  public String getPhase() {
+    return phase;
+  }
+}
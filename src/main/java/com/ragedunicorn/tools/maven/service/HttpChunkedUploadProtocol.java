@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.service;
+
+import com.google.common.io.ByteStreams;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.ragedunicorn.tools.maven.WagoClient;
+import com.ragedunicorn.tools.maven.http.FileRegionBody;
+import com.ragedunicorn.tools.maven.http.HttpTransport;
+import com.ragedunicorn.tools.maven.http.PartBody;
+import com.ragedunicorn.tools.maven.http.TextPart;
+import com.ragedunicorn.tools.maven.http.TransportRequest;
+import com.ragedunicorn.tools.maven.http.TransportResponse;
+import com.ragedunicorn.tools.maven.log.DefaultLog;
+import com.ragedunicorn.tools.maven.log.WagoReleaseLogger;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Chunked upload protocol on top of plain http requests sent through a {@link HttpTransport}.
+ *
+ * <ul>
+ *   <li>{@code POST <endpoint>/chunks} starts a session and answers with an {@code upload_id}</li>
+ *   <li>{@code PUT <endpoint>/chunks/<uploadId>/<partIndex>} sends a single part together with a
+ *   {@code Content-Range} header</li>
+ *   <li>{@code POST <endpoint>/chunks/<uploadId>/complete} finishes the upload with the release
+ *   metadata</li>
+ * </ul>
+ */
+public class HttpChunkedUploadProtocol implements ChunkedUploadProtocol {
+  private static final String CHUNKS_PATH = "/chunks";
+  private static final int STATUS_OK = 200;
+  private static final int STATUS_MULTIPLE_CHOICES = 300;
+  private static final String APPLICATION_JSON = "application/json; charset=UTF-8";
+  private static final Gson GSON = new Gson();
+
+  private final WagoClient wagoClient;
+  private final HttpTransport transport;
+  private final RetryPolicy retryPolicy;
+  private final WagoReleaseLogger logger;
+  // deadline of the release the upload belongs to
+  private Deadline deadline = Deadline.none();
+  // parses the bodies of failed requests
+  private WagoApiErrorParser errorParser = new WagoApiErrorParser();
+
+  public HttpChunkedUploadProtocol(WagoClient wagoClient, HttpTransport transport) {
+    this(wagoClient, transport, RetryPolicy.noRetry(), new DefaultLog());
+  }
+
+  /**
+   * Create a new protocol that retries requests which failed with a transient error. Retrying a
+   * part sends the same byte range again.
+   *
+   * @param wagoClient  The Wago client of the targeted project
+   * @param transport   The transport to send the requests with
+   * @param retryPolicy The retry policy for single requests
+   * @param logger      The logger to report retries to
+   */
+  public HttpChunkedUploadProtocol(WagoClient wagoClient, HttpTransport transport,
+                                   RetryPolicy retryPolicy, WagoReleaseLogger logger) {
+    this.wagoClient = wagoClient;
+    this.transport = transport;
+    this.retryPolicy = retryPolicy;
+    this.logger = logger;
+  }
+
+  public Deadline getDeadline() {
+    return deadline;
+  }
+
+  public void setDeadline(Deadline deadline) {
+    this.deadline = deadline;
+  }
+
+  public WagoApiErrorParser getErrorParser() {
+    return errorParser;
+  }
+
+  public void setErrorParser(WagoApiErrorParser errorParser) {
+    this.errorParser = errorParser;
+  }
+
+  @Override
+  public String startUpload(Metadata metadata, long totalSize, int chunkSize)
+          throws MojoExecutionException {
+    final JsonObject request = new JsonObject();
+    request.addProperty("label", metadata.getLabel());
+    request.addProperty("size", totalSize);
+    request.addProperty("chunk_size", chunkSize);
+
+    final String response = execute("POST", resolve(CHUNKS_PATH),
+            new PartBody(new TextPart("session", request.toString()), APPLICATION_JSON),
+            "start chunked upload");
+
+    try {
+      final JsonObject uploadSession = GSON.fromJson(response, JsonObject.class);
+
+      if (uploadSession == null || !uploadSession.has("upload_id")) {
+        throw new MojoExecutionException("Missing upload_id in response: " + response);
+      }
+
+      return uploadSession.get("upload_id").getAsString();
+    } catch (JsonParseException e) {
+      throw new MojoExecutionException("Failed to parse chunked upload session: " + response, e);
+    }
+  }
+
+  @Override
+  public void uploadPart(String uploadId, int partIndex, Path file, long offset, long length,
+                         long totalSize) throws MojoExecutionException {
+    final TransportRequest request = new TransportRequest("PUT",
+            resolve(CHUNKS_PATH + "/" + uploadId + "/" + partIndex),
+            new FileRegionBody(file, offset, length));
+    request.setHeader("Content-Range",
+            "bytes " + offset + "-" + (offset + length - 1) + "/" + totalSize);
+
+    execute(request, "upload part " + partIndex);
+  }
+
+  @Override
+  public void completeUpload(String uploadId, Metadata metadata) throws MojoExecutionException {
+    execute("POST", resolve(CHUNKS_PATH + "/" + uploadId + "/complete"),
+            new PartBody(ReleaseService.prepareMetadata(metadata), APPLICATION_JSON),
+            "complete chunked upload");
+  }
+
+  private URI resolve(String path) throws MojoExecutionException {
+    final URI endpoint = wagoClient.prepareEndpointUri(path);
+
+    return URI.create(endpoint.toString() + path);
+  }
+
+  private String execute(String method, URI uri, PartBody body, String operation)
+          throws MojoExecutionException {
+    return execute(new TransportRequest(method, uri, body), operation);
+  }
+
+  /**
+   * Send a request through the transport. Every attempt sends a fresh copy of the request because
+   * an aborted request cannot be sent again.
+   *
+   * @param request   The request to send
+   * @param operation Description of the request for log and error messages
+   * @return The body of the response
+   * @throws MojoExecutionException If the request failed
+   */
+  private String execute(TransportRequest request, String operation)
+          throws MojoExecutionException {
+    return retryPolicy.execute(operation, logger, deadline, () -> {
+      final TransportRequest attempt = request.copy();
+
+      return deadline.execute(attempt, () -> {
+        try (TransportResponse response = transport.execute(attempt)) {
+          final int statusCode = response.getStatusCode();
+
+          if (statusCode < STATUS_OK || statusCode >= STATUS_MULTIPLE_CHOICES) {
+            final Object reason = errorParser.parseContent(response.getBody());
+
+            throw new WagoApiException("Failed to " + operation + " - status: " + statusCode
+                    + " reason: " + reason, statusCode,
+                    RetryPolicy.parseRetryAfter(response.getHeader("Retry-After")));
+          }
+
+          return new String(ByteStreams.toByteArray(ByteStreams.limit(response.getBody(),
+                  errorParser.getMaxResponseSize())), StandardCharsets.UTF_8);
+        }
+      });
+    });
+  }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.service;
+
+import com.ragedunicorn.tools.maven.WagoClient;
+import com.ragedunicorn.tools.maven.archive.ArchiveValidator;
+import com.ragedunicorn.tools.maven.log.WagoReleaseLogger;
+import com.ragedunicorn.tools.maven.model.ReleaseRequest;
+import com.ragedunicorn.tools.maven.model.ReleaseResult;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Uploads the releases of the modules of a reactor while the reactor is still building. A release
+ * starts as soon as it is submitted and a slot of the pipeline is free so uploads of finished
+ * modules overlap with the build of the remaining modules.
+ */
+public class ReleasePipeline implements Closeable {
+  private static final AtomicInteger PIPELINE_COUNT = new AtomicInteger();
+
+  private final WagoClient wagoClient;
+  private final WagoReleaseLogger logger;
+  private final Function<WagoClient, ReleaseService> releaseServiceFactory;
+  private final ExecutorService executor;
+  // releases in the order they were submitted
+  private final List<Future<ModuleRelease>> releases = new ArrayList<>();
+  private final long start = System.nanoTime();
+
+  // validates archives before they are uploaded - null skips the validation
+  private ArchiveValidator archiveValidator;
+
+  /**
+   * Create a new release pipeline.
+   *
+   * @param wagoClient            Client holding the token and base uri used for all projects
+   * @param logger                The logger to report failures to
+   * @param releaseServiceFactory Creates a configured release service for a single project
+   * @param parallelism           The maximum amount of concurrent releases
+   */
+  public ReleasePipeline(WagoClient wagoClient, WagoReleaseLogger logger,
+                         Function<WagoClient, ReleaseService> releaseServiceFactory,
+                         int parallelism) {
+    this.wagoClient = wagoClient;
+    this.logger = logger;
+    this.releaseServiceFactory = releaseServiceFactory;
+    this.executor = Executors.newFixedThreadPool(Math.max(1, parallelism), createThreadFactory());
+  }
+
+  public ArchiveValidator getArchiveValidator() {
+    return archiveValidator;
+  }
+
+  public void setArchiveValidator(ArchiveValidator archiveValidator) {
+    this.archiveValidator = archiveValidator;
+  }
+
+  /**
+   * Start the release of a module. The release waits for a free slot if the pipeline is busy.
+   *
+   * @param module  The name of the module
+   * @param request The release of the module
+   */
+  public synchronized void submit(String module, ReleaseRequest request) {
+    final long submitted = System.nanoTime();
+
+    releases.add(executor.submit(() -> release(module, request, submitted)));
+  }
+
+  /**
+   * Record a release that is not going to be uploaded, for example because its module failed to
+   * build.
+   *
+   * @param module  The name of the module
+   * @param request The release of the module
+   * @param reason  Why the release is not uploaded
+   */
+  public synchronized void cancel(String module, ReleaseRequest request, String reason) {
+    releases.add(CompletableFuture.completedFuture(new ModuleRelease(module,
+            new ReleaseResult(request.getProjectId(), request.getFile(),
+                    ReleaseResult.Status.CANCELLED, reason, 0), 0)));
+  }
+
+  /**
+   * Wait for all releases submitted so far.
+   *
+   * @return The releases in the order they were submitted
+   * @throws MojoExecutionException If interrupted while waiting
+   */
+  public List<ModuleRelease> await() throws MojoExecutionException {
+    final List<Future<ModuleRelease>> submittedReleases;
+
+    synchronized (this) {
+      submittedReleases = new ArrayList<>(releases);
+    }
+
+    final List<ModuleRelease> results = new ArrayList<>(submittedReleases.size());
+
+    try {
+      for (Future<ModuleRelease> release : submittedReleases) {
+        results.add(release.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MojoExecutionException("Interrupted while waiting for releases", e);
+    } catch (ExecutionException e) {
+      throw new MojoExecutionException("Unexpected failure of a release", e.getCause());
+    }
+
+    return results;
+  }
+
+  /**
+   * The time since the pipeline was created.
+   *
+   * @return The elapsed time in milliseconds
+   */
+  public long getElapsedMillis() {
+    return elapsedMillis(start);
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  private ModuleRelease release(String module, ReleaseRequest request, long submitted) {
+    final long started = System.nanoTime();
+    final long waitMillis = (started - submitted) / 1_000_000;
+
+    try {
+      if (request.getFile() == null) {
+        throw new MojoExecutionException("Missing release file");
+      }
+
+      final Path file = Paths.get(request.getFile());
+
+      if (!Files.isRegularFile(file)) {
+        throw new MojoExecutionException("Release file " + file + " does not exist");
+      }
+
+      checkArchive(file);
+
+      final boolean uploaded =
+              releaseServiceFactory.apply(wagoClient.forProject(request.getProjectId()))
+                      .createReleaseOperation(request.getMetadata(), request.getFile());
+
+      return new ModuleRelease(module, new ReleaseResult(request.getProjectId(), request.getFile(),
+              uploaded ? ReleaseResult.Status.UPLOADED : ReleaseResult.Status.SKIPPED, null,
+              elapsedMillis(started)), waitMillis);
+    } catch (MojoExecutionException | RuntimeException e) {
+      logger.error("Release of module " + module + " to project " + request.getProjectId()
+              + " failed", e);
+
+      return new ModuleRelease(module, new ReleaseResult(request.getProjectId(), request.getFile(),
+              ReleaseResult.Status.FAILED, e.getMessage(), elapsedMillis(started)), waitMillis);
+    }
+  }
+
+  private void checkArchive(Path file) throws MojoExecutionException {
+    if (archiveValidator == null) {
+      return;
+    }
+
+    final List<String> problems;
+
+    try {
+      problems = archiveValidator.validate(file);
+    } catch (IOException e) {
+      throw new MojoExecutionException("Failed to validate archive " + file, e);
+    }
+
+    if (!problems.isEmpty()) {
+      throw new MojoExecutionException("Invalid archive " + file + ": "
+              + String.join(", ", problems));
+    }
+  }
+
+  private static ThreadFactory createThreadFactory() {
+    final int pipeline = PIPELINE_COUNT.incrementAndGet();
+    final AtomicInteger threads = new AtomicInteger();
+
+    return runnable -> {
+      final Thread thread = new Thread(runnable,
+              "wago-release-pipeline-" + pipeline + "-" + threads.incrementAndGet());
+      // does not keep the jvm alive if a build ends without waiting for the pipeline
+      thread.setDaemon(true);
+
+      return thread;
+    };
+  }
+
+  private static long elapsedMillis(long start) {
+    return (System.nanoTime() - start) / 1_000_000;
+  }
+
+  /**
+   * The outcome of the release of a single module.
+   */
+  public static final class ModuleRelease {
+    private final String module;
+    private final ReleaseResult result;
+    private final long waitMillis;
+
+    ModuleRelease(String module, ReleaseResult result, long waitMillis) {
+      this.module = module;
+      this.result = result;
+      this.waitMillis = waitMillis;
+    }
+
+    public String getModule() {
+      return module;
+    }
+
+    public ReleaseResult getResult() {
+      return result;
+    }
+
+    /**
+     * The time the release waited for a free slot of the pipeline.
+     *
+     * @return The waiting time in milliseconds
+     */
+    public long getWaitMillis() {
+      return waitMillis;
+    }
+
+    @Override
+    public String toString() {
+      return "ModuleRelease{"
+              + "module='" + module + '\''
+              + ", result=" + result
+              + ", waitMillis=" + waitMillis
+              + '}';
+    }
+  }
+}
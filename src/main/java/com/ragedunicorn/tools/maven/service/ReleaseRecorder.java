@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.service;
+
+import com.ragedunicorn.tools.maven.model.ReleaseMetrics;
+import com.ragedunicorn.tools.maven.model.ReleaseResult;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records where the time of a release went. A recorder belongs to the {@link Deadline} of a
+ * release and is shared by all attempts of all its requests.
+ */
+public class ReleaseRecorder {
+  private long queueNanos;
+  private long serializationNanos;
+  private long connectionSetupNanos;
+  private long uploadNanos;
+  private long throttleNanos;
+  private long serverResponseNanos;
+  private long retryDelayNanos;
+  private long bytesSent;
+  private int attempts;
+  private int retries;
+
+  public synchronized void recordQueue(long nanos) {
+    queueNanos += nanos;
+  }
+
+  public synchronized void recordSerialization(long nanos) {
+    serializationNanos += nanos;
+  }
+
+  public synchronized void recordConnectionSetup(long nanos) {
+    connectionSetupNanos += nanos;
+  }
+
+  /**
+   * Record the time an upload was held back by the bandwidth limit. The time is part of the upload
+   * time of the attempt.
+   *
+   * @param nanos The time waited for the bandwidth limiter
+   */
+  public synchronized void recordThrottle(long nanos) {
+    throttleNanos += nanos;
+  }
+
+  /**
+   * Record a single request attempt.
+   *
+   * @param start       Start of the attempt
+   * @param uploadStart Start of sending the request body or 0 if nothing was sent
+   * @param uploadEnd   End of sending the request body or 0 if the body was not sent completely
+   * @param end         End of the attempt including reading the response
+   * @param bytes       The amount of bytes of the request body that were sent
+   */
+  public synchronized void recordAttempt(long start, long uploadStart, long uploadEnd, long end,
+                                         long bytes) {
+    attempts++;
+    bytesSent += bytes;
+
+    if (uploadStart == 0) {
+      connectionSetupNanos += end - start;
+      return;
+    }
+
+    connectionSetupNanos += uploadStart - start;
+    if (uploadEnd == 0) {
+      uploadNanos += end - uploadStart;
+    } else {
+      uploadNanos += uploadEnd - uploadStart;
+      serverResponseNanos += end - uploadEnd;
+    }
+  }
+
+  public synchronized void recordRetry(long delayNanos) {
+    retries++;
+    retryDelayNanos += delayNanos;
+  }
+
+  public synchronized long getBytesSent() {
+    return bytesSent;
+  }
+
+  public synchronized int getAttempts() {
+    return attempts;
+  }
+
+  public synchronized int getRetries() {
+    return retries;
+  }
+
+  /**
+   * Create the metrics of the finished release.
+   *
+   * @param projectId     The targeted project
+   * @param source        The released file or directory
+   * @param status        The outcome of the release
+   * @param error         The reason of a failure or null
+   * @param durationNanos The time the whole release took
+   * @return The metrics of the release
+   */
+  public synchronized ReleaseMetrics toMetrics(String projectId, String source,
+                                               ReleaseResult.Status status, String error,
+                                               long durationNanos) {
+    final ReleaseMetrics metrics = new ReleaseMetrics();
+    metrics.setProjectId(projectId);
+    metrics.setSource(source);
+    metrics.setStatus(status);
+    metrics.setError(error);
+    metrics.setQueueMillis(TimeUnit.NANOSECONDS.toMillis(queueNanos));
+    metrics.setSerializationMillis(TimeUnit.NANOSECONDS.toMillis(serializationNanos));
+    metrics.setConnectionSetupMillis(TimeUnit.NANOSECONDS.toMillis(connectionSetupNanos));
+    metrics.setUploadMillis(TimeUnit.NANOSECONDS.toMillis(uploadNanos));
+    metrics.setThrottleMillis(TimeUnit.NANOSECONDS.toMillis(throttleNanos));
+    metrics.setServerResponseMillis(TimeUnit.NANOSECONDS.toMillis(serverResponseNanos));
+    metrics.setRetryDelayMillis(TimeUnit.NANOSECONDS.toMillis(retryDelayNanos));
+    metrics.setDurationMillis(TimeUnit.NANOSECONDS.toMillis(durationNanos));
+    metrics.setBytesSent(bytesSent);
+    metrics.setThroughput(uploadNanos > 0
+            ? (long) (bytesSent * (double) TimeUnit.SECONDS.toNanos(1) / uploadNanos) : 0);
+    metrics.setAttempts(attempts);
+    metrics.setRetries(retries);
+
+    return metrics;
+  }
+}
@@ -22,36 +22,225 @@
 
 package com.ragedunicorn.tools.maven.service;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.common.io.ByteStreams;
 import com.ragedunicorn.tools.maven.WagoClient;
+import com.ragedunicorn.tools.maven.archive.DirectoryArchive;
+import com.ragedunicorn.tools.maven.http.ByteBufferPart;
+import com.ragedunicorn.tools.maven.http.DirectoryArchivePart;
+import com.ragedunicorn.tools.maven.http.FilePart;
+import com.ragedunicorn.tools.maven.http.HttpTransport;
+import com.ragedunicorn.tools.maven.http.MetadataPart;
+import com.ragedunicorn.tools.maven.http.MultipartPart;
+import com.ragedunicorn.tools.maven.http.ProgressBody;
+import com.ragedunicorn.tools.maven.http.RequestBody;
+import com.ragedunicorn.tools.maven.http.StreamingMultipartBody;
+import com.ragedunicorn.tools.maven.http.TransportRequest;
+import com.ragedunicorn.tools.maven.http.TransportResponse;
+import com.ragedunicorn.tools.maven.http.UploadProgress;
 import com.ragedunicorn.tools.maven.log.DefaultLog;
+import com.ragedunicorn.tools.maven.log.WagoReleaseLogger;
 import com.ragedunicorn.tools.maven.model.Metadata;
-import com.ragedunicorn.tools.maven.model.WagoApiClientError;
-import java.io.File;
+import com.ragedunicorn.tools.maven.model.ReleaseMetrics;
+import com.ragedunicorn.tools.maven.model.ReleaseResult;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import org.apache.http.HttpEntity;
-import org.apache.http.HttpStatus;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.ContentType;
-import org.apache.http.entity.mime.MultipartEntityBuilder;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.util.EntityUtils;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import org.apache.maven.plugin.MojoExecutionException;
 
 public class ReleaseService {
   private static final String ENDPOINT = "/api/projects/:projectId/upload-file";
   private static final String SUCCESS_RESPONSE = "OK";
+  private static final String APPLICATION_OCTET_STREAM = "application/octet-stream";
+  private static final int STATUS_CREATED = 201;
+  // default amount of concurrent uploads of the mojos - uploads occupy a thread of the executor
+  private static final int MIN_EXECUTOR_THREADS = 4;
+  // bounded so a large manifest or reactor does not start one thread per release
+  private static final Executor DEFAULT_EXECUTOR = createDefaultExecutor();
 
-  private final DefaultLog logger = new DefaultLog();
+  private final WagoReleaseLogger logger;
 
   private final WagoClient wagoClient;
 
+  // interval in seconds between two upload progress reports
+  private int progressInterval = 5;
+  // whether the file is uploaded in resumable parts
+  private boolean chunkedUpload;
+  // size of a single part in bytes when uploading in parts
+  private int chunkSize = 8 * 1024 * 1024;
+  // directory where checkpoints of chunked uploads are stored
+  private Path checkpointDirectory = Paths.get("target");
+  // protocol used for chunked uploads - defaults to plain http requests against the Wago.io Api
+  private ChunkedUploadProtocol chunkedUploadProtocol;
+  // remembers already released files - null disables skipping of identical releases
+  private UploadCache uploadCache;
+  // whether to upload even if an identical release was already uploaded
+  private boolean forceUpload;
+  // transport shared between several releases - null creates a new transport per release
+  private HttpTransport transport;
+  // retries uploads that failed with a transient error
+  private RetryPolicy retryPolicy = new RetryPolicy();
+  // runs the preparation and upload of asynchronous releases
+  private Executor executor = DEFAULT_EXECUTOR;
+  // overall time limit of a release including all retries in milliseconds - 0 disables the limit
+  private long releaseTimeout;
+  // parses the bodies of failed requests
+  private WagoApiErrorParser errorParser = new WagoApiErrorParser();
+  // limits the amount of concurrent uploads of several services - null does not limit uploads
+  private Semaphore uploadPermits;
+  // receives the metrics of every finished release - null disables reporting
+  private Consumer<ReleaseMetrics> metricsListener;
+
   public ReleaseService(WagoClient wagoClient) {
+    this(wagoClient, new DefaultLog());
+  }
+
+  public ReleaseService(WagoClient wagoClient, WagoReleaseLogger logger) {
     this.wagoClient = wagoClient;
+    this.logger = logger;
+  }
+
+  public int getProgressInterval() {
+    return progressInterval;
+  }
+
+  public void setProgressInterval(int progressInterval) {
+    this.progressInterval = progressInterval;
+  }
+
+  public boolean isChunkedUpload() {
+    return chunkedUpload;
+  }
+
+  public void setChunkedUpload(boolean chunkedUpload) {
+    this.chunkedUpload = chunkedUpload;
+  }
+
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  public void setChunkSize(int chunkSize) {
+    this.chunkSize = chunkSize;
+  }
+
+  public Path getCheckpointDirectory() {
+    return checkpointDirectory;
+  }
+
+  public void setCheckpointDirectory(Path checkpointDirectory) {
+    this.checkpointDirectory = checkpointDirectory;
+  }
+
+  public UploadCache getUploadCache() {
+    return uploadCache;
+  }
+
+  public void setUploadCache(UploadCache uploadCache) {
+    this.uploadCache = uploadCache;
+  }
+
+  public boolean isForceUpload() {
+    return forceUpload;
+  }
+
+  public void setForceUpload(boolean forceUpload) {
+    this.forceUpload = forceUpload;
+  }
+
+  public HttpTransport getTransport() {
+    return transport;
+  }
+
+  /**
+   * Share a transport between several releases. All requests of single and chunked uploads are
+   * sent through it. A shared transport is not closed by the service.
+   *
+   * @param transport The shared transport or null to create a transport per release
+   */
+  public void setTransport(HttpTransport transport) {
+    this.transport = transport;
+  }
+
+  public RetryPolicy getRetryPolicy() {
+    return retryPolicy;
+  }
+
+  public void setRetryPolicy(RetryPolicy retryPolicy) {
+    this.retryPolicy = retryPolicy;
+  }
+
+  public Executor getExecutor() {
+    return executor;
+  }
+
+  public void setExecutor(Executor executor) {
+    this.executor = executor;
+  }
+
+  public long getReleaseTimeout() {
+    return releaseTimeout;
+  }
+
+  public void setReleaseTimeout(long releaseTimeout) {
+    this.releaseTimeout = releaseTimeout;
+  }
+
+  public WagoApiErrorParser getErrorParser() {
+    return errorParser;
+  }
+
+  public void setErrorParser(WagoApiErrorParser errorParser) {
+    this.errorParser = errorParser;
+  }
+
+  public Semaphore getUploadPermits() {
+    return uploadPermits;
+  }
+
+  /**
+   * Limit the amount of uploads running at the same time. A permit is held from the start of the
+   * upload until its last attempt finished. Waiting for a permit counts towards the release
+   * timeout.
+   *
+   * @param uploadPermits The permits shared by all services that are limited together
+   */
+  public void setUploadPermits(Semaphore uploadPermits) {
+    this.uploadPermits = uploadPermits;
+  }
+
+  public Consumer<ReleaseMetrics> getMetricsListener() {
+    return metricsListener;
+  }
+
+  /**
+   * Receive the metrics of every release once it finished. The listener is called on the thread
+   * that completed the release before the result of the release is available.
+   *
+   * @param metricsListener The listener of the release metrics
+   */
+  public void setMetricsListener(Consumer<ReleaseMetrics> metricsListener) {
+    this.metricsListener = metricsListener;
+  }
+
+  public ChunkedUploadProtocol getChunkedUploadProtocol() {
+    return chunkedUploadProtocol;
+  }
+
+  public void setChunkedUploadProtocol(ChunkedUploadProtocol chunkedUploadProtocol) {
+    this.chunkedUploadProtocol = chunkedUploadProtocol;
   }
 
   /**
@@ -59,44 +248,446 @@ public class ReleaseService {
    *
    * @param metadata All metadata related to the upload
    * @param file     Path to the file to upload
+   * @return Whether the release was uploaded. False if an identical release was already uploaded
+   * @throws MojoExecutionException If the request to the Wago.io Api failed
+   */
+  public boolean createReleaseOperation(Metadata metadata, String file)
+          throws MojoExecutionException {
+    return await(createReleaseAsync(metadata, file)).getStatus() == ReleaseResult.Status.UPLOADED;
+  }
+
+  /**
+   * Create a new release from a file whose content was already read or mapped into memory. Used
+   * to share the content of a file between releases to several projects. Chunked uploads read
+   * the file from disk.
+   *
+   * @param metadata All metadata related to the upload
+   * @param file     Path to the file to upload
+   * @param content  The content of the file. The buffer is not modified
+   * @return Whether the release was uploaded. False if an identical release was already uploaded
    * @throws MojoExecutionException If the request to the Wago.io Api failed
    */
-  public void createReleaseOperation(Metadata metadata, String file)
+  public boolean createReleaseOperation(Metadata metadata, String file, ByteBuffer content)
+          throws MojoExecutionException {
+    return await(createReleaseAsync(metadata, file, content)).getStatus()
+            == ReleaseResult.Status.UPLOADED;
+  }
+
+  /**
+   * Create a new release from an addon directory. The directory is packaged while it is uploaded.
+   *
+   * @param metadata All metadata related to the upload
+   * @param archive  The addon directory to package and upload
+   * @return Whether the release was uploaded. False if an identical release was already uploaded
+   * @throws MojoExecutionException If the request to the Wago.io Api failed
+   */
+  public boolean createReleaseOperation(Metadata metadata, DirectoryArchive archive)
+          throws MojoExecutionException {
+    return await(createReleaseAsync(metadata, archive)).getStatus()
+            == ReleaseResult.Status.UPLOADED;
+  }
+
+  /**
+   * Create a new release asynchronously. Fingerprinting the file runs in parallel with resolving
+   * the host and opening a connection to the Wago.io Api.
+   *
+   * @param metadata All metadata related to the upload
+   * @param file     Path to the file to upload
+   * @return The result of the release. Completes exceptionally with a
+   *         {@link MojoExecutionException} if the release failed
+   */
+  public CompletableFuture<ReleaseResult> createReleaseAsync(Metadata metadata, String file) {
+    final Path path = Paths.get(file);
+
+    return createReleaseAsync(file, () -> uploadCache.fingerprint(metadata, path), deadline -> {
+      if (chunkedUpload) {
+        createChunkedReleaseOperation(metadata, path, deadline);
+      } else {
+        createSingleReleaseOperation(metadata, new FilePart("file", path,
+                APPLICATION_OCTET_STREAM, metadata.getLabel()), deadline);
+      }
+    });
+  }
+
+  /**
+   * Create a new release asynchronously from a file whose content was already read or mapped
+   * into memory. Chunked uploads read the file from disk.
+   *
+   * @param metadata All metadata related to the upload
+   * @param file     Path to the file to upload
+   * @param content  The content of the file. The buffer is not modified
+   * @return The result of the release. Completes exceptionally with a
+   *         {@link MojoExecutionException} if the release failed
+   */
+  public CompletableFuture<ReleaseResult> createReleaseAsync(Metadata metadata, String file,
+                                                             ByteBuffer content) {
+    if (chunkedUpload) {
+      return createReleaseAsync(metadata, file);
+    }
+
+    return createReleaseAsync(file, () -> uploadCache.fingerprint(metadata, content), deadline ->
+            createSingleReleaseOperation(metadata, new ByteBufferPart("file", content,
+                    APPLICATION_OCTET_STREAM, metadata.getLabel()), deadline));
+  }
+
+  /**
+   * Create a new release asynchronously from an addon directory. The directory is packaged while
+   * it is uploaded.
+   *
+   * @param metadata All metadata related to the upload
+   * @param archive  The addon directory to package and upload
+   * @return The result of the release. Completes exceptionally with a
+   *         {@link MojoExecutionException} if the release failed
+   */
+  public CompletableFuture<ReleaseResult> createReleaseAsync(Metadata metadata,
+                                                             DirectoryArchive archive) {
+    if (chunkedUpload) {
+      final CompletableFuture<ReleaseResult> failed = new CompletableFuture<>();
+      failed.completeExceptionally(new MojoExecutionException("Chunked uploads require a "
+              + "packaged file and cannot be used together with a directory"));
+
+      return failed;
+    }
+
+    final String source = archive.getDirectory().toString();
+
+    return createReleaseAsync(source, () -> uploadCache.fingerprint(metadata, archive), deadline ->
+            createSingleReleaseOperation(metadata,
+                    new DirectoryArchivePart("file", archive, metadata.getLabel()), deadline));
+  }
+
+  /**
+   * Prepare the connection and fingerprint the release in parallel and upload once both are
+   * done. The deadline of the release starts before the connection is prepared.
+   *
+   * @param source        Description of the released source
+   * @param fingerprinter Creates the fingerprint for the upload cache
+   * @param upload        Uploads the release
+   * @return The result of the release
+   */
+  private CompletableFuture<ReleaseResult> createReleaseAsync(String source,
+                                                              Fingerprinter fingerprinter,
+                                                              Upload upload) {
+    final long start = System.nanoTime();
+    final Deadline deadline = new Deadline(releaseTimeout);
+    final CompletableFuture<Void> connection = CompletableFuture.runAsync(() -> {
+      final long connectionStart = System.nanoTime();
+
+      try {
+        wagoClient.prepareConnection();
+      } catch (MojoExecutionException e) {
+        throw new CompletionException(e);
+      } finally {
+        deadline.getRecorder().recordConnectionSetup(System.nanoTime() - connectionStart);
+      }
+    }, executor);
+    final CompletableFuture<String> fingerprint = CompletableFuture.supplyAsync(() -> {
+      if (uploadCache == null) {
+        return null;
+      }
+
+      try {
+        return fingerprinter.fingerprint();
+      } catch (IOException e) {
+        throw new CompletionException(
+                new MojoExecutionException("Failed to fingerprint " + source, e));
+      }
+    }, executor);
+
+    return fingerprint.thenCombineAsync(connection, (releaseFingerprint, ignored) -> {
+      if (isAlreadyReleased(releaseFingerprint)) {
+        return createResult(source, ReleaseResult.Status.SKIPPED, start);
+      }
+
+      try {
+        deadline.check();
+        acquireUploadPermit(deadline);
+
+        try {
+          upload.upload(deadline);
+        } finally {
+          if (uploadPermits != null) {
+            uploadPermits.release();
+          }
+        }
+      } catch (MojoExecutionException e) {
+        throw new CompletionException(e);
+      }
+      recordRelease(releaseFingerprint);
+
+      return createResult(source, ReleaseResult.Status.UPLOADED, start);
+    }, executor).whenComplete((result, failure) ->
+            reportMetrics(source, deadline.getRecorder(), result, failure, start));
+  }
+
+  /**
+   * Pass the metrics of a finished release to the metrics listener.
+   *
+   * @param source   Description of the released source
+   * @param recorder The recorder of the release
+   * @param result   The result of the release or null if it failed
+   * @param failure  The failure of the release or null if it succeeded
+   * @param start    Start of the release
+   */
+  private void reportMetrics(String source, ReleaseRecorder recorder, ReleaseResult result,
+                             Throwable failure, long start) {
+    if (metricsListener == null) {
+      return;
+    }
+
+    final Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+            ? failure.getCause() : failure;
+    final ReleaseMetrics metrics = recorder.toMetrics(wagoClient.getProjectId(), source,
+            result == null ? ReleaseResult.Status.FAILED : result.getStatus(),
+            cause == null ? null : cause.getMessage(), System.nanoTime() - start);
+
+    try {
+      metricsListener.accept(metrics);
+    } catch (RuntimeException e) {
+      logger.warn("Failed to report metrics of release " + source, e);
+    }
+  }
+
+  /**
+   * Wait for a free upload slot if the amount of concurrent uploads is limited.
+   *
+   * @param deadline The deadline of the release
+   * @throws MojoExecutionException If the deadline expired while waiting
+   */
+  private void acquireUploadPermit(Deadline deadline) throws MojoExecutionException {
+    if (uploadPermits == null) {
+      return;
+    }
+
+    final long start = System.nanoTime();
+    deadline.enter(Deadline.UPLOAD_QUEUE);
+
+    try {
+      if (!uploadPermits.tryAcquire(deadline.remainingMillis(), TimeUnit.MILLISECONDS)) {
+        throw deadline.exceeded(null);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MojoExecutionException("Interrupted while waiting for an upload slot", e);
+    } finally {
+      deadline.getRecorder().recordQueue(System.nanoTime() - start);
+    }
+  }
+
+  private ReleaseResult createResult(String source, ReleaseResult.Status status, long start) {
+    return new ReleaseResult(wagoClient.getProjectId(), source, status, null,
+            (System.nanoTime() - start) / 1_000_000);
+  }
+
+  /**
+   * Wait for an asynchronous release to complete.
+   *
+   * @param release The release to wait for
+   * @return The result of the release
+   * @throws MojoExecutionException If the release failed
+   */
+  private static ReleaseResult await(CompletableFuture<ReleaseResult> release)
           throws MojoExecutionException {
-    final Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+    try {
+      return release.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MojoExecutionException("Interrupted while waiting for the release", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof MojoExecutionException) {
+        throw (MojoExecutionException) e.getCause();
+      }
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+
+      throw new MojoExecutionException("Release failed", e.getCause());
+    }
+  }
+
+  /**
+   * Create a new release by uploading the whole file in a single request.
+   *
+   * @param metadata All metadata related to the upload
+   * @param filePart The part containing the addon
+   * @param deadline The deadline of the release
+   * @throws MojoExecutionException If the request to the Wago.io Api failed
+   */
+  private void createSingleReleaseOperation(Metadata metadata, MultipartPart filePart,
+                                            Deadline deadline) throws MojoExecutionException {
+    final long serializationStart = System.nanoTime();
+    // serializes the metadata and reads a changelog file once for all attempts
+    final MetadataPart metadataPart = prepareMetadata(metadata);
+    deadline.getRecorder().recordSerialization(System.nanoTime() - serializationStart);
+    final HttpTransport client = openTransport();
+
+    URI preparedEndpointUrl = wagoClient.prepareEndpointUri(ENDPOINT);
+    logger.debug(() -> "Endpoint Uri: " + preparedEndpointUrl.getPath());
+
+    try {
+      final RetryPolicy.Request<String> attempt = () ->
+              uploadAttempt(client, preparedEndpointUrl, metadataPart, filePart, deadline);
+      final String responseString =
+              retryPolicy.execute("upload to Wago.io", logger, deadline, attempt);
 
-    HttpEntity entity = MultipartEntityBuilder
+      if (logger.isInfoEnabled() && responseString.equals(SUCCESS_RESPONSE)) {
+        logger.info("Upload successful");
+      }
+    } finally {
+      closeTransport(client);
+    }
+  }
+
+  /**
+   * A single attempt of a single request upload. The body is created per attempt to stream the
+   * file again and to restart the progress report.
+   *
+   * @param client       The transport to send the request with
+   * @param endpoint     The upload endpoint
+   * @param metadataPart The prepared part containing the metadata
+   * @param filePart     The part containing the addon
+   * @param deadline     The deadline of the release
+   * @return The response of the Wago.io Api
+   * @throws IOException            If the request failed
+   * @throws MojoExecutionException If the release failed or the deadline expired
+   */
+  private String uploadAttempt(HttpTransport client, URI endpoint, MetadataPart metadataPart,
+                               MultipartPart filePart, Deadline deadline)
+          throws IOException, MojoExecutionException {
+    final RequestBody multipartBody = StreamingMultipartBody
             .create()
-            .addTextBody("metadata", gson.toJson(metadata))
-            .addBinaryBody("file", new File(file), ContentType.create("application/octet-stream"),
-                    metadata.getLabel())
+            .addPart(metadataPart)
+            .addPart(filePart)
             .build();
+    final long contentLength = multipartBody.getContentLength();
+    final RequestBody body = new ProgressBody(multipartBody,
+            new UploadProgress(logger, contentLength, progressInterval));
 
-    CloseableHttpClient httpClient = wagoClient.getHttpClient();
+    final TransportRequest request = new TransportRequest("POST", endpoint, body);
 
-    HttpPost httpPost = new HttpPost();
-    URI preparedEndpointUrl = wagoClient.prepareEndpointUri(ENDPOINT);
-    if (logger.isDebugEnabled()) {
-      logger.debug("Endpoint Uri: " + preparedEndpointUrl.getPath());
+    return deadline.execute(request, () -> {
+      try (TransportResponse response = client.execute(request)) {
+        return responseHandler(response);
+      }
+    });
+  }
+
+  /**
+   * Create the metadata part of a release. An unreadable changelog file fails the release before
+   * any request is sent instead of being retried as a network failure.
+   *
+   * @param metadata All metadata related to the upload
+   * @return The prepared part
+   * @throws MojoExecutionException If the changelog file cannot be read
+   */
+  static MetadataPart prepareMetadata(Metadata metadata) throws MojoExecutionException {
+    final MetadataPart metadataPart = new MetadataPart("metadata", metadata);
+
+    try {
+      metadataPart.prepare();
+    } catch (IOException e) {
+      throw new MojoExecutionException("Failed to read changelog " + metadata.getChangelogFile(),
+              e);
+    }
+
+    return metadataPart;
+  }
+
+  /**
+   * Create a new release by uploading the file in resumable parts.
+   *
+   * @param metadata All metadata related to the upload
+   * @param file     Path to the file to upload
+   * @param deadline The deadline of the release
+   * @throws MojoExecutionException If any part of the upload failed
+   */
+  private void createChunkedReleaseOperation(Metadata metadata, Path file, Deadline deadline)
+          throws MojoExecutionException {
+    // fails before the upload is started if the changelog file cannot be read
+    prepareMetadata(metadata);
+    final HttpTransport client = openTransport();
+    ChunkedUploadProtocol protocol = chunkedUploadProtocol;
+
+    if (protocol == null) {
+      final HttpChunkedUploadProtocol httpProtocol =
+              new HttpChunkedUploadProtocol(wagoClient, client, retryPolicy, logger);
+      httpProtocol.setDeadline(deadline);
+      httpProtocol.setErrorParser(errorParser);
+      protocol = httpProtocol;
     }
-    httpPost.setURI(preparedEndpointUrl);
-    httpPost.setEntity(entity);
+    ChunkedUploadService chunkedUploadService =
+            new ChunkedUploadService(protocol, logger, checkpointDirectory, chunkSize);
 
     try {
-      CloseableHttpResponse response = httpClient.execute(httpPost);
-      String responseString = responseHandler(response);
+      chunkedUploadService.upload(wagoClient.getProjectId(), metadata, file,
+              new UploadProgress(logger, file.toFile().length(), progressInterval));
 
-      if (logger.isInfoEnabled() && responseString.equals(SUCCESS_RESPONSE)) {
+      if (logger.isInfoEnabled()) {
         logger.info("Upload successful");
       }
+    } finally {
+      closeTransport(client);
+    }
+  }
+
+  /**
+   * Get the transport for a single release.
+   *
+   * @return The shared transport or a new transport that is closed after the release
+   */
+  private HttpTransport openTransport() {
+    return transport != null ? transport : wagoClient.createTransport();
+  }
+
+  /**
+   * Close a transport that was created for a single release. Shared transports are left open.
+   *
+   * @param client The transport to close
+   */
+  private void closeTransport(HttpTransport client) {
+    if (client == transport) {
+      return;
+    }
+
+    try {
+      client.close();
     } catch (IOException e) {
-      throw new MojoExecutionException("Upload to Wago.io failed", e);
+      logger.warn("Failed to close http client", e);
+    }
+  }
+
+  /**
+   * Check whether a release with the same fingerprint was already uploaded.
+   *
+   * @param fingerprint The fingerprint of the release or null if the upload cache is disabled
+   * @return Whether the upload should be skipped
+   */
+  private boolean isAlreadyReleased(String fingerprint) {
+    if (fingerprint == null || forceUpload
+            || !uploadCache.contains(wagoClient.getProjectId(), fingerprint)) {
+      return false;
+    }
+
+    if (logger.isInfoEnabled()) {
+      logger.info("Skipping upload - an identical release was already uploaded to project "
+              + wagoClient.getProjectId() + " according to the upload cache "
+              + uploadCache.getIndexFile() + ". Use forceUpload to upload anyway");
+    }
+    // refresh the entry so it is evicted last
+    recordRelease(fingerprint);
+
+    return true;
+  }
+
+  private void recordRelease(String fingerprint) {
+    if (fingerprint == null) {
+      return;
     }
 
     try {
-      httpClient.close();
+      uploadCache.put(wagoClient.getProjectId(), fingerprint);
     } catch (IOException e) {
-      throw new MojoExecutionException("Failed to close http client", e);
+      logger.warn("Failed to update upload cache " + uploadCache.getIndexFile(), e);
     }
   }
 
@@ -105,24 +696,46 @@ public class ReleaseService {
    *
    * @param response The response from the Wago.io Api
    * @return The response from the Wago.io Api as POJO
-   * @throws IOException            If entity cannot be converted to a string
-   * @throws MojoExecutionException If creation of release failed
+   * @throws IOException            If the response cannot be read
+   * @throws WagoApiException      If creation of release failed
    */
-  private String responseHandler(CloseableHttpResponse response)
-          throws IOException, MojoExecutionException {
-    final Gson gson = new Gson();
-    final HttpEntity entity = response.getEntity();
-    final String responseString = EntityUtils.toString(entity, StandardCharsets.UTF_8);
-    final int statusCode = response.getStatusLine().getStatusCode();
+  private String responseHandler(TransportResponse response)
+          throws IOException, WagoApiException {
+    final int statusCode = response.getStatusCode();
 
-    if (statusCode != HttpStatus.SC_CREATED) {
-      WagoApiClientError clientError = gson.fromJson(responseString, WagoApiClientError.class);
-      logger.error(clientError.toString());
+    if (statusCode != STATUS_CREATED) {
+      // gateways answer transient failures with html pages which are reported as truncated text
+      final Object reason = errorParser.parseContent(response.getBody());
 
-      throw new MojoExecutionException("Failed to create release - reason: "
-              + clientError);
+      throw new WagoApiException("Failed to create release - status: " + statusCode
+              + " reason: " + reason, statusCode,
+              RetryPolicy.parseRetryAfter(response.getHeader("Retry-After")));
     } else {
-      return responseString;
+      return new String(ByteStreams.toByteArray(ByteStreams.limit(response.getBody(),
+              errorParser.getMaxResponseSize())), StandardCharsets.UTF_8);
     }
   }
+
+  private static Executor createDefaultExecutor() {
+    final int threads = Math.max(MIN_EXECUTOR_THREADS, Runtime.getRuntime().availableProcessors());
+    final ThreadFactory threadFactory = runnable -> {
+      final Thread thread = new Thread(runnable, "wago-release");
+      thread.setDaemon(true);
+
+      return thread;
+    };
+    final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60,
+            TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+    executor.allowCoreThreadTimeOut(true);
+
+    return executor;
+  }
+
+  private interface Fingerprinter {
+    String fingerprint() throws IOException;
+  }
+
+  private interface Upload {
+    void upload(Deadline deadline) throws MojoExecutionException;
+  }
 }
@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.service;
+
+import com.ragedunicorn.tools.maven.log.WagoReleaseLogger;
+import java.io.IOException;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.net.ssl.SSLException;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Retries requests to the Wago.io Api that failed with a transient error. The delay between two
+ * attempts grows exponentially and is randomized with full jitter. A delay requested by the
+ * server with a {@code Retry-After} header is honoured.
+ */
+public class RetryPolicy {
+  // transient statuses - client errors like 401 or 422 are never retried
+  private static final Set<Integer> DEFAULT_RETRYABLE_STATUSES = Collections.unmodifiableSet(
+          new HashSet<>(Arrays.asList(408, 429, 500, 502, 503, 504)));
+
+  private int maxAttempts = 3;
+  // delay before the second attempt in milliseconds
+  private long baseDelay = 1000;
+  // upper bound of the exponential delay in milliseconds
+  private long maxDelay = 30000;
+  private Set<Integer> retryableStatuses = DEFAULT_RETRYABLE_STATUSES;
+
+  /**
+   * A policy that does not retry.
+   *
+   * @return The created policy
+   */
+  public static RetryPolicy noRetry() {
+    final RetryPolicy retryPolicy = new RetryPolicy();
+    retryPolicy.setMaxAttempts(1);
+
+    return retryPolicy;
+  }
+
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  public void setMaxAttempts(int maxAttempts) {
+    this.maxAttempts = Math.max(1, maxAttempts);
+  }
+
+  public long getBaseDelay() {
+    return baseDelay;
+  }
+
+  public void setBaseDelay(long baseDelay) {
+    this.baseDelay = baseDelay;
+  }
+
+  public long getMaxDelay() {
+    return maxDelay;
+  }
+
+  public void setMaxDelay(long maxDelay) {
+    this.maxDelay = maxDelay;
+  }
+
+  public Set<Integer> getRetryableStatuses() {
+    return retryableStatuses;
+  }
+
+  public void setRetryableStatuses(Set<Integer> retryableStatuses) {
+    this.retryableStatuses = retryableStatuses;
+  }
+
+  /**
+   * Execute a request and retry it as long as it fails with a transient error. Every attempt is
+   * started from scratch which re-streams the uploaded file.
+   *
+   * @param operation Description of the request for log and error messages
+   * @param logger    The logger to report the attempts to
+   * @param request   The request to execute
+   * @param <T>       The result of the request
+   * @return The result of the first successful attempt
+   * @throws MojoExecutionException If the request failed with a fatal error or all attempts
+   *                                failed
+   */
+  public <T> T execute(String operation, WagoReleaseLogger logger, Request<T> request)
+          throws MojoExecutionException {
+    return execute(operation, logger, Deadline.none(), request);
+  }
+
+  /**
+   * Execute a request and retry it as long as it fails with a transient error and the deadline
+   * leaves time for another attempt.
+   *
+   * @param operation Description of the request for log and error messages
+   * @param logger    The logger to report the attempts to
+   * @param deadline  The deadline of the release
+   * @param request   The request to execute
+   * @param <T>       The result of the request
+   * @return The result of the first successful attempt
+   * @throws MojoExecutionException If the request failed with a fatal error, all attempts failed
+   *                                or the deadline expired
+   */
+  public <T> T execute(String operation, WagoReleaseLogger logger, Deadline deadline,
+                       Request<T> request) throws MojoExecutionException {
+    for (int attempt = 1; ; attempt++) {
+      final long start = System.nanoTime();
+      final long retryAfter;
+      final Exception failure;
+
+      try {
+        final T result = request.execute();
+
+        if (attempt > 1 && logger.isInfoEnabled()) {
+          logger.info(operation + " succeeded on attempt " + attempt + " after "
+                  + elapsedMillis(start) + " ms");
+        } else if (logger.isDebugEnabled()) {
+          logger.debug(operation + " took " + elapsedMillis(start) + " ms");
+        }
+
+        return result;
+      } catch (WagoApiException e) {
+        if (attempt >= maxAttempts || !isRetryable(e.getStatusCode())) {
+          throw e;
+        }
+        retryAfter = e.getRetryAfter();
+        failure = e;
+      } catch (ResponseLostException e) {
+        throw new MojoExecutionException("Failed to " + operation + " - the request was sent "
+                + "completely but no response was received. It is not retried because it may have "
+                + "succeeded. Check on Wago.io whether the release was created", e.getCause());
+      } catch (IOException e) {
+        if (attempt >= maxAttempts || !isRetryable(e)) {
+          throw new MojoExecutionException("Failed to " + operation, e);
+        }
+        retryAfter = -1;
+        failure = e;
+      }
+
+      final long delay = computeDelay(attempt, retryAfter);
+
+      if (delay >= deadline.remainingMillis()) {
+        deadline.enter(Deadline.RETRY_DELAY);
+        throw deadline.exceeded(failure);
+      }
+
+      logger.warn(operation + " attempt " + attempt + " of " + maxAttempts + " failed after "
+              + elapsedMillis(start) + " ms (" + failure.getMessage() + ") - retrying in "
+              + delay + " ms");
+
+      final long delayStart = System.nanoTime();
+
+      try {
+        Thread.sleep(delay);
+        deadline.getRecorder().recordRetry(System.nanoTime() - delayStart);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new MojoExecutionException("Interrupted while waiting to retry " + operation, e);
+      }
+    }
+  }
+
+  /**
+   * Whether a response status is worth another attempt.
+   *
+   * @param statusCode The http status
+   * @return True if the status is transient
+   */
+  public boolean isRetryable(int statusCode) {
+    return retryableStatuses.contains(statusCode);
+  }
+
+  /**
+   * Whether a network failure is worth another attempt. Unknown hosts and TLS failures are fatal.
+   * A failure after the body of a post was sent completely is fatal because the request may have
+   * succeeded.
+   *
+   * @param exception The failure
+   * @return True if the failure is transient
+   */
+  public boolean isRetryable(IOException exception) {
+    return !(exception instanceof UnknownHostException) && !(exception instanceof SSLException)
+            && !(exception instanceof ResponseLostException);
+  }
+
+  /**
+   * Compute the delay before the next attempt. The exponential delay is randomized between zero
+   * and its full value. A longer delay requested by the server is used instead.
+   *
+   * @param attempt    The attempt that failed starting with 1
+   * @param retryAfter The delay requested by the server in milliseconds or -1
+   * @return The delay in milliseconds
+   */
+  public long computeDelay(int attempt, long retryAfter) {
+    final long exponentialDelay = baseDelay << Math.min(attempt - 1, 30);
+    final long cappedDelay = Math.min(maxDelay, exponentialDelay < 0 ? maxDelay : exponentialDelay);
+    final long jitteredDelay = cappedDelay <= 0
+            ? 0 : ThreadLocalRandom.current().nextLong(cappedDelay + 1);
+
+    return Math.max(jitteredDelay, retryAfter);
+  }
+
+  /**
+   * Parse the value of a {@code Retry-After} header. Both delay seconds and http dates are
+   * supported.
+   *
+   * @param header The value of the header or null
+   * @return The requested delay in milliseconds or -1 if not present or invalid
+   */
+  public static long parseRetryAfter(String header) {
+    if (header == null) {
+      return -1;
+    }
+
+    final String value = header.trim();
+
+    try {
+      return Math.max(0, Long.parseLong(value) * 1000);
+    } catch (NumberFormatException e) {
+      final Date date = DateUtils.parseDate(value);
+
+      return date == null ? -1 : Math.max(0, date.getTime() - System.currentTimeMillis());
+    }
+  }
+
+  private static long elapsedMillis(long start) {
+    return (System.nanoTime() - start) / 1_000_000;
+  }
+
+  /**
+   * A single attempt of a request.
+   *
+   * @param <T> The result of the request
+   */
+  public interface Request<T> {
+    T execute() throws IOException, MojoExecutionException;
+  }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.service;
+
+import com.google.common.io.ByteStreams;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.ragedunicorn.tools.maven.archive.DirectoryArchive;
+import com.ragedunicorn.tools.maven.http.MetadataPart;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers the fingerprints of successful releases per project. The index is bounded and evicts
+ * the least recently used fingerprint once it is full.
+ */
+public class UploadCache {
+  private static final Type INDEX_TYPE = new TypeToken<List<String>>() {}.getType();
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+
+  private final Path indexFile;
+  private final int maxEntries;
+  private final Map<String, Boolean> entries;
+
+  /**
+   * Create a new upload cache.
+   *
+   * @param indexFile  The file the index is persisted in
+   * @param maxEntries The maximum amount of remembered releases
+   */
+  public UploadCache(Path indexFile, int maxEntries) {
+    this.indexFile = indexFile;
+    this.maxEntries = maxEntries;
+    this.entries = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+        return size() > UploadCache.this.maxEntries;
+      }
+    };
+  }
+
+  public Path getIndexFile() {
+    return indexFile;
+  }
+
+  /**
+   * Create a fingerprint of a release. The fingerprint covers the content of the file and the
+   * serialized metadata which includes the changelog.
+   *
+   * @param metadata All metadata related to the upload
+   * @param file     The file to upload
+   * @return A hex encoded SHA-256 fingerprint
+   * @throws IOException If the file cannot be read
+   */
+  public String fingerprint(Metadata metadata, Path file) throws IOException {
+    final MessageDigest digest = createDigest();
+    updateDigest(digest, file);
+    updateDigest(digest, metadata);
+
+    return toHex(digest.digest());
+  }
+
+  /**
+   * Create a fingerprint of a release whose file was already read or mapped into memory.
+   *
+   * @param metadata All metadata related to the upload
+   * @param content  The content of the file to upload. The buffer is not modified
+   * @return A hex encoded SHA-256 fingerprint
+   * @throws IOException If the changelog file cannot be read
+   */
+  public String fingerprint(Metadata metadata, ByteBuffer content) throws IOException {
+    final MessageDigest digest = createDigest();
+    digest.update(content.duplicate());
+    updateDigest(digest, metadata);
+
+    return toHex(digest.digest());
+  }
+
+  /**
+   * Create a fingerprint of a release that is packaged from a directory. The fingerprint covers
+   * the name and content of every included file and the serialized metadata. Names and contents
+   * are prefixed with their length so moving bytes between them changes the fingerprint.
+   *
+   * @param metadata All metadata related to the upload
+   * @param archive  The directory to package
+   * @return A hex encoded SHA-256 fingerprint
+   * @throws IOException If any file cannot be read
+   */
+  public String fingerprint(Metadata metadata, DirectoryArchive archive) throws IOException {
+    final MessageDigest digest = createDigest();
+
+    for (DirectoryArchive.ArchiveEntry entry : archive.getEntries()) {
+      final byte[] name = entry.getName().getBytes(StandardCharsets.UTF_8);
+      updateDigest(digest, name.length);
+      digest.update(name);
+      updateDigest(digest, Files.size(entry.getPath()));
+      updateDigest(digest, entry.getPath());
+    }
+    updateDigest(digest, metadata);
+
+    return toHex(digest.digest());
+  }
+
+  /**
+   * Check whether a fingerprint was already released for a project.
+   *
+   * @param projectId   The targeted project
+   * @param fingerprint The fingerprint of the release
+   * @return Whether the release was already uploaded
+   */
+  public synchronized boolean contains(String projectId, String fingerprint) {
+    load();
+
+    return entries.get(key(projectId, fingerprint)) != null;
+  }
+
+  /**
+   * Record a successful release and persist the index.
+   *
+   * @param projectId   The targeted project
+   * @param fingerprint The fingerprint of the release
+   * @throws IOException If the index cannot be written
+   */
+  public synchronized void put(String projectId, String fingerprint) throws IOException {
+    load();
+    entries.put(key(projectId, fingerprint), Boolean.TRUE);
+    save();
+  }
+
+  private void load() {
+    entries.clear();
+
+    if (!Files.isRegularFile(indexFile)) {
+      return;
+    }
+
+    try (Reader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+      final List<String> keys = gson.fromJson(reader, INDEX_TYPE);
+
+      if (keys != null) {
+        // the index is stored from least to most recently used
+        for (String key : keys) {
+          entries.put(key, Boolean.TRUE);
+        }
+      }
+    } catch (IOException | JsonParseException e) {
+      // an unreadable index only means that nothing will be skipped
+      entries.clear();
+    }
+  }
+
+  private void save() throws IOException {
+    if (indexFile.getParent() != null) {
+      Files.createDirectories(indexFile.getParent());
+    }
+    final Path temporaryFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+
+    try (Writer writer = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8)) {
+      gson.toJson(new ArrayList<>(entries.keySet()), INDEX_TYPE, writer);
+    }
+    Files.move(temporaryFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private static void updateDigest(MessageDigest digest, long length) {
+    digest.update(ByteBuffer.allocate(Long.BYTES).putLong(0, length));
+  }
+
+  private static void updateDigest(MessageDigest digest, Path file) throws IOException {
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      while (channel.read(buffer) != -1) {
+        buffer.flip();
+        digest.update(buffer);
+        buffer.clear();
+      }
+    }
+  }
+
+  /**
+   * Add the metadata to the digest. The metadata is serialized exactly like in the upload request
+   * including the content of a changelog file.
+   *
+   * @param digest   The digest to update
+   * @param metadata All metadata related to the upload
+   * @throws IOException If the changelog file cannot be read
+   */
+  private static void updateDigest(MessageDigest digest, Metadata metadata) throws IOException {
+    new MetadataPart("metadata", metadata)
+            .writeTo(new DigestOutputStream(ByteStreams.nullOutputStream(), digest));
+  }
+
+  private static String key(String projectId, String fingerprint) {
+    return projectId + ":" + fingerprint;
+  }
+
+  private static MessageDigest createDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not supported by this jvm", e);
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    final StringBuilder hex = new StringBuilder(bytes.length * 2);
+
+    for (byte b : bytes) {
+      hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+
+    return hex.toString();
+  }
+}
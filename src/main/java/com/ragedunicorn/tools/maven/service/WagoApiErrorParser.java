@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2023 Michael Wiesendanger
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.ragedunicorn.tools.maven.service;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.ragedunicorn.tools.maven.model.Errors;
+import com.ragedunicorn.tools.maven.model.WagoApiClientError;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parses error responses of the Wago.io Api. The body is parsed while it is read and never more
+ * than the maximum response size is read. Bodies that are not a json error object, like html
+ * pages of proxies, are reported as truncated raw text.
+ */
+public class WagoApiErrorParser {
+  public static final int DEFAULT_MAX_RESPONSE_SIZE = 64 * 1024;
+  // maximum length of a raw body in an error message in bytes
+  private static final int MAX_RAW_BODY_SIZE = 1024;
+
+  private final int maxResponseSize;
+
+  public WagoApiErrorParser() {
+    this(DEFAULT_MAX_RESPONSE_SIZE);
+  }
+
+  /**
+   * Create a new parser.
+   *
+   * @param maxResponseSize The maximum amount of bytes read from a response
+   */
+  public WagoApiErrorParser(int maxResponseSize) {
+    this.maxResponseSize = Math.max(MAX_RAW_BODY_SIZE, maxResponseSize);
+  }
+
+  public int getMaxResponseSize() {
+    return maxResponseSize;
+  }
+
+  /**
+   * Parse the body of an error response. A body larger than the maximum response size is not
+   * read completely which prevents the connection from being reused.
+   *
+   * @param content The body of the response or null
+   * @return The parsed {@link WagoApiClientError} or the truncated raw body
+   * @throws IOException If reading the body failed
+   */
+  public Object parseContent(InputStream content) throws IOException {
+    if (content == null) {
+      return "";
+    }
+
+    final CapturingInputStream in = new CapturingInputStream(content, maxResponseSize);
+    WagoApiClientError error;
+
+    try {
+      error = parseError(new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+    } catch (IOException | IllegalStateException | NumberFormatException e) {
+      // not json - the body is reported as text
+      error = null;
+    }
+
+    // reach the end of small bodies so the connection can be reused
+    in.drain();
+
+    return error != null && !in.isTruncated() ? error : in.getRawBody();
+  }
+
+  private static WagoApiClientError parseError(JsonReader reader) throws IOException {
+    final WagoApiClientError error = new WagoApiClientError();
+
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case "message":
+          error.setMessage(readString(reader));
+          break;
+        case "errors":
+          error.setErrors(readErrors(reader));
+          break;
+        default:
+          reader.skipValue();
+      }
+    }
+    reader.endObject();
+
+    return reader.peek() == JsonToken.END_DOCUMENT ? error : null;
+  }
+
+  private static Errors readErrors(JsonReader reader) throws IOException {
+    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+      reader.skipValue();
+      return null;
+    }
+
+    final Errors errors = new Errors();
+
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case "metadata":
+          errors.setMetadata(readMessages(reader));
+          break;
+        case "file":
+          errors.setFile(readMessages(reader));
+          break;
+        case "stability":
+          errors.setStability(readMessages(reader));
+          break;
+        case "supported_retail_patch":
+          errors.setSupportedRetailPatch(readMessages(reader));
+          break;
+        case "supported_wotlk_patch":
+          errors.setSupportedWotlkcPatch(readMessages(reader));
+          break;
+        case "supported_bc_patch":
+          errors.setSupportedBccPatch(readMessages(reader));
+          break;
+        case "supported_classic_patch":
+          errors.setSupportedClassicPatch(readMessages(reader));
+          break;
+        default:
+          reader.skipValue();
+      }
+    }
+    reader.endObject();
+
+    return errors;
+  }
+
+  /**
+   * Read the messages of a field. A single message is accepted as well as a list.
+   *
+   * @param reader The reader positioned at the value
+   * @return The messages or null if there are none
+   * @throws IOException If the value is malformed
+   */
+  private static List<String> readMessages(JsonReader reader) throws IOException {
+    if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+      final String message = readString(reader);
+
+      return message == null ? null : Collections.singletonList(message);
+    }
+
+    List<String> messages = null;
+
+    reader.beginArray();
+    while (reader.hasNext()) {
+      final String message = readString(reader);
+
+      if (message != null) {
+        if (messages == null) {
+          messages = new ArrayList<>(2);
+        }
+        messages.add(message);
+      }
+    }
+    reader.endArray();
+
+    return messages;
+  }
+
+  private static String readString(JsonReader reader) throws IOException {
+    switch (reader.peek()) {
+      case STRING:
+      case NUMBER:
+        return reader.nextString();
+      case BOOLEAN:
+        return String.valueOf(reader.nextBoolean());
+      default:
+        reader.skipValue();
+        return null;
+    }
+  }
+
+  /**
+   * Reads at most a given amount of bytes and keeps the first bytes for error messages.
+   */
+  private static final class CapturingInputStream extends FilterInputStream {
+    private final ByteArrayOutputStream rawBody = new ByteArrayOutputStream();
+    private final long limit;
+    private long remaining;
+    // whether the body is larger than the limit
+    private boolean truncated;
+
+    private CapturingInputStream(InputStream in, long limit) {
+      super(in);
+      this.limit = limit;
+      this.remaining = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+      final byte[] single = new byte[1];
+
+      return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      if (remaining <= 0) {
+        // one more byte decides whether the body was cut off
+        truncated = truncated || in.read() != -1;
+        return -1;
+      }
+
+      final int read = in.read(buffer, offset, (int) Math.min(length, remaining));
+
+      if (read > 0) {
+        remaining -= read;
+        rawBody.write(buffer, offset, Math.min(read, MAX_RAW_BODY_SIZE - rawBody.size()));
+      }
+
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      final int length = (int) Math.max(0, Math.min(n, 4096));
+
+      return Math.max(0, read(new byte[length], 0, length));
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    @Override
+    public void close() {
+      // the response owns the stream
+    }
+
+    private void drain() throws IOException {
+      final byte[] buffer = new byte[4096];
+
+      while (read(buffer, 0, buffer.length) != -1) {
+        // discard the rest of the body
+      }
+    }
+
+    private boolean isTruncated() {
+      return truncated;
+    }
+
+    private String getRawBody() {
+      final String text = new String(rawBody.toByteArray(), StandardCharsets.UTF_8).trim();
+
+      return truncated || limit - remaining > rawBody.size() ? text + "... (truncated)" : text;
+    }
+  }
+}
@@ -1,15 +1,36 @@
 package com.ragedunicorn.tools.maven;
 
+import com.google.gson.Gson;
+import com.ragedunicorn.tools.maven.model.ReleaseMetrics;
+import com.ragedunicorn.tools.maven.model.ReleaseReport;
+import com.ragedunicorn.tools.maven.model.ReleaseResult;
+import com.ragedunicorn.tools.maven.stub.LoadHarness;
+import com.ragedunicorn.tools.maven.stub.WagoApiStub;
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.testing.AbstractMojoTestCase;
 import java.io.File;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
 
 public class WagoReleaseMojoTest extends AbstractMojoTestCase {
+  private WagoApiStub stub;
+  private Path directory;
 
   public void setUp() throws Exception {
     super.setUp();
+    stub = WagoApiStub.start(2);
+    directory = Files.createTempDirectory("wago-release-mojo");
   }
 
   public void tearDown() throws Exception {
+    stub.close();
+    try (Stream<Path> paths = Files.walk(directory)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
     super.tearDown();
   }
 
@@ -30,7 +51,116 @@ public class WagoReleaseMojoTest extends AbstractMojoTestCase {
     );
 
     assertNotNull(mojo);
+  }
+
+  /**
+   * Tests a release against a local stand-in of the Wago.io Api.
+   *
+   * @throws Exception If the release fails
+   */
+  public void testExecute() throws Exception {
+    Path changelogFile = directory.resolve("release-notes.md");
+    Files.write(changelogFile, "## v1.0.0\n\n* Initial release".getBytes(StandardCharsets.UTF_8));
+    WagoReleaseMojo mojo = createMojo(changelogFile);
+
+    mojo.execute();
+
+    assertEquals(1, stub.getReleases().size());
+    WagoApiStub.Release release = stub.getReleases().get(0);
+    assertEquals("LvNAj96o", release.getProjectId());
+    assertEquals("example-upload", release.getMetadata().getLabel());
+    assertEquals("1.13.7", release.getMetadata().getSupportedClassicPatch());
+    assertEquals("## v1.0.0\n\n* Initial release", release.getMetadata().getChangelog());
+    assertEquals(Files.size(directory.resolve("addon.zip")), release.getFileSize());
+  }
+
+  /**
+   * Tests that a release rejected by the Wago.io Api fails the build with the reported errors.
+   *
+   * @throws Exception If the mojo cannot be configured
+   */
+  public void testExecuteRejectedRelease() throws Exception {
+    WagoReleaseMojo mojo = createMojo(null);
+    setVariableValueToObject(mojo, "stability", "nightly");
+
+    try {
+      mojo.execute();
+      fail("Expected release to fail");
+    } catch (MojoExecutionException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("status: 422"));
+      assertTrue(e.getMessage(), e.getMessage().contains("The selected stability is invalid."));
+    }
+
+    assertTrue(stub.getReleases().isEmpty());
+  }
+
+  /**
+   * Tests that the report of an execution records the timings, bytes and retries of the release.
+   *
+   * @throws Exception If the release fails
+   */
+  public void testExecuteWritesReport() throws Exception {
+    Path reportFile = directory.resolve("target").resolve("wago-release-report.json");
+    WagoReleaseMojo mojo = createMojo(null);
+    setVariableValueToObject(mojo, "reportFile", reportFile.toString());
+    stub.enqueue(503, "{\"message\":\"Service Unavailable\"}");
+
+    mojo.execute();
+
+    ReleaseReport report;
+    try (Reader reader = Files.newBufferedReader(reportFile, StandardCharsets.UTF_8)) {
+      report = new Gson().fromJson(reader, ReleaseReport.class);
+    }
+
+    assertEquals(ReleaseReport.Status.SUCCESS, report.getStatus());
+    assertNull(report.getError());
+    assertEquals(1, report.getRetries());
+    assertEquals(1, report.getReleases().size());
+
+    ReleaseMetrics release = report.getReleases().get(0);
+    assertEquals(ReleaseResult.Status.UPLOADED, release.getStatus());
+    assertEquals("LvNAj96o", release.getProjectId());
+    assertEquals(2, release.getAttempts());
+    assertEquals(1, release.getRetries());
+    // the archive is sent once per attempt
+    assertTrue(release.getBytesSent() > 2 * Files.size(directory.resolve("addon.zip")));
+    assertEquals(release.getBytesSent(), report.getBytesSent());
+    assertTrue(report.getDurationMillis() >= release.getDurationMillis());
+  }
+
+  /**
+   * Tests that chunked uploads are refused against Wago.io which does not support them yet.
+   *
+   * @throws Exception If the mojo cannot be configured
+   */
+  public void testChunkedUploadRequiresStandIn() throws Exception {
+    WagoReleaseMojo mojo = createMojo(null);
+    setVariableValueToObject(mojo, "baseUri", WagoClient.DEFAULT_BASE_URI);
+    setVariableValueToObject(mojo, "chunkedUpload", true);
+
+    try {
+      mojo.execute();
+      fail("Expected release to fail");
+    } catch (MojoExecutionException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("chunkedUpload is experimental"));
+    }
+
+    assertTrue(stub.getReleases().isEmpty());
+  }
+
+  private WagoReleaseMojo createMojo(Path changelogFile) throws Exception {
+    File testPom = new File("src/test/resources/plugin-config-stub.xml");
+    WagoReleaseMojo mojo = (WagoReleaseMojo) configureMojo(new WagoReleaseMojo(),
+        extractPluginConfiguration("wago-release-maven-plugin", testPom));
+
+    Path archive = directory.resolve("addon.zip");
+    LoadHarness.createArchive(archive, 16 * 1024);
+    setVariableValueToObject(mojo, "baseUri", stub.getBaseUri());
+    setVariableValueToObject(mojo, "file", archive.toString());
+    if (changelogFile != null) {
+      setVariableValueToObject(mojo, "changelogFile", changelogFile.toString());
+    }
 
-    // mojo.execute(); execution requires wago backend
+    return mojo;
   }
 }
@@ -0,0 +1,170 @@
+package com.ragedunicorn.tools.maven;
+
+import com.ragedunicorn.tools.maven.model.ReleaseRequest;
+import org.apache.maven.execution.AbstractExecutionListener;
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class WagoReleaseReactorTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testReadDescriptor() throws Exception {
+    File basedir = temporaryFolder.newFolder("module");
+    Xpp3Dom configuration = createConfiguration("projectId", "plugin-project",
+        "supportedRetailPatch", "10.2.7", "file", "target/addon.zip");
+    Xpp3Dom executionConfiguration = createConfiguration("projectId", "execution-project",
+        "label", "beta");
+    MavenProject project = createProject(basedir, configuration, executionConfiguration);
+
+    ReleaseRequest request = ReactorReleaseMojo.readDescriptor(project);
+
+    Assert.assertEquals("execution-project", request.getProjectId());
+    Assert.assertEquals("beta", request.getMetadata().getLabel());
+    Assert.assertEquals("stable", request.getMetadata().getStability());
+    Assert.assertEquals("10.2.7", request.getMetadata().getSupportedRetailPatch());
+    Assert.assertEquals("", request.getMetadata().getChangelog());
+    Assert.assertEquals(new File(basedir, "target/addon.zip").getPath(), request.getFile());
+  }
+
+  @Test
+  public void testModuleWithoutRelease() throws Exception {
+    File basedir = temporaryFolder.newFolder("module");
+
+    Assert.assertNull(ReactorReleaseMojo.readDescriptor(createProject(basedir, null, null)));
+    Assert.assertNull(ReactorReleaseMojo.readDescriptor(
+        createProject(basedir, createConfiguration("label", "beta"), null)));
+  }
+
+  @Test
+  public void testInvalidDescriptor() throws Exception {
+    File basedir = temporaryFolder.newFolder("module");
+
+    try {
+      ReactorReleaseMojo.readDescriptor(createProject(basedir,
+          createConfiguration("projectId", "project"), null));
+      Assert.fail("Expected descriptor to be invalid");
+    } catch (MojoExecutionException e) {
+      Assert.assertTrue(e.getMessage().startsWith("Missing supported patch"));
+    }
+  }
+
+  @Test
+  public void testListenerForwardsEvents() {
+    List<String> events = Collections.synchronizedList(new ArrayList<>());
+    MavenProject project = new MavenProject();
+    ReactorReleaseListener listener = new ReactorReleaseListener(new AbstractExecutionListener() {
+      @Override
+      public void projectSucceeded(ExecutionEvent event) {
+        events.add("delegate-succeeded");
+      }
+
+      @Override
+      public void sessionEnded(ExecutionEvent event) {
+        events.add("delegate-ended");
+      }
+    }, built -> events.add("built"), notBuilt -> events.add("not-built"),
+        () -> events.add("ended"));
+
+    listener.projectSucceeded(new Event(project));
+    listener.projectFailed(new Event(project));
+    listener.sessionEnded(new Event(null));
+
+    // the build result is printed by the delegate after the releases finished
+    Assert.assertEquals(Arrays.asList("delegate-succeeded", "built", "not-built", "ended",
+        "delegate-ended"), events);
+  }
+
+  private static MavenProject createProject(File basedir, Xpp3Dom configuration,
+                                            Xpp3Dom executionConfiguration) {
+    Model model = new Model();
+    model.setGroupId("com.example");
+    model.setArtifactId(basedir.getName());
+    model.setBuild(new Build());
+
+    if (configuration != null || executionConfiguration != null) {
+      Plugin plugin = new Plugin();
+      plugin.setGroupId("com.ragedunicorn.tools.maven");
+      plugin.setArtifactId("wago-release-maven-plugin");
+      plugin.setConfiguration(configuration);
+
+      if (executionConfiguration != null) {
+        PluginExecution execution = new PluginExecution();
+        execution.setId("release");
+        execution.addGoal(ReactorReleaseMojo.RELEASE_GOAL);
+        execution.setConfiguration(executionConfiguration);
+        plugin.addExecution(execution);
+      }
+      model.getBuild().addPlugin(plugin);
+    }
+
+    MavenProject project = new MavenProject(model);
+    project.setFile(new File(basedir, "pom.xml"));
+
+    return project;
+  }
+
+  private static Xpp3Dom createConfiguration(String... values) {
+    Xpp3Dom configuration = new Xpp3Dom("configuration");
+
+    for (int i = 0; i < values.length; i += 2) {
+      Xpp3Dom child = new Xpp3Dom(values[i]);
+      child.setValue(values[i + 1]);
+      configuration.addChild(child);
+    }
+
+    return configuration;
+  }
+
+  private static final class Event implements ExecutionEvent {
+    private final MavenProject project;
+
+    Event(MavenProject project) {
+      this.project = project;
+    }
+
+    @Override
+    public Type getType() {
+      return null;
+    }
+
+    @Override
+    public MavenSession getSession() {
+      return null;
+    }
+
+    @Override
+    public MavenProject getProject() {
+      return project;
+    }
+
+    @Override
+    public MojoExecution getMojoExecution() {
+      return null;
+    }
+
+    @Override
+    public Exception getException() {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,164 @@
+package com.ragedunicorn.tools.maven;
+
+import com.ragedunicorn.tools.maven.http.HttpConnectionPool;
+import com.ragedunicorn.tools.maven.http.TransportType;
+import com.ragedunicorn.tools.maven.log.DefaultLog;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import com.ragedunicorn.tools.maven.model.ReleaseMetrics;
+import com.ragedunicorn.tools.maven.service.ReleaseService;
+import com.ragedunicorn.tools.maven.stub.LoadHarness;
+import com.ragedunicorn.tools.maven.stub.WagoApiStub;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class WagoReleaseSessionTest {
+  private static final int MODULES = 16;
+  private static final int RELEASES_PER_MODULE = 4;
+  private static final int MAX_CONCURRENT_UPLOADS = 3;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private WagoApiStub stub;
+
+  @Before
+  public void setUp() throws Exception {
+    stub = WagoApiStub.start(32);
+    stub.setLatency(10, 30);
+  }
+
+  @After
+  public void tearDown() {
+    stub.close();
+  }
+
+  /**
+   * Simulates a parallel reactor where every module releases at the same time through the
+   * session shared by all modules.
+   *
+   * @throws Exception If a release failed
+   */
+  @Test
+  public void testParallelModulesShareSession() throws Exception {
+    Path file = temporaryFolder.getRoot().toPath().resolve("addon.zip");
+    LoadHarness.createArchive(file, 32 * 1024);
+    HttpConnectionPool connectionPool = new HttpConnectionPool(MAX_CONCURRENT_UPLOADS, 30, 30);
+    ReleaseSession session = new ReleaseSession(connectionPool, MAX_CONCURRENT_UPLOADS);
+    List<ReleaseMetrics> metrics = new CopyOnWriteArrayList<>();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService reactor = Executors.newFixedThreadPool(MODULES);
+    List<Future<?>> modules = new ArrayList<>();
+
+    try {
+      for (int module = 0; module < MODULES; module++) {
+        final boolean lastProject = module == MODULES - 1;
+        final String projectId = "project-" + module;
+
+        modules.add(reactor.submit(() -> {
+          Assert.assertTrue(session.acquire());
+          try {
+            start.await();
+            WagoClient wagoClient = createWagoClient(projectId, connectionPool);
+            ReleaseService releaseService = new ReleaseService(wagoClient, new DefaultLog(0));
+            releaseService.setTransport(session.getTransport(wagoClient, TransportType.APACHE));
+            releaseService.setUploadPermits(session.getUploadPermits());
+            releaseService.setMetricsListener(metrics::add);
+
+            for (int release = 0; release < RELEASES_PER_MODULE; release++) {
+              Assert.assertTrue(releaseService.createReleaseOperation(createMetadata(),
+                  file.toString()));
+            }
+          } finally {
+            session.release(lastProject);
+          }
+
+          return null;
+        }));
+      }
+      start.countDown();
+
+      for (Future<?> module : modules) {
+        module.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      reactor.shutdownNow();
+    }
+
+    Assert.assertEquals(MODULES * RELEASES_PER_MODULE, stub.getReleases().size());
+    Assert.assertEquals(MODULES * RELEASES_PER_MODULE, stub.getRequests());
+    Assert.assertTrue("max active requests " + stub.getMaxActiveRequests(),
+        stub.getMaxActiveRequests() <= MAX_CONCURRENT_UPLOADS);
+    // connections are reused instead of opening one per module
+    Assert.assertTrue("created connections " + connectionPool.getCreated(),
+        connectionPool.getCreated() <= MAX_CONCURRENT_UPLOADS);
+    Assert.assertEquals(MODULES * RELEASES_PER_MODULE, metrics.size());
+    Assert.assertTrue(metrics.stream().anyMatch(release -> release.getQueueMillis() > 0));
+    // closed by the last execution
+    Assert.assertTrue(session.isClosed());
+    Assert.assertFalse(session.acquire());
+  }
+
+  @Test
+  public void testSessionIsClosedOnceLastProjectAndAllExecutionsFinished() {
+    ReleaseSession session = new ReleaseSession(new HttpConnectionPool(2, 30, 30), 2);
+    Assert.assertTrue(session.acquire());
+    Assert.assertTrue(session.acquire());
+
+    // the last project finished before another module of a parallel build
+    Assert.assertFalse(session.release(true));
+    Assert.assertFalse(session.isClosed());
+    Assert.assertTrue(session.release(false));
+    Assert.assertTrue(session.isClosed());
+  }
+
+  @Test
+  public void testCachesAreShared() throws Exception {
+    ReleaseSession session = new ReleaseSession(new HttpConnectionPool(2, 30, 30), 2);
+    Path root = temporaryFolder.getRoot().toPath();
+
+    try {
+      Assert.assertSame(session.getUploadCache(root.resolve("upload-cache.json"), 10),
+          session.getUploadCache(root.resolve("cache/../upload-cache.json"), 20));
+      Assert.assertSame(session.getPackagingCache(root.resolve("packaging"), 1024),
+          session.getPackagingCache(root.resolve("packaging"), 1024));
+      Assert.assertNotSame(session.getUploadCache(root.resolve("upload-cache.json"), 10),
+          session.getUploadCache(root.resolve("other-cache.json"), 10));
+    } finally {
+      session.close();
+    }
+  }
+
+  private WagoClient createWagoClient(String projectId, HttpConnectionPool connectionPool) {
+    WagoClient wagoClient = new WagoClient();
+    wagoClient.setBaseUri(stub.getBaseUri());
+    wagoClient.setProjectId(projectId);
+    wagoClient.setToken(WagoApiStub.TOKEN);
+    wagoClient.setConnectionPool(connectionPool);
+    wagoClient.setRateLimiter(null);
+
+    return wagoClient;
+  }
+
+  private Metadata createMetadata() {
+    Metadata metadata = new Metadata();
+    metadata.setLabel("addon");
+    metadata.setStability("stable");
+    metadata.setSupportedClassicPatch("1.14.3");
+
+    return metadata;
+  }
+}
@@ -0,0 +1,173 @@
+package com.ragedunicorn.tools.maven.archive;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class WagoReleaseArchiveValidatorTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testValidArchive() throws Exception {
+    Path directory = createAddon("MyAddon");
+    Path archive = temporaryFolder.getRoot().toPath().resolve("addon.zip");
+
+    try (OutputStream out = Files.newOutputStream(archive)) {
+      new DirectoryArchive(directory, null, null).writeTo(out);
+    }
+
+    Assert.assertEquals("[]", new ArchiveValidator(2).validate(archive).toString());
+    Assert.assertEquals("[]",
+        new ArchiveValidator(2).validate(new DirectoryArchive(directory, null, null)).toString());
+  }
+
+  @Test
+  public void testValidArchiveWithDataDescriptorsAndStoredEntries() throws Exception {
+    Path archive = temporaryFolder.newFile("addon.zip").toPath();
+
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive))) {
+      write(out, "MyAddon/", "");
+      write(out, "MyAddon/MyAddon_Vanilla.toc", "## Interface: 11403\n");
+      write(out, "MyAddon/MyAddon.lua", "local addon = {}\n");
+      writeStored(out, "MyAddon/media/icon.blp", "BLP2");
+    }
+
+    Assert.assertEquals("[]", new ArchiveValidator(1).validate(archive).toString());
+  }
+
+  @Test
+  public void testMissingTocAndRootFile() throws Exception {
+    Path archive = temporaryFolder.newFile("addon.zip").toPath();
+
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive))) {
+      write(out, "README.md", "readme");
+      write(out, "MyAddon/Other.toc", "## Interface: 11403\n");
+    }
+
+    ArchiveValidator archiveValidator = new ArchiveValidator(1);
+    archiveValidator.setCheckLayout(true);
+    List<String> problems = archiveValidator.validate(archive);
+
+    Assert.assertEquals(2, problems.size());
+    Assert.assertTrue(problems.get(0).contains("README.md is not located in an addon folder"));
+    Assert.assertTrue(problems.get(1).contains("MyAddon does not contain a MyAddon.toc"));
+  }
+
+  @Test
+  public void testLayoutIsNotCheckedByDefault() throws Exception {
+    Path archive = temporaryFolder.newFile("addon.zip").toPath();
+
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive))) {
+      write(out, "release-notes.md", "notes");
+      write(out, "MyAddon/Other.toc", "## Interface: 11403\n");
+    }
+
+    Assert.assertEquals("[]", new ArchiveValidator(1).validate(archive).toString());
+
+    ArchiveValidator archiveValidator = new ArchiveValidator(1);
+    archiveValidator.setCheckLayout(true);
+    Assert.assertEquals(2, archiveValidator.validate(archive).size());
+  }
+
+  @Test
+  public void testDuplicateAndOversizedEntries() throws Exception {
+    Path archive = temporaryFolder.newFile("addon.zip").toPath();
+
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive))) {
+      write(out, "MyAddon/MyAddon.toc", "## Interface: 11403\n");
+      write(out, "MyAddon/Core.lua", "local core = {}\n");
+      write(out, "MyAddon/core.lua", "local core = {}\n");
+      write(out, "MyAddon/Large.lua", new String(new char[4096]).replace('\0', 'x'));
+    }
+
+    ArchiveValidator archiveValidator = new ArchiveValidator(1);
+    archiveValidator.setMaxEntrySize(1024);
+    List<String> problems = archiveValidator.validate(archive);
+
+    Assert.assertEquals(2, problems.size());
+    Assert.assertEquals("Duplicate entry MyAddon/core.lua", problems.get(0));
+    Assert.assertTrue(problems.get(1).startsWith("Entry MyAddon/Large.lua is larger than 1024"));
+  }
+
+  @Test
+  public void testCorruptEntry() throws Exception {
+    Path archive = temporaryFolder.newFile("addon.zip").toPath();
+
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive))) {
+      write(out, "MyAddon/MyAddon.toc", "## Interface: 11403\n");
+      writeStored(out, "MyAddon/Data.lua", "local data = { 1, 2, 3 }\n");
+    }
+
+    byte[] content = Files.readAllBytes(archive);
+    String text = new String(content, StandardCharsets.ISO_8859_1);
+    content[text.indexOf("{ 1, 2, 3 }") + 2] = '9';
+    Files.write(archive, content);
+
+    List<String> problems = new ArchiveValidator(2).validate(archive);
+
+    Assert.assertEquals(1, problems.size());
+    Assert.assertEquals("Checksum mismatch in entry MyAddon/Data.lua", problems.get(0));
+  }
+
+  @Test
+  public void testNotAZipArchive() throws Exception {
+    Path archive = temporaryFolder.newFile("addon.zip").toPath();
+    Files.write(archive, "<html>not found</html>".getBytes(StandardCharsets.UTF_8));
+
+    List<String> problems = new ArchiveValidator(1).validate(archive);
+
+    Assert.assertEquals(1, problems.size());
+    Assert.assertTrue(problems.get(0).startsWith("Not a zip archive"));
+  }
+
+  @Test
+  public void testIsTocFile() {
+    Assert.assertTrue(ArchiveValidator.isTocFile("MyAddon", "MyAddon.toc"));
+    Assert.assertTrue(ArchiveValidator.isTocFile("MyAddon", "myaddon-Classic.toc"));
+    Assert.assertTrue(ArchiveValidator.isTocFile("MyAddon", "MyAddon_Mainline.toc"));
+    Assert.assertFalse(ArchiveValidator.isTocFile("MyAddon", "MyAddonExtra.toc"));
+    Assert.assertFalse(ArchiveValidator.isTocFile("MyAddon", "MyAddon.lua"));
+  }
+
+  private Path createAddon(String name) throws IOException {
+    Path directory = temporaryFolder.newFolder(name).toPath();
+    Files.write(directory.resolve(name + ".toc"), "## Interface: 11403\n".getBytes("UTF-8"));
+    Files.write(directory.resolve(name + ".lua"), "local addon = {}\n".getBytes("UTF-8"));
+
+    return directory;
+  }
+
+  private static void write(ZipOutputStream out, String name, String content) throws IOException {
+    out.putNextEntry(new ZipEntry(name));
+    out.write(content.getBytes(StandardCharsets.UTF_8));
+    out.closeEntry();
+  }
+
+  private static void writeStored(ZipOutputStream out, String name, String content)
+      throws IOException {
+    byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+    CRC32 crc = new CRC32();
+    crc.update(bytes);
+    ZipEntry entry = new ZipEntry(name);
+    entry.setMethod(ZipEntry.STORED);
+    entry.setSize(bytes.length);
+    entry.setCompressedSize(bytes.length);
+    entry.setCrc(crc.getValue());
+
+    out.putNextEntry(entry);
+    out.write(bytes);
+    out.closeEntry();
+  }
+}
@@ -0,0 +1,79 @@
+package com.ragedunicorn.tools.maven.archive;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+public class WagoReleaseDirectoryArchiveTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testPackageDirectory() throws Exception {
+    Path directory = createAddon();
+    DirectoryArchive archive = new DirectoryArchive(directory, null, null);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    archive.writeTo(out);
+
+    Assert.assertEquals(Arrays.asList("MyAddon/MyAddon.toc", "MyAddon/core.lua",
+        "MyAddon/notes.txt", "MyAddon/ui/frame.xml"), readEntryNames(out.toByteArray()));
+  }
+
+  @Test
+  public void testPackageDirectoryWithPatterns() throws Exception {
+    Path directory = createAddon();
+    DirectoryArchive archive = new DirectoryArchive(directory,
+        Arrays.asList("**/*.lua", "**/*.xml", "*.toc"), Collections.singletonList("ui/**"));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    archive.writeTo(out);
+
+    Assert.assertEquals(Arrays.asList("MyAddon/MyAddon.toc", "MyAddon/core.lua"),
+        readEntryNames(out.toByteArray()));
+  }
+
+  private Path createAddon() throws IOException {
+    Path directory = temporaryFolder.newFolder("MyAddon").toPath();
+    write(directory.resolve("MyAddon.toc"), "## Interface: 11403");
+    write(directory.resolve("core.lua"), "print('hello')");
+    write(directory.resolve("notes.txt"), "notes");
+    write(directory.resolve("ui/frame.xml"), "<Ui/>");
+    write(directory.resolve(".git/config"), "[core]");
+
+    return directory;
+  }
+
+  private static void write(Path path, String content) throws IOException {
+    Files.createDirectories(path.getParent());
+    Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static List<String> readEntryNames(byte[] archive) throws IOException {
+    List<String> names = new ArrayList<>();
+
+    try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(archive))) {
+      ZipEntry entry;
+
+      while ((entry = in.getNextEntry()) != null) {
+        names.add(entry.getName());
+      }
+    }
+
+    return names;
+  }
+}
@@ -0,0 +1,135 @@
+package com.ragedunicorn.tools.maven.archive;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+
+public class WagoReleasePackagingCacheTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testUnchangedFilesAreReused() throws Exception {
+    Path directory = createAddon(10);
+    Path cacheDirectory = temporaryFolder.newFolder("cache").toPath();
+    byte[] uncached = writeArchive(directory, null);
+
+    PackagingCache firstCache = new PackagingCache(cacheDirectory, 1024 * 1024);
+    Assert.assertArrayEquals(uncached, writeArchive(directory, firstCache));
+    Assert.assertEquals(0, firstCache.getHits());
+    Assert.assertEquals(10, firstCache.getMisses());
+
+    PackagingCache secondCache = new PackagingCache(cacheDirectory, 1024 * 1024);
+    Assert.assertArrayEquals(uncached, writeArchive(directory, secondCache));
+    Assert.assertEquals(10, secondCache.getHits());
+    Assert.assertEquals(0, secondCache.getMisses());
+  }
+
+  @Test
+  public void testChangedFilesAreCompressedAgain() throws Exception {
+    Path directory = createAddon(10);
+    Path cacheDirectory = temporaryFolder.newFolder("cache").toPath();
+    writeArchive(directory, new PackagingCache(cacheDirectory, 1024 * 1024));
+
+    Files.write(directory.resolve("file1.lua"), "local changed = true\n".getBytes("UTF-8"));
+    // touched but unchanged files are recognized by their content
+    Path touched = directory.resolve("file2.lua");
+    Files.setLastModifiedTime(touched, FileTime.fromMillis(
+            Files.getLastModifiedTime(touched).toMillis() + 60000));
+
+    PackagingCache cache = new PackagingCache(cacheDirectory, 1024 * 1024);
+    Assert.assertArrayEquals(writeArchive(directory, null), writeArchive(directory, cache));
+    Assert.assertEquals(9, cache.getHits());
+    Assert.assertEquals(1, cache.getMisses());
+  }
+
+  @Test
+  public void testCorruptDataIsCompressedAgain() throws Exception {
+    Path directory = createAddon(10);
+    Path cacheDirectory = temporaryFolder.newFolder("cache").toPath();
+    byte[] uncached = writeArchive(directory, null);
+    writeArchive(directory, new PackagingCache(cacheDirectory, 1024 * 1024));
+
+    // flips bits while keeping the length of every data file
+    try (Stream<Path> files = Files.list(cacheDirectory)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        if (file.getFileName().toString().endsWith(".bin")) {
+          byte[] data = Files.readAllBytes(file);
+          data[data.length / 2] ^= 0x55;
+          Files.write(file, data);
+        }
+      }
+    }
+
+    PackagingCache cache = new PackagingCache(cacheDirectory, 1024 * 1024);
+    Assert.assertArrayEquals(uncached, writeArchive(directory, cache));
+    Assert.assertEquals(0, cache.getHits());
+    Assert.assertEquals(10, cache.getMisses());
+
+    PackagingCache repairedCache = new PackagingCache(cacheDirectory, 1024 * 1024);
+    Assert.assertArrayEquals(uncached, writeArchive(directory, repairedCache));
+    Assert.assertEquals(10, repairedCache.getHits());
+
+    try (Stream<Path> files = Files.list(cacheDirectory)) {
+      Assert.assertFalse(files.anyMatch(file -> file.toString().endsWith(".tmp")));
+    }
+  }
+
+  @Test
+  public void testCacheIsBounded() throws Exception {
+    Path directory = createAddon(20);
+    Path cacheDirectory = temporaryFolder.newFolder("cache").toPath();
+    long maxSize = 2048;
+
+    writeArchive(directory, new PackagingCache(cacheDirectory, maxSize));
+
+    long dataSize = 0;
+    try (Stream<Path> files = Files.list(cacheDirectory)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        if (file.getFileName().toString().endsWith(".bin")) {
+          dataSize += Files.size(file);
+        }
+      }
+    }
+    Assert.assertTrue(dataSize > 0);
+    Assert.assertTrue(dataSize <= maxSize);
+
+    PackagingCache cache = new PackagingCache(cacheDirectory, maxSize);
+    writeArchive(directory, cache);
+    Assert.assertTrue(cache.getHits() > 0);
+    Assert.assertTrue(cache.getMisses() > 0);
+  }
+
+  private byte[] writeArchive(Path directory, PackagingCache cache) throws IOException {
+    DirectoryArchive archive = new DirectoryArchive(directory, null, null);
+    archive.setParallelism(2);
+    archive.setCache(cache);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    archive.writeTo(out);
+
+    return out.toByteArray();
+  }
+
+  private Path createAddon(int files) throws IOException {
+    Path directory = temporaryFolder.newFolder("MyAddon").toPath();
+
+    for (int i = 0; i < files; i++) {
+      StringBuilder content = new StringBuilder();
+
+      for (int line = 0; line < 100; line++) {
+        content.append("local value").append(line).append(" = ").append(i * line).append('\n');
+      }
+      Files.write(directory.resolve("file" + i + ".lua"), content.toString().getBytes("UTF-8"));
+    }
+
+    return directory;
+  }
+}
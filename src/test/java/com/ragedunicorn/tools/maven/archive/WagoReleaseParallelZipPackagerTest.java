@@ -0,0 +1,103 @@
+package com.ragedunicorn.tools.maven.archive;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+public class WagoReleaseParallelZipPackagerTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testArchiveIsIndependentOfParallelism() throws Exception {
+    DirectoryArchive archive = new DirectoryArchive(createAddon(), null, null);
+
+    byte[] singleThreaded = writeArchive(archive, 1);
+    byte[] parallel = writeArchive(archive, 4);
+
+    Assert.assertArrayEquals(singleThreaded, parallel);
+  }
+
+  @Test
+  public void testArchiveIsReadable() throws Exception {
+    Path directory = createAddon();
+    DirectoryArchive archive = new DirectoryArchive(directory, null, null);
+    Path zip = temporaryFolder.getRoot().toPath().resolve("addon.zip");
+    Files.write(zip, writeArchive(archive, 4));
+
+    try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+      Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+      int count = 0;
+
+      for (ZipEntry zipEntry : Collections.list(zipEntries)) {
+        Path source = directory.resolve(zipEntry.getName().substring("MyAddon/".length()));
+
+        try (InputStream in = zipFile.getInputStream(zipEntry)) {
+          Assert.assertArrayEquals(zipEntry.getName(), Files.readAllBytes(source), readAll(in));
+        }
+        count++;
+      }
+
+      Assert.assertEquals(archive.getEntries().size(), count);
+    }
+  }
+
+  private byte[] writeArchive(DirectoryArchive archive, int parallelism) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new ParallelZipPackager(parallelism).writeTo(archive.getEntries(), out);
+
+    return out.toByteArray();
+  }
+
+  private Path createAddon() throws IOException {
+    Path directory = temporaryFolder.newFolder("MyAddon").toPath();
+    Random random = new Random(7);
+
+    for (int i = 0; i < 40; i++) {
+      StringBuilder content = new StringBuilder();
+
+      for (int line = 0; line < random.nextInt(200); line++) {
+        content.append("local value").append(line).append(" = ").append(random.nextInt()).append('\n');
+      }
+      Files.write(directory.resolve("file" + i + ".lua"), content.toString().getBytes("UTF-8"));
+    }
+
+    // incompressible content is stored instead of deflated
+    byte[] media = new byte[32 * 1024];
+    random.nextBytes(media);
+    Files.write(directory.resolve("media.blp"), media);
+
+    // large entries are deflated while they are written
+    byte[] large = new byte[9 * 1024 * 1024];
+    for (int i = 0; i < large.length; i++) {
+      large[i] = (byte) (i % 251);
+    }
+    Files.write(directory.resolve("large.tga"), large);
+
+    return directory;
+  }
+
+  private static byte[] readAll(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int read;
+
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+
+    return out.toByteArray();
+  }
+}
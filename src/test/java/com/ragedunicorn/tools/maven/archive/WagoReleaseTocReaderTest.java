@@ -0,0 +1,96 @@
+package com.ragedunicorn.tools.maven.archive;
+
+import com.ragedunicorn.tools.maven.model.Metadata;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class WagoReleaseTocReaderTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testReadClientSpecificTocFiles() throws Exception {
+    Path archive = temporaryFolder.newFile("addon.zip").toPath();
+
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive))) {
+      write(out, "MyAddon/MyAddon.toc", "## Interface: 100207\n## Title: MyAddon\n\nMyAddon.lua\n");
+      write(out, "MyAddon/MyAddon_Wrath.toc", "## Interface: 30403\n");
+      write(out, "MyAddon/MyAddon_Vanilla.toc",
+          "\uFEFF## Title: MyAddon\r\n## Interface: 11502\r\n");
+      write(out, "MyAddon/MyAddon_Cata.toc", "## Interface: 40400\n");
+      write(out, "MyAddon/MyAddon.lua", "local addon = {}\n");
+      // an older interface version of a second addon does not lower the patch
+      write(out, "MyAddon_Options/MyAddon_Options.toc", "## Interface: 11403\n");
+      // interface lines after the file list are not part of the header
+      write(out, "MyAddon_Options/MyAddon_Options-BCC.toc", "Options.lua\n## Interface: 20504\n");
+    }
+
+    Map<TocReader.Flavor, String> patches = new TocReader().read(archive);
+
+    Assert.assertEquals("{RETAIL=10.2.7, WOTLKC=3.4.3, CLASSIC=1.15.2}", patches.toString());
+  }
+
+  @Test
+  public void testReadMultipleInterfaceVersions() throws Exception {
+    Path archive = temporaryFolder.newFile("addon.zip").toPath();
+
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive))) {
+      write(out, "MyAddon/MyAddon.toc", "## Interface: 11502, 20504, 30403, 40400, 110000\n"
+          + "## Interface-Wrath: 30402\n");
+    }
+
+    Map<TocReader.Flavor, String> patches = new TocReader().read(archive);
+
+    Assert.assertEquals("{RETAIL=11.0.0, WOTLKC=3.4.3, BCC=2.5.4, CLASSIC=1.15.2}",
+        patches.toString());
+  }
+
+  @Test
+  public void testReadDirectory() throws Exception {
+    Path directory = temporaryFolder.newFolder("MyAddon").toPath();
+    Files.write(directory.resolve("MyAddon.toc"),
+        "## Interface: 100207\n".getBytes(StandardCharsets.UTF_8));
+    Files.write(directory.resolve("MyAddon_TBC.toc"),
+        "## Interface: 20504\n".getBytes(StandardCharsets.UTF_8));
+
+    Map<TocReader.Flavor, String> patches =
+        new TocReader().read(new DirectoryArchive(directory, null, null));
+
+    Assert.assertEquals("{RETAIL=10.2.7, BCC=2.5.4}", patches.toString());
+  }
+
+  @Test
+  public void testFillSupportedPatchesKeepsConfiguredPatches() throws Exception {
+    Path archive = temporaryFolder.newFile("addon.zip").toPath();
+
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive))) {
+      write(out, "MyAddon/MyAddon.toc", "## Interface: 100207\n");
+      write(out, "MyAddon/MyAddon_Classic.toc", "## Interface: 11502\n");
+    }
+
+    Metadata metadata = new Metadata();
+    metadata.setSupportedRetailPatch("10.2.6");
+    TocReader.fillSupportedPatches(metadata, new TocReader().read(archive));
+
+    Assert.assertEquals("10.2.6", metadata.getSupportedRetailPatch());
+    Assert.assertEquals("1.15.2", metadata.getSupportedClassicPatch());
+    Assert.assertNull(metadata.getSupportedBccPatch());
+    Assert.assertEquals("3.4.0", TocReader.toPatch(30400));
+  }
+
+  private static void write(ZipOutputStream out, String name, String content) throws IOException {
+    out.putNextEntry(new ZipEntry(name));
+    out.write(content.getBytes(StandardCharsets.UTF_8));
+    out.closeEntry();
+  }
+}
@@ -0,0 +1,115 @@
+package com.ragedunicorn.tools.maven.http;
+
+import com.ragedunicorn.tools.maven.WagoClient;
+import com.ragedunicorn.tools.maven.log.DefaultLog;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import com.ragedunicorn.tools.maven.model.ReleaseMetrics;
+import com.ragedunicorn.tools.maven.service.ReleaseService;
+import com.ragedunicorn.tools.maven.stub.LoadHarness;
+import com.ragedunicorn.tools.maven.stub.WagoApiStub;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class WagoReleaseBandwidthLimiterTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testUnlimited() throws Exception {
+    BandwidthLimiter limiter = new BandwidthLimiter(0);
+
+    Assert.assertFalse(limiter.isLimited());
+    Assert.assertEquals(0, limiter.acquire(1024 * 1024));
+    Assert.assertEquals(0, limiter.getDelayed());
+  }
+
+  @Test
+  public void testRateIsKept() throws Exception {
+    byte[] content = new byte[100_000];
+    new Random(5).nextBytes(content);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ThrottledOutputStream throttledStream =
+        new ThrottledOutputStream(out, new BandwidthLimiter(200_000));
+    long start = System.nanoTime();
+
+    throttledStream.write(content);
+
+    // 10 kB of burst and the remaining 90 kB at 200 kB per second
+    Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 400);
+    Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(throttledStream.getThrottleNanos()) >= 400);
+    Assert.assertArrayEquals(content, out.toByteArray());
+  }
+
+  @Test
+  public void testConcurrentUploadsShareLimit() throws Exception {
+    BandwidthLimiter limiter = new BandwidthLimiter(200_000);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<?>> uploads = new ArrayList<>();
+    long start = System.nanoTime();
+
+    try {
+      for (int i = 0; i < 4; i++) {
+        uploads.add(executor.submit(() -> {
+          new ThrottledOutputStream(new ByteArrayOutputStream(), limiter).write(new byte[25_000]);
+          return null;
+        }));
+      }
+      for (Future<?> upload : uploads) {
+        upload.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    // four uploads together are not faster than a single upload of the same size
+    Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 400);
+    Assert.assertEquals(100_000, limiter.getAcquiredBytes());
+  }
+
+  @Test
+  public void testThrottleIsReported() throws Exception {
+    Path file = temporaryFolder.getRoot().toPath().resolve("addon.zip");
+    LoadHarness.createArchive(file, 64 * 1024);
+    AtomicReference<ReleaseMetrics> metrics = new AtomicReference<>();
+
+    try (WagoApiStub stub = WagoApiStub.start()) {
+      WagoClient wagoClient = new WagoClient();
+      wagoClient.setBaseUri(stub.getBaseUri());
+      wagoClient.setProjectId("test-project");
+      wagoClient.setToken(WagoApiStub.TOKEN);
+      wagoClient.setBandwidthLimiter(new BandwidthLimiter(128 * 1024));
+
+      ReleaseService releaseService = new ReleaseService(wagoClient, new DefaultLog(0));
+      releaseService.setMetricsListener(metrics::set);
+
+      Assert.assertTrue(releaseService.createReleaseOperation(createMetadata(), file.toString()));
+      Assert.assertEquals(1, stub.getReleases().size());
+    }
+
+    Assert.assertTrue(metrics.get().getThrottleMillis() >= 300);
+    Assert.assertTrue(metrics.get().getUploadMillis() >= metrics.get().getThrottleMillis());
+  }
+
+  private Metadata createMetadata() {
+    Metadata metadata = new Metadata();
+    metadata.setLabel("addon");
+    metadata.setStability("stable");
+    metadata.setSupportedRetailPatch("10.2.7");
+    metadata.setChangelog("");
+
+    return metadata;
+  }
+}
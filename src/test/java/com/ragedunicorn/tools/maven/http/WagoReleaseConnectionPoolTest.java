@@ -0,0 +1,107 @@
+package com.ragedunicorn.tools.maven.http;
+
+import com.ragedunicorn.tools.maven.WagoClient;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+public class WagoReleaseConnectionPoolTest {
+  private HttpServer server;
+  private HttpConnectionPool connectionPool;
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", exchange -> {
+      byte[] body = "OK".getBytes(StandardCharsets.UTF_8);
+      exchange.sendResponseHeaders(200, body.length);
+
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    });
+    server.start();
+    connectionPool = new HttpConnectionPool(4, 30, 30);
+  }
+
+  @After
+  public void tearDown() {
+    connectionPool.close();
+    server.stop(0);
+  }
+
+  @Test
+  public void testConnectionIsReusedBetweenClients() throws Exception {
+    for (int i = 0; i < 3; i++) {
+      // every release creates and closes its own client
+      try (CloseableHttpClient httpClient = createWagoClient().getHttpClient()) {
+        execute(httpClient);
+      }
+    }
+
+    Assert.assertEquals(3, connectionPool.getLeased());
+    Assert.assertEquals(1, connectionPool.getCreated());
+    Assert.assertEquals(2, connectionPool.getReused());
+    Assert.assertEquals(1, connectionPool.getPoolStats().getAvailable());
+    Assert.assertEquals(0, connectionPool.getPoolStats().getLeased());
+  }
+
+  @Test
+  public void testWarmedUpConnectionIsCountedAsReuse() throws Exception {
+    URI uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/");
+    connectionPool.warmUp(uri);
+    // an idle connection is already available
+    connectionPool.warmUp(uri);
+
+    Assert.assertEquals(1, connectionPool.getCreated());
+    Assert.assertEquals(1, connectionPool.getWarmedUp());
+    Assert.assertEquals(0, connectionPool.getLeased());
+    Assert.assertEquals(0, connectionPool.getReused());
+
+    try (CloseableHttpClient httpClient = createWagoClient().getHttpClient()) {
+      execute(httpClient);
+    }
+
+    Assert.assertEquals(1, connectionPool.getCreated());
+    Assert.assertEquals(1, connectionPool.getLeased());
+    Assert.assertEquals(1, connectionPool.getReused());
+  }
+
+  @Test
+  public void testEnsureCapacity() {
+    connectionPool.ensureCapacity(8);
+
+    Assert.assertTrue(connectionPool.getPoolStats().getMax() >= 8);
+  }
+
+  private WagoClient createWagoClient() {
+    WagoClient wagoClient = new WagoClient();
+    wagoClient.setBaseUri("http://localhost:" + server.getAddress().getPort()
+        + "/api/projects/:projectId/version");
+    wagoClient.setProjectId("test-project");
+    wagoClient.setToken("test-token");
+    wagoClient.setConnectionPool(connectionPool);
+
+    return wagoClient;
+  }
+
+  private void execute(CloseableHttpClient httpClient) throws IOException {
+    HttpGet httpGet = new HttpGet("http://localhost:" + server.getAddress().getPort() + "/");
+
+    try (CloseableHttpResponse response = httpClient.execute(httpGet)) {
+      Assert.assertEquals("OK", EntityUtils.toString(response.getEntity()));
+    }
+  }
+}
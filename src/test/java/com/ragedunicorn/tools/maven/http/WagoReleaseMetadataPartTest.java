@@ -0,0 +1,115 @@
+package com.ragedunicorn.tools.maven.http;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+public class WagoReleaseMetadataPartTest {
+  private static final String CHANGELOG = "# Changelog\r\n\t* \"quoted\" <b>&</b> a=b 'c' \\ path\n"
+      + "* unicode \u00e4\u00f6\u00fc \u2028\u2029 \ud83d\ude00 \u0001\u001f\b\f\n";
+
+  private final Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testEqualsGsonOutput() throws Exception {
+    Metadata metadata = createMetadata();
+    metadata.setChangelog(CHANGELOG);
+
+    Assert.assertEquals(gson.toJson(metadata), write(new MetadataPart("metadata", metadata)));
+  }
+
+  @Test
+  public void testChangelogFileIsRead() throws Exception {
+    StringBuilder changelog = new StringBuilder();
+    for (int i = 0; i < 500; i++) {
+      changelog.append(CHANGELOG);
+    }
+    Path changelogFile = temporaryFolder.newFile("CHANGELOG.md").toPath();
+    Files.write(changelogFile, changelog.toString().getBytes(StandardCharsets.UTF_8));
+
+    Metadata expected = createMetadata();
+    expected.setChangelog(changelog.toString());
+    Metadata metadata = createMetadata();
+    metadata.setChangelogFile(changelogFile);
+    MetadataPart part = new MetadataPart("metadata", metadata);
+
+    String json = write(part);
+
+    Assert.assertEquals(gson.toJson(expected), json);
+    Assert.assertEquals(json.getBytes(StandardCharsets.UTF_8).length, part.getContentLength());
+    Assert.assertEquals(changelog.toString(), gson.fromJson(json, Metadata.class).getChangelog());
+  }
+
+  @Test
+  public void testMalformedChangelogIsReplaced() throws Exception {
+    Path changelogFile = temporaryFolder.newFile("CHANGELOG.md").toPath();
+    Files.write(changelogFile, new byte[] {'a', (byte) 0xC3, (byte) 0x28, 'b'});
+    Metadata metadata = createMetadata();
+    metadata.setChangelogFile(changelogFile);
+
+    String json = write(new MetadataPart("metadata", metadata));
+
+    Assert.assertEquals("a\ufffd(b", gson.fromJson(json, Metadata.class).getChangelog());
+  }
+
+  @Test
+  public void testMissingChangelogFails() throws Exception {
+    Metadata metadata = createMetadata();
+    metadata.setChangelogFile(temporaryFolder.getRoot().toPath().resolve("missing.md"));
+    MetadataPart part = new MetadataPart("metadata", metadata);
+
+    try {
+      part.prepare();
+      Assert.fail("Expected prepare to fail");
+    } catch (IOException e) {
+      Assert.assertTrue(e instanceof NoSuchFileException);
+    }
+
+    try {
+      part.getContentLength();
+      Assert.fail("Expected content length to fail");
+    } catch (UncheckedIOException e) {
+      Assert.assertTrue(e.getMessage().contains("missing.md"));
+    }
+  }
+
+  @Test
+  public void testMissingValuesAreOmitted() throws Exception {
+    Metadata metadata = new Metadata();
+    metadata.setLabel("addon");
+
+    Assert.assertEquals("{\"label\":\"addon\"}", write(new MetadataPart("metadata", metadata)));
+  }
+
+  private static String write(MetadataPart part) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    part.writeTo(out);
+
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  private static Metadata createMetadata() {
+    Metadata metadata = new Metadata();
+    metadata.setLabel("addon");
+    metadata.setStability("stable");
+    metadata.setSupportedRetailPatch("10.0.2");
+    metadata.setSupportedClassicPatch("1.14.3");
+
+    return metadata;
+  }
+}
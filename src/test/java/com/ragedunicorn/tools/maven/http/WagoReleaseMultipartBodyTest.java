@@ -0,0 +1,67 @@
+package com.ragedunicorn.tools.maven.http;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class WagoReleaseMultipartBodyTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testWriteMultipartBody() throws Exception {
+    Path file = temporaryFolder.newFile("addon.zip").toPath();
+    Files.write(file, "zip-content".getBytes(StandardCharsets.UTF_8));
+
+    StreamingMultipartBody body = StreamingMultipartBody
+        .create()
+        .setBoundary("test-boundary")
+        .addTextPart("metadata", "{\"label\":\"addon\"}")
+        .addFilePart("file", file, "application/octet-stream", "addon")
+        .build();
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    body.writeTo(out);
+
+    String expected = "--test-boundary\r\n"
+        + "Content-Disposition: form-data; name=\"metadata\"\r\n"
+        + "Content-Type: text/plain; charset=UTF-8\r\n"
+        + "\r\n"
+        + "{\"label\":\"addon\"}\r\n"
+        + "--test-boundary\r\n"
+        + "Content-Disposition: form-data; name=\"file\"; filename=\"addon\"\r\n"
+        + "Content-Type: application/octet-stream\r\n"
+        + "\r\n"
+        + "zip-content\r\n"
+        + "--test-boundary--\r\n";
+
+    Assert.assertEquals(expected, out.toString("UTF-8"));
+    Assert.assertEquals(out.size(), body.getContentLength());
+    Assert.assertEquals("multipart/form-data; boundary=test-boundary",
+        body.getContentType());
+  }
+
+  @Test
+  public void testBodyIsRepeatable() throws Exception {
+    Path file = temporaryFolder.newFile("addon.zip").toPath();
+    Files.write(file, new byte[64 * 1024]);
+
+    StreamingMultipartBody body = StreamingMultipartBody
+        .create()
+        .addFilePart("file", file, "application/octet-stream", "addon")
+        .build();
+
+    ByteArrayOutputStream first = new ByteArrayOutputStream();
+    ByteArrayOutputStream second = new ByteArrayOutputStream();
+    body.writeTo(first);
+    body.writeTo(second);
+
+    Assert.assertArrayEquals(first.toByteArray(), second.toByteArray());
+  }
+}
@@ -0,0 +1,124 @@
+package com.ragedunicorn.tools.maven.http;
+
+import com.ragedunicorn.tools.maven.WagoClient;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class WagoReleaseRateLimiterTest {
+  @Test
+  public void testBurstThenLimited() throws Exception {
+    RateLimiter rateLimiter = new RateLimiter(20, 2);
+    long start = System.nanoTime();
+
+    for (int i = 0; i < 6; i++) {
+      rateLimiter.acquire();
+    }
+
+    // two requests of the burst and four more at 20 requests per second
+    Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 150);
+    Assert.assertEquals(6, rateLimiter.getAcquired());
+    Assert.assertEquals(4, rateLimiter.getDelayed());
+    Assert.assertTrue(rateLimiter.getMaxWaitMillis() >= 40);
+    Assert.assertTrue(rateLimiter.getTotalWaitMillis() >= 150);
+  }
+
+  @Test
+  public void testConcurrentAcquire() throws Exception {
+    RateLimiter rateLimiter = new RateLimiter(50, 1);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<?>> futures = new ArrayList<>();
+    long start = System.nanoTime();
+
+    try {
+      for (int i = 0; i < 4; i++) {
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < 5; j++) {
+            rateLimiter.acquire();
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Assert.assertEquals(20, rateLimiter.getAcquired());
+    // no permit is handed out twice - 19 requests at 50 requests per second
+    Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 350);
+  }
+
+  @Test
+  public void testAdaptsToThrottling() {
+    RateLimiter rateLimiter = new RateLimiter(10, 5);
+
+    rateLimiter.onThrottled();
+    rateLimiter.onThrottled();
+    Assert.assertEquals(2.5, rateLimiter.getRate(), 0.001);
+    Assert.assertEquals(2, rateLimiter.getThrottled());
+
+    // recovers slowly and never beyond the configured rate
+    rateLimiter.onSuccess();
+    Assert.assertEquals(3.0, rateLimiter.getRate(), 0.001);
+    for (int i = 0; i < 100; i++) {
+      rateLimiter.onSuccess();
+    }
+    Assert.assertEquals(10, rateLimiter.getRate(), 0.001);
+
+    // unchanged limits keep the adapted rate
+    rateLimiter.onThrottled();
+    rateLimiter.configure(10, 5);
+    Assert.assertEquals(5, rateLimiter.getRate(), 0.001);
+  }
+
+  @Test
+  public void testClientReportsThrottledResponses() throws Exception {
+    HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", exchange -> {
+      byte[] body = "{\"message\":\"Too Many Attempts.\"}".getBytes(StandardCharsets.UTF_8);
+      exchange.sendResponseHeaders(429, body.length);
+
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    });
+    server.start();
+
+    RateLimiter rateLimiter = new RateLimiter(100, 10);
+    WagoClient wagoClient = new WagoClient();
+    wagoClient.setProjectId("test-project");
+    wagoClient.setToken("test-token");
+    wagoClient.setRateLimiter(rateLimiter);
+
+    try (CloseableHttpClient httpClient = wagoClient.forProject("other-project").getHttpClient();
+         CloseableHttpResponse response = httpClient.execute(
+             new HttpGet("http://localhost:" + server.getAddress().getPort() + "/"))) {
+      EntityUtils.consume(response.getEntity());
+
+      Assert.assertEquals(429, response.getStatusLine().getStatusCode());
+    } finally {
+      server.stop(0);
+    }
+
+    Assert.assertEquals(1, rateLimiter.getAcquired());
+    Assert.assertEquals(1, rateLimiter.getThrottled());
+    Assert.assertEquals(50, rateLimiter.getRate(), 0.001);
+  }
+}
@@ -0,0 +1,313 @@
+package com.ragedunicorn.tools.maven.http;
+
+import com.ragedunicorn.tools.maven.WagoClient;
+import com.ragedunicorn.tools.maven.log.DefaultLog;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import com.ragedunicorn.tools.maven.service.ReleaseService;
+import com.ragedunicorn.tools.maven.service.RetryPolicy;
+import com.ragedunicorn.tools.maven.service.WagoApiErrorParser;
+import com.ragedunicorn.tools.maven.service.WagoApiException;
+import com.ragedunicorn.tools.maven.stub.LoadHarness;
+import com.ragedunicorn.tools.maven.stub.WagoApiStub;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class WagoReleaseTransportTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testApacheTransport() throws Exception {
+    Path file = createFile();
+
+    try (WagoApiStub stub = WagoApiStub.start()) {
+      WagoClient wagoClient = createWagoClient(stub.getBaseUri());
+
+      try (HttpTransport transport = TransportType.APACHE.create(wagoClient)) {
+        Assert.assertEquals("apache", transport.getName());
+        Assert.assertTrue(createReleaseService(wagoClient, transport)
+            .createReleaseOperation(createMetadata(), file.toString()));
+      }
+
+      Assert.assertEquals(1, stub.getReleases().size());
+      Assert.assertEquals(Files.size(file), stub.getReleases().get(0).getFileSize());
+    }
+  }
+
+  @Test
+  public void testJdkTransport() throws Exception {
+    Assume.assumeTrue(JdkHttpTransport.isAvailable());
+    Path file = createFile();
+
+    try (WagoApiStub stub = WagoApiStub.start()) {
+      WagoClient wagoClient = createWagoClient(stub.getBaseUri());
+
+      try (HttpTransport transport = TransportType.AUTO.create(wagoClient)) {
+        Assert.assertEquals("jdk", transport.getName());
+        ReleaseService releaseService = createReleaseService(wagoClient, transport);
+        Assert.assertTrue(releaseService.createReleaseOperation(createMetadata(), file.toString()));
+        // the transport is shared between releases
+        Assert.assertTrue(releaseService.createReleaseOperation(createMetadata(), file.toString()));
+      }
+
+      Assert.assertEquals(2, stub.getReleases().size());
+      Assert.assertEquals(Files.size(file), stub.getReleases().get(1).getFileSize());
+    }
+  }
+
+  @Test
+  public void testJdkTransportReportsFailure() throws Exception {
+    Assume.assumeTrue(JdkHttpTransport.isAvailable());
+    Path file = createFile();
+
+    try (WagoApiStub stub = WagoApiStub.start()) {
+      WagoClient wagoClient = createWagoClient(stub.getBaseUri());
+      stub.enqueue(422, WagoApiStub.INVALID_DATA);
+
+      try (HttpTransport transport = TransportType.JDK.create(wagoClient)) {
+        createReleaseService(wagoClient, transport)
+            .createReleaseOperation(createMetadata(), file.toString());
+        Assert.fail("Expected release to fail");
+      } catch (WagoApiException e) {
+        Assert.assertEquals(422, e.getStatusCode());
+      }
+
+      Assert.assertTrue(stub.getReleases().isEmpty());
+    }
+  }
+
+  @Test
+  public void testJdkTransportReportsBodyFailureAsCause() throws Exception {
+    Assume.assumeTrue(JdkHttpTransport.isAvailable());
+
+    try (WagoApiStub stub = WagoApiStub.start()) {
+      WagoClient wagoClient = createWagoClient(stub.getBaseUri());
+      TransportRequest request = new TransportRequest("POST",
+          wagoClient.prepareEndpointUri("/api/projects/:projectId/upload-file"), new FailingBody());
+
+      try (HttpTransport transport = TransportType.JDK.create(wagoClient)) {
+        transport.execute(request).close();
+        Assert.fail("Expected request to fail");
+      } catch (IOException e) {
+        Assert.assertEquals("disk gone", e.getCause().getMessage());
+      }
+
+      Assert.assertTrue(stub.getReleases().isEmpty());
+    }
+  }
+
+  @Test
+  public void testJdkTransportAbortedBeforeSending() throws Exception {
+    Assume.assumeTrue(JdkHttpTransport.isAvailable());
+
+    try (WagoApiStub stub = WagoApiStub.start()) {
+      WagoClient wagoClient = createWagoClient(stub.getBaseUri());
+      TransportRequest request = new TransportRequest("GET",
+          wagoClient.prepareEndpointUri("/api/projects/:projectId/version"), null);
+      request.abort();
+
+      try (HttpTransport transport = TransportType.JDK.create(wagoClient)) {
+        transport.execute(request).close();
+        Assert.fail("Expected request to be aborted");
+      } catch (IOException e) {
+        Assert.assertEquals("Request aborted", e.getMessage());
+      }
+    }
+  }
+
+  @Test
+  public void testJdkTransportAppliesSocketTimeout() throws Exception {
+    Assume.assumeTrue(JdkHttpTransport.isAvailable());
+
+    try (WagoApiStub stub = WagoApiStub.start()) {
+      stub.setLatency(5000, 5000);
+      WagoClient wagoClient = createWagoClient(stub.getBaseUri());
+      wagoClient.setSocketTimeout(200);
+      TransportRequest request = new TransportRequest("GET",
+          wagoClient.prepareEndpointUri("/api/projects/:projectId/version"), null);
+      long start = System.nanoTime();
+
+      try (HttpTransport transport = TransportType.JDK.create(wagoClient)) {
+        transport.execute(request).close();
+        Assert.fail("Expected request to time out");
+      } catch (SocketTimeoutException e) {
+        Assert.assertTrue(e.getMessage().contains("200 ms"));
+      }
+
+      Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 4000);
+    }
+  }
+
+  @Test
+  public void testInMemoryTransport() throws Exception {
+    Path file = createFile();
+    WagoClient wagoClient = createWagoClient("http://localhost:1/api/projects/:projectId/version");
+    InMemoryHttpTransport transport = new InMemoryHttpTransport();
+    transport.enqueue(503, "<html>Service Unavailable</html>", "0");
+
+    Assert.assertTrue(createReleaseService(wagoClient, transport)
+        .createReleaseOperation(createMetadata(), file.toString()));
+
+    Assert.assertEquals(2, transport.getRequests().size());
+    InMemoryHttpTransport.RecordedRequest request = transport.getRequests().get(1);
+    Assert.assertEquals("POST", request.getMethod());
+    Assert.assertEquals("/api/projects/test-project/version", request.getUri().getPath());
+    String body = new String(request.getBody(), StandardCharsets.ISO_8859_1);
+    Assert.assertTrue(body.contains("name=\"metadata\""));
+    Assert.assertTrue(request.getBody().length > Files.size(file));
+    Assert.assertEquals(transport.getRequests().get(0).getBody().length + request.getBody().length,
+        transport.getBytesReceived());
+  }
+
+  @Test
+  public void testInMemoryTransportReportsFailure() throws Exception {
+    Path file = createFile();
+    WagoClient wagoClient = createWagoClient("http://localhost:1/api/projects/:projectId/version");
+    InMemoryHttpTransport transport = new InMemoryHttpTransport();
+    transport.setRecordBodies(false);
+    transport.enqueue(422, "{\"message\":\"" + WagoApiStub.INVALID_DATA + "\"}", null);
+
+    try {
+      createReleaseService(wagoClient, transport)
+          .createReleaseOperation(createMetadata(), file.toString());
+      Assert.fail("Expected release to fail");
+    } catch (WagoApiException e) {
+      Assert.assertEquals(422, e.getStatusCode());
+      Assert.assertTrue(e.getMessage().contains(WagoApiStub.INVALID_DATA));
+    }
+
+    Assert.assertEquals(1, transport.getRequests().size());
+    Assert.assertNull(transport.getRequests().get(0).getBody());
+    Assert.assertTrue(transport.getBytesReceived() > Files.size(file));
+  }
+
+  @Test
+  public void testSuccessBodyIsReadBounded() throws Exception {
+    Path file = createFile();
+    WagoClient wagoClient = createWagoClient("http://localhost:1/api/projects/:projectId/version");
+    EndlessBodyTransport transport = new EndlessBodyTransport();
+    ReleaseService releaseService = createReleaseService(wagoClient, transport);
+    releaseService.setErrorParser(new WagoApiErrorParser(4096));
+
+    Assert.assertTrue(releaseService.createReleaseOperation(createMetadata(), file.toString()));
+    Assert.assertTrue(transport.read.get() <= 4096);
+  }
+
+  @Test
+  public void testUnreadableChangelogFailsBeforeSending() throws Exception {
+    Path file = createFile();
+    WagoClient wagoClient = createWagoClient("http://localhost:1/api/projects/:projectId/version");
+    InMemoryHttpTransport transport = new InMemoryHttpTransport();
+    Metadata metadata = createMetadata();
+    metadata.setChangelogFile(temporaryFolder.getRoot().toPath().resolve("missing.md"));
+
+    try {
+      createReleaseService(wagoClient, transport).createReleaseOperation(metadata, file.toString());
+      Assert.fail("Expected release to fail");
+    } catch (MojoExecutionException e) {
+      Assert.assertTrue(e.getMessage().contains("Failed to read changelog"));
+    }
+
+    Assert.assertTrue(transport.getRequests().isEmpty());
+  }
+
+  /**
+   * Answers every request with a successful response whose body never ends.
+   */
+  private static final class EndlessBodyTransport implements HttpTransport {
+    private final AtomicLong read = new AtomicLong();
+
+    @Override
+    public String getName() {
+      return "endless";
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) {
+      InputStream body = new InputStream() {
+        @Override
+        public int read() {
+          read.incrementAndGet();
+          return 'K';
+        }
+      };
+
+      return new TransportResponse(201, Collections.emptyMap(), body);
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  private static final class FailingBody implements RequestBody {
+    @Override
+    public String getContentType() {
+      return "application/octet-stream";
+    }
+
+    @Override
+    public long getContentLength() {
+      return 1024;
+    }
+
+    @Override
+    public void writeTo(OutputStream outStream) throws IOException {
+      outStream.write(new byte[100]);
+      throw new IOException("disk gone");
+    }
+  }
+
+  private WagoClient createWagoClient(String baseUri) {
+    WagoClient wagoClient = new WagoClient();
+    wagoClient.setBaseUri(baseUri);
+    wagoClient.setProjectId("test-project");
+    wagoClient.setToken(WagoApiStub.TOKEN);
+
+    return wagoClient;
+  }
+
+  private ReleaseService createReleaseService(WagoClient wagoClient, HttpTransport transport) {
+    RetryPolicy retryPolicy = new RetryPolicy();
+    retryPolicy.setBaseDelay(10);
+    retryPolicy.setMaxDelay(50);
+
+    ReleaseService releaseService = new ReleaseService(wagoClient, new DefaultLog(0));
+    releaseService.setTransport(transport);
+    releaseService.setRetryPolicy(retryPolicy);
+
+    return releaseService;
+  }
+
+  private Path createFile() throws Exception {
+    Path file = temporaryFolder.getRoot().toPath().resolve("addon.zip");
+    LoadHarness.createArchive(file, 256 * 1024);
+
+    return file;
+  }
+
+  private Metadata createMetadata() {
+    Metadata metadata = new Metadata();
+    metadata.setLabel("addon");
+    metadata.setStability("stable");
+    metadata.setSupportedRetailPatch("10.2.7");
+    metadata.setChangelog("");
+
+    return metadata;
+  }
+}
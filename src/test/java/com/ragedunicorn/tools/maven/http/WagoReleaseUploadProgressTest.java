@@ -0,0 +1,23 @@
+package com.ragedunicorn.tools.maven.http;
+
+import com.ragedunicorn.tools.maven.log.DefaultLog;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class WagoReleaseUploadProgressTest {
+  @Test
+  public void testResumedBytesAreNotCountedAsTransferred() {
+    UploadProgress progress = new UploadProgress(new DefaultLog(0), 4096, 0);
+    progress.start(3072);
+    progress.update(1024);
+
+    Assert.assertEquals(4096, progress.getBytesSent());
+    Assert.assertEquals(1024, progress.getBytesTransferred());
+
+    progress.start();
+    progress.update(512);
+
+    Assert.assertEquals(512, progress.getBytesSent());
+    Assert.assertEquals(512, progress.getBytesTransferred());
+  }
+}
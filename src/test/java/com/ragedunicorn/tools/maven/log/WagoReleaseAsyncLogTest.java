@@ -0,0 +1,128 @@
+package com.ragedunicorn.tools.maven.log;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class WagoReleaseAsyncLogTest {
+  @Test
+  public void testMessagesAreWrittenInOrder() {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    AsyncLog log = new AsyncLog(createDefaultLog(out), 16, AsyncLog.DropPolicy.BLOCK);
+
+    for (int i = 0; i < 100; i++) {
+      log.info("message " + i);
+    }
+    log.warn("failure", new IllegalStateException("broken"));
+    log.flush();
+
+    String[] lines = toString(out).split(System.lineSeparator());
+    for (int i = 0; i < 100; i++) {
+      Assert.assertEquals("[INFO] message " + i, lines[i]);
+    }
+    Assert.assertEquals("[WARNING] failure", lines[100]);
+    Assert.assertEquals(IllegalStateException.class.getName() + ": broken", lines[101]);
+    Assert.assertEquals(0, log.getDropped());
+
+    log.close();
+    log.info("after close");
+    Assert.assertTrue(toString(out).endsWith("[INFO] after close" + System.lineSeparator()));
+  }
+
+  @Test
+  public void testDebugAndInfoAreDiscardedWhileQueueIsFull() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CountDownLatch writing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AsyncLog log = new AsyncLog(createDefaultLog(new BlockingOutputStream(out, writing, release)),
+        2, AsyncLog.DropPolicy.DISCARD);
+
+    log.info("blocks the writer");
+    Assert.assertTrue(writing.await(10, TimeUnit.SECONDS));
+    log.info("queued 1");
+    log.info("queued 2");
+    for (int i = 0; i < 10; i++) {
+      log.debug("discarded " + i);
+    }
+    Assert.assertEquals(10, log.getDropped());
+
+    // warnings wait for free space instead of being discarded
+    Thread warning = new Thread(() -> log.warn("never discarded"));
+    warning.start();
+    release.countDown();
+    warning.join(10000);
+    log.close();
+
+    String output = toString(out);
+    Assert.assertTrue(output.contains("[INFO] queued 2"));
+    Assert.assertTrue(output.contains("[WARNING] never discarded"));
+    Assert.assertFalse(output.contains("discarded 0"));
+    Assert.assertTrue(output.contains("10 log messages were discarded"));
+    Assert.assertEquals(0, log.getDropped());
+  }
+
+  @Test
+  public void testSupplierIsOnlyCalledIfLevelIsEnabled() {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    AtomicBoolean called = new AtomicBoolean();
+    AsyncLog log = new AsyncLog(new DefaultLog(DefaultLog.LOG_LEVEL_INFO, new PrintStream(out)));
+
+    log.debug(() -> {
+      called.set(true);
+      return "debug";
+    });
+    log.info(() -> "info");
+    log.close();
+
+    Assert.assertFalse(called.get());
+    Assert.assertEquals("[INFO] info" + System.lineSeparator(), toString(out));
+  }
+
+  private static DefaultLog createDefaultLog(OutputStream out) {
+    return new DefaultLog(DefaultLog.LOG_LEVEL_DEBUG, new PrintStream(out, true));
+  }
+
+  private static String toString(ByteArrayOutputStream out) {
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Blocks the first write until released.
+   */
+  private static final class BlockingOutputStream extends OutputStream {
+    private final OutputStream out;
+    private final CountDownLatch writing;
+    private final CountDownLatch release;
+
+    private BlockingOutputStream(OutputStream out, CountDownLatch writing,
+                                 CountDownLatch release) {
+      this.out = out;
+      this.writing = writing;
+      this.release = release;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      writing.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      out.write(b, off, len);
+    }
+  }
+}
@@ -0,0 +1,141 @@
+package com.ragedunicorn.tools.maven.service;
+
+import com.ragedunicorn.tools.maven.WagoClient;
+import com.ragedunicorn.tools.maven.http.HttpConnectionPool;
+import com.ragedunicorn.tools.maven.log.DefaultLog;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import com.ragedunicorn.tools.maven.model.ReleaseResult;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class WagoReleaseAsyncReleaseTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private HttpServer server;
+  private HttpConnectionPool connectionPool;
+  private final AtomicInteger uploads = new AtomicInteger();
+  private volatile int status = 201;
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/api/projects/", this::handle);
+    server.start();
+    connectionPool = new HttpConnectionPool(4, 30, 30);
+  }
+
+  @After
+  public void tearDown() {
+    connectionPool.close();
+    server.stop(0);
+  }
+
+  @Test
+  public void testAsyncReleaseIsSkippedOnceUploaded() throws Exception {
+    Path file = createFile();
+    ReleaseService releaseService = createReleaseService();
+    releaseService.setUploadCache(new UploadCache(
+        temporaryFolder.getRoot().toPath().resolve("upload-cache.json"), 10));
+
+    ReleaseResult result = releaseService.createReleaseAsync(createMetadata(), file.toString())
+        .get(10, TimeUnit.SECONDS);
+
+    Assert.assertEquals(ReleaseResult.Status.UPLOADED, result.getStatus());
+    Assert.assertEquals("test-project", result.getProjectId());
+    Assert.assertEquals(1, uploads.get());
+    // the connection opened while fingerprinting is used by the upload
+    Assert.assertEquals(1, connectionPool.getCreated());
+
+    result = releaseService.createReleaseAsync(createMetadata(), file.toString())
+        .get(10, TimeUnit.SECONDS);
+
+    Assert.assertEquals(ReleaseResult.Status.SKIPPED, result.getStatus());
+    Assert.assertEquals(1, uploads.get());
+  }
+
+  @Test
+  public void testFailedAsyncRelease() throws Exception {
+    Path file = createFile();
+    ReleaseService releaseService = createReleaseService();
+    status = 422;
+
+    try {
+      releaseService.createReleaseAsync(createMetadata(), file.toString()).get(10, TimeUnit.SECONDS);
+      Assert.fail("Expected release to fail");
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof MojoExecutionException);
+    }
+
+    try {
+      releaseService.createReleaseOperation(createMetadata(), file.toString());
+      Assert.fail("Expected release to fail");
+    } catch (MojoExecutionException e) {
+      Assert.assertTrue(e.getMessage().startsWith("Failed to create release"));
+    }
+  }
+
+  private ReleaseService createReleaseService() {
+    WagoClient wagoClient = new WagoClient();
+    wagoClient.setBaseUri("http://localhost:" + server.getAddress().getPort()
+        + "/api/projects/:projectId/version");
+    wagoClient.setProjectId("test-project");
+    wagoClient.setToken("test-token");
+    wagoClient.setConnectionPool(connectionPool);
+
+    return new ReleaseService(wagoClient, new DefaultLog(0));
+  }
+
+  private Path createFile() throws IOException {
+    Path file = temporaryFolder.newFile("addon.zip").toPath();
+    Files.write(file, "addon archive content".getBytes(StandardCharsets.UTF_8));
+
+    return file;
+  }
+
+  private Metadata createMetadata() {
+    Metadata metadata = new Metadata();
+    metadata.setLabel("addon");
+    metadata.setStability("stable");
+    metadata.setSupportedClassicPatch("1.14.3");
+
+    return metadata;
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (InputStream in = exchange.getRequestBody()) {
+      while (in.read() != -1) {
+        // drain the request body
+      }
+    }
+
+    byte[] body = (status == 201 ? "OK" : "{\"message\":\"The given data was invalid.\"}")
+        .getBytes(StandardCharsets.UTF_8);
+    if (status == 201) {
+      uploads.incrementAndGet();
+    }
+    exchange.sendResponseHeaders(status, body.length);
+
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+}
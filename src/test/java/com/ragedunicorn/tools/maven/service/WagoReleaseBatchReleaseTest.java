@@ -0,0 +1,201 @@
+package com.ragedunicorn.tools.maven.service;
+
+import com.ragedunicorn.tools.maven.WagoClient;
+import com.ragedunicorn.tools.maven.http.InMemoryHttpTransport;
+import com.ragedunicorn.tools.maven.log.DefaultLog;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import com.ragedunicorn.tools.maven.model.ReleaseRequest;
+import com.ragedunicorn.tools.maven.model.ReleaseResult;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+public class WagoReleaseBatchReleaseTest {
+  private static final String CONTENT = "addon archive content";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private HttpServer server;
+  // request bodies received by the stand-in server by project
+  private final Map<String, String> receivedBodies = new ConcurrentHashMap<>();
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/api/projects/", this::handle);
+    server.setExecutor(Executors.newFixedThreadPool(4));
+    server.start();
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+  }
+
+  @Test
+  public void testFailedReleaseDoesNotCancelOthers() throws Exception {
+    Path file = createFile("addon.zip");
+    List<ReleaseRequest> requests = Arrays.asList(
+        createRequest("project-1", file), createRequest("broken", file),
+        createRequest("project-2", file));
+
+    List<ReleaseResult> results = createBatchReleaseService(false).release(requests);
+
+    Assert.assertEquals(ReleaseResult.Status.UPLOADED, results.get(0).getStatus());
+    Assert.assertEquals(ReleaseResult.Status.FAILED, results.get(1).getStatus());
+    Assert.assertEquals(ReleaseResult.Status.UPLOADED, results.get(2).getStatus());
+    Assert.assertEquals("broken", results.get(1).getProjectId());
+    Assert.assertTrue(receivedBodies.get("project-1").contains(CONTENT));
+    Assert.assertTrue(receivedBodies.get("project-2").contains(CONTENT));
+  }
+
+  @Test
+  public void testReleasesUseTransportAndPermitsOfFactory() throws Exception {
+    Path file = createFile("addon.zip");
+    List<ReleaseRequest> requests = Arrays.asList(
+        createRequest("project-1", file), createRequest("project-2", file));
+    InMemoryHttpTransport transport = new InMemoryHttpTransport();
+    Semaphore uploadPermits = new Semaphore(1, true);
+
+    WagoClient wagoClient = new WagoClient();
+    wagoClient.setBaseUri("http://localhost:" + server.getAddress().getPort()
+        + "/api/projects/:projectId/version");
+    wagoClient.setToken("test-token");
+    BatchReleaseService batchReleaseService = new BatchReleaseService(wagoClient,
+        new DefaultLog(0), client -> {
+          ReleaseService releaseService = new ReleaseService(client, new DefaultLog(0));
+          releaseService.setTransport(transport);
+          releaseService.setUploadPermits(uploadPermits);
+
+          return releaseService;
+        });
+
+    List<ReleaseResult> results = batchReleaseService.release(requests);
+
+    Assert.assertEquals(ReleaseResult.Status.UPLOADED, results.get(0).getStatus());
+    Assert.assertEquals(ReleaseResult.Status.UPLOADED, results.get(1).getStatus());
+    Assert.assertEquals(2, transport.getRequests().size());
+    Assert.assertEquals(1, uploadPermits.availablePermits());
+    Assert.assertTrue(receivedBodies.isEmpty());
+  }
+
+  @Test
+  public void testFailFastCancelsRemainingReleases() throws Exception {
+    Path file = createFile("addon.zip");
+    List<ReleaseRequest> requests = Arrays.asList(
+        createRequest("broken", file), createRequest("project-1", file));
+
+    BatchReleaseService batchReleaseService = createBatchReleaseService(true);
+    batchReleaseService.setParallelism(1);
+    List<ReleaseResult> results = batchReleaseService.release(requests);
+
+    Assert.assertEquals(ReleaseResult.Status.FAILED, results.get(0).getStatus());
+    Assert.assertEquals(ReleaseResult.Status.CANCELLED, results.get(1).getStatus());
+    Assert.assertFalse(receivedBodies.containsKey("project-1"));
+  }
+
+  @Test
+  public void testReadManifest() throws Exception {
+    Path directory = temporaryFolder.newFolder("releases").toPath();
+    Path manifest = directory.resolve("manifest.json");
+    Files.write(manifest, ("{\"releases\": [{\"project_id\": \"project-1\", \"file\": \"addon.zip\","
+        + "\"metadata\": {\"label\": \"beta-build\", \"supported_retail_patch\": \"10.0.2\"}}]}")
+        .getBytes(StandardCharsets.UTF_8));
+
+    List<ReleaseRequest> requests = BatchReleaseService.readManifest(manifest);
+
+    Assert.assertEquals(1, requests.size());
+    Assert.assertEquals("project-1", requests.get(0).getProjectId());
+    Assert.assertEquals(directory.resolve("addon.zip").toString(), requests.get(0).getFile());
+    Assert.assertEquals("beta-build", requests.get(0).getMetadata().getLabel());
+    Assert.assertEquals("10.0.2", requests.get(0).getMetadata().getSupportedRetailPatch());
+  }
+
+  private BatchReleaseService createBatchReleaseService(boolean failFast) {
+    WagoClient wagoClient = new WagoClient();
+    wagoClient.setBaseUri("http://localhost:" + server.getAddress().getPort()
+        + "/api/projects/:projectId/version");
+    wagoClient.setToken("test-token");
+
+    BatchReleaseService batchReleaseService = new BatchReleaseService(wagoClient,
+        new DefaultLog(0), client -> new ReleaseService(client, new DefaultLog(0)));
+    batchReleaseService.setFailFast(failFast);
+
+    return batchReleaseService;
+  }
+
+  private Path createFile(String name) throws IOException {
+    Path file = temporaryFolder.newFile(name).toPath();
+    Files.write(file, CONTENT.getBytes(StandardCharsets.UTF_8));
+
+    return file;
+  }
+
+  private ReleaseRequest createRequest(String projectId, Path file) {
+    Metadata metadata = new Metadata();
+    metadata.setLabel("addon");
+    metadata.setStability("stable");
+    metadata.setSupportedClassicPatch("1.14.3");
+
+    ReleaseRequest request = new ReleaseRequest();
+    request.setProjectId(projectId);
+    request.setFile(file.toString());
+    request.setMetadata(metadata);
+
+    return request;
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    String projectId = exchange.getRequestURI().getPath().split("/")[3];
+    String body = new String(readAll(exchange.getRequestBody()), StandardCharsets.UTF_8);
+
+    if ("broken".equals(projectId)) {
+      respond(exchange, 422, "{\"message\":\"The given data was invalid.\"}");
+    } else {
+      receivedBodies.put(projectId, body);
+      respond(exchange, 201, "OK");
+    }
+  }
+
+  private static byte[] readAll(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4096];
+    int read;
+
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+
+    return out.toByteArray();
+  }
+
+  private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.sendResponseHeaders(status, bytes.length);
+
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+}
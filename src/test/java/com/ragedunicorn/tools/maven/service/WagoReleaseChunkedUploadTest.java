@@ -0,0 +1,241 @@
+package com.ragedunicorn.tools.maven.service;
+
+import com.ragedunicorn.tools.maven.WagoClient;
+import com.ragedunicorn.tools.maven.log.DefaultLog;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class WagoReleaseChunkedUploadTest {
+  private static final int CHUNK_SIZE = 1024;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private HttpServer server;
+  // parts received by the stand-in server by index
+  private final Map<Integer, byte[]> receivedParts = new ConcurrentHashMap<>();
+  // part requests in the order they arrived
+  private final List<Integer> partRequests = new CopyOnWriteArrayList<>();
+  private volatile int failingPart = -1;
+  private volatile boolean completed;
+  // upload that answers with 404 as if its session expired on the server
+  private volatile String expiredUpload;
+  private final AtomicInteger uploadsStarted = new AtomicInteger();
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/api/projects/test-project/version/chunks", this::handle);
+    server.start();
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+  }
+
+  @Test
+  public void testResumeFailedUploadFromCheckpoint() throws Exception {
+    byte[] content = new byte[CHUNK_SIZE * 4 + 100];
+    new Random(42).nextBytes(content);
+    Path file = temporaryFolder.newFile("addon.zip").toPath();
+    Files.write(file, content);
+    Path checkpointDirectory = temporaryFolder.newFolder("target").toPath();
+
+    ReleaseService releaseService = createReleaseService(checkpointDirectory);
+    failingPart = 2;
+
+    try {
+      releaseService.createReleaseOperation(createMetadata(), file.toString());
+      Assert.fail("Expected upload to fail");
+    } catch (MojoExecutionException e) {
+      Assert.assertTrue(e.getMessage().contains("upload part 2"));
+    }
+
+    Assert.assertEquals(1, listCheckpoints(checkpointDirectory).size());
+    Assert.assertFalse(completed);
+
+    failingPart = -1;
+    partRequests.clear();
+    releaseService.createReleaseOperation(createMetadata(), file.toString());
+
+    Assert.assertTrue(completed);
+    // parts 0 and 1 were acknowledged before the failure and must not be sent again
+    Assert.assertEquals(3, partRequests.size());
+    Assert.assertEquals(Integer.valueOf(2), partRequests.get(0));
+    Assert.assertArrayEquals(content, assembleParts());
+    Assert.assertTrue(listCheckpoints(checkpointDirectory).isEmpty());
+  }
+
+  @Test
+  public void testCheckpointsOfDifferentFilesDoNotCollide() throws Exception {
+    Path checkpointDirectory = temporaryFolder.newFolder("target").toPath();
+    ChunkedUploadService chunkedUploadService =
+        new ChunkedUploadService(null, new DefaultLog(0), checkpointDirectory, CHUNK_SIZE);
+    Metadata metadata = createMetadata();
+    Metadata otherVersion = createMetadata();
+    otherVersion.setLabel("addon-1.0.1");
+    Path file = temporaryFolder.getRoot().toPath().resolve("addon.zip");
+    Path otherFile = temporaryFolder.getRoot().toPath().resolve("addon-classic.zip");
+
+    Path checkpointFile = chunkedUploadService.getCheckpointFile("test-project", metadata, file);
+
+    Assert.assertTrue(checkpointFile.getFileName().toString()
+        .startsWith("wago-release-test-project-"));
+    Assert.assertEquals(checkpointFile,
+        chunkedUploadService.getCheckpointFile("test-project", createMetadata(), file));
+    Assert.assertNotEquals(checkpointFile,
+        chunkedUploadService.getCheckpointFile("test-project", metadata, otherFile));
+    Assert.assertNotEquals(checkpointFile,
+        chunkedUploadService.getCheckpointFile("test-project", otherVersion, file));
+  }
+
+  @Test
+  public void testExpiredUploadIsStartedAgain() throws Exception {
+    byte[] content = new byte[CHUNK_SIZE * 3];
+    new Random(7).nextBytes(content);
+    Path file = temporaryFolder.newFile("addon.zip").toPath();
+    Files.write(file, content);
+    Path checkpointDirectory = temporaryFolder.newFolder("target").toPath();
+
+    ReleaseService releaseService = createReleaseService(checkpointDirectory);
+    failingPart = 1;
+
+    try {
+      releaseService.createReleaseOperation(createMetadata(), file.toString());
+      Assert.fail("Expected upload to fail");
+    } catch (MojoExecutionException e) {
+      Assert.assertTrue(e.getMessage().contains("upload part 1"));
+    }
+
+    failingPart = -1;
+    expiredUpload = "upload-1";
+    releaseService.createReleaseOperation(createMetadata(), file.toString());
+
+    Assert.assertTrue(completed);
+    Assert.assertEquals(2, uploadsStarted.get());
+    Assert.assertArrayEquals(content, assembleParts());
+    Assert.assertTrue(listCheckpoints(checkpointDirectory).isEmpty());
+  }
+
+  private static List<Path> listCheckpoints(Path checkpointDirectory) throws IOException {
+    try (Stream<Path> files = Files.list(checkpointDirectory)) {
+      return files
+          .filter(file -> file.getFileName().toString().endsWith(".checkpoint.json"))
+          .collect(Collectors.toList());
+    }
+  }
+
+  private ReleaseService createReleaseService(Path checkpointDirectory) {
+    WagoClient wagoClient = new WagoClient();
+    wagoClient.setBaseUri("http://localhost:" + server.getAddress().getPort()
+        + "/api/projects/:projectId/version");
+    wagoClient.setProjectId("test-project");
+    wagoClient.setToken("test-token");
+
+    ReleaseService releaseService = new ReleaseService(wagoClient, new DefaultLog(0));
+    releaseService.setChunkedUpload(true);
+    releaseService.setChunkSize(CHUNK_SIZE);
+    releaseService.setCheckpointDirectory(checkpointDirectory);
+
+    return releaseService;
+  }
+
+  private Metadata createMetadata() {
+    Metadata metadata = new Metadata();
+    metadata.setLabel("addon");
+    metadata.setStability("stable");
+    metadata.setSupportedClassicPatch("1.14.3");
+
+    return metadata;
+  }
+
+  private byte[] assembleParts() {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    for (int i = 0; i < receivedParts.size(); i++) {
+      byte[] part = receivedParts.get(i);
+      out.write(part, 0, part.length);
+    }
+
+    return out.toByteArray();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    String[] segments = exchange.getRequestURI().getPath().split("/");
+    String last = segments[segments.length - 1];
+    byte[] body = readAll(exchange.getRequestBody());
+
+    if ("chunks".equals(last)) {
+      respond(exchange, 201, "{\"upload_id\":\"upload-" + uploadsStarted.incrementAndGet()
+          + "\"}");
+    } else if (segments[segments.length - 2].equals(expiredUpload)) {
+      respond(exchange, 404, "{\"message\":\"Upload not found\"}");
+    } else if ("complete".equals(last)) {
+      completed = true;
+      respond(exchange, 201, "OK");
+    } else {
+      int partIndex = Integer.parseInt(last);
+      partRequests.add(partIndex);
+
+      if (partIndex == failingPart) {
+        respond(exchange, 500, "failure");
+      } else {
+        receivedParts.put(partIndex, body);
+        respond(exchange, 204, null);
+      }
+    }
+  }
+
+  private static byte[] readAll(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4096];
+    int read;
+
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+
+    return out.toByteArray();
+  }
+
+  private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+    if (body == null) {
+      exchange.sendResponseHeaders(status, -1);
+      exchange.close();
+      return;
+    }
+
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.sendResponseHeaders(status, bytes.length);
+
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+}
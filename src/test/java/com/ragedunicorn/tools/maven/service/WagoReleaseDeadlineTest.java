@@ -0,0 +1,237 @@
+package com.ragedunicorn.tools.maven.service;
+
+import com.ragedunicorn.tools.maven.WagoClient;
+import com.ragedunicorn.tools.maven.http.HttpTransport;
+import com.ragedunicorn.tools.maven.http.TransportRequest;
+import com.ragedunicorn.tools.maven.http.TransportResponse;
+import com.ragedunicorn.tools.maven.log.DefaultLog;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class WagoReleaseDeadlineTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private HttpServer server;
+  // holds back the responses of a stalled server
+  private final CountDownLatch stall = new CountDownLatch(1);
+  private volatile int status = 201;
+  private volatile boolean stalled;
+  // amount of first requests whose responses are held back
+  private volatile int stalledRequests;
+  private final AtomicInteger requests = new AtomicInteger();
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/api/projects/", this::handle);
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.start();
+  }
+
+  @After
+  public void tearDown() {
+    stall.countDown();
+    server.stop(0);
+  }
+
+  @Test
+  public void testStalledResponseHitsDeadline() throws Exception {
+    stalled = true;
+    ReleaseService releaseService = createReleaseService(createWagoClient());
+    releaseService.setReleaseTimeout(500);
+    long start = System.nanoTime();
+
+    try {
+      releaseService.createReleaseOperation(createMetadata(), createFile().toString());
+      Assert.fail("Expected release to fail");
+    } catch (DeadlineExceededException e) {
+      Assert.assertEquals(Deadline.RESPONSE_READ, e.getPhase());
+      Assert.assertTrue(e.getMessage().contains("response read"));
+    }
+
+    Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+  }
+
+  @Test
+  public void testRetryBeyondDeadlineIsNotAttempted() throws Exception {
+    status = 503;
+    ReleaseService releaseService = createReleaseService(createWagoClient());
+    releaseService.setReleaseTimeout(5000);
+    RetryPolicy retryPolicy = new RetryPolicy();
+    retryPolicy.setBaseDelay(5000);
+    retryPolicy.setMaxDelay(5000);
+    releaseService.setRetryPolicy(retryPolicy);
+
+    try {
+      releaseService.createReleaseOperation(createMetadata(), createFile().toString());
+      Assert.fail("Expected release to fail");
+    } catch (DeadlineExceededException e) {
+      Assert.assertEquals(Deadline.RETRY_DELAY, e.getPhase());
+      Assert.assertTrue(e.getCause() instanceof WagoApiException);
+    }
+  }
+
+  @Test
+  public void testSocketTimeout() throws Exception {
+    stalled = true;
+    WagoClient wagoClient = createWagoClient();
+    wagoClient.setSocketTimeout(200);
+    ReleaseService releaseService = createReleaseService(wagoClient);
+    releaseService.setRetryPolicy(RetryPolicy.noRetry());
+
+    try {
+      releaseService.createReleaseOperation(createMetadata(), createFile().toString());
+      Assert.fail("Expected release to fail");
+    } catch (MojoExecutionException e) {
+      Assert.assertFalse(e instanceof DeadlineExceededException);
+      Assert.assertTrue(e.getCause() instanceof SocketTimeoutException);
+    }
+  }
+
+  @Test
+  public void testLostResponseIsNotRetried() throws Exception {
+    stalled = true;
+    WagoClient wagoClient = createWagoClient();
+    wagoClient.setSocketTimeout(200);
+    ReleaseService releaseService = createReleaseService(wagoClient);
+    RetryPolicy retryPolicy = new RetryPolicy();
+    retryPolicy.setBaseDelay(10);
+    retryPolicy.setMaxDelay(50);
+    releaseService.setRetryPolicy(retryPolicy);
+
+    try {
+      releaseService.createReleaseOperation(createMetadata(), createFile().toString());
+      Assert.fail("Expected release to fail");
+    } catch (MojoExecutionException e) {
+      Assert.assertTrue(e.getMessage().contains("Check on Wago.io"));
+      Assert.assertTrue(e.getCause() instanceof SocketTimeoutException);
+    }
+
+    Assert.assertEquals(1, requests.get());
+  }
+
+  @Test
+  public void testSocketTimeoutWithinDeadlineIsRetried() throws Exception {
+    stalledRequests = 1;
+    WagoClient wagoClient = createWagoClient();
+    wagoClient.setSocketTimeout(200);
+    RetryPolicy retryPolicy = new RetryPolicy();
+    retryPolicy.setBaseDelay(10);
+    retryPolicy.setMaxDelay(50);
+    Deadline deadline = new Deadline(60000);
+    URI uri = wagoClient.prepareEndpointUri("/api/projects/:projectId/version");
+
+    try (HttpTransport transport = wagoClient.createTransport()) {
+      int statusCode = retryPolicy.execute("check version", new DefaultLog(0), deadline, () -> {
+        TransportRequest request = new TransportRequest("GET", uri, null);
+
+        return deadline.execute(request, () -> {
+          try (TransportResponse response = transport.execute(request)) {
+            return response.getStatusCode();
+          }
+        });
+      });
+
+      Assert.assertEquals(201, statusCode);
+    }
+
+    Assert.assertEquals(2, requests.get());
+  }
+
+  @Test
+  public void testTimeoutsAreLimitedByDeadline() throws Exception {
+    TransportRequest request = new TransportRequest("GET", URI.create("http://localhost"), null);
+    new Deadline(1000).execute(request, () -> null);
+
+    Assert.assertTrue(request.getTimeoutMillis() > 0 && request.getTimeoutMillis() <= 1000);
+
+    TransportRequest unlimited = new TransportRequest("GET", URI.create("http://localhost"), null);
+    Deadline.none().execute(unlimited, () -> null);
+
+    Assert.assertEquals(0, unlimited.getTimeoutMillis());
+    Assert.assertEquals(Long.MAX_VALUE, Deadline.none().remainingMillis());
+  }
+
+  private WagoClient createWagoClient() {
+    WagoClient wagoClient = new WagoClient();
+    wagoClient.setBaseUri("http://localhost:" + server.getAddress().getPort()
+        + "/api/projects/:projectId/version");
+    wagoClient.setProjectId("test-project");
+    wagoClient.setToken("test-token");
+
+    return wagoClient;
+  }
+
+  private ReleaseService createReleaseService(WagoClient wagoClient) {
+    return new ReleaseService(wagoClient, new DefaultLog(0));
+  }
+
+  private Path createFile() throws IOException {
+    Path file = temporaryFolder.newFile("addon.zip").toPath();
+    Files.write(file, "addon archive content".getBytes(StandardCharsets.UTF_8));
+
+    return file;
+  }
+
+  private Metadata createMetadata() {
+    Metadata metadata = new Metadata();
+    metadata.setLabel("addon");
+    metadata.setStability("stable");
+    metadata.setSupportedClassicPatch("1.14.3");
+
+    return metadata;
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    int request = requests.incrementAndGet();
+
+    try (InputStream in = exchange.getRequestBody()) {
+      while (in.read() != -1) {
+        // drain the request body
+      }
+    }
+
+    if (stalled || request <= stalledRequests) {
+      try {
+        stall.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    byte[] body = (status == 201 ? "OK" : "{\"message\":\"unavailable\"}")
+        .getBytes(StandardCharsets.UTF_8);
+    if (status == 503) {
+      // requests a delay beyond the deadline regardless of the jitter of the retry policy
+      exchange.getResponseHeaders().add("Retry-After", "30");
+    }
+    exchange.sendResponseHeaders(status, body.length);
+
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+}
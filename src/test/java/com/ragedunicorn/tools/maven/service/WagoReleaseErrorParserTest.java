@@ -0,0 +1,104 @@
+package com.ragedunicorn.tools.maven.service;
+
+import com.ragedunicorn.tools.maven.model.WagoApiClientError;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class WagoReleaseErrorParserTest {
+  @Test
+  public void testParseValidationErrors() throws Exception {
+    String body = "{\"message\":\"The given data was invalid.\",\"code\":422,"
+        + "\"errors\":{\"file\":[\"The file must be a zip.\",\"The file is too large.\"],"
+        + "\"stability\":\"The stability is invalid.\",\"unknown\":{\"nested\":[1,2]}}}";
+
+    Object reason = new WagoApiErrorParser().parseContent(toStream(body));
+
+    Assert.assertTrue(reason instanceof WagoApiClientError);
+    WagoApiClientError error = (WagoApiClientError) reason;
+    Assert.assertEquals("The given data was invalid.", error.getMessage());
+    Assert.assertEquals(Arrays.asList("The file must be a zip.", "The file is too large."),
+        error.getErrors().getFile());
+    Assert.assertEquals(Collections.singletonList("The stability is invalid."),
+        error.getErrors().getStability());
+    // lists are only allocated for fields with errors
+    Assert.assertNull(error.getErrors().metadata);
+    Assert.assertTrue(error.getErrors().getMetadata().isEmpty());
+  }
+
+  @Test
+  public void testHtmlBodyIsReportedTruncated() throws Exception {
+    StringBuilder body = new StringBuilder("<html><body><h1>502 Bad Gateway</h1>");
+    for (int i = 0; i < 1000; i++) {
+      body.append("<p>padding</p>");
+    }
+
+    Object reason = new WagoApiErrorParser().parseContent(toStream(body.toString()));
+
+    Assert.assertTrue(reason instanceof String);
+    Assert.assertTrue(((String) reason).startsWith("<html><body><h1>502 Bad Gateway</h1>"));
+    Assert.assertTrue(((String) reason).endsWith("... (truncated)"));
+    Assert.assertTrue(((String) reason).length() < 1100);
+  }
+
+  @Test
+  public void testShortTextBodyIsReportedAsIs() throws Exception {
+    Assert.assertEquals("Bad Gateway",
+        new WagoApiErrorParser().parseContent(toStream("Bad Gateway\n")));
+    Assert.assertEquals("", new WagoApiErrorParser().parseContent(null));
+  }
+
+  @Test
+  public void testHugeBodyIsNotReadCompletely() throws Exception {
+    EndlessInputStream content = new EndlessInputStream();
+
+    Object reason = new WagoApiErrorParser(4096).parseContent(content);
+
+    Assert.assertTrue(reason instanceof String);
+    Assert.assertTrue(((String) reason).endsWith("... (truncated)"));
+    Assert.assertTrue(content.read <= 4097);
+  }
+
+  @Test
+  public void testJsonBeyondMaxResponseSizeIsNotParsed() throws Exception {
+    StringBuilder body = new StringBuilder("{\"message\":\"");
+    for (int i = 0; i < 2000; i++) {
+      body.append("long message ");
+    }
+    body.append("\"}");
+
+    Object reason = new WagoApiErrorParser(1024).parseContent(toStream(body.toString()));
+
+    Assert.assertTrue(reason instanceof String);
+    Assert.assertTrue(((String) reason).startsWith("{\"message\":\"long message"));
+  }
+
+  private static InputStream toStream(String body) {
+    return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * A response body that never ends.
+   */
+  private static class EndlessInputStream extends InputStream {
+    private long read;
+
+    @Override
+    public int read() {
+      read++;
+      return '{';
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) {
+      Arrays.fill(buffer, offset, offset + length, (byte) '[');
+      read += length;
+      return length;
+    }
+  }
+}
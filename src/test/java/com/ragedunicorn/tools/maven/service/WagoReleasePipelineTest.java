@@ -0,0 +1,111 @@
+package com.ragedunicorn.tools.maven.service;
+
+import com.ragedunicorn.tools.maven.WagoClient;
+import com.ragedunicorn.tools.maven.archive.ArchiveValidator;
+import com.ragedunicorn.tools.maven.log.DefaultLog;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import com.ragedunicorn.tools.maven.model.ReleaseRequest;
+import com.ragedunicorn.tools.maven.model.ReleaseResult;
+import com.ragedunicorn.tools.maven.stub.LoadHarness;
+import com.ragedunicorn.tools.maven.stub.WagoApiStub;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class WagoReleasePipelineTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private WagoApiStub stub;
+
+  @Before
+  public void setUp() throws Exception {
+    stub = WagoApiStub.start();
+    stub.setLatency(20, 40);
+  }
+
+  @After
+  public void tearDown() {
+    stub.close();
+  }
+
+  @Test
+  public void testReleasesAreBoundedAndReportedInSubmissionOrder() throws Exception {
+    Path file = temporaryFolder.getRoot().toPath().resolve("addon.zip");
+    LoadHarness.createArchive(file, 16 * 1024);
+
+    try (ReleasePipeline pipeline = createPipeline(2)) {
+      for (int module = 0; module < 5; module++) {
+        pipeline.submit("module-" + module, createRequest("project-" + module, file.toString()));
+      }
+      pipeline.cancel("module-5", createRequest("project-5", file.toString()),
+          "Module was not built");
+      pipeline.submit("module-6", createRequest("project-6", null));
+
+      List<ReleasePipeline.ModuleRelease> releases = pipeline.await();
+
+      Assert.assertEquals(7, releases.size());
+      for (int module = 0; module < 5; module++) {
+        Assert.assertEquals("module-" + module, releases.get(module).getModule());
+        Assert.assertEquals(ReleaseResult.Status.UPLOADED,
+            releases.get(module).getResult().getStatus());
+      }
+      Assert.assertEquals(ReleaseResult.Status.CANCELLED, releases.get(5).getResult().getStatus());
+      Assert.assertEquals(ReleaseResult.Status.FAILED, releases.get(6).getResult().getStatus());
+      Assert.assertEquals("Missing release file", releases.get(6).getResult().getError());
+    }
+
+    Assert.assertEquals(5, stub.getReleases().size());
+    Assert.assertTrue(stub.getMaxActiveRequests() <= 2);
+  }
+
+  @Test
+  public void testInvalidArchiveIsNotUploaded() throws Exception {
+    Path file = temporaryFolder.newFile("addon.zip").toPath();
+    Files.write(file, "not an archive".getBytes(StandardCharsets.UTF_8));
+
+    try (ReleasePipeline pipeline = createPipeline(1)) {
+      pipeline.setArchiveValidator(new ArchiveValidator(1));
+      pipeline.submit("module", createRequest("project", file.toString()));
+
+      ReleaseResult result = pipeline.await().get(0).getResult();
+
+      Assert.assertEquals(ReleaseResult.Status.FAILED, result.getStatus());
+      Assert.assertTrue(result.getError().startsWith("Invalid archive"));
+    }
+
+    Assert.assertEquals(0, stub.getRequests());
+  }
+
+  private ReleasePipeline createPipeline(int parallelism) {
+    WagoClient wagoClient = new WagoClient();
+    wagoClient.setBaseUri(stub.getBaseUri());
+    wagoClient.setToken(WagoApiStub.TOKEN);
+
+    return new ReleasePipeline(wagoClient, new DefaultLog(0),
+        client -> new ReleaseService(client, new DefaultLog(0)), parallelism);
+  }
+
+  private ReleaseRequest createRequest(String projectId, String file) {
+    Metadata metadata = new Metadata();
+    metadata.setLabel("addon");
+    metadata.setStability("stable");
+    metadata.setSupportedRetailPatch("10.2.7");
+    metadata.setChangelog("");
+
+    ReleaseRequest request = new ReleaseRequest();
+    request.setProjectId(projectId);
+    request.setFile(file);
+    request.setMetadata(metadata);
+
+    return request;
+  }
+}
@@ -0,0 +1,154 @@
+package com.ragedunicorn.tools.maven.service;
+
+import com.ragedunicorn.tools.maven.WagoClient;
+import com.ragedunicorn.tools.maven.log.DefaultLog;
+import com.ragedunicorn.tools.maven.model.AggregateReleaseReport;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import com.ragedunicorn.tools.maven.model.ReleaseMetrics;
+import com.ragedunicorn.tools.maven.model.ReleaseReport;
+import com.ragedunicorn.tools.maven.model.ReleaseResult;
+import com.ragedunicorn.tools.maven.stub.LoadHarness;
+import com.ragedunicorn.tools.maven.stub.WagoApiStub;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class WagoReleaseReportTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private WagoApiStub stub;
+  private final List<ReleaseMetrics> metrics = new CopyOnWriteArrayList<>();
+
+  @Before
+  public void setUp() throws IOException {
+    stub = WagoApiStub.start();
+  }
+
+  @After
+  public void tearDown() {
+    stub.close();
+  }
+
+  @Test
+  public void testMetricsOfUploadedRelease() throws Exception {
+    Path file = createArchive();
+    stub.setLatency(50, 50);
+
+    Assert.assertTrue(createReleaseService().createReleaseOperation(createMetadata(),
+        file.toString()));
+
+    Assert.assertEquals(1, metrics.size());
+    ReleaseMetrics release = metrics.get(0);
+    Assert.assertEquals(ReleaseResult.Status.UPLOADED, release.getStatus());
+    Assert.assertEquals(file.toString(), release.getSource());
+    Assert.assertNull(release.getError());
+    Assert.assertEquals(1, release.getAttempts());
+    Assert.assertEquals(0, release.getRetries());
+    Assert.assertTrue(release.getBytesSent() > Files.size(file));
+    // the small request fits into the socket buffers while the stand-in delays its answer
+    Assert.assertTrue(release.getServerResponseMillis() >= 40);
+    Assert.assertTrue(release.getDurationMillis() >= release.getConnectionSetupMillis()
+        + release.getUploadMillis() + release.getServerResponseMillis());
+  }
+
+  @Test
+  public void testMetricsOfFailedRelease() throws Exception {
+    Path file = createArchive();
+    stub.enqueue(500, "{\"message\":\"Server Error\"}");
+    stub.enqueue(422, WagoApiStub.validationError(null));
+
+    try {
+      createReleaseService().createReleaseOperation(createMetadata(), file.toString());
+      Assert.fail("Expected release to fail");
+    } catch (MojoExecutionException e) {
+      Assert.assertTrue(e.getMessage().contains("status: 422"));
+    }
+
+    Assert.assertEquals(1, metrics.size());
+    ReleaseMetrics release = metrics.get(0);
+    Assert.assertEquals(ReleaseResult.Status.FAILED, release.getStatus());
+    Assert.assertTrue(release.getError().contains("status: 422"));
+    Assert.assertEquals(2, release.getAttempts());
+    Assert.assertEquals(1, release.getRetries());
+  }
+
+  @Test
+  public void testAggregateReport() {
+    ReleaseReport first = createReport("com.example:first", ReleaseResult.Status.UPLOADED, null);
+    ReleaseReport second = createReport("com.example:second", ReleaseResult.Status.FAILED,
+        new MojoExecutionException("failed"));
+
+    AggregateReleaseReport aggregate = new AggregateReleaseReport(Arrays.asList(first, second));
+
+    Assert.assertEquals(ReleaseReport.Status.FAILURE, aggregate.getStatus());
+    Assert.assertEquals(2, aggregate.getReleases());
+    Assert.assertEquals(1, aggregate.getFailedReleases());
+    Assert.assertEquals(2, aggregate.getRetries());
+    Assert.assertEquals(2048, aggregate.getBytesSent());
+    Assert.assertEquals(2, aggregate.getModules().size());
+  }
+
+  private ReleaseReport createReport(String module, ReleaseResult.Status status,
+                                     Throwable failure) {
+    ReleaseMetrics release = new ReleaseMetrics();
+    release.setStatus(status);
+    release.setBytesSent(1024);
+    release.setUploadMillis(10);
+    release.setRetries(1);
+
+    ReleaseReport report = new ReleaseReport(module);
+    report.addRelease(release);
+    report.finish(failure);
+
+    Assert.assertEquals(1024, report.getBytesSent());
+    Assert.assertEquals(1024 * 100, report.getThroughput());
+
+    return report;
+  }
+
+  private ReleaseService createReleaseService() {
+    WagoClient wagoClient = new WagoClient();
+    wagoClient.setBaseUri(stub.getBaseUri());
+    wagoClient.setProjectId("test-project");
+    wagoClient.setToken(WagoApiStub.TOKEN);
+    wagoClient.setRateLimiter(null);
+
+    RetryPolicy retryPolicy = new RetryPolicy();
+    retryPolicy.setBaseDelay(10);
+    retryPolicy.setMaxDelay(50);
+
+    ReleaseService releaseService = new ReleaseService(wagoClient, new DefaultLog(0));
+    releaseService.setRetryPolicy(retryPolicy);
+    releaseService.setMetricsListener(metrics::add);
+
+    return releaseService;
+  }
+
+  private Path createArchive() throws IOException {
+    Path file = temporaryFolder.getRoot().toPath().resolve("addon.zip");
+    LoadHarness.createArchive(file, 8 * 1024);
+
+    return file;
+  }
+
+  private Metadata createMetadata() {
+    Metadata metadata = new Metadata();
+    metadata.setLabel("addon");
+    metadata.setStability("stable");
+    metadata.setSupportedClassicPatch("1.14.3");
+
+    return metadata;
+  }
+}
@@ -0,0 +1,186 @@
+package com.ragedunicorn.tools.maven.service;
+
+import com.ragedunicorn.tools.maven.WagoClient;
+import com.ragedunicorn.tools.maven.log.DefaultLog;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class WagoReleaseRetryPolicyTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private HttpServer server;
+  // statuses answered by the stand-in server in order - 201 once empty
+  private final Queue<Integer> statuses = new ConcurrentLinkedQueue<>();
+  // sizes of the received request bodies
+  private final List<Integer> bodySizes = new CopyOnWriteArrayList<>();
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/api/projects/", this::handle);
+    server.start();
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+  }
+
+  @Test
+  public void testTransientFailureIsRetried() throws Exception {
+    Path file = createFile();
+    statuses.add(503);
+    statuses.add(429);
+
+    Assert.assertTrue(createReleaseService().createReleaseOperation(createMetadata(),
+        file.toString()));
+
+    Assert.assertEquals(3, bodySizes.size());
+    // the file is streamed again on every attempt
+    for (int bodySize : bodySizes) {
+      Assert.assertTrue(bodySize > Files.size(file));
+    }
+  }
+
+  @Test
+  public void testFatalFailureIsNotRetried() throws Exception {
+    Path file = createFile();
+    statuses.add(422);
+
+    try {
+      createReleaseService().createReleaseOperation(createMetadata(), file.toString());
+      Assert.fail("Expected release to fail");
+    } catch (WagoApiException e) {
+      Assert.assertEquals(422, e.getStatusCode());
+    }
+
+    Assert.assertEquals(1, bodySizes.size());
+  }
+
+  @Test
+  public void testGiveUpAfterMaxAttempts() throws Exception {
+    Path file = createFile();
+    for (int i = 0; i < 5; i++) {
+      statuses.add(500);
+    }
+
+    try {
+      createReleaseService().createReleaseOperation(createMetadata(), file.toString());
+      Assert.fail("Expected release to fail");
+    } catch (MojoExecutionException e) {
+      Assert.assertTrue(e.getMessage().contains("status: 500"));
+    }
+
+    Assert.assertEquals(3, bodySizes.size());
+  }
+
+  @Test
+  public void testComputeDelay() {
+    RetryPolicy retryPolicy = new RetryPolicy();
+    retryPolicy.setBaseDelay(100);
+    retryPolicy.setMaxDelay(1000);
+
+    for (int attempt = 1; attempt < 40; attempt++) {
+      long delay = retryPolicy.computeDelay(attempt, -1);
+      Assert.assertTrue(delay >= 0);
+      Assert.assertTrue(delay <= Math.min(1000, 100L << Math.min(attempt - 1, 20)));
+    }
+
+    Assert.assertEquals(5000, retryPolicy.computeDelay(1, 5000));
+    Assert.assertTrue(retryPolicy.isRetryable(503));
+    Assert.assertFalse(retryPolicy.isRetryable(401));
+  }
+
+  private ReleaseService createReleaseService() {
+    WagoClient wagoClient = new WagoClient();
+    wagoClient.setBaseUri("http://localhost:" + server.getAddress().getPort()
+        + "/api/projects/:projectId/version");
+    wagoClient.setProjectId("test-project");
+    wagoClient.setToken("test-token");
+
+    RetryPolicy retryPolicy = new RetryPolicy();
+    retryPolicy.setBaseDelay(10);
+    retryPolicy.setMaxDelay(50);
+
+    ReleaseService releaseService = new ReleaseService(wagoClient, new DefaultLog(0));
+    releaseService.setRetryPolicy(retryPolicy);
+
+    return releaseService;
+  }
+
+  private Path createFile() throws IOException {
+    byte[] content = new byte[64 * 1024];
+    new Random(3).nextBytes(content);
+    Path file = temporaryFolder.newFile("addon.zip").toPath();
+    Files.write(file, content);
+
+    return file;
+  }
+
+  private Metadata createMetadata() {
+    Metadata metadata = new Metadata();
+    metadata.setLabel("addon");
+    metadata.setStability("stable");
+    metadata.setSupportedClassicPatch("1.14.3");
+
+    return metadata;
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    bodySizes.add(readAll(exchange.getRequestBody()).length);
+    Integer status = statuses.poll();
+
+    if (status == null) {
+      respond(exchange, 201, "OK");
+    } else {
+      if (status == 429) {
+        exchange.getResponseHeaders().add("Retry-After", "0");
+      }
+      respond(exchange, status, "{\"message\":\"failure\"}");
+    }
+  }
+
+  private static byte[] readAll(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4096];
+    int read;
+
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+
+    return out.toByteArray();
+  }
+
+  private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.sendResponseHeaders(status, bytes.length);
+
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package com.ragedunicorn.tools.maven.service;
+
+import com.ragedunicorn.tools.maven.archive.DirectoryArchive;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class WagoReleaseUploadCacheTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testFingerprintCoversFileAndMetadata() throws Exception {
+    Path file = temporaryFolder.newFile("addon.zip").toPath();
+    Files.write(file, "content".getBytes(StandardCharsets.UTF_8));
+    UploadCache uploadCache = new UploadCache(temporaryFolder.getRoot().toPath()
+        .resolve("cache.json"), 10);
+
+    Metadata metadata = createMetadata("changelog");
+    String fingerprint = uploadCache.fingerprint(metadata, file);
+
+    Assert.assertEquals(64, fingerprint.length());
+    Assert.assertEquals(fingerprint, uploadCache.fingerprint(createMetadata("changelog"), file));
+    Assert.assertNotEquals(fingerprint, uploadCache.fingerprint(createMetadata("other"), file));
+
+    Files.write(file, "changed content".getBytes(StandardCharsets.UTF_8));
+    Assert.assertNotEquals(fingerprint, uploadCache.fingerprint(metadata, file));
+  }
+
+  @Test
+  public void testDirectoryFingerprintSeparatesNamesAndContents() throws Exception {
+    Path first = temporaryFolder.newFolder("first", "Addon").toPath();
+    Files.write(first.resolve("a"), "b".getBytes(StandardCharsets.UTF_8));
+    Path second = temporaryFolder.newFolder("second", "Addon").toPath();
+    Files.write(second.resolve("ab"), new byte[0]);
+    UploadCache uploadCache = new UploadCache(temporaryFolder.getRoot().toPath()
+        .resolve("cache.json"), 10);
+
+    Metadata metadata = createMetadata("changelog");
+    Assert.assertNotEquals(uploadCache.fingerprint(metadata, new DirectoryArchive(first, null, null)),
+        uploadCache.fingerprint(metadata, new DirectoryArchive(second, null, null)));
+  }
+
+  @Test
+  public void testEvictLeastRecentlyUsedRelease() throws Exception {
+    Path indexFile = temporaryFolder.getRoot().toPath().resolve("cache/index.json");
+    UploadCache uploadCache = new UploadCache(indexFile, 2);
+
+    uploadCache.put("project", "a");
+    uploadCache.put("project", "b");
+    uploadCache.put("project", "a");
+    uploadCache.put("project", "c");
+
+    // a fresh instance only sees the persisted index
+    UploadCache reloaded = new UploadCache(indexFile, 2);
+    Assert.assertTrue(reloaded.contains("project", "a"));
+    Assert.assertFalse(reloaded.contains("project", "b"));
+    Assert.assertTrue(reloaded.contains("project", "c"));
+    Assert.assertFalse(reloaded.contains("other-project", "c"));
+  }
+
+  private Metadata createMetadata(String changelog) {
+    Metadata metadata = new Metadata();
+    metadata.setLabel("addon");
+    metadata.setStability("stable");
+    metadata.setChangelog(changelog);
+
+    return metadata;
+  }
+}
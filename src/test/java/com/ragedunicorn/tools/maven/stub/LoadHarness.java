@@ -0,0 +1,260 @@
+package com.ragedunicorn.tools.maven.stub;
+
+import com.ragedunicorn.tools.maven.WagoClient;
+import com.ragedunicorn.tools.maven.http.HttpConnectionPool;
+import com.ragedunicorn.tools.maven.log.DefaultLog;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import com.ragedunicorn.tools.maven.service.ReleaseService;
+import com.ragedunicorn.tools.maven.service.RetryPolicy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Drives many concurrent releases through the {@link ReleaseService} and reports throughput and
+ * latency percentiles. Every release is uploaded by its own release service like the releases of
+ * a manifest. Can be run standalone against a {@link WagoApiStub}:
+ *
+ * <pre>
+ * LoadHarness [releases] [concurrency] [archive size in KB] [stub latency in ms]
+ * </pre>
+ */
+public class LoadHarness {
+  private final WagoClient wagoClient;
+  private final Function<WagoClient, ReleaseService> releaseServiceFactory;
+  // total amount of releases
+  private int releases = 100;
+  // amount of releases running at the same time
+  private int concurrency = 8;
+  // releases are spread over this many projects
+  private int projects = 4;
+
+  /**
+   * Create a new harness.
+   *
+   * @param wagoClient            The client of the targeted Api. The project id is set per
+   *                              release
+   * @param releaseServiceFactory Creates the release service of a single release
+   */
+  public LoadHarness(WagoClient wagoClient,
+                     Function<WagoClient, ReleaseService> releaseServiceFactory) {
+    this.wagoClient = wagoClient;
+    this.releaseServiceFactory = releaseServiceFactory;
+  }
+
+  public void setReleases(int releases) {
+    this.releases = releases;
+  }
+
+  public void setConcurrency(int concurrency) {
+    this.concurrency = concurrency;
+  }
+
+  public void setProjects(int projects) {
+    this.projects = projects;
+  }
+
+  /**
+   * Upload the same archive the configured amount of times.
+   *
+   * @param metadata The metadata of every release
+   * @param archive  The archive of every release
+   * @return The measured report
+   * @throws InterruptedException If interrupted while waiting for the releases
+   */
+  public Report run(Metadata metadata, Path archive) throws InterruptedException {
+    final ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+    final List<Future<Long>> results = new ArrayList<>(releases);
+    final long start = System.nanoTime();
+
+    try {
+      for (int i = 0; i < releases; i++) {
+        final WagoClient client = wagoClient.forProject("project-" + (i % projects));
+
+        results.add(executor.submit(() -> {
+          final long releaseStart = System.nanoTime();
+          releaseServiceFactory.apply(client).createReleaseOperation(metadata, archive.toString());
+
+          return System.nanoTime() - releaseStart;
+        }));
+      }
+
+      final long[] latencies = new long[releases];
+      int succeeded = 0;
+      Throwable firstFailure = null;
+
+      for (Future<Long> result : results) {
+        try {
+          latencies[succeeded] = result.get();
+          succeeded++;
+        } catch (ExecutionException e) {
+          if (firstFailure == null) {
+            firstFailure = e.getCause();
+          }
+        }
+      }
+
+      return new Report(Arrays.copyOf(latencies, succeeded), releases - succeeded,
+          System.nanoTime() - start, firstFailure);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Create an addon archive with incompressible content.
+   *
+   * @param file The archive to create
+   * @param size The approximate size in bytes
+   * @throws IOException If the archive cannot be written
+   */
+  public static void createArchive(Path file, int size) throws IOException {
+    final byte[] content = new byte[size];
+    new Random(size).nextBytes(content);
+
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(file))) {
+      out.setLevel(0);
+      out.putNextEntry(new ZipEntry("LoadTest/LoadTest.toc"));
+      out.write("## Interface: 100207\n".getBytes("UTF-8"));
+      out.putNextEntry(new ZipEntry("LoadTest/media.blp"));
+      out.write(content);
+      out.closeEntry();
+    }
+  }
+
+  /**
+   * Run the harness against a stub.
+   *
+   * @param args releases, concurrency, archive size in KB and stub latency in ms
+   * @throws Exception If the harness fails
+   */
+  public static void main(String[] args) throws Exception {
+    final int releases = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+    final int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+    final int archiveSize = (args.length > 2 ? Integer.parseInt(args[2]) : 256) * 1024;
+    final int latency = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+    final Path archive = Files.createTempFile("wago-load", ".zip");
+
+    try (WagoApiStub stub = WagoApiStub.start(concurrency);
+         HttpConnectionPool connectionPool = new HttpConnectionPool(concurrency, 30, 30)) {
+      stub.setLatency(latency / 2, latency * 3 / 2);
+      createArchive(archive, archiveSize);
+
+      final WagoClient wagoClient = new WagoClient();
+      wagoClient.setBaseUri(stub.getBaseUri());
+      wagoClient.setToken(WagoApiStub.TOKEN);
+      wagoClient.setConnectionPool(connectionPool);
+      wagoClient.setRateLimiter(null);
+
+      final LoadHarness harness = new LoadHarness(wagoClient, client -> {
+        final ReleaseService releaseService = new ReleaseService(client, new DefaultLog(1));
+        releaseService.setProgressInterval(0);
+        releaseService.setRetryPolicy(new RetryPolicy());
+        return releaseService;
+      });
+      harness.setReleases(releases);
+      harness.setConcurrency(concurrency);
+
+      final Metadata metadata = new Metadata();
+      metadata.setLabel("load-test");
+      metadata.setStability("beta");
+      metadata.setSupportedRetailPatch("10.2.7");
+
+      System.out.println(harness.run(metadata, archive).format(archiveSize));
+    } finally {
+      Files.deleteIfExists(archive);
+    }
+  }
+
+  /**
+   * Result of a load run.
+   */
+  public static final class Report {
+    // latencies of the successful releases in nanoseconds sorted ascending
+    private final long[] latencies;
+    private final int failures;
+    private final long elapsedNanos;
+    private final Throwable firstFailure;
+
+    private Report(long[] latencies, int failures, long elapsedNanos, Throwable firstFailure) {
+      this.latencies = latencies;
+      this.failures = failures;
+      this.elapsedNanos = elapsedNanos;
+      this.firstFailure = firstFailure;
+      Arrays.sort(this.latencies);
+    }
+
+    public int getSucceeded() {
+      return latencies.length;
+    }
+
+    public int getFailures() {
+      return failures;
+    }
+
+    public Throwable getFirstFailure() {
+      return firstFailure;
+    }
+
+    public long getElapsedMillis() {
+      return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    /**
+     * Successful releases per second.
+     *
+     * @return The throughput
+     */
+    public double getThroughput() {
+      return latencies.length / (elapsedNanos / 1e9);
+    }
+
+    /**
+     * The latency below which the given share of the successful releases finished.
+     *
+     * @param percentile The percentile between 0 and 100
+     * @return The latency in milliseconds or 0 without successful releases
+     */
+    public double getLatencyMillis(double percentile) {
+      if (latencies.length == 0) {
+        return 0;
+      }
+
+      final int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+
+      return latencies[Math.max(0, Math.min(index, latencies.length - 1))] / 1e6;
+    }
+
+    /**
+     * Format the report including the transferred data rate.
+     *
+     * @param archiveSize The size of the uploaded archive in bytes
+     * @return The formatted report
+     */
+    public String format(long archiveSize) {
+      return toString() + String.format(" %.1f MB/s",
+          getThroughput() * archiveSize / (1024 * 1024));
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%d releases (%d failed) in %d ms - %.1f releases/s, latency "
+              + "p50 %.1f ms, p90 %.1f ms, p99 %.1f ms, max %.1f ms", latencies.length + failures,
+          failures, getElapsedMillis(), getThroughput(), getLatencyMillis(50),
+          getLatencyMillis(90), getLatencyMillis(99), getLatencyMillis(100));
+    }
+  }
+}
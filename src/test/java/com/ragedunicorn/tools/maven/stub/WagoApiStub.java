@@ -0,0 +1,572 @@
+package com.ragedunicorn.tools.maven.stub;
+
+import com.google.common.io.ByteStreams;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.ragedunicorn.tools.maven.model.Errors;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import com.ragedunicorn.tools.maven.model.WagoApiClientError;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Embeddable stand-in for the {@code /api/projects/:projectId/version} endpoint of the Wago.io
+ * Api. Requests are authenticated with a bearer token, the multipart body is parsed and the
+ * metadata is validated like the Api does. Failures are answered with the same
+ * {@link WagoApiClientError} shapes. Latency, throttling and errors can be injected to test the
+ * client under adverse conditions.
+ */
+public class WagoApiStub implements AutoCloseable {
+  public static final String TOKEN = "stub-token";
+  public static final String INVALID_DATA = "The given data was invalid.";
+
+  private static final Gson GSON = new Gson();
+  private static final Pattern PATH = Pattern.compile("^/api/projects/([^/]+)/version/?$");
+  private static final Pattern PATCH = Pattern.compile("^\\d+\\.\\d+\\.\\d+$");
+  private static final Pattern BOUNDARY = Pattern.compile("boundary=\"?([^\";]+)\"?");
+  private static final Pattern NAME = Pattern.compile("(?:^|;)\\s*name=\"([^\"]*)\"");
+  private static final Pattern FILENAME = Pattern.compile("filename=\"([^\"]*)\"");
+  private static final Set<String> STABILITIES =
+      Collections.unmodifiableSet(new HashSet<>(Arrays.asList("stable", "beta", "alpha")));
+  private static final byte[] ZIP_SIGNATURE = {'P', 'K', 3, 4};
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+  // responses answered before any validation in order
+  private final Queue<Response> scriptedResponses = new ConcurrentLinkedQueue<>();
+  private final List<Release> releases = new CopyOnWriteArrayList<>();
+  private final AtomicInteger requests = new AtomicInteger();
+  private final AtomicInteger throttled = new AtomicInteger();
+  private final AtomicInteger failed = new AtomicInteger();
+  // requests being handled at the moment and the highest amount seen
+  private final AtomicInteger activeRequests = new AtomicInteger();
+  private final AtomicInteger maxActiveRequests = new AtomicInteger();
+
+  private volatile String token = TOKEN;
+  private volatile long minLatency;
+  private volatile long maxLatency;
+  // share of requests answered with 500
+  private volatile double errorRate;
+  // requests accepted per second - 0 accepts all requests
+  private volatile int requestsPerSecond;
+  // value of the Retry-After header of throttled requests
+  private volatile int retryAfter = 1;
+  private long windowStart;
+  private int windowRequests;
+
+  private WagoApiStub(int threads) throws IOException {
+    executor = Executors.newFixedThreadPool(threads);
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/api/projects/", this::handle);
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  /**
+   * Start a stub on a free local port.
+   *
+   * @return The started stub
+   * @throws IOException If the server cannot be started
+   */
+  public static WagoApiStub start() throws IOException {
+    return start(16);
+  }
+
+  /**
+   * Start a stub on a free local port.
+   *
+   * @param threads The amount of requests handled concurrently
+   * @return The started stub
+   * @throws IOException If the server cannot be started
+   */
+  public static WagoApiStub start(int threads) throws IOException {
+    return new WagoApiStub(threads);
+  }
+
+  /**
+   * The base uri to configure on a {@link com.ragedunicorn.tools.maven.WagoClient}.
+   *
+   * @return The base uri including the projectId placeholder
+   */
+  public String getBaseUri() {
+    return "http://localhost:" + server.getAddress().getPort()
+        + "/api/projects/:projectId/version";
+  }
+
+  public void setToken(String token) {
+    this.token = token;
+  }
+
+  /**
+   * Delay every response by a random time between min and max.
+   *
+   * @param minLatency The minimum delay in milliseconds
+   * @param maxLatency The maximum delay in milliseconds
+   */
+  public void setLatency(long minLatency, long maxLatency) {
+    this.minLatency = minLatency;
+    this.maxLatency = Math.max(minLatency, maxLatency);
+  }
+
+  public void setErrorRate(double errorRate) {
+    this.errorRate = errorRate;
+  }
+
+  public void setRequestsPerSecond(int requestsPerSecond) {
+    this.requestsPerSecond = requestsPerSecond;
+  }
+
+  public void setRetryAfter(int retryAfter) {
+    this.retryAfter = retryAfter;
+  }
+
+  /**
+   * Answer the next request with a fixed response regardless of its content.
+   *
+   * @param status The status of the response
+   * @param body   The body of the response
+   */
+  public void enqueue(int status, String body) {
+    scriptedResponses.add(new Response(status, body));
+  }
+
+  /**
+   * A validation error like it is answered by the Wago.io Api.
+   *
+   * @param errors The errors per field
+   * @return The json body
+   */
+  public static String validationError(Errors errors) {
+    final WagoApiClientError error = new WagoApiClientError();
+    error.setMessage(INVALID_DATA);
+    error.setErrors(errors);
+
+    return GSON.toJson(error);
+  }
+
+  public List<Release> getReleases() {
+    return Collections.unmodifiableList(releases);
+  }
+
+  public int getRequests() {
+    return requests.get();
+  }
+
+  public int getThrottled() {
+    return throttled.get();
+  }
+
+  public int getFailed() {
+    return failed.get();
+  }
+
+  public int getMaxActiveRequests() {
+    return maxActiveRequests.get();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    requests.incrementAndGet();
+    maxActiveRequests.accumulateAndGet(activeRequests.incrementAndGet(), Math::max);
+
+    try (InputStream in = new BufferedInputStream(exchange.getRequestBody(), 64 * 1024)) {
+      final Response response;
+
+      try {
+        delay();
+        response = process(exchange, in);
+        ByteStreams.exhaust(in);
+      } finally {
+        // the client may start its next request as soon as the response arrives
+        activeRequests.decrementAndGet();
+      }
+
+      if (response.status != 201) {
+        failed.incrementAndGet();
+      }
+      respond(exchange, response);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private Response process(HttpExchange exchange, InputStream in) throws IOException {
+    final Matcher path = PATH.matcher(exchange.getRequestURI().getPath());
+
+    if (!path.matches()) {
+      return new Response(404, "{\"message\":\"Not Found\"}");
+    }
+    if (!"POST".equals(exchange.getRequestMethod())) {
+      return new Response(405, "{\"message\":\"The " + exchange.getRequestMethod()
+          + " method is not supported for this route.\"}");
+    }
+    if (!("Bearer " + token).equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+      return new Response(401, "{\"message\":\"Unauthenticated.\"}");
+    }
+    if (!tryAcquire()) {
+      throttled.incrementAndGet();
+      return new Response(429, "{\"message\":\"Too Many Attempts.\"}");
+    }
+
+    final Response scripted = scriptedResponses.poll();
+
+    if (scripted != null) {
+      return scripted;
+    }
+    if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+      return new Response(500, "{\"message\":\"Server Error\"}");
+    }
+
+    final String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+    final Matcher boundary = BOUNDARY.matcher(contentType == null ? "" : contentType);
+
+    if (contentType == null || !contentType.startsWith("multipart/form-data")
+        || !boundary.find()) {
+      final Errors errors = new Errors();
+      errors.setFile(Collections.singletonList("The file field is required."));
+      return new Response(422, validationError(errors));
+    }
+
+    try {
+      return receive(path.group(1), new MultipartReader(in, boundary.group(1)));
+    } catch (IOException e) {
+      return new Response(400, "{\"message\":\"Malformed multipart body: " + e.getMessage()
+          + "\"}");
+    }
+  }
+
+  private Response receive(String projectId, MultipartReader reader) throws IOException {
+    final Release release = new Release(projectId);
+    String metadataJson = null;
+    byte[] signature = null;
+    boolean hasNext = reader.start();
+
+    while (hasNext) {
+      final Map<String, String> headers = reader.readHeaders();
+      final String disposition = headers.getOrDefault("content-disposition", "");
+      final Matcher name = NAME.matcher(disposition);
+      final String partName = name.find() ? name.group(1) : "";
+
+      if ("file".equals(partName)) {
+        final Matcher filename = FILENAME.matcher(disposition);
+        final FileSink file = new FileSink();
+        hasNext = reader.readBody(file);
+        release.fileName = filename.find() ? filename.group(1) : null;
+        release.fileSize = file.size;
+        release.crc = file.crc.getValue();
+        signature = file.signature;
+      } else {
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        hasNext = reader.readBody(content);
+
+        if ("metadata".equals(partName)) {
+          metadataJson = new String(content.toByteArray(), StandardCharsets.UTF_8);
+        }
+      }
+    }
+
+    final Errors errors = new Errors();
+
+    try {
+      release.metadata = metadataJson == null ? null : GSON.fromJson(metadataJson, Metadata.class);
+    } catch (JsonParseException e) {
+      errors.setMetadata(Collections.singletonList("The metadata must be a valid JSON string."));
+    }
+    if (metadataJson == null) {
+      errors.setMetadata(Collections.singletonList("The metadata field is required."));
+    } else if (release.metadata != null) {
+      validate(release.metadata, errors);
+    }
+    if (signature == null) {
+      errors.setFile(Collections.singletonList("The file field is required."));
+    } else if (!Arrays.equals(signature, ZIP_SIGNATURE)) {
+      errors.setFile(Collections.singletonList("The file must be a file of type: zip."));
+    }
+
+    if (!errors.equals(new Errors())) {
+      return new Response(422, validationError(errors));
+    }
+
+    releases.add(release);
+
+    return new Response(201, "OK");
+  }
+
+  private static void validate(Metadata metadata, Errors errors) {
+    if (metadata.getStability() == null || metadata.getStability().isEmpty()) {
+      errors.setStability(Collections.singletonList("The stability field is required."));
+    } else if (!STABILITIES.contains(metadata.getStability())) {
+      errors.setStability(Collections.singletonList("The selected stability is invalid."));
+    }
+
+    final String retail = metadata.getSupportedRetailPatch();
+    final String wotlkc = metadata.getSupportedWotlkcPatch();
+    final String bcc = metadata.getSupportedBccPatch();
+    final String classic = metadata.getSupportedClassicPatch();
+
+    if (isEmpty(retail) && isEmpty(wotlkc) && isEmpty(bcc) && isEmpty(classic)) {
+      errors.setSupportedRetailPatch(Collections.singletonList("The supported retail patch field "
+          + "is required when none of supported wotlk patch / supported bc patch / supported "
+          + "classic patch are present."));
+      return;
+    }
+
+    errors.setSupportedRetailPatch(checkPatch(retail, "retail"));
+    errors.setSupportedWotlkcPatch(checkPatch(wotlkc, "wotlk"));
+    errors.setSupportedBccPatch(checkPatch(bcc, "bc"));
+    errors.setSupportedClassicPatch(checkPatch(classic, "classic"));
+  }
+
+  private static List<String> checkPatch(String patch, String client) {
+    if (isEmpty(patch) || PATCH.matcher(patch).matches()) {
+      return null;
+    }
+
+    return Collections.singletonList("The selected supported " + client + " patch is invalid.");
+  }
+
+  private static boolean isEmpty(String value) {
+    return value == null || value.isEmpty();
+  }
+
+  private void delay() throws InterruptedException {
+    if (maxLatency > 0) {
+      TimeUnit.MILLISECONDS.sleep(minLatency == maxLatency
+          ? minLatency : ThreadLocalRandom.current().nextLong(minLatency, maxLatency + 1));
+    }
+  }
+
+  private synchronized boolean tryAcquire() {
+    if (requestsPerSecond <= 0) {
+      return true;
+    }
+
+    final long now = System.nanoTime();
+
+    if (now - windowStart >= TimeUnit.SECONDS.toNanos(1)) {
+      windowStart = now;
+      windowRequests = 0;
+    }
+
+    return ++windowRequests <= requestsPerSecond;
+  }
+
+  private void respond(HttpExchange exchange, Response response) throws IOException {
+    final byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+
+    if (response.status == 429) {
+      exchange.getResponseHeaders().add("Retry-After", String.valueOf(retryAfter));
+    }
+    exchange.getResponseHeaders().add("Content-Type", response.status == 201
+        ? "text/plain; charset=utf-8" : "application/json");
+    exchange.sendResponseHeaders(response.status, body.length);
+
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  /**
+   * A release accepted by the stub.
+   */
+  public static final class Release {
+    private final String projectId;
+    private Metadata metadata;
+    private String fileName;
+    private long fileSize;
+    private long crc;
+
+    private Release(String projectId) {
+      this.projectId = projectId;
+    }
+
+    public String getProjectId() {
+      return projectId;
+    }
+
+    public Metadata getMetadata() {
+      return metadata;
+    }
+
+    public String getFileName() {
+      return fileName;
+    }
+
+    public long getFileSize() {
+      return fileSize;
+    }
+
+    public long getCrc() {
+      return crc;
+    }
+  }
+
+  private static final class Response {
+    private final int status;
+    private final String body;
+
+    private Response(int status, String body) {
+      this.status = status;
+      this.body = body;
+    }
+  }
+
+  /**
+   * Keeps the size, checksum and first bytes of an uploaded file without buffering it.
+   */
+  private static final class FileSink extends OutputStream {
+    private final CRC32 crc = new CRC32();
+    private final byte[] signature = new byte[ZIP_SIGNATURE.length];
+    private long size;
+
+    @Override
+    public void write(int b) {
+      if (size < signature.length) {
+        signature[(int) size] = (byte) b;
+      }
+      crc.update(b);
+      size++;
+    }
+  }
+
+  /**
+   * Streaming reader of a multipart/form-data body.
+   */
+  private static final class MultipartReader {
+    private final InputStream in;
+    private final String boundary;
+    // delimiter in front of every following part - the leading cr does not occur again
+    private final byte[] delimiter;
+
+    private MultipartReader(InputStream in, String boundary) {
+      this.in = in;
+      this.boundary = boundary;
+      this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Skip the preamble up to the first part.
+     *
+     * @return True if a part follows
+     * @throws IOException If the body does not start with the boundary
+     */
+    private boolean start() throws IOException {
+      String line;
+
+      do {
+        line = readLine();
+        if (line == null) {
+          throw new IOException("missing boundary");
+        }
+      } while (!line.startsWith("--" + boundary));
+
+      return !line.equals("--" + boundary + "--");
+    }
+
+    private Map<String, String> readHeaders() throws IOException {
+      final Map<String, String> headers = new HashMap<>();
+      String line;
+
+      while ((line = readLine()) != null && !line.isEmpty()) {
+        final int separator = line.indexOf(':');
+
+        if (separator > 0) {
+          headers.put(line.substring(0, separator).trim().toLowerCase(Locale.ROOT),
+              line.substring(separator + 1).trim());
+        }
+      }
+      if (line == null) {
+        throw new IOException("unexpected end of part headers");
+      }
+
+      return headers;
+    }
+
+    /**
+     * Copy the content of the current part to a sink.
+     *
+     * @param sink Receives the content
+     * @return True if another part follows
+     * @throws IOException If the body ends before the part
+     */
+    private boolean readBody(OutputStream sink) throws IOException {
+      int matched = 0;
+      int b;
+
+      while ((b = in.read()) != -1) {
+        if (b == (delimiter[matched] & 0xFF)) {
+          if (++matched == delimiter.length) {
+            final String rest = readLine();
+
+            if (rest == null) {
+              throw new IOException("unexpected end after boundary");
+            }
+            return !rest.startsWith("--");
+          }
+          continue;
+        }
+        if (matched > 0) {
+          sink.write(delimiter, 0, matched);
+          matched = b == (delimiter[0] & 0xFF) ? 1 : 0;
+          if (matched == 1) {
+            continue;
+          }
+        }
+        sink.write(b);
+      }
+
+      throw new IOException("unexpected end of part content");
+    }
+
+    private String readLine() throws IOException {
+      final ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+      int b;
+
+      while ((b = in.read()) != -1 && b != '\n') {
+        line.write(b);
+      }
+      if (b == -1 && line.size() == 0) {
+        return null;
+      }
+
+      final byte[] bytes = line.toByteArray();
+      final int length = bytes.length > 0 && bytes[bytes.length - 1] == '\r'
+          ? bytes.length - 1 : bytes.length;
+
+      return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+  }
+}
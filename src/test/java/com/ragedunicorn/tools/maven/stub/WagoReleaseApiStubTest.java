@@ -0,0 +1,153 @@
+package com.ragedunicorn.tools.maven.stub;
+
+import com.ragedunicorn.tools.maven.WagoClient;
+import com.ragedunicorn.tools.maven.log.DefaultLog;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import com.ragedunicorn.tools.maven.service.ReleaseService;
+import com.ragedunicorn.tools.maven.service.RetryPolicy;
+import com.ragedunicorn.tools.maven.service.WagoApiException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+public class WagoReleaseApiStubTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private WagoApiStub stub;
+  private Path archive;
+
+  @Before
+  public void setUp() throws Exception {
+    stub = WagoApiStub.start(4);
+    archive = temporaryFolder.getRoot().toPath().resolve("addon.zip");
+    LoadHarness.createArchive(archive, 32 * 1024);
+  }
+
+  @After
+  public void tearDown() {
+    stub.close();
+  }
+
+  @Test
+  public void testReleaseIsParsed() throws Exception {
+    Metadata metadata = createMetadata();
+    metadata.setChangelog("## v1.0.0\r\n\r\n* --boundary like \"content\"");
+
+    Assert.assertTrue(createReleaseService("test-project", WagoApiStub.TOKEN)
+        .createReleaseOperation(metadata, archive.toString()));
+
+    Assert.assertEquals(1, stub.getReleases().size());
+    WagoApiStub.Release release = stub.getReleases().get(0);
+    CRC32 crc = new CRC32();
+    crc.update(Files.readAllBytes(archive));
+
+    Assert.assertEquals("test-project", release.getProjectId());
+    Assert.assertEquals(metadata, release.getMetadata());
+    Assert.assertEquals("addon", release.getFileName());
+    Assert.assertEquals(Files.size(archive), release.getFileSize());
+    Assert.assertEquals(crc.getValue(), release.getCrc());
+  }
+
+  @Test
+  public void testInvalidMetadataIsRejected() throws Exception {
+    Metadata metadata = createMetadata();
+    metadata.setStability("nightly");
+    metadata.setSupportedClassicPatch("latest");
+
+    try {
+      createReleaseService("test-project", WagoApiStub.TOKEN)
+          .createReleaseOperation(metadata, archive.toString());
+      Assert.fail("Expected release to fail");
+    } catch (WagoApiException e) {
+      Assert.assertEquals(422, e.getStatusCode());
+      Assert.assertTrue(e.getMessage().contains(WagoApiStub.INVALID_DATA));
+      Assert.assertTrue(e.getMessage().contains("stability=[The selected stability is invalid.]"));
+      Assert.assertTrue(e.getMessage().contains(
+          "supportedClassicPatch=[The selected supported classic patch is invalid.]"));
+    }
+
+    Path text = temporaryFolder.newFile("addon.txt").toPath();
+    Files.write(text, "not a zip".getBytes(StandardCharsets.UTF_8));
+
+    try {
+      createReleaseService("test-project", WagoApiStub.TOKEN)
+          .createReleaseOperation(createMetadata(), text.toString());
+      Assert.fail("Expected release to fail");
+    } catch (WagoApiException e) {
+      Assert.assertTrue(e.getMessage().contains("file=[The file must be a file of type: zip.]"));
+    }
+
+    Assert.assertTrue(stub.getReleases().isEmpty());
+  }
+
+  @Test
+  public void testInjectedFailuresAreRetried() throws Exception {
+    stub.enqueue(503, "<html><body>Service Unavailable</body></html>");
+    // the retry after the 503 is throttled and waits for the next second as requested
+    stub.setRequestsPerSecond(1);
+
+    Assert.assertTrue(createReleaseService("test-project", WagoApiStub.TOKEN)
+        .createReleaseOperation(createMetadata(), archive.toString()));
+
+    Assert.assertTrue(stub.getThrottled() >= 1);
+    Assert.assertTrue(stub.getRequests() >= 3);
+    Assert.assertEquals(stub.getRequests() - 1, stub.getFailed());
+    Assert.assertEquals(1, stub.getReleases().size());
+  }
+
+  @Test
+  public void testUnauthenticatedIsNotRetried() throws Exception {
+    stub.setLatency(50, 50);
+    long start = System.nanoTime();
+
+    try {
+      createReleaseService("test-project", "wrong-token")
+          .createReleaseOperation(createMetadata(), archive.toString());
+      Assert.fail("Expected release to fail");
+    } catch (WagoApiException e) {
+      Assert.assertEquals(401, e.getStatusCode());
+      Assert.assertTrue(e.getMessage().contains("Unauthenticated."));
+    }
+
+    Assert.assertEquals(1, stub.getRequests());
+    Assert.assertTrue(System.nanoTime() - start >= 50_000_000L);
+  }
+
+  private ReleaseService createReleaseService(String projectId, String token) {
+    WagoClient wagoClient = new WagoClient();
+    wagoClient.setBaseUri(stub.getBaseUri());
+    wagoClient.setProjectId(projectId);
+    wagoClient.setToken(token);
+    wagoClient.setRateLimiter(null);
+
+    RetryPolicy retryPolicy = new RetryPolicy();
+    retryPolicy.setMaxAttempts(10);
+    retryPolicy.setBaseDelay(50);
+    retryPolicy.setMaxDelay(200);
+
+    ReleaseService releaseService = new ReleaseService(wagoClient, new DefaultLog(0));
+    releaseService.setRetryPolicy(retryPolicy);
+    releaseService.setProgressInterval(0);
+
+    return releaseService;
+  }
+
+  private static Metadata createMetadata() {
+    Metadata metadata = new Metadata();
+    metadata.setLabel("addon");
+    metadata.setStability("stable");
+    metadata.setChangelog("changelog");
+    metadata.setSupportedRetailPatch("10.2.7");
+
+    return metadata;
+  }
+}
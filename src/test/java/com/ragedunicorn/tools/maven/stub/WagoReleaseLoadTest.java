@@ -0,0 +1,108 @@
+package com.ragedunicorn.tools.maven.stub;
+
+import com.ragedunicorn.tools.maven.WagoClient;
+import com.ragedunicorn.tools.maven.http.HttpConnectionPool;
+import com.ragedunicorn.tools.maven.http.RateLimiter;
+import com.ragedunicorn.tools.maven.log.DefaultLog;
+import com.ragedunicorn.tools.maven.model.Metadata;
+import com.ragedunicorn.tools.maven.service.ReleaseService;
+import com.ragedunicorn.tools.maven.service.RetryPolicy;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+
+public class WagoReleaseLoadTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private WagoApiStub stub;
+  private HttpConnectionPool connectionPool;
+  private Path archive;
+
+  @Before
+  public void setUp() throws Exception {
+    stub = WagoApiStub.start(16);
+    connectionPool = new HttpConnectionPool(16, 30, 30);
+    archive = temporaryFolder.getRoot().toPath().resolve("addon.zip");
+    LoadHarness.createArchive(archive, 64 * 1024);
+  }
+
+  @After
+  public void tearDown() {
+    connectionPool.close();
+    stub.close();
+  }
+
+  @Test
+  public void testConcurrentReleases() throws Exception {
+    stub.setLatency(5, 15);
+    LoadHarness harness = createHarness(null);
+    harness.setReleases(200);
+    harness.setConcurrency(16);
+
+    LoadHarness.Report report = harness.run(createMetadata(), archive);
+    System.out.println(report.format(64 * 1024));
+
+    Assert.assertEquals(0, report.getFailures());
+    Assert.assertEquals(200, report.getSucceeded());
+    Assert.assertEquals(200, stub.getReleases().size());
+    Assert.assertTrue(report.getLatencyMillis(50) >= 5);
+    Assert.assertTrue(report.getLatencyMillis(50) <= report.getLatencyMillis(99));
+    Assert.assertTrue(report.getThroughput() > 0);
+    // connections are reused by the releases
+    Assert.assertTrue(connectionPool.getCreated() <= 16);
+  }
+
+  @Test
+  public void testThrottledReleasesAdaptTheRate() throws Exception {
+    stub.setRequestsPerSecond(25);
+    stub.setRetryAfter(0);
+    RateLimiter rateLimiter = new RateLimiter(40, 10);
+    LoadHarness harness = createHarness(rateLimiter);
+    harness.setReleases(30);
+    harness.setConcurrency(4);
+
+    LoadHarness.Report report = harness.run(createMetadata(), archive);
+    System.out.println(report + " - " + rateLimiter);
+
+    Assert.assertEquals(report.getFirstFailure() + "", 0, report.getFailures());
+    Assert.assertEquals(30, stub.getReleases().size());
+    Assert.assertTrue(stub.getThrottled() > 0);
+    Assert.assertEquals(stub.getThrottled(), rateLimiter.getThrottled());
+  }
+
+  private LoadHarness createHarness(RateLimiter rateLimiter) {
+    WagoClient wagoClient = new WagoClient();
+    wagoClient.setBaseUri(stub.getBaseUri());
+    wagoClient.setToken(WagoApiStub.TOKEN);
+    wagoClient.setConnectionPool(connectionPool);
+    wagoClient.setRateLimiter(rateLimiter);
+
+    return new LoadHarness(wagoClient, client -> {
+      RetryPolicy retryPolicy = new RetryPolicy();
+      retryPolicy.setMaxAttempts(20);
+      retryPolicy.setBaseDelay(20);
+      retryPolicy.setMaxDelay(500);
+
+      ReleaseService releaseService = new ReleaseService(client, new DefaultLog(0));
+      releaseService.setRetryPolicy(retryPolicy);
+      releaseService.setProgressInterval(0);
+
+      return releaseService;
+    });
+  }
+
+  private static Metadata createMetadata() {
+    Metadata metadata = new Metadata();
+    metadata.setLabel("load-test");
+    metadata.setStability("beta");
+    metadata.setSupportedRetailPatch("10.2.7");
+
+    return metadata;
+  }
+}